@@ -1,10 +1,26 @@
 package com.ecommerce;
 
 import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.StringArena;
+import com.ecommerce.datastructures.TopKCounter;
 import com.ecommerce.models.*;
+import com.ecommerce.replication.ReplicationFollower;
+import com.ecommerce.replication.ReplicationPrimary;
 import com.ecommerce.services.*;
+import com.ecommerce.storage.BufferPool;
+import com.ecommerce.storage.DiskOrderStore;
 import com.ecommerce.utils.CSVReader;
+import com.ecommerce.utils.ColumnarFile;
+import com.ecommerce.utils.LazyReviewLoader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 /**
  * Main application demonstrating all functionality with complexity analysis
@@ -17,7 +33,7 @@ public class Main {
         ProductService productService = new ProductService();
         OrderService orderService = new OrderService();
         CustomerService customerService = new CustomerService(productService, orderService);
-        AnalyticsService analyticsService = new AnalyticsService(productService);
+        AnalyticsService analyticsService = new AnalyticsService(productService, orderService);
         
         /* String dataPath = "../python-api/data/"; */
 	String dataPath = "./data/";
@@ -35,6 +51,15 @@ public class Main {
         demonstrateOrderOperations(orderService, customerService, productService);
         demonstrateReviewOperations(productService, customerService);
         demonstrateAnalytics(analyticsService, customerService, orderService);
+        demonstrateQueryCache(productService, orderService, analyticsService);
+        demonstrateOrderPipeline(customerService, productService, orderService);
+        demonstrateCompactStores(dataPath);
+        demonstrateLazyReviews(dataPath);
+        demonstrateDiskOrderStore(dataPath);
+        demonstrateColumnarExchange(dataPath, productService, customerService, orderService);
+        demonstrateShardedEngine(productService, customerService, orderService);
+        demonstrateReplication(productService, customerService, orderService);
+        demonstrateFlightRecorderEvents(dataPath);
         
         System.out.println("\n=== Time Complexity Analysis ===\n");
         printComplexityAnalysis();
@@ -66,6 +91,15 @@ public class Main {
         ArrayList<Product> outOfStock = productService.getOutOfStockProducts();
         System.out.println("Out of stock products: " + outOfStock.size());
         
+        System.out.println("\n6. Filter In-Stock Products ($20-$100, rating >= 4):");
+        ProductFilter filter = new ProductFilter().priceBetween(20, 100).inStock().minRating(4);
+        System.out.println("Plan: " + productService.explainFilter(filter));
+        ArrayList<Product> filtered = productService.filterProducts(filter);
+        for (int i = 0; i < filtered.size() && i < 5; i++) {
+            System.out.println("  " + filtered.get(i));
+        }
+        System.out.println("Matches: " + filtered.size());
+        
         System.out.println();
     }
     
@@ -124,6 +158,40 @@ public class Main {
             System.out.println("  " + ordersInRange.get(i));
         }
         
+        System.out.println("\n4. Revenue Rollup:");
+        RevenueRollup rollup = orderService.getRevenueRollup();
+        System.out.println("Revenue " + startDate + " to " + endDate + ": $" + 
+                         String.format("%.2f", rollup.getRevenue(startDate, endDate)) +
+                         " across " + rollup.getOrderCount(startDate, endDate) + " orders");
+        ArrayList<RevenueRollup.Bucket> months = rollup.getBuckets(RevenueRollup.Granularity.MONTH, null,
+                                                                   startDate, endDate);
+        for (int i = 0; i < months.size(); i++) {
+            System.out.println("  " + months.get(i));
+        }
+        
+        System.out.println("\n5. Latest Orders for Customer 201:");
+        ArrayList<Order> latest = orderService.getLatestOrdersByCustomer(201, 3);
+        for (int i = 0; i < latest.size(); i++) {
+            System.out.println("  " + latest.get(i));
+        }
+        System.out.println("Customer 201 total: $" + String.format("%.2f", orderService.getCustomerOrderTotal(201)) +
+                         " across " + orderService.getCustomerOrderCount(201) + " orders");
+        
+        System.out.println("\n6. Paged Delivered Orders (newest first, 2 per page):");
+        Page<Order> page = orderService.getOrdersByStatus(Order.OrderStatus.DELIVERED, 2, null,
+                                                          Page.SortOrder.DESCENDING);
+        for (int pageNumber = 1; pageNumber <= 2; pageNumber++) {
+            System.out.println("Page " + pageNumber + ":");
+            for (int i = 0; i < page.size(); i++) {
+                System.out.println("  " + page.getItems().get(i));
+            }
+            if (!page.hasMore()) {
+                break;
+            }
+            page = orderService.getOrdersByStatus(Order.OrderStatus.DELIVERED, 2, page.getNextPageToken(),
+                                                  Page.SortOrder.DESCENDING);
+        }
+        
         System.out.println();
     }
     
@@ -139,13 +207,15 @@ public class Main {
         System.out.println("\n2. Edit Review:");
         boolean edited = productService.editReview(102, 402, 5, "Excellent mouse, highly recommend!");
         System.out.println("Review edited: " + edited);
+        System.out.println("Comment arena: " + productService.getCommentArena().getLiveBytes() + " live bytes, "
+                + productService.getCommentArena().getRetiredBytes() + " retired bytes off-heap");
         
         System.out.println("\n3. Get Average Rating for Product:");
         Product product = productService.searchById(101);
         if (product != null) {
             System.out.println("Product: " + product.getName());
             System.out.println("Average Rating: " + String.format("%.2f", product.getAverageRating()));
-            System.out.println("Total Reviews: " + product.getReviews().size());
+            System.out.println("Total Reviews: " + product.getReviewCount());
         }
         
         System.out.println("\n4. Extract Reviews from Specific Customer:");
@@ -178,12 +248,424 @@ public class Main {
             System.out.println("  " + commonProducts.get(i).getName());
         }
         
-        System.out.println("\n3. Inventory Report:");
+        System.out.println("\n3. Best Sellers by Units Sold:");
+        BestSellerTracker bestSellers = orderService.getBestSellers();
+        ArrayList<TopKCounter.Entry> allTime = bestSellers.getTopSellers(3);
+        for (int i = 0; i < allTime.size(); i++) {
+            System.out.println("  #" + (i + 1) + ": product " + allTime.get(i).getKey() +
+                             " (" + allTime.get(i).getCount() + " units)");
+        }
+        ArrayList<TopKCounter.Entry> lastWeek = bestSellers.getTopSellers(3,
+                LocalDate.now().minusDays(6), LocalDate.now());
+        System.out.print("  Last 7 days (estimated, " + bestSellers.getRetainedDayCount() + " days retained):");
+        for (int i = 0; i < lastWeek.size(); i++) {
+            System.out.print(" product " + lastWeek.get(i).getKey() + " (" + lastWeek.get(i).getCount() + ")");
+        }
+        System.out.println();
+        
+        System.out.println("\n4. Approximate Order Analytics (sketches):");
+        System.out.println("  Distinct buyers of product 101: " + analyticsService.estimateDistinctBuyers(101));
+        double[] percentiles = analyticsService.getOrderValuePercentiles(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31));
+        System.out.println("  Order value Q1 2025: p50=$" + String.format("%.2f", percentiles[0]) +
+                         ", p95=$" + String.format("%.2f", percentiles[1]) +
+                         ", p99=$" + String.format("%.2f", percentiles[2]));
+        System.out.println("  Sketch memory: " + orderService.getSketches().getMemoryBytes() + " bytes");
+        
+        System.out.println("\n5. Live Sales Metrics (orders placed by this run):");
+        SalesMetrics.Window[] windows = SalesMetrics.Window.values();
+        for (int i = 0; i < windows.length; i++) {
+            System.out.println("  " + orderService.getSalesMetrics().getStats(windows[i]));
+        }
+        
+        System.out.println("\n6. Inventory Report:");
         System.out.println(analyticsService.generateInventoryReport());
         
         System.out.println();
     }
     
+    private static void demonstrateQueryCache(ProductService productService,
+                                              OrderService orderService,
+                                              AnalyticsService analyticsService) {
+        System.out.println("--- Query Result Cache ---");
+        
+        QueryCacheService queryCache = new QueryCacheService(productService, orderService, analyticsService);
+        
+        System.out.println("\n1. Repeated Searches:");
+        for (int i = 0; i < 3; i++) {
+            queryCache.searchByName("Laptop");
+            queryCache.getTop3ProductsByRating();
+        }
+        System.out.println(queryCache.getStats());
+        
+        System.out.println("\n2. Search After Product Update:");
+        Product product = productService.searchById(101);
+        if (product != null) {
+            productService.updateProduct(101, product.getName(), product.getPrice(), product.getStock());
+        }
+        System.out.println("Results for 'Laptop': " + queryCache.searchByName("Laptop").size());
+        System.out.println(queryCache.getStats());
+        
+        System.out.println();
+    }
+    
+    private static void demonstrateOrderPipeline(CustomerService customerService,
+                                                 ProductService productService,
+                                                 OrderService orderService) {
+        System.out.println("--- Order Intake Pipeline ---");
+        
+        System.out.println("\n1. Submit Orders Asynchronously:");
+        try (OrderPipeline pipeline = new OrderPipeline(customerService, productService, orderService)) {
+            ArrayList<CompletableFuture<Order>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                ArrayList<Integer> productIds = new ArrayList<>();
+                productIds.add(102);
+                futures.add(pipeline.submitOrder(202, productIds));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                Order placed = futures.get(i).join();
+                System.out.println("  " + (placed != null ? "Order placed: " + placed : "Order rejected"));
+            }
+        }
+        
+        System.out.println();
+    }
+    
+    private static void demonstrateCompactStores(String dataPath) {
+        System.out.println("--- Compact Storage Mode ---");
+        
+        StringArena strings = new StringArena();
+        CompactProductStore products = new CompactProductStore(strings);
+        CompactCustomerStore customers = new CompactCustomerStore(strings);
+        CSVReader.loadProducts(dataPath + "products.csv", products);
+        CSVReader.loadCustomers(dataPath + "customers.csv", customers);
+        CSVReader.loadReviews(dataPath + "reviews.csv", products);
+        CompactOrderStore orders = new CompactOrderStore();
+        CSVReader.loadOrders(dataPath + "orders.csv", orders);
+        
+        System.out.println("\n1. Flyweight Lookup:");
+        CompactProductStore.View view = products.findById(101);
+        System.out.println("  " + (view != null ? view : "Product 101 not found"));
+        CompactOrderStore.View orderView = orders.findById(301);
+        System.out.println("  " + (orderView != null ? orderView : "Order 301 not found"));
+        
+        System.out.println("\n2. Column Scans:");
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        int[] january = orders.getOrdersBetweenDates(start, end);
+        System.out.println("  Orders in January 2025: " + january.length);
+        if (january.length > 0) {
+            // One view walks every matching slot
+            CompactOrderStore.View cursor = orders.view(january[0]);
+            int items = 0;
+            for (int i = 0; i < january.length; i++) {
+                items += cursor.moveTo(january[i]).getProductCount();
+            }
+            System.out.println("  Items in January orders: " + items);
+        }
+        System.out.println("  Revenue in January 2025: $" + String.format("%.2f", orders.getRevenueBetweenDates(start, end)));
+        System.out.println("  Orders containing product 101: " + orders.countOrdersContaining(101));
+        
+        System.out.println("\n3. Footprint:");
+        System.out.println("  Distinct strings: " + strings.size());
+        System.out.println("  Estimated bytes: " + (products.estimatedBytes() + customers.estimatedBytes() + strings.estimatedBytes()));
+        System.out.println("  Estimated order bytes: " + orders.estimatedBytes());
+        System.out.println("  Off-heap product and review bytes: " + products.offHeapBytes());
+        
+        System.out.println("\n4. Product Store Dump:");
+        Path file = null;
+        try {
+            file = Files.createTempFile("products", ".store");
+            products.save(file);
+            CompactProductStore reloaded = CompactProductStore.load(file, new StringArena());
+            System.out.println("  Saved and reloaded " + reloaded.size() + " products and " +
+                             reloaded.getReviewCount() + " reviews (" + Files.size(file) + " bytes on disk)");
+            CompactProductStore.View reloadedProduct = reloaded.findById(101);
+            if (reloadedProduct != null) {
+                ArrayList<Review> reloadedReviews = reloadedProduct.getReviews();
+                System.out.println("  Reloaded product 101: " + reloadedProduct.getName() +
+                                 (reloadedReviews.isEmpty() ? "" : ", first review: \"" + reloadedReviews.get(0).getComment() + "\""));
+            }
+        } catch (IOException e) {
+            System.out.println("  Store dump unavailable: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Temporary file; the OS cleans it up eventually
+                }
+            }
+        }
+        
+        System.out.println();
+    }
+    
+    private static void demonstrateLazyReviews(String dataPath) {
+        System.out.println("--- Lazy Review Loading ---");
+        
+        ProductService lazyProducts = new ProductService();
+        CSVReader.loadProducts(dataPath + "products.csv", lazyProducts);
+        LazyReviewLoader loader = CSVReader.loadReviewsLazily(dataPath + "reviews.csv", lazyProducts);
+        if (loader == null) {
+            System.out.println();
+            return;
+        }
+        
+        try (loader) {
+            System.out.println("\n1. Rating From Summary:");
+            Product product = lazyProducts.searchById(101);
+            if (product != null) {
+                System.out.println("  Average Rating: " + String.format("%.2f", product.getAverageRating())
+                        + " (" + product.getReviewCount() + " reviews, loaded: " + product.isReviewsLoaded() + ")");
+                
+                System.out.println("\n2. Reviews Paged In On Access:");
+                ArrayList<Review> reviews = product.getReviews();
+                for (int i = 0; i < reviews.size(); i++) {
+                    System.out.println("  " + reviews.get(i));
+                }
+                product.getReviews();
+                System.out.println("  " + loader.getCacheStats());
+            }
+        } catch (IOException e) {
+            System.out.println("  Closing the reviews file failed: " + e.getMessage());
+        }
+        
+        System.out.println();
+    }
+    
+    private static void demonstrateDiskOrderStore(String dataPath) {
+        System.out.println("--- Disk-Backed Order Store ---");
+        
+        Path file = null;
+        try {
+            file = Files.createTempFile("orders", ".pages");
+            // The smallest pool, so even the sample data has to page in and out
+            try (DiskOrderStore store = new DiskOrderStore(file, BufferPool.MIN_CAPACITY)) {
+                OrderService diskOrders = new OrderService(new OrderSketches(), store);
+                CSVReader.loadOrders(dataPath + "orders.csv", diskOrders);
+                
+                System.out.println("\n1. Lookups Through The B+Trees:");
+                System.out.println("  By ID: " + diskOrders.searchOrderById(301));
+                ArrayList<Order> latest = diskOrders.getLatestOrdersByCustomer(201, 2);
+                for (int i = 0; i < latest.size(); i++) {
+                    System.out.println("  Customer 201: " + latest.get(i));
+                }
+                
+                System.out.println("\n2. Status Written Back To Its Page:");
+                diskOrders.updateOrderStatus(301, Order.OrderStatus.DELIVERED);
+                Order reread = diskOrders.searchOrderById(301);
+                System.out.println("  Order 301: " + (reread != null ? reread.getStatus().getDisplayName() : "not found"));
+                
+                BufferPool pool = store.getBufferPool();
+                System.out.println("\n3. Buffer Pool:");
+                System.out.println("  Pages in file: " + pool.getPageCount() + ", resident: " + pool.getResidentCount() +
+                                 " of " + pool.getCapacity() + " frames" +
+                                 ", hits: " + pool.getHits() + ", misses: " + pool.getMisses() +
+                                 ", evictions: " + pool.getEvictions());
+            }
+        } catch (IOException e) {
+            System.out.println("  Order store unavailable: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Temporary file; the OS cleans it up eventually
+                }
+            }
+        }
+        
+        System.out.println();
+    }
+    
+    private static void demonstrateColumnarExchange(String dataPath, ProductService productService,
+                                                    CustomerService customerService, OrderService orderService) {
+        System.out.println("--- Columnar Exchange File ---");
+        
+        String exchangePath = dataPath + "dataset.ecol";
+        System.out.println("\n1. Export:");
+        boolean exported = ColumnarFile.export(exchangePath, productService, customerService, orderService);
+        System.out.println("  Exported to " + exchangePath + ": " + exported);
+        
+        System.out.println("\n2. Zero-Copy Reload:");
+        ColumnarFile file = exported ? ColumnarFile.open(exchangePath) : null;
+        if (file != null) {
+            ProductService reloadedProducts = new ProductService();
+            OrderService reloadedOrders = new OrderService();
+            CustomerService reloadedCustomers = new CustomerService(reloadedProducts, reloadedOrders);
+            file.loadProducts(reloadedProducts);
+            file.loadCustomers(reloadedCustomers);
+            file.loadOrders(reloadedOrders);
+            file.loadReviews(reloadedProducts);
+            System.out.println("  Products: " + reloadedProducts.getProductCount() +
+                             ", Customers: " + reloadedCustomers.getCustomerCount() +
+                             ", Orders: " + reloadedOrders.getOrderCount() +
+                             ", Reviews: " + file.getTable("reviews").getRowCount());
+        }
+        
+        System.out.println();
+    }
+    
+    private static void demonstrateShardedEngine(ProductService productService,
+                                                 CustomerService customerService, OrderService orderService) {
+        System.out.println("--- Sharded Engine ---");
+        
+        try (ShardedEngine engine = new ShardedEngine(4)) {
+            engine.partition(productService, customerService, orderService);
+            System.out.println("\n1. Partition Across " + engine.getShardCount() + " Shards:");
+            System.out.println("  Products: " + engine.getProductCount() +
+                             ", Customers: " + engine.getCustomerCount() +
+                             ", Orders: " + engine.getOrderCount());
+            
+            System.out.println("\n2. Cross-Shard Order (products 103, 104, 105):");
+            ArrayList<Integer> productIds = new ArrayList<>();
+            productIds.add(103);
+            productIds.add(104);
+            productIds.add(105);
+            Order order = engine.placeOrder(201, productIds).join();
+            System.out.println(order != null ? "  Placed: " + order : "  Rejected");
+            
+            System.out.println("\n3. Rejected Order Releases Its Reservations (103 + missing 9999):");
+            int stockBefore = engine.searchProductById(103).join().getStock();
+            ArrayList<Integer> badIds = new ArrayList<>();
+            badIds.add(103);
+            badIds.add(9999);
+            Order rejected = engine.placeOrder(201, badIds).join();
+            int stockAfter = engine.searchProductById(103).join().getStock();
+            System.out.println("  Result: " + (rejected == null ? "rejected" : "placed") +
+                             ", stock of 103: " + stockBefore + " -> " + stockAfter);
+            
+            System.out.println("\n4. Concurrent Orders:");
+            ArrayList<CompletableFuture<Order>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                ArrayList<Integer> ids = new ArrayList<>();
+                ids.add(101 + i % 20);
+                ids.add(121 + i % 20);
+                futures.add(engine.placeOrder(201 + i % 10, ids));
+            }
+            int placed = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                if (futures.get(i).join() != null) {
+                    placed++;
+                }
+            }
+            System.out.println("  Placed " + placed + " of " + futures.size() +
+                             " orders; engine now holds " + engine.getOrderCount() + " orders");
+        }
+        
+        System.out.println();
+    }
+    
+    private static void demonstrateReplication(ProductService productService,
+                                               CustomerService customerService, OrderService orderService) {
+        System.out.println("--- Primary/Replica Replication ---");
+        
+        try (ReplicationPrimary primary = new ReplicationPrimary(productService, customerService, orderService, 0);
+             ReplicationFollower follower = new ReplicationFollower("localhost", primary.getPort())) {
+            follower.start();
+            
+            System.out.println("\n1. Follower Catches Up From Snapshot:");
+            boolean caughtUp = follower.awaitSeq(primary.getHeadSeq(), 5000);
+            System.out.println("  Caught up: " + caughtUp + ", products: " +
+                             follower.getProductService().getProductCount() + ", orders: " +
+                             follower.getOrderService().getOrderCount());
+            
+            System.out.println("\n2. Writes on the Primary Stream to the Follower:");
+            ArrayList<Integer> productIds = new ArrayList<>();
+            productIds.add(110);
+            Order order = primary.placeOrder(201, productIds);
+            if (order != null) {
+                primary.updateOrderStatus(order.getOrderId(), Order.OrderStatus.SHIPPED);
+            }
+            primary.addReview(110, new Review(9001, 110, 201, 5, "Replicated review"));
+            caughtUp = follower.awaitSeq(primary.getHeadSeq(), 5000);
+            Order replicated = order == null ? null : follower.getOrderService().searchOrderById(order.getOrderId());
+            System.out.println("  Log head: " + primary.getHeadSeq() + ", applied: " + follower.getAppliedSeq() +
+                             ", lag: " + follower.getLagRecords() + " records");
+            System.out.println("  Replicated order: " + replicated);
+            System.out.println("  Stock of 110 (primary/follower): " + productService.searchById(110).getStock() +
+                             "/" + follower.getProductService().searchById(110).getStock());
+            System.out.println("  Reviews of 110 on follower: " +
+                             follower.getProductService().searchById(110).getReviewCount());
+        } catch (IOException e) {
+            System.out.println("  Replication unavailable: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        System.out.println();
+    }
+    
+    private static void demonstrateFlightRecorderEvents(String dataPath) {
+        System.out.println("--- Flight Recorder Events ---");
+        
+        Path file = null;
+        try (Recording recording = new Recording()) {
+            // Thresholds lowered to zero so the small sample data produces events
+            String[] events = {"com.ecommerce.CsvLoad", "com.ecommerce.IndexRebuild",
+                               "com.ecommerce.ServiceOperation", "com.ecommerce.LockWait"};
+            for (int i = 0; i < events.length; i++) {
+                recording.enable(events[i]).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            
+            ProductService products = new ProductService();
+            OrderService orders = new OrderService();
+            CustomerService customers = new CustomerService(products, orders);
+            CSVReader.loadProducts(dataPath + "products.csv", products);
+            CSVReader.loadCustomers(dataPath + "customers.csv", customers);
+            CSVReader.loadOrders(dataPath + "orders.csv", orders);
+            ArrayList<Integer> productIds = new ArrayList<>();
+            productIds.add(101);
+            Order placed = customers.placeOrder(201, productIds);
+            if (placed != null) {
+                orders.cancelOrder(placed.getOrderId());
+            }
+            products.searchByName("Laptop");
+            recording.stop();
+            
+            file = Files.createTempFile("ecommerce", ".jfr");
+            recording.dump(file);
+            System.out.println("\n1. Recorded Events:");
+            ArrayList<RecordedEvent> recorded = new ArrayList<>();
+            try (RecordingFile reader = new RecordingFile(file)) {
+                while (reader.hasMoreEvents()) {
+                    recorded.add(reader.readEvent());
+                }
+            }
+            for (int i = 0; i < recorded.size(); i++) {
+                RecordedEvent event = recorded.get(i);
+                String name = event.getEventType().getName();
+                String detail = switch (name) {
+                    case "com.ecommerce.CsvLoad" -> event.getString("entity") + ", " + event.getInt("rows") + " rows";
+                    case "com.ecommerce.IndexRebuild" -> event.getString("index") + ", " + event.getInt("batchSize") +
+                                                         " merged, " + event.getInt("indexSize") + " total";
+                    case "com.ecommerce.ServiceOperation" -> event.getString("operation") + " " +
+                                                             (event.getString("query") != null
+                                                                     ? "\"" + event.getString("query") + "\""
+                                                                     : String.valueOf(event.getLong("entityId"))) +
+                                                             ", succeeded: " + event.getBoolean("succeeded");
+                    default -> event.getString("operation");
+                };
+                long allocated = event.hasField("allocatedBytes") ? event.getLong("allocatedBytes") : 0;
+                System.out.println("  " + event.getEventType().getLabel() + ": " + detail +
+                                 ", allocated " + allocated + " bytes");
+            }
+        } catch (IOException e) {
+            System.out.println("  Recording unavailable: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Temporary file; the OS cleans it up eventually
+                }
+            }
+        }
+        
+        System.out.println();
+    }
+    
     private static void printComplexityAnalysis() {
         System.out.println("DATA STRUCTURE OPERATIONS:");
         System.out.println("ArrayList:");
@@ -215,14 +697,17 @@ public class Main {
         System.out.println("  - insert(): O(log n) average, O(n) worst");
         System.out.println("  - search(): O(log n) average, O(n) worst");
         System.out.println("  - delete(): O(log n) average, O(n) worst");
+        System.out.println("  - buildFromSorted()/mergeSorted(): O(n), perfectly balanced");
         System.out.println();
         
         System.out.println("BUSINESS OPERATIONS:");
         System.out.println("Product Service:");
         System.out.println("  - addProduct(): O(log n)");
+        System.out.println("  - addProducts(): O(n + m log m) balanced bulk load");
         System.out.println("  - searchById(): O(n)");
         System.out.println("  - searchByName(): O(n)");
         System.out.println("  - getOutOfStockProducts(): O(n)");
+        System.out.println("  - filterProducts(): O(log n + k) for k candidates of the most selective index");
         System.out.println();
         
         System.out.println("Customer Service:");
@@ -233,13 +718,22 @@ public class Main {
         
         System.out.println("Order Service:");
         System.out.println("  - createOrder(): O(1)");
-        System.out.println("  - searchOrderById(): O(n)");
-        System.out.println("  - getOrdersBetweenDates(): O(n)");
+        System.out.println("  - searchOrderById(): O(1) average");
+        System.out.println("  - getOrdersByCustomer(): O(m) where m = customer's orders");
+        System.out.println("  - getOrdersBetweenDates(): O(log n + k)");
+        System.out.println("  - getBestSellers().getTopSellers(N): O(N), counters updated per order");
+        System.out.println("  - with a DiskOrderStore: O(log n) page visits per lookup, clock-evicted buffer pool");
+        System.out.println();
+        
+        System.out.println("Sharded Engine:");
+        System.out.println("  - single-entity commands: O(1) hand-off to the owning shard");
+        System.out.println("  - placeOrder(): O(p) messages to at most min(p, N) + 2 shards");
         System.out.println();
         
         System.out.println("Analytics Service:");
         System.out.println("  - getTop3ProductsByRating(): O(n log n)");
         System.out.println("  - getCommonHighRatedProducts(): O(n*r)");
+        System.out.println("  - estimateDistinctBuyers(): O(2^p) HyperLogLog, order-value percentiles: O(d * k log k) KLL");
         System.out.println();
         
         System.out.println("SPACE COMPLEXITY:");
@@ -1,18 +1,41 @@
 package com.ecommerce.datastructures;
 
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Custom ArrayList implementation using dynamic array
+ * Iterators and spliterators are fail-fast: a structural change (add/remove/clear)
+ * made outside the iterator throws ConcurrentModificationException.
  * Time Complexity:
  * - add(): O(1) amortized, O(n) worst case when resizing
  * - get(): O(1)
  * - remove(): O(n) due to shifting elements
  * - size(): O(1)
+ * - addAll(): O(m) where m is number of elements added, one resize at most
+ * - removeIf(): O(n) single-pass compaction
+ * - subList(): O(1), view backed by this list
+ * - sort(): O(n log n) stable natural merge sort, O(n) on sorted input
+ * - parallelSort(): O(n log n) work split across the common fork/join pool
+ * - iterator()/stream(): O(1) to create, O(n) to traverse
+ * - spliterator().trySplit(): O(1), splits the index range in half
  * Space Complexity: O(n)
  */
-public class ArrayList<T> {
+public class ArrayList<T> implements Iterable<T> {
     private Object[] elements;
     private int size;
+    private int modCount;
     private static final int DEFAULT_CAPACITY = 10;
+    // Shared backing array for lists created with capacity 0
+    private static final Object[] EMPTY_ELEMENTS = {};
 
     public ArrayList() {
         this.elements = new Object[DEFAULT_CAPACITY];
@@ -23,13 +46,45 @@ public class ArrayList<T> {
         if (initialCapacity < 0) {
             throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
         }
-        this.elements = new Object[initialCapacity];
+        this.elements = initialCapacity == 0 ? EMPTY_ELEMENTS : new Object[initialCapacity];
         this.size = 0;
     }
 
     public void add(T element) {
-        ensureCapacity();
+        if (size == elements.length) {
+            grow(size + 1);
+        }
         elements[size++] = element;
+        modCount++;
+    }
+
+    /**
+     * Appends every element of source, growing the backing array at most once
+     * when the source size is known. ArrayList and sub-list sources are block-copied.
+     */
+    public void addAll(Iterable<? extends T> source) {
+        if (source instanceof ArrayList<?>) {
+            ArrayList<?> other = (ArrayList<?>) source;
+            appendRange(other.elements, 0, other.size);
+        } else if (source instanceof ArrayList<?>.SubList) {
+            ArrayList<?>.SubList view = (ArrayList<?>.SubList) source;
+            view.checkForComodification();
+            appendRange(view.parent().elements, view.offset, view.size);
+        } else {
+            for (T element : source) {
+                add(element);
+            }
+        }
+    }
+
+    private void appendRange(Object[] source, int from, int count) {
+        if (count == 0) {
+            return;
+        }
+        ensureCapacity(size + count);
+        System.arraycopy(source, from, elements, size, count);
+        size += count;
+        modCount++;
     }
 
     @SuppressWarnings("unchecked")
@@ -60,20 +115,48 @@ public class ArrayList<T> {
             System.arraycopy(elements, index + 1, elements, index, numMoved);
         }
         elements[--size] = null;
+        modCount++;
         
         return removedElement;
     }
 
     public boolean remove(T element) {
-        for (int i = 0; i < size; i++) {
-            if (elements[i].equals(element)) {
-                remove(i);
-                return true;
-            }
+        int index = indexOf(element);
+        if (index >= 0) {
+            remove(index);
+            return true;
         }
         return false;
     }
 
+    /**
+     * Removes every element matching the filter in one pass, compacting survivors
+     * toward the front instead of shifting the tail once per removal.
+     */
+    public boolean removeIf(Predicate<? super T> filter) {
+        int expectedModCount = modCount;
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            @SuppressWarnings("unchecked")
+            T element = (T) elements[read];
+            if (!filter.test(element)) {
+                elements[write++] = element;
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (write == size) {
+            return false;
+        }
+        for (int i = write; i < size; i++) {
+            elements[i] = null;
+        }
+        size = write;
+        modCount++;
+        return true;
+    }
+
     public int size() {
         return size;
     }
@@ -87,29 +170,352 @@ public class ArrayList<T> {
             elements[i] = null;
         }
         size = 0;
+        modCount++;
     }
 
     public boolean contains(T element) {
-        for (int i = 0; i < size; i++) {
-            if (elements[i].equals(element)) {
-                return true;
+        return indexOf(element) >= 0;
+    }
+
+    public int indexOf(T element) {
+        if (element == null) {
+            for (int i = 0; i < size; i++) {
+                if (elements[i] == null) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (element.equals(elements[i])) {
+                    return i;
+                }
             }
         }
-        return false;
+        return -1;
     }
 
-    private void ensureCapacity() {
-        if (size == elements.length) {
-            int newCapacity = elements.length * 2;
-            Object[] newElements = new Object[newCapacity];
+    /**
+     * Pre-sizes the backing array so that minCapacity elements fit without resizing.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elements.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * Shrinks the backing array to the current size.
+     */
+    public void trimToSize() {
+        if (size == 0) {
+            elements = EMPTY_ELEMENTS;
+        } else if (size < elements.length) {
+            Object[] newElements = new Object[size];
             System.arraycopy(elements, 0, newElements, 0, size);
             elements = newElements;
         }
     }
 
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(elements.length * 2, Math.max(minCapacity, DEFAULT_CAPACITY));
+        Object[] newElements = new Object[newCapacity];
+        System.arraycopy(elements, 0, newElements, 0, size);
+        elements = newElements;
+    }
+
+    /**
+     * Stable sort; equal elements keep their relative order.
+     */
+    public void sort(Comparator<? super T> comparator) {
+        int expectedModCount = modCount;
+        ArraySorter.sort(elements, 0, size, comparator);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    /**
+     * Stable sort that sorts halves on the common fork/join pool before merging.
+     * Falls back to sort() for small lists.
+     */
+    public void parallelSort(Comparator<? super T> comparator) {
+        int expectedModCount = modCount;
+        ArraySorter.parallelSort(elements, 0, size, comparator);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    /**
+     * Returns a view of [fromIndex, toIndex); reads and writes go to this list.
+     * The view is invalidated by structural changes made to this list directly.
+     */
+    public SubList subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size);
+        }
+        return new SubList(fromIndex, toIndex - fromIndex);
+    }
+
     public Object[] toArray() {
         Object[] result = new Object[size];
         System.arraycopy(elements, 0, result, 0, size);
         return result;
     }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new ArrayListIterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new ArrayListSpliterator(0, -1, 0);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Collects stream elements into a custom ArrayList; safe for parallel streams
+     * because each worker fills its own list before the combine step.
+     */
+    public static <T> Collector<T, ?, ArrayList<T>> collector() {
+        return Collector.of(ArrayList::new, ArrayList::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    public class SubList implements Iterable<T> {
+        private final int offset;
+        private int size;
+        private int expectedModCount;
+
+        private SubList(int offset, int size) {
+            this.offset = offset;
+            this.size = size;
+            this.expectedModCount = modCount;
+        }
+
+        private ArrayList<T> parent() {
+            return ArrayList.this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            checkIndex(index);
+            checkForComodification();
+            return (T) elements[offset + index];
+        }
+
+        public void set(int index, T element) {
+            checkIndex(index);
+            checkForComodification();
+            elements[offset + index] = element;
+        }
+
+        public int size() {
+            checkForComodification();
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        /**
+         * Removes the viewed range from the backing list.
+         */
+        public void clear() {
+            checkForComodification();
+            int numMoved = ArrayList.this.size - offset - size;
+            System.arraycopy(elements, offset + size, elements, offset, numMoved);
+            int newSize = ArrayList.this.size - size;
+            for (int i = newSize; i < ArrayList.this.size; i++) {
+                elements[i] = null;
+            }
+            ArrayList.this.size = newSize;
+            modCount++;
+            expectedModCount = modCount;
+            size = 0;
+        }
+
+        public void sort(Comparator<? super T> comparator) {
+            checkForComodification();
+            ArraySorter.sort(elements, offset, offset + size, comparator);
+        }
+
+        public Object[] toArray() {
+            checkForComodification();
+            Object[] result = new Object[size];
+            System.arraycopy(elements, offset, result, 0, size);
+            return result;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            checkForComodification();
+            return new Iterator<T>() {
+                private int cursor = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return cursor < size;
+                }
+
+                @Override
+                public T next() {
+                    if (cursor >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(cursor++);
+                }
+            };
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            checkForComodification();
+            return new ArrayListSpliterator(offset, offset + size, expectedModCount);
+        }
+
+        public Stream<T> stream() {
+            return StreamSupport.stream(spliterator(), false);
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private class ArrayListIterator implements Iterator<T> {
+        private int cursor;
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            checkForComodification();
+            if (cursor >= size) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = cursor++;
+            return (T) elements[lastReturned];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            ArrayList.this.remove(lastReturned);
+            cursor = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Index-range spliterator; the fence and expected modCount are bound lazily
+     * on first use so a stream created before the last add still sees it.
+     */
+    private class ArrayListSpliterator implements Spliterator<T> {
+        private int index;
+        private int fence;
+        private int expectedModCount;
+
+        ArrayListSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            if (fence < 0) {
+                expectedModCount = modCount;
+                fence = size;
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            index = mid;
+            return new ArrayListSpliterator(lo, mid, expectedModCount);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            int hi = getFence();
+            if (index < hi) {
+                T element = (T) elements[index++];
+                action.accept(element);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super T> action) {
+            int hi = getFence();
+            Object[] snapshot = elements;
+            for (int i = index; i < hi; i++) {
+                action.accept((T) snapshot[i]);
+            }
+            index = hi;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
 }
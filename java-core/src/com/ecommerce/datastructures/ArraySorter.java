@@ -0,0 +1,204 @@
+package com.ecommerce.datastructures;
+
+import java.io.Serial;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable natural merge sort used by ArrayList.sort() and ArrayList.parallelSort()
+ * Existing ascending/descending runs are detected and reused, short runs are extended
+ * with binary insertion sort, and runs are merged pairwise (TimSort-style without galloping).
+ * Equal elements always keep their original order.
+ * Time Complexity:
+ * - sort(): O(n log n) worst case, O(n) on already sorted or reversed input
+ * - parallelSort(): O(n log n) work, O(n) span for the final merge
+ * Space Complexity: O(n) temporary buffer
+ */
+final class ArraySorter {
+    private static final int MIN_RUN = 32;
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private ArraySorter() {
+    }
+
+    static <T> void sort(Object[] a, int lo, int hi, Comparator<? super T> c) {
+        if (hi - lo < 2) {
+            return;
+        }
+        Object[] buffer = new Object[hi - lo];
+        mergeSort(a, lo, hi, c, buffer, 0);
+    }
+
+    static <T> void parallelSort(Object[] a, int lo, int hi, Comparator<? super T> c) {
+        int n = hi - lo;
+        if (n < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            sort(a, lo, hi, c);
+            return;
+        }
+        Object[] buffer = new Object[n];
+        ForkJoinPool.commonPool().invoke(new SortTask<T>(a, lo, hi, c, buffer, 0));
+    }
+
+    /**
+     * Sorts a[lo, hi) using buffer[offset, offset + (hi - lo)) as scratch space.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void mergeSort(Object[] a, int lo, int hi, Comparator<? super T> c,
+                                      Object[] buffer, int offset) {
+        int n = hi - lo;
+        if (n < 2) {
+            return;
+        }
+
+        // Collect run boundaries: runStarts[i] is the start of run i, the last entry is hi
+        int[] runStarts = new int[n / MIN_RUN + 2];
+        int runCount = 0;
+        int start = lo;
+        while (start < hi) {
+            int end = start + 1;
+            if (end < hi) {
+                if (c.compare((T) a[end], (T) a[start]) < 0) {
+                    while (end < hi && c.compare((T) a[end], (T) a[end - 1]) < 0) {
+                        end++;
+                    }
+                    reverse(a, start, end);
+                } else {
+                    while (end < hi && c.compare((T) a[end], (T) a[end - 1]) >= 0) {
+                        end++;
+                    }
+                }
+            }
+            if (end - start < MIN_RUN) {
+                int forced = Math.min(hi, start + MIN_RUN);
+                binaryInsertionSort(a, start, forced, end, c);
+                end = forced;
+            }
+            if (runCount + 1 >= runStarts.length) {
+                int[] grown = new int[runStarts.length * 2];
+                System.arraycopy(runStarts, 0, grown, 0, runCount);
+                runStarts = grown;
+            }
+            runStarts[runCount++] = start;
+            start = end;
+        }
+        runStarts[runCount] = hi;
+
+        // Merge neighbouring runs pairwise until one run remains
+        while (runCount > 1) {
+            int merged = 0;
+            int i = 0;
+            while (i < runCount) {
+                int left = runStarts[i];
+                if (i + 1 < runCount) {
+                    int mid = runStarts[i + 1];
+                    int right = runStarts[i + 2];
+                    merge(a, left, mid, right, c, buffer, offset + (left - lo));
+                    i += 2;
+                } else {
+                    i += 1;
+                }
+                runStarts[merged++] = left;
+            }
+            runStarts[merged] = hi;
+            runCount = merged;
+        }
+    }
+
+    /**
+     * Sorts a[lo, hi) knowing that a[lo, sortedEnd) is already in order.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void binaryInsertionSort(Object[] a, int lo, int hi, int sortedEnd,
+                                                Comparator<? super T> c) {
+        for (int i = sortedEnd; i < hi; i++) {
+            T pivot = (T) a[i];
+            int left = lo;
+            int right = i;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (c.compare(pivot, (T) a[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(a, left, a, left + 1, i - left);
+            a[left] = pivot;
+        }
+    }
+
+    /**
+     * Merges sorted a[lo, mid) and a[mid, hi); ties take the left element to stay stable.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void merge(Object[] a, int lo, int mid, int hi, Comparator<? super T> c,
+                                  Object[] buffer, int offset) {
+        if (c.compare((T) a[mid - 1], (T) a[mid]) <= 0) {
+            return;
+        }
+        int leftLength = mid - lo;
+        System.arraycopy(a, lo, buffer, offset, leftLength);
+        int i = offset;
+        int iEnd = offset + leftLength;
+        int j = mid;
+        int k = lo;
+        while (i < iEnd && j < hi) {
+            if (c.compare((T) a[j], (T) buffer[i]) < 0) {
+                a[k++] = a[j++];
+            } else {
+                a[k++] = buffer[i++];
+            }
+        }
+        while (i < iEnd) {
+            a[k++] = buffer[i++];
+        }
+        for (int t = offset; t < iEnd; t++) {
+            buffer[t] = null;
+        }
+    }
+
+    private static void reverse(Object[] a, int lo, int hi) {
+        hi--;
+        while (lo < hi) {
+            Object temp = a[lo];
+            a[lo++] = a[hi];
+            a[hi--] = temp;
+        }
+    }
+
+    private static class SortTask<T> extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized; RecursiveAction is Serializable only by inheritance
+        private final transient Object[] a;
+        private final int lo;
+        private final int hi;
+        private final transient Comparator<? super T> c;
+        private final transient Object[] buffer;
+        private final int offset;
+
+        SortTask(Object[] a, int lo, int hi, Comparator<? super T> c, Object[] buffer, int offset) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        @Override
+        protected void compute() {
+            int n = hi - lo;
+            if (n < PARALLEL_THRESHOLD) {
+                mergeSort(a, lo, hi, c, buffer, offset);
+                return;
+            }
+            int mid = lo + (n >>> 1);
+            invokeAll(new SortTask<T>(a, lo, mid, c, buffer, offset),
+                      new SortTask<T>(a, mid, hi, c, buffer, offset + (mid - lo)));
+            merge(a, lo, mid, hi, c, buffer, offset);
+        }
+    }
+}
@@ -1,17 +1,41 @@
 package com.ecommerce.datastructures;
 
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Custom Binary Search Tree implementation for efficient searching
+ * iterator() walks the tree in order with an explicit stack, so deep (skewed) trees
+ * cannot overflow the call stack. Iterators are fail-fast on insert/delete/clear.
+ * Inserting keys one by one in sorted order degenerates the tree into a list; loads
+ * should go through buildFromSorted()/buildFrom() or mergeSorted(), which always leave
+ * a perfectly balanced tree (height floor(log2 n) + 1).
+ * Duplicates are ignored: insert() and the bulk methods keep the element already present.
  * Time Complexity:
  * - insert(): O(log n) average, O(n) worst case
  * - search(): O(log n) average, O(n) worst case
  * - delete(): O(log n) average, O(n) worst case
+ * - buildFromSorted(): O(n)
+ * - buildFrom(): O(n log n), O(n) if already sorted
+ * - mergeSorted(): O(n + m) for m new elements
+ * - height(): O(n)
  * - inorderTraversal(): O(n)
+ * - iterator(): O(1) amortized per step, O(h) extra space
+ * - iteratorFrom()/descendingIteratorFrom(): O(h) seek, then O(1) amortized per step
+ * - spliterator().trySplit(): O(h), hands off the pending left part of the stack
  * Space Complexity: O(n)
  */
-public class BinarySearchTree<T extends Comparable<T>> {
+public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
     private Node<T> root;
     private int size;
+    private int modCount;
 
     private static class Node<T> {
         T data;
@@ -30,43 +54,48 @@ public class BinarySearchTree<T extends Comparable<T>> {
         this.size = 0;
     }
 
+    /**
+     * Adds data unless an equal element is already present.
+     * Iterative, so a degenerate tree costs time but never stack depth.
+     */
     public void insert(T data) {
-        root = insertRec(root, data);
-        size++;
-    }
-
-    private Node<T> insertRec(Node<T> node, T data) {
-        if (node == null) {
-            return new Node<>(data);
+        if (root == null) {
+            root = new Node<>(data);
+            size++;
+            modCount++;
+            return;
         }
-
-        int cmp = data.compareTo(node.data);
-        if (cmp < 0) {
-            node.left = insertRec(node.left, data);
-        } else if (cmp > 0) {
-            node.right = insertRec(node.right, data);
+        Node<T> node = root;
+        while (true) {
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                return;
+            }
+            Node<T> next = cmp < 0 ? node.left : node.right;
+            if (next == null) {
+                if (cmp < 0) {
+                    node.left = new Node<>(data);
+                } else {
+                    node.right = new Node<>(data);
+                }
+                size++;
+                modCount++;
+                return;
+            }
+            node = next;
         }
-
-        return node;
     }
 
     public T search(T data) {
-        return searchRec(root, data);
-    }
-
-    private T searchRec(Node<T> node, T data) {
-        if (node == null) {
-            return null;
-        }
-
-        int cmp = data.compareTo(node.data);
-        if (cmp == 0) {
-            return node.data;
-        } else if (cmp < 0) {
-            return searchRec(node.left, data);
-        } else {
-            return searchRec(node.right, data);
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                return node.data;
+            }
+            node = cmp < 0 ? node.left : node.right;
         }
+        return null;
     }
 
     public boolean contains(T data) {
@@ -74,8 +103,12 @@ public class BinarySearchTree<T extends Comparable<T>> {
     }
 
     public void delete(T data) {
+        if (!contains(data)) {
+            return;
+        }
         root = deleteRec(root, data);
         size--;
+        modCount++;
     }
 
     private Node<T> deleteRec(Node<T> node, T data) {
@@ -109,6 +142,131 @@ public class BinarySearchTree<T extends Comparable<T>> {
         return node.data;
     }
 
+    /**
+     * Replaces the contents with sorted, which must be strictly ascending, as a
+     * perfectly balanced tree.
+     */
+    public void buildFromSorted(ArrayList<T> sorted) {
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i - 1).compareTo(sorted.get(i)) >= 0) {
+                throw new IllegalArgumentException("Input is not strictly ascending at index " + i);
+            }
+        }
+        root = build(sorted, 0, sorted.size() - 1);
+        size = sorted.size();
+        modCount++;
+    }
+
+    /**
+     * Replaces the contents with items in any order, as a perfectly balanced tree.
+     * Of equal items, the first one is kept.
+     */
+    public void buildFrom(ArrayList<T> items) {
+        ArrayList<T> sorted = new ArrayList<>(items.size());
+        sorted.addAll(items);
+        // Stable, so the first of equal items comes first and survives deduplication
+        sorted.sort(Comparator.naturalOrder());
+        ArrayList<T> distinct = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i == 0 || sorted.get(i - 1).compareTo(sorted.get(i)) != 0) {
+                distinct.add(sorted.get(i));
+            }
+        }
+        root = build(distinct, 0, distinct.size() - 1);
+        size = distinct.size();
+        modCount++;
+    }
+
+    /**
+     * Adds a batch in any order and rebalances the whole tree in one linear merge.
+     * Elements already present win over equal batch elements.
+     */
+    public void mergeSorted(ArrayList<T> batch) {
+        ArrayList<T> sortedBatch = batch;
+        for (int i = 1; i < batch.size(); i++) {
+            if (batch.get(i - 1).compareTo(batch.get(i)) > 0) {
+                sortedBatch = new ArrayList<>(batch.size());
+                sortedBatch.addAll(batch);
+                sortedBatch.sort(Comparator.naturalOrder());
+                break;
+            }
+        }
+        ArrayList<T> existing = new ArrayList<>(size);
+        for (T item : this) {
+            existing.add(item);
+        }
+
+        ArrayList<T> merged = new ArrayList<>(existing.size() + sortedBatch.size());
+        int i = 0;
+        int j = 0;
+        while (i < existing.size() || j < sortedBatch.size()) {
+            T next;
+            if (j == sortedBatch.size()) {
+                next = existing.get(i++);
+            } else if (i == existing.size()) {
+                next = sortedBatch.get(j++);
+            } else {
+                int cmp = existing.get(i).compareTo(sortedBatch.get(j));
+                if (cmp <= 0) {
+                    next = existing.get(i++);
+                    if (cmp == 0) {
+                        j++;
+                    }
+                } else {
+                    next = sortedBatch.get(j++);
+                }
+            }
+            if (merged.isEmpty() || merged.get(merged.size() - 1).compareTo(next) != 0) {
+                merged.add(next);
+            }
+        }
+        root = build(merged, 0, merged.size() - 1);
+        size = merged.size();
+        modCount++;
+    }
+
+    /**
+     * Number of nodes on the longest root-to-leaf path (0 when empty).
+     */
+    public int height() {
+        if (root == null) {
+            return 0;
+        }
+        // Level-order walk, so skewed trees do not recurse deeply
+        Queue<Node<T>> level = new Queue<>();
+        level.enqueue(root);
+        int height = 0;
+        while (!level.isEmpty()) {
+            height++;
+            Queue<Node<T>> next = new Queue<>();
+            while (!level.isEmpty()) {
+                Node<T> node = level.dequeue();
+                if (node.left != null) {
+                    next.enqueue(node.left);
+                }
+                if (node.right != null) {
+                    next.enqueue(node.right);
+                }
+            }
+            level = next;
+        }
+        return height;
+    }
+
+    /**
+     * Balanced subtree over sorted[from..to], middle element at the root.
+     */
+    private Node<T> build(ArrayList<T> sorted, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node<T> node = new Node<>(sorted.get(mid));
+        node.left = build(sorted, from, mid - 1);
+        node.right = build(sorted, mid + 1, to);
+        return node;
+    }
+
     public void inorderTraversal(ArrayList<T> result) {
         inorderRec(root, result);
     }
@@ -132,5 +290,198 @@ public class BinarySearchTree<T extends Comparable<T>> {
     public void clear() {
         root = null;
         size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new InorderIterator(false);
+    }
+
+    /**
+     * In-order iterator starting at the first element >= from (> from if not inclusive).
+     */
+    public Iterator<T> iteratorFrom(T from, boolean inclusive) {
+        return new InorderIterator(from, inclusive, false);
+    }
+
+    /**
+     * Reverse-order iterator, largest element first.
+     */
+    public Iterator<T> descendingIterator() {
+        return new InorderIterator(true);
+    }
+
+    /**
+     * Reverse-order iterator starting at the last element <= from (< from if not inclusive).
+     */
+    public Iterator<T> descendingIteratorFrom(T from, boolean inclusive) {
+        return new InorderIterator(from, inclusive, true);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new InorderSpliterator(root, size, modCount);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    private class InorderIterator implements Iterator<T> {
+        private final Stack<Node<T>> stack = new Stack<>();
+        private final int expectedModCount = modCount;
+        private final boolean descending;
+
+        InorderIterator(boolean descending) {
+            this.descending = descending;
+            pushEdge(root);
+        }
+
+        /**
+         * Pushes only the ancestors on the search path for from that are still due,
+         * leaving the stack exactly as if iteration had run up to from.
+         */
+        InorderIterator(T from, boolean inclusive, boolean descending) {
+            this.descending = descending;
+            Node<T> node = root;
+            while (node != null) {
+                int cmp = from.compareTo(node.data);
+                boolean due = descending ? (cmp > 0 || (cmp == 0 && inclusive)) : (cmp < 0 || (cmp == 0 && inclusive));
+                if (due) {
+                    stack.push(node);
+                    node = descending ? node.right : node.left;
+                } else {
+                    node = descending ? node.left : node.right;
+                }
+            }
+        }
+
+        private void pushEdge(Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = descending ? node.right : node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = stack.pop();
+            pushEdge(descending ? node.left : node.right);
+            return node.data;
+        }
+    }
+
+    /**
+     * In-order spliterator over an array-backed stack of pending nodes.
+     * Each stack entry stands for "the node, then its right subtree"; entries nearer
+     * the top come first, so trySplit() hands the upper entries to the new spliterator
+     * as the prefix and keeps the bottom entry (the highest ancestor) for itself.
+     */
+    private class InorderSpliterator implements Spliterator<T> {
+        private Object[] stack = new Object[16];
+        private int depth;
+        private long estimate;
+        private final int expectedModCount;
+
+        InorderSpliterator(Node<T> start, long estimate, int expectedModCount) {
+            this.estimate = estimate;
+            this.expectedModCount = expectedModCount;
+            pushLeft(start);
+        }
+
+        private void pushLeft(Node<T> node) {
+            while (node != null) {
+                if (depth == stack.length) {
+                    Object[] grown = new Object[stack.length * 2];
+                    System.arraycopy(stack, 0, grown, 0, depth);
+                    stack = grown;
+                }
+                stack[depth++] = node;
+                node = node.left;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<T> pop() {
+            Node<T> node = (Node<T>) stack[--depth];
+            stack[depth] = null;
+            return node;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Spliterator<T> trySplit() {
+            if (depth == 0) {
+                return null;
+            }
+            if (depth == 1) {
+                Node<T> node = (Node<T>) stack[0];
+                if (node.right == null) {
+                    return null;
+                }
+                pop();
+                pushLeft(node.right);
+                estimate = Math.max(0, estimate - 1);
+                return Spliterators.spliterator(new Object[] {node.data}, Spliterator.ORDERED | Spliterator.SORTED);
+            }
+            InorderSpliterator prefix = new InorderSpliterator(null, estimate >>> 1, expectedModCount);
+            prefix.stack = new Object[Math.max(16, depth)];
+            System.arraycopy(stack, 1, prefix.stack, 0, depth - 1);
+            prefix.depth = depth - 1;
+            for (int i = 1; i < depth; i++) {
+                stack[i] = null;
+            }
+            depth = 1;
+            estimate -= prefix.estimate;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (depth == 0) {
+                return false;
+            }
+            Node<T> node = pop();
+            pushLeft(node.right);
+            if (estimate > 0) {
+                estimate--;
+            }
+            action.accept(node.data);
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+            return depth == 0 ? 0 : estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return null;
+        }
     }
 }
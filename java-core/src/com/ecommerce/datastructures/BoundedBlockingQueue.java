@@ -0,0 +1,159 @@
+package com.ecommerce.datastructures;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Custom bounded blocking queue implementation using a circular array
+ * Producers block while the queue is full, which gives back-pressure to upstream stages.
+ * Uses ReentrantLock instead of synchronized so waiting virtual threads do not pin their carrier.
+ * Time Complexity:
+ * - put(): O(1), blocks while full
+ * - offer(): O(1), never blocks
+ * - putAll(): O(k) where k is number of elements added
+ * - poll(): O(1), waits up to the timeout while empty
+ * - drainTo(): O(k) where k is number of elements drained
+ * Space Complexity: O(capacity)
+ */
+public class BoundedBlockingQueue<T> {
+    private final Object[] elements;
+    private int head;
+    private int tail;
+    private int size;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+
+    public BoundedBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        this.elements = new Object[capacity];
+        this.head = 0;
+        this.tail = 0;
+        this.size = 0;
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+    }
+
+    public void put(T element) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == elements.length) {
+                notFull.await();
+            }
+            enqueue(element);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean offer(T element) {
+        lock.lock();
+        try {
+            if (size == elements.length) {
+                return false;
+            }
+            enqueue(element);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void putAll(ArrayList<T> batch) throws InterruptedException {
+        int index = 0;
+        lock.lockInterruptibly();
+        try {
+            while (index < batch.size()) {
+                while (size == elements.length) {
+                    notFull.await();
+                }
+                while (index < batch.size() && size < elements.length) {
+                    enqueue(batch.get(index++));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to the timeout for the first element, then moves up to maxElements
+     * into the batch under a single lock acquisition.
+     * Returns the number of elements drained.
+     */
+    public int drainTo(ArrayList<T> batch, int maxElements, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int drained = 0;
+            while (size > 0 && drained < maxElements) {
+                batch.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    private void enqueue(T element) {
+        elements[tail] = element;
+        tail = (tail + 1) % elements.length;
+        size++;
+        notEmpty.signal();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T dequeue() {
+        T element = (T) elements[head];
+        elements[head] = null;
+        head = (head + 1) % elements.length;
+        size--;
+        notFull.signal();
+        return element;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.datastructures;
+
+/**
+ * Count-Min sketch over int keys
+ * depth rows of width counters; a key adds to one counter per row, chosen by an
+ * independent hash per row, and its estimate is the smallest of those counters.
+ * With non-negative true counts, estimates never undercount and overcount by at most
+ * about (e / width) * total with probability 1 - e^-depth. Updates are linear, so
+ * negative deltas undo earlier additions exactly.
+ * Time Complexity:
+ * - add()/estimate(): O(depth)
+ * - clear(): O(width * depth)
+ * Space Complexity: O(width * depth), fixed at construction
+ */
+public class CountMinSketch {
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+        0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final long[] counters;
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private long total;
+
+    /**
+     * width is rounded up to a power of two; depth may be at most 8.
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || width > (1 << 24)) {
+            throw new IllegalArgumentException("Illegal width: " + width);
+        }
+        if (depth <= 0 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Illegal depth: " + depth);
+        }
+        int rounded = 1;
+        while (rounded < width) {
+            rounded <<= 1;
+        }
+        this.width = rounded;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.counters = new long[this.width * depth];
+        this.total = 0;
+    }
+
+    public void add(int key, long delta) {
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + index(key, row)] += delta;
+        }
+        total += delta;
+    }
+
+    /**
+     * Upper bound on the key's count (exact when no other key shares its counters).
+     */
+    public long estimate(int key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row * width + index(key, row)]);
+        }
+        return Math.max(0, min);
+    }
+
+    /**
+     * Sum of all deltas added.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = 0;
+        }
+        total = 0;
+    }
+
+    private int index(int key, int row) {
+        long h = (key & 0xFFFFFFFFL) * SEEDS[row];
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,153 @@
+package com.ecommerce.datastructures;
+
+/**
+ * Custom Fenwick tree (binary indexed tree) over long values
+ * Maintains prefix sums under point updates; positions are 0-based.
+ * Time Complexity:
+ * - add(): O(log n)
+ * - append(): O(log n) amortized
+ * - insert(): O(n), rebuilds around the new position
+ * - prefixSum()/rangeSum()/get(): O(log n)
+ * - build from array: O(n)
+ * Space Complexity: O(n)
+ */
+public class FenwickTree {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // tree[i] (1-based) holds the sum of positions (i - lowbit(i), i]
+    private long[] tree;
+    private int size;
+
+    public FenwickTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FenwickTree(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        }
+        this.tree = new long[initialCapacity + 1];
+        this.size = 0;
+    }
+
+    /**
+     * Builds a tree over values[0, count) in linear time.
+     */
+    public static FenwickTree build(long[] values, int count) {
+        FenwickTree fenwick = new FenwickTree(count);
+        long[] tree = fenwick.tree;
+        System.arraycopy(values, 0, tree, 1, count);
+        for (int i = 1; i <= count; i++) {
+            int parent = i + (i & -i);
+            if (parent <= count) {
+                tree[parent] += tree[i];
+            }
+        }
+        fenwick.size = count;
+        return fenwick;
+    }
+
+    public void add(int index, long delta) {
+        checkIndex(index);
+        for (int i = index + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Adds a new last position holding value.
+     */
+    public void append(long value) {
+        if (size + 1 == tree.length) {
+            long[] grown = new long[Math.max(DEFAULT_CAPACITY, size * 2) + 1];
+            System.arraycopy(tree, 0, grown, 0, size + 1);
+            tree = grown;
+        }
+        int i = ++size;
+        // New node covers (i - lowbit(i), i]: the value plus the already-stored range before it
+        tree[i] = value + prefixSum(i - 1) - prefixSum(i - (i & -i));
+    }
+
+    /**
+     * Inserts value at index, shifting later positions right.
+     */
+    public void insert(int index, long value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index == size) {
+            append(value);
+            return;
+        }
+        long[] points = toArray();
+        long[] shifted = new long[Math.max(DEFAULT_CAPACITY, (size + 1) * 2)];
+        System.arraycopy(points, 0, shifted, 0, index);
+        shifted[index] = value;
+        System.arraycopy(points, index, shifted, index + 1, size - index);
+        FenwickTree rebuilt = build(shifted, size + 1);
+        long[] grown = new long[shifted.length + 1];
+        System.arraycopy(rebuilt.tree, 0, grown, 0, rebuilt.size + 1);
+        this.tree = grown;
+        this.size = rebuilt.size;
+    }
+
+    /**
+     * Sum of positions [0, endExclusive).
+     */
+    public long prefixSum(int endExclusive) {
+        if (endExclusive < 0 || endExclusive > size) {
+            throw new IndexOutOfBoundsException("End: " + endExclusive + ", Size: " + size);
+        }
+        long sum = 0;
+        for (int i = endExclusive; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Sum of positions [from, toExclusive).
+     */
+    public long rangeSum(int from, int toExclusive) {
+        if (from >= toExclusive) {
+            return 0;
+        }
+        return prefixSum(toExclusive) - prefixSum(from);
+    }
+
+    public long get(int index) {
+        checkIndex(index);
+        return rangeSum(index, index + 1);
+    }
+
+    /**
+     * Recovers the point values in linear time by undoing build().
+     */
+    public long[] toArray() {
+        long[] points = new long[size + 1];
+        System.arraycopy(tree, 0, points, 0, size + 1);
+        for (int i = size; i >= 1; i--) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                points[parent] -= points[i];
+            }
+        }
+        long[] result = new long[size];
+        System.arraycopy(points, 1, result, 0, size);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.datastructures;
+
+/**
+ * HyperLogLog distinct-count sketch over int keys
+ * 2^precision one-byte registers; each key is hashed, the top precision bits pick a
+ * register and the register keeps the longest run of leading zeros seen in the rest.
+ * The relative standard error is about 1.04 / sqrt(2^precision), e.g. 3.25% at 10 and
+ * 1.6% at 12. Small cardinalities fall back to linear counting of empty registers.
+ * Sketches with the same precision merge by taking register-wise maxima, so the union
+ * of any sets can be estimated from their sketches alone. Keys cannot be removed.
+ * Time Complexity:
+ * - add(): O(1)
+ * - estimate()/merge(): O(2^precision)
+ * Space Complexity: O(2^precision) bytes, fixed at construction
+ */
+public class HyperLogLog {
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private final byte[] registers;
+    private final int precision;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION
+                                               + " and " + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Largest precision whose registers fit in budgetBytes, clamped to the legal range.
+     */
+    public static int precisionForBudget(int budgetBytes) {
+        int precision = MIN_PRECISION;
+        while (precision < MAX_PRECISION && (1 << (precision + 1)) <= budgetBytes) {
+            precision++;
+        }
+        return precision;
+    }
+
+    /**
+     * Relative standard error of estimate() at the given precision.
+     */
+    public static double relativeError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    public void add(int key) {
+        long hash = mix(key);
+        int index = (int) (hash >>> (64 - precision));
+        // Guard bit so the rank is at most 64 - precision + 1
+        long rest = (hash << precision) | (1L << (precision - 1));
+        int rank = Long.numberOfLeadingZeros(rest) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0.0;
+        int zeros = 0;
+        for (int i = 0; i < m; i++) {
+            sum += 1.0 / (1L << registers[i]);
+            if (registers[i] == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Folds other into this sketch, which then estimates the union of both key sets.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Precision mismatch: " + precision + " vs " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public int getSizeInBytes() {
+        return registers.length;
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = 0;
+        }
+    }
+
+    private static double alpha(int m) {
+        if (m == 16) {
+            return 0.673;
+        }
+        if (m == 32) {
+            return 0.697;
+        }
+        if (m == 64) {
+            return 0.709;
+        }
+        return 0.7213 / (1 + 1.079 / m);
+    }
+
+    private static long mix(int key) {
+        long h = (key & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 30;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 27;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return h;
+    }
+}
@@ -0,0 +1,319 @@
+package com.ecommerce.datastructures;
+
+/**
+ * KLL quantile sketch over double values
+ * Values enter a stack of compactors; an item at level h stands for 2^h original values.
+ * When a level outgrows its capacity it is sorted and every other item (odd or even
+ * positions, chosen at random) is promoted to the level above, halving its size while
+ * keeping the total weight. Capacities shrink geometrically towards the lower levels, so
+ * the sketch keeps O(k) items whatever the stream length, and the rank error of a
+ * quantile is roughly 1.7 / k (about 1% at k = 200).
+ * Sketches with the same k merge level by level, so quantiles over a union of streams
+ * (e.g. a range of days) come from the per-stream sketches. Values cannot be removed.
+ * Time Complexity:
+ * - update(): O(1) amortized (O(k log k) per compaction, one compaction every O(k) updates)
+ * - quantile()/rank(): O(k log k) to sort the retained items
+ * - merge(): O(k log k)
+ * Space Complexity: O(k) doubles
+ */
+public class KllSketch {
+    public static final int MIN_K = 8;
+    public static final int MAX_K = 65535;
+    public static final int DEFAULT_K = 200;
+    private static final double DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private double[][] levels;
+    private int[] sizes;
+    private int numLevels;
+    private long count;
+    private double min;
+    private double max;
+    private long randomState;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        if (k < MIN_K || k > MAX_K) {
+            throw new IllegalArgumentException("Illegal k: " + k);
+        }
+        this.k = k;
+        this.levels = new double[4][];
+        this.sizes = new int[4];
+        this.levels[0] = new double[8];
+        this.numLevels = 1;
+        this.count = 0;
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+        this.randomState = 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * Largest k whose retained items fit in budgetBytes (about 3k doubles), at least MIN_K.
+     */
+    public static int kForBudget(int budgetBytes) {
+        return Math.max(MIN_K, Math.min(MAX_K, budgetBytes / (3 * 8)));
+    }
+
+    /**
+     * Approximate normalized rank error of quantile() for the given k.
+     */
+    public static double rankError(int k) {
+        return 1.7 / k;
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Value must not be NaN");
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        append(0, value);
+        while (retained() > totalCapacity()) {
+            compress();
+        }
+    }
+
+    /**
+     * Value at normalized rank q (0 = minimum, 1 = maximum), or NaN when empty.
+     */
+    public double quantile(double q) {
+        if (q < 0.0 || q > 1.0 || Double.isNaN(q)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0.0) {
+            return min;
+        }
+        if (q == 1.0) {
+            return max;
+        }
+        int n = retained();
+        double[] values = new double[n];
+        long[] weights = new long[n];
+        collect(values, weights);
+        sort(values, weights, n);
+
+        long target = (long) Math.ceil(q * count);
+        long cumulative = 0;
+        for (int i = 0; i < n; i++) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Estimated fraction of values <= value.
+     */
+    public double rank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long below = 0;
+        for (int h = 0; h < numLevels; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                if (levels[h][i] <= value) {
+                    below += 1L << h;
+                }
+            }
+        }
+        return (double) below / count;
+    }
+
+    /**
+     * Folds other into this sketch, which then summarizes both streams.
+     */
+    public void merge(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("k mismatch: " + k + " vs " + other.k);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        for (int h = 0; h < other.numLevels; h++) {
+            while (numLevels <= h) {
+                addLevel();
+            }
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        while (retained() > totalCapacity()) {
+            compress();
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Items currently kept across all levels.
+     */
+    public int retained() {
+        int total = 0;
+        for (int h = 0; h < numLevels; h++) {
+            total += sizes[h];
+        }
+        return total;
+    }
+
+    private int capacity(int level) {
+        int depth = numLevels - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < numLevels; h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    /**
+     * Compacts the lowest level that is at or over its capacity.
+     */
+    private void compress() {
+        for (int h = 0; h < numLevels; h++) {
+            if (sizes[h] < capacity(h)) {
+                continue;
+            }
+            if (h + 1 == numLevels) {
+                addLevel();
+            }
+            double[] level = levels[h];
+            int size = sizes[h];
+            sort(level, null, size);
+            // An odd item out stays behind so the promoted items pair up exactly
+            int start = size % 2;
+            int offset = nextBit();
+            for (int i = start + offset; i < size; i += 2) {
+                append(h + 1, level[i]);
+            }
+            sizes[h] = start;
+            return;
+        }
+    }
+
+    private void addLevel() {
+        if (numLevels == levels.length) {
+            double[][] grownLevels = new double[numLevels * 2][];
+            int[] grownSizes = new int[numLevels * 2];
+            System.arraycopy(levels, 0, grownLevels, 0, numLevels);
+            System.arraycopy(sizes, 0, grownSizes, 0, numLevels);
+            levels = grownLevels;
+            sizes = grownSizes;
+        }
+        levels[numLevels] = new double[8];
+        sizes[numLevels] = 0;
+        numLevels++;
+    }
+
+    private void append(int level, double value) {
+        if (sizes[level] == levels[level].length) {
+            double[] grown = new double[levels[level].length * 2];
+            System.arraycopy(levels[level], 0, grown, 0, sizes[level]);
+            levels[level] = grown;
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    private void collect(double[] values, long[] weights) {
+        int index = 0;
+        for (int h = 0; h < numLevels; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[index] = levels[h][i];
+                weights[index] = 1L << h;
+                index++;
+            }
+        }
+    }
+
+    private int nextBit() {
+        randomState ^= randomState << 13;
+        randomState ^= randomState >>> 7;
+        randomState ^= randomState << 17;
+        return (int) (randomState & 1);
+    }
+
+    /**
+     * Heap sort of values[0, n), permuting weights alongside when given.
+     */
+    private static void sort(double[] values, long[] weights, int n) {
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(values, weights, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(values, weights, 0, end);
+            siftDown(values, weights, 0, end);
+        }
+    }
+
+    private static void siftDown(double[] values, long[] weights, int i, int n) {
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < n && values[left] > values[largest]) {
+                largest = left;
+            }
+            if (right < n && values[right] > values[largest]) {
+                largest = right;
+            }
+            if (largest == i) {
+                return;
+            }
+            swap(values, weights, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(double[] values, long[] weights, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        if (weights != null) {
+            long weight = weights[i];
+            weights[i] = weights[j];
+            weights[j] = weight;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.ecommerce.datastructures;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Custom weight-bounded LRU cache with version-checked entries
+ * Combines a chained hash table with a doubly linked recency list. Each entry carries
+ * the data version it was computed from; a lookup with a newer version treats the
+ * entry as stale, drops it and reports a miss. The cache holds at most maxWeight
+ * units (e.g. estimated bytes) and evicts least recently used entries beyond that.
+ * All operations take one lock, so the cache can be shared between threads.
+ * Time Complexity:
+ * - get(): O(1) average
+ * - put(): O(1) average, plus O(e) for e evictions
+ * - invalidateAll(): O(n)
+ * Space Complexity: O(n)
+ */
+public class LRUCache<K, V> {
+    private static final int DEFAULT_TABLE_SIZE = 64;
+
+    private Node<K, V>[] table;
+    private int size;
+    private final long maxWeight;
+    private long totalWeight;
+    // Sentinel of the circular recency list: head.next is most recent, head.prev least recent
+    private final Node<K, V> head;
+    private final ReentrantLock lock;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private static class Node<K, V> {
+        K key;
+        V value;
+        long version;
+        long weight;
+        Node<K, V> prev;
+        Node<K, V> next;
+        Node<K, V> chain;
+
+        Node(K key, V value, long version, long weight) {
+            this.key = key;
+            this.value = value;
+            this.version = version;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Point-in-time counters of cache activity.
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int size;
+        private final long weight;
+
+        Stats(long hits, long misses, long evictions, long invalidations, int size, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", hitRate=" + String.format("%.2f", getHitRate()) +
+                    ", evictions=" + evictions +
+                    ", invalidations=" + invalidations +
+                    ", size=" + size +
+                    ", weight=" + weight +
+                    '}';
+        }
+    }
+
+    public LRUCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Illegal max weight: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.table = allocateTable(DEFAULT_TABLE_SIZE);
+        this.head = new Node<>(null, null, 0, 0);
+        this.head.prev = head;
+        this.head.next = head;
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Returns the cached value if present and computed at currentVersion, otherwise null.
+     */
+    public V get(K key, long currentVersion) {
+        lock.lock();
+        try {
+            Node<K, V> node = find(key);
+            if (node == null) {
+                misses++;
+                return null;
+            }
+            if (node.version != currentVersion) {
+                removeNode(node);
+                invalidations++;
+                misses++;
+                return null;
+            }
+            unlinkRecency(node);
+            linkFirst(node);
+            hits++;
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches value as computed at version; entries heavier than the whole cache are not stored.
+     */
+    public void put(K key, V value, long version, long weight) {
+        if (weight > maxWeight) {
+            return;
+        }
+        lock.lock();
+        try {
+            Node<K, V> existing = find(key);
+            if (existing != null) {
+                removeNode(existing);
+            }
+            Node<K, V> node = new Node<>(key, value, version, weight);
+            int index = indexFor(key, table.length);
+            node.chain = table[index];
+            table[index] = node;
+            linkFirst(node);
+            size++;
+            totalWeight += weight;
+            if (size > table.length * 3 / 4) {
+                resize();
+            }
+            while (totalWeight > maxWeight) {
+                removeNode(head.prev);
+                evictions++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            Node<K, V> node = find(key);
+            if (node != null) {
+                removeNode(node);
+                invalidations++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            invalidations += size;
+            table = allocateTable(DEFAULT_TABLE_SIZE);
+            head.prev = head;
+            head.next = head;
+            size = 0;
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(hits, misses, evictions, invalidations, size, totalWeight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Node<K, V> find(K key) {
+        Node<K, V> node = table[indexFor(key, table.length)];
+        while (node != null) {
+            if (node.key.equals(key)) {
+                return node;
+            }
+            node = node.chain;
+        }
+        return null;
+    }
+
+    private void removeNode(Node<K, V> node) {
+        int index = indexFor(node.key, table.length);
+        Node<K, V> current = table[index];
+        Node<K, V> previous = null;
+        while (current != null) {
+            if (current == node) {
+                if (previous == null) {
+                    table[index] = current.chain;
+                } else {
+                    previous.chain = current.chain;
+                }
+                break;
+            }
+            previous = current;
+            current = current.chain;
+        }
+        unlinkRecency(node);
+        size--;
+        totalWeight -= node.weight;
+    }
+
+    private void linkFirst(Node<K, V> node) {
+        node.prev = head;
+        node.next = head.next;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+    private void unlinkRecency(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] allocateTable(int length) {
+        return (Node<K, V>[]) new Node<?, ?>[length];
+    }
+
+    private void resize() {
+        Node<K, V>[] newTable = allocateTable(table.length * 2);
+        for (int i = 0; i < table.length; i++) {
+            Node<K, V> node = table[i];
+            while (node != null) {
+                Node<K, V> next = node.chain;
+                int index = indexFor(node.key, newTable.length);
+                node.chain = newTable[index];
+                newTable[index] = node;
+                node = next;
+            }
+        }
+        table = newTable;
+    }
+
+    private static int indexFor(Object key, int length) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (length - 1);
+    }
+}
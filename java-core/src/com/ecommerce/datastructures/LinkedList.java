@@ -1,19 +1,36 @@
 package com.ecommerce.datastructures;
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Custom Doubly Linked List implementation
+ * Traverse with iterator() or a for-each loop rather than get(i), which restarts from head.
+ * Iterators and spliterators are fail-fast on structural changes made outside the iterator.
  * Time Complexity:
  * - addFirst()/addLast(): O(1)
  * - removeFirst()/removeLast(): O(1)
  * - get(): O(n)
  * - remove(element): O(n)
  * - size(): O(1)
+ * - iterator(): O(1) per step, O(n) full traversal
+ * - spliterator().trySplit(): O(b) to copy a batch of b nodes into an array
  * Space Complexity: O(n)
  */
-public class LinkedList<T> {
+public class LinkedList<T> implements Iterable<T> {
+    private static final int SPLIT_BATCH_UNIT = 1 << 10;
+    private static final int SPLIT_MAX_BATCH = 1 << 25;
+
     private Node<T> head;
     private Node<T> tail;
     private int size;
+    private int modCount;
 
     private static class Node<T> {
         T data;
@@ -43,6 +60,7 @@ public class LinkedList<T> {
             head = newNode;
         }
         size++;
+        modCount++;
     }
 
     public void addLast(T data) {
@@ -55,6 +73,7 @@ public class LinkedList<T> {
             tail = newNode;
         }
         size++;
+        modCount++;
     }
 
     public void add(T data) {
@@ -73,6 +92,7 @@ public class LinkedList<T> {
             head.prev = null;
         }
         size--;
+        modCount++;
         return data;
     }
 
@@ -88,6 +108,7 @@ public class LinkedList<T> {
             tail.next = null;
         }
         size--;
+        modCount++;
         return data;
     }
 
@@ -95,15 +116,7 @@ public class LinkedList<T> {
         Node<T> current = head;
         while (current != null) {
             if (current.data.equals(data)) {
-                if (current == head) {
-                    removeFirst();
-                } else if (current == tail) {
-                    removeLast();
-                } else {
-                    current.prev.next = current.next;
-                    current.next.prev = current.prev;
-                    size--;
-                }
+                unlink(current);
                 return true;
             }
             current = current.next;
@@ -111,6 +124,19 @@ public class LinkedList<T> {
         return false;
     }
 
+    private void unlink(Node<T> node) {
+        if (node == head) {
+            removeFirst();
+        } else if (node == tail) {
+            removeLast();
+        } else {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            size--;
+            modCount++;
+        }
+    }
+
     public T get(int index) {
         if (index < 0 || index >= size) {
             throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
@@ -147,6 +173,7 @@ public class LinkedList<T> {
     public void clear() {
         head = tail = null;
         size = 0;
+        modCount++;
     }
 
     public boolean contains(T data) {
@@ -170,4 +197,142 @@ public class LinkedList<T> {
         }
         return result;
     }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new LinkedListIterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new LinkedListSpliterator();
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    private class LinkedListIterator implements Iterator<T> {
+        private Node<T> next = head;
+        private Node<T> lastReturned;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            checkForComodification();
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = next.next;
+            return lastReturned.data;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            unlink(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Walks the nodes directly; trySplit() copies a growing batch of nodes into an
+     * array so that parallel workers get contiguous chunks without O(n) seeking.
+     */
+    private class LinkedListSpliterator implements Spliterator<T> {
+        private Node<T> current;
+        private int remaining = -1;
+        private int expectedModCount;
+        private int batch;
+
+        private int getRemaining() {
+            if (remaining < 0) {
+                expectedModCount = modCount;
+                current = head;
+                remaining = size;
+            }
+            return remaining;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int left = getRemaining();
+            if (left <= 1 || current == null) {
+                return null;
+            }
+            int n = Math.min(Math.min(batch + SPLIT_BATCH_UNIT, SPLIT_MAX_BATCH), left);
+            Object[] chunk = new Object[n];
+            int j = 0;
+            Node<T> node = current;
+            while (j < n && node != null) {
+                chunk[j++] = node.data;
+                node = node.next;
+            }
+            current = node;
+            remaining = left - j;
+            batch = j;
+            return Spliterators.spliterator(chunk, 0, j, Spliterator.ORDERED);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (getRemaining() > 0 && current != null) {
+                T data = current.data;
+                current = current.next;
+                remaining--;
+                action.accept(data);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            int left = getRemaining();
+            Node<T> node = current;
+            while (left > 0 && node != null) {
+                action.accept(node.data);
+                node = node.next;
+                left--;
+            }
+            current = node;
+            remaining = 0;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getRemaining();
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
 }
@@ -0,0 +1,281 @@
+package com.ecommerce.datastructures;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Growable list of fixed-width records stored off-heap in one MemorySegment
+ * The record shape is declared as a StructLayout; each record takes the layout's size
+ * rounded up to its alignment, and record i starts at i times that stride. Fields are
+ * read and written through typed handles (IntField, LongField, DoubleField) resolved
+ * once from the layout by name, so a million records cost one segment and no objects.
+ * Memory comes from an automatic arena: a segment outgrown by add() is released once
+ * the GC finds it unreachable, and no reader can ever see freed memory. The whole list
+ * can be written to a file as a raw dump and read back with the same layout.
+ * Not thread-safe: callers serialize writes.
+ * Time Complexity:
+ * - add(): O(1) amortized (doubling growth with one bulk copy)
+ * - getters/setters: O(1)
+ * - addAll(): O(m) bulk copy for m records
+ * - save()/load(), writeTo()/readFrom() for a section of a larger file: O(n) sequential I/O
+ * Space Complexity: O(n * stride) off-heap, O(1) heap
+ */
+public class OffHeapRecordList {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int FILE_MAGIC = 0x4F485246;
+    private static final int FILE_HEADER_BYTES = 12;
+
+    private final StructLayout layout;
+    private final long stride;
+    private MemorySegment segment;
+    private int capacity;
+    private int size;
+
+    /**
+     * Typed handle of an int field: its byte offset within the record.
+     */
+    public static final class IntField {
+        private final long offset;
+
+        private IntField(long offset) {
+            this.offset = offset;
+        }
+    }
+
+    public static final class LongField {
+        private final long offset;
+
+        private LongField(long offset) {
+            this.offset = offset;
+        }
+    }
+
+    public static final class DoubleField {
+        private final long offset;
+
+        private DoubleField(long offset) {
+            this.offset = offset;
+        }
+    }
+
+    public OffHeapRecordList(StructLayout layout) {
+        this(layout, DEFAULT_CAPACITY);
+    }
+
+    public OffHeapRecordList(StructLayout layout, int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        long alignment = layout.byteAlignment();
+        this.layout = layout;
+        this.stride = (layout.byteSize() + alignment - 1) / alignment * alignment;
+        if (stride == 0) {
+            throw new IllegalArgumentException("Empty record layout: " + layout);
+        }
+        this.capacity = Math.max(initialCapacity, 1);
+        this.segment = allocate(capacity);
+        this.size = 0;
+    }
+
+    public static IntField intField(StructLayout layout, String name) {
+        return new IntField(offsetOf(layout, name, ValueLayout.JAVA_INT));
+    }
+
+    public static LongField longField(StructLayout layout, String name) {
+        return new LongField(offsetOf(layout, name, ValueLayout.JAVA_LONG));
+    }
+
+    public static DoubleField doubleField(StructLayout layout, String name) {
+        return new DoubleField(offsetOf(layout, name, ValueLayout.JAVA_DOUBLE));
+    }
+
+    /**
+     * Appends a zero-filled record and returns its index.
+     */
+    public int add() {
+        ensureCapacity(size + 1);
+        segment.asSlice(size * stride, stride).fill((byte) 0);
+        return size++;
+    }
+
+    /**
+     * Appends count records of source starting at fromIndex with one bulk copy.
+     */
+    public void addAll(OffHeapRecordList source, int fromIndex, int count) {
+        if (source.stride != stride) {
+            throw new IllegalArgumentException("Record size mismatch: " + source.stride + " vs " + stride);
+        }
+        if (fromIndex < 0 || count < 0 || fromIndex + count > source.size) {
+            throw new IndexOutOfBoundsException("Range: " + fromIndex + "+" + count + ", Size: " + source.size);
+        }
+        ensureCapacity(size + count);
+        MemorySegment.copy(source.segment, fromIndex * stride, segment, size * stride, count * stride);
+        size += count;
+    }
+
+    public int getInt(int index, IntField field) {
+        return segment.get(ValueLayout.JAVA_INT, address(index, field.offset));
+    }
+
+    public void setInt(int index, IntField field, int value) {
+        segment.set(ValueLayout.JAVA_INT, address(index, field.offset), value);
+    }
+
+    public long getLong(int index, LongField field) {
+        return segment.get(ValueLayout.JAVA_LONG, address(index, field.offset));
+    }
+
+    public void setLong(int index, LongField field, long value) {
+        segment.set(ValueLayout.JAVA_LONG, address(index, field.offset), value);
+    }
+
+    public double getDouble(int index, DoubleField field) {
+        return segment.get(ValueLayout.JAVA_DOUBLE, address(index, field.offset));
+    }
+
+    public void setDouble(int index, DoubleField field, double value) {
+        segment.set(ValueLayout.JAVA_DOUBLE, address(index, field.offset), value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public StructLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Bytes per record, the layout size rounded up to its alignment.
+     */
+    public long getRecordBytes() {
+        return stride;
+    }
+
+    /**
+     * Off-heap bytes reserved, including spare capacity.
+     */
+    public long getReservedBytes() {
+        return capacity * stride;
+    }
+
+    /**
+     * Writes the records as a raw dump: magic, record size, count, then the record bytes
+     * in native byte order, so a dump is read back on a machine of the same endianness.
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeTo(channel);
+        }
+    }
+
+    /**
+     * Writes the same dump as save() at the channel's position, e.g. as one section of
+     * a larger file.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        header.putInt(FILE_MAGIC).putInt((int) stride).putInt(size).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        long bytes = size * stride;
+        for (long position = 0; position < bytes; position += Integer.MAX_VALUE) {
+            ByteBuffer chunk = segment.asSlice(position, Math.min(Integer.MAX_VALUE, bytes - position)).asByteBuffer();
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        }
+    }
+
+    /**
+     * Reads a dump written by save() with a layout of the same record size.
+     */
+    public static OffHeapRecordList load(Path file, StructLayout layout) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readFrom(channel, layout);
+        }
+    }
+
+    /**
+     * Reads one dump written by writeTo(), leaving the channel just past it.
+     */
+    public static OffHeapRecordList readFrom(ReadableByteChannel channel, StructLayout layout) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        readFully(channel, header);
+        header.flip();
+        if (header.getInt() != FILE_MAGIC) {
+            throw new IOException("Not a record list dump");
+        }
+        int recordBytes = header.getInt();
+        int count = header.getInt();
+        OffHeapRecordList list = new OffHeapRecordList(layout, count);
+        if (recordBytes != list.stride) {
+            throw new IOException("Record size mismatch: file has " + recordBytes + ", layout has " + list.stride);
+        }
+        long bytes = count * list.stride;
+        for (long position = 0; position < bytes; position += Integer.MAX_VALUE) {
+            readFully(channel, list.segment.asSlice(position, Math.min(Integer.MAX_VALUE, bytes - position)).asByteBuffer());
+        }
+        list.size = count;
+        return list;
+    }
+
+    private static long offsetOf(StructLayout layout, String name, ValueLayout expected) {
+        MemoryLayout member = layout.select(MemoryLayout.PathElement.groupElement(name));
+        if (!(member instanceof ValueLayout value) || value.carrier() != expected.carrier()) {
+            throw new IllegalArgumentException("Field " + name + " is not of type " + expected.carrier() + ": " + member);
+        }
+        return layout.byteOffset(MemoryLayout.PathElement.groupElement(name));
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer target) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0) {
+                throw new IOException("Truncated record list dump");
+            }
+        }
+    }
+
+    private long address(int index, long offset) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return index * stride + offset;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, capacity * 2);
+        MemorySegment grown = allocate(newCapacity);
+        MemorySegment.copy(segment, 0, grown, 0, size * stride);
+        // The old segment is freed by its automatic arena once unreachable
+        segment = grown;
+        capacity = newCapacity;
+    }
+
+    private MemorySegment allocate(int records) {
+        return Arena.ofAuto().allocate(records * stride, layout.byteAlignment());
+    }
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.datastructures;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Custom append-only off-heap text arena
+ * Strings are written as length-prefixed UTF-8 into one MemorySegment outside the Java
+ * heap. A handle is the entry's offset in the segment, so the arena keeps no per-entry
+ * table on the heap and text is decoded only when get() is called.
+ * Entries are never moved or freed one by one: a handle stays readable for as long as
+ * the arena is reachable, so read snapshots need no bookkeeping. The owner reports text
+ * it replaced with retire(); once retired text outweighs the live text, needsCompaction()
+ * tells the owner to copy its live entries into a fresh arena and drop this one. The
+ * whole segment comes from an automatic arena and is freed at once when the GC finds
+ * it unreachable.
+ * All operations take one lock.
+ * Time Complexity:
+ * - add(): O(L) amortized where L is the encoded length
+ * - get(): O(L) decode
+ * - retire(): O(1)
+ * Space Complexity: O(bytes used + 4 per entry) off-heap, O(1) on the heap
+ */
+public class OffHeapTextArena {
+    private static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+    private static final long MAX_BYTES = Integer.MAX_VALUE - 8;
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    // Compact only once at least this much is retired, and retired bytes outweigh live ones
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private MemorySegment segment;
+    private int used;
+    private int entryCount;
+    private long liveBytes;
+    private long retiredBytes;
+    private final ReentrantLock lock;
+
+    public OffHeapTextArena() {
+        this(DEFAULT_BUFFER_BYTES);
+    }
+
+    public OffHeapTextArena(int initialBytes) {
+        if (initialBytes <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialBytes);
+        }
+        this.segment = Arena.ofAuto().allocate(initialBytes);
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Bytes an entry for text takes in the arena, for sizing one up front.
+     */
+    public static int entryBytes(int encodedLength) {
+        return LENGTH_BYTES + encodedLength;
+    }
+
+    /**
+     * Stores text and returns its handle. Null text is not stored and maps to -1.
+     */
+    public int add(String text) {
+        if (text == null) {
+            return -1;
+        }
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        lock.lock();
+        try {
+            ensureBytes(entryBytes(encoded.length));
+            int handle = used;
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, handle, encoded.length);
+            MemorySegment.copy(encoded, 0, segment, ValueLayout.JAVA_BYTE, handle + LENGTH_BYTES, encoded.length);
+            used += entryBytes(encoded.length);
+            entryCount++;
+            liveBytes += encoded.length;
+            return handle;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Decodes the text for handle, or returns null for -1.
+     */
+    public String get(int handle) {
+        if (handle == -1) {
+            return null;
+        }
+        byte[] encoded;
+        lock.lock();
+        try {
+            checkHandle(handle);
+            encoded = new byte[segment.get(ValueLayout.JAVA_INT_UNALIGNED, handle)];
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, handle + LENGTH_BYTES, encoded, 0, encoded.length);
+        } finally {
+            lock.unlock();
+        }
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records that the owner no longer refers to the entry. Its text stays readable,
+     * e.g. by snapshots, and is counted toward needsCompaction().
+     */
+    public void retire(int handle) {
+        if (handle == -1) {
+            return;
+        }
+        lock.lock();
+        try {
+            checkHandle(handle);
+            int length = segment.get(ValueLayout.JAVA_INT_UNALIGNED, handle);
+            entryCount--;
+            liveBytes -= length;
+            retiredBytes += length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * True once retired bytes are both substantial and larger than the live text.
+     */
+    public boolean needsCompaction() {
+        lock.lock();
+        try {
+            return retiredBytes >= MIN_COMPACT_BYTES && retiredBytes > liveBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of entries not retired.
+     */
+    public int getEntryCount() {
+        lock.lock();
+        try {
+            return entryCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLiveBytes() {
+        lock.lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRetiredBytes() {
+        lock.lock();
+        try {
+            return retiredBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Off-heap bytes currently reserved by the segment.
+     */
+    public long getCapacityBytes() {
+        lock.lock();
+        try {
+            return segment.byteSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureBytes(int extra) {
+        long required = (long) used + extra;
+        if (required <= segment.byteSize()) {
+            return;
+        }
+        if (required > MAX_BYTES) {
+            throw new IllegalStateException("Text arena is full");
+        }
+        long newCapacity = Math.min(Math.max(segment.byteSize() * 2, required), MAX_BYTES);
+        MemorySegment grown = Arena.ofAuto().allocate(newCapacity);
+        MemorySegment.copy(segment, 0, grown, 0, used);
+        // The old segment is freed by its automatic arena once unreachable
+        segment = grown;
+    }
+
+    private void checkHandle(int handle) {
+        if (handle < 0 || handle > used - LENGTH_BYTES) {
+            throw new IndexOutOfBoundsException("Handle: " + handle + ", Used: " + used);
+        }
+    }
+}
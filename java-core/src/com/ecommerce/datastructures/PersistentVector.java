@@ -0,0 +1,137 @@
+package com.ecommerce.datastructures;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Custom immutable vector with structural sharing (32-way bit-partitioned trie)
+ * Every update returns a new vector that shares all untouched nodes with the old one,
+ * so an old version stays valid and unchanged for as long as a reader holds it.
+ * Time Complexity:
+ * - get(): O(log32 n), effectively constant
+ * - set()/append(): O(log32 n) path copy
+ * - iterator(): O(1) amortized per element
+ * Space Complexity: O(n), plus O(log32 n) new nodes per update
+ */
+public final class PersistentVector<T> implements Iterable<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentVector<Object> EMPTY = new PersistentVector<>(new Object[WIDTH], BITS, 0);
+
+    private final Object[] root;
+    private final int shift;
+    private final int size;
+
+    private PersistentVector(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return (T) node[index & MASK];
+    }
+
+    public PersistentVector<T> set(int index, T element) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new PersistentVector<>(setPath(root, shift, index, element), shift, size);
+    }
+
+    public PersistentVector<T> append(T element) {
+        // Root is full: grow the tree by one level
+        if ((size >>> BITS) >= (1 << shift)) {
+            Object[] newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, size, element);
+            return new PersistentVector<>(newRoot, shift + BITS, size + 1);
+        }
+        return new PersistentVector<>(appendPath(root, shift, size, element), shift, size + 1);
+    }
+
+    private static Object[] setPath(Object[] node, int level, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = setPath((Object[]) node[child], level - BITS, index, element);
+        }
+        return copy;
+    }
+
+    private static Object[] appendPath(Object[] node, int level, int index, Object element) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = appendPath((Object[]) copy[child], level - BITS, index, element);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, int index, Object element) {
+        Object[] node = new Object[WIDTH];
+        if (level == 0) {
+            node[index & MASK] = element;
+        } else {
+            node[(index >>> level) & MASK] = newPath(level - BITS, index, element);
+        }
+        return node;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index = 0;
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                // Walk down once per 32 elements, then read the leaf directly
+                if ((index & MASK) == 0 || leaf == null) {
+                    Object[] node = root;
+                    for (int level = shift; level > 0; level -= BITS) {
+                        node = (Object[]) node[(index >>> level) & MASK];
+                    }
+                    leaf = node;
+                }
+                return (T) leaf[index++ & MASK];
+            }
+        };
+    }
+}
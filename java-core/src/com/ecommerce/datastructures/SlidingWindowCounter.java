@@ -0,0 +1,134 @@
+package com.ecommerce.datastructures;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free sliding-window sums over a ring of fixed-size time slots
+ * Time is cut into slots of slotMillis; slot number t / slotMillis lives at ring position
+ * number % slotCount. Each slot carries its number and one atomic counter per field.
+ * A writer that finds an older slot at its position swaps in a fresh one with a single
+ * compare-and-set, so expired slots are recycled by whoever gets there first and no
+ * thread ever blocks. A read sums the slots whose numbers fall in the last slotCount
+ * slots, i.e. the last (slotCount - 1) * slotMillis to slotCount * slotMillis.
+ * Events older than the ring are dropped.
+ * Time Complexity:
+ * - add(): O(1), lock-free (one CAS per slot rollover)
+ * - sum(): O(slotCount), independent of the number of events
+ * Space Complexity: O(slotCount * fields)
+ */
+public class SlidingWindowCounter {
+    private final AtomicReferenceArray<Slot> slots;
+    private final int slotCount;
+    private final long slotMillis;
+    private final int fields;
+
+    private static class Slot {
+        final long number;
+        final AtomicLongArray values;
+
+        Slot(long number, int fields) {
+            this.number = number;
+            this.values = new AtomicLongArray(fields);
+        }
+    }
+
+    public SlidingWindowCounter(int slotCount, long slotMillis, int fields) {
+        if (slotCount <= 0 || slotMillis <= 0 || fields <= 0) {
+            throw new IllegalArgumentException("Illegal window: " + slotCount + " x " + slotMillis
+                                               + " ms, " + fields + " fields");
+        }
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.slotCount = slotCount;
+        this.slotMillis = slotMillis;
+        this.fields = fields;
+    }
+
+    /**
+     * Adds delta to one field of the slot covering timeMillis.
+     */
+    public void add(long timeMillis, int field, long delta) {
+        Slot slot = slotFor(timeMillis);
+        if (slot != null) {
+            slot.values.addAndGet(field, delta);
+        }
+    }
+
+    /**
+     * Adds deltas[i] to field i of the slot covering timeMillis.
+     */
+    public void add(long timeMillis, long[] deltas) {
+        Slot slot = slotFor(timeMillis);
+        if (slot != null) {
+            for (int i = 0; i < deltas.length; i++) {
+                if (deltas[i] != 0) {
+                    slot.values.addAndGet(i, deltas[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sum of one field over the window ending at nowMillis.
+     */
+    public long sum(long nowMillis, int field) {
+        long current = Math.floorDiv(nowMillis, slotMillis);
+        long total = 0;
+        for (int i = 0; i < slotCount; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.number > current - slotCount && slot.number <= current) {
+                total += slot.values.get(field);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums of every field over the window ending at nowMillis, written into out.
+     */
+    public void sum(long nowMillis, long[] out) {
+        for (int f = 0; f < fields; f++) {
+            out[f] = 0;
+        }
+        long current = Math.floorDiv(nowMillis, slotMillis);
+        for (int i = 0; i < slotCount; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.number > current - slotCount && slot.number <= current) {
+                for (int f = 0; f < fields; f++) {
+                    out[f] += slot.values.get(f);
+                }
+            }
+        }
+    }
+
+    public long getWindowMillis() {
+        return slotCount * slotMillis;
+    }
+
+    public long getSlotMillis() {
+        return slotMillis;
+    }
+
+    public int getFieldCount() {
+        return fields;
+    }
+
+    private Slot slotFor(long timeMillis) {
+        long number = Math.floorDiv(timeMillis, slotMillis);
+        int index = (int) Math.floorMod(number, (long) slotCount);
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot != null && slot.number == number) {
+                return slot;
+            }
+            if (slot != null && slot.number > number) {
+                // The ring has already moved past this event's slot
+                return null;
+            }
+            Slot fresh = new Slot(number, fields);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                return fresh;
+            }
+        }
+    }
+}
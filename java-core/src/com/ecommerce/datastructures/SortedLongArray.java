@@ -0,0 +1,182 @@
+package com.ecommerce.datastructures;
+
+/**
+ * Sorted array of primitive long keys
+ * Callers pack an attribute and an ID into one key (attribute in the high 32 bits, ID in
+ * the low 32 bits) so equal attributes stay distinct and ranges are two binary searches.
+ * Time Complexity:
+ * - insert()/remove(): O(log n) search + O(n) shift, O(1) for an append
+ * - insertAll(): O(m log m + n) for a batch of m keys, O(m + n) if the batch is sorted
+ * - lowerBound()/upperBound()/contains(): O(log n)
+ * - get(): O(1)
+ * Space Complexity: O(n), 8 bytes per key
+ */
+public class SortedLongArray {
+    private long[] keys;
+    private int size;
+
+    public SortedLongArray() {
+        this.keys = new long[8];
+        this.size = 0;
+    }
+
+    /**
+     * Packs high into the upper 32 bits and low, unsigned, into the lower 32 bits.
+     */
+    public static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    public static int low(long key) {
+        return (int) key;
+    }
+
+    public void insert(long key) {
+        if (size == keys.length) {
+            long[] grown = new long[size * 2];
+            System.arraycopy(keys, 0, grown, 0, size);
+            keys = grown;
+        }
+        int index = (size == 0 || keys[size - 1] < key) ? size : lowerBound(key);
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        keys[index] = key;
+        size++;
+    }
+
+    /**
+     * Inserts the first count keys of batch (in any order) with one merge pass instead of
+     * count separate shifts. batch is sorted in place.
+     */
+    public void insertAll(long[] batch, int count) {
+        if (count == 0) {
+            return;
+        }
+        for (int i = 1; i < count; i++) {
+            if (batch[i - 1] > batch[i]) {
+                sort(batch, count);
+                break;
+            }
+        }
+        if (size + count > keys.length) {
+            long[] grown = new long[Math.max(size + count, keys.length * 2)];
+            System.arraycopy(keys, 0, grown, 0, size);
+            keys = grown;
+        }
+        // Merge from the back so no existing key is overwritten before it moves
+        int i = size - 1;
+        int j = count - 1;
+        int target = size + count - 1;
+        while (j >= 0) {
+            if (i >= 0 && keys[i] > batch[j]) {
+                keys[target--] = keys[i--];
+            } else {
+                keys[target--] = batch[j--];
+            }
+        }
+        size += count;
+    }
+
+    public boolean remove(long key) {
+        int index = lowerBound(key);
+        if (index < size && keys[index] == key) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(long key) {
+        int index = lowerBound(key);
+        return index < size && keys[index] == key;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return keys[index];
+    }
+
+    /**
+     * First index whose key is >= key.
+     */
+    public int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index whose key is > key.
+     */
+    public int upperBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Heap sort of values[0, n).
+     */
+    private static void sort(long[] values, int n) {
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(values, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            long value = values[0];
+            values[0] = values[end];
+            values[end] = value;
+            siftDown(values, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] values, int i, int n) {
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < n && values[left] > values[largest]) {
+                largest = left;
+            }
+            if (right < n && values[right] > values[largest]) {
+                largest = right;
+            }
+            if (largest == i) {
+                return;
+            }
+            long value = values[i];
+            values[i] = values[largest];
+            values[largest] = value;
+            i = largest;
+        }
+    }
+}
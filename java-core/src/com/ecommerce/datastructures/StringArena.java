@@ -0,0 +1,185 @@
+package com.ecommerce.datastructures;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Custom dictionary-encoded string arena
+ * Each distinct string is stored once as UTF-8 bytes in one growing byte[] and is
+ * referred to by an int code. Repeated values (duplicate names from CSV rows) share a
+ * code, and no per-string String/array headers are kept on the heap. Strings are
+ * decoded on access.
+ * Time Complexity:
+ * - intern(): O(L) average where L is the string length
+ * - get(): O(L) decode
+ * - matchesIgnoreCase()/containsIgnoreCase(): O(L) / O(L * m)
+ * Space Complexity: O(total distinct bytes) + 12 bytes per distinct string + hash table
+ */
+public class StringArena {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private byte[] bytes;
+    private int used;
+    private int[] offsets;
+    private int[] lengths;
+    private int count;
+    // Open-addressing table of code + 1 (0 = empty), probed by content hash
+    private int[] table;
+    private int[] hashes;
+
+    public StringArena() {
+        this.bytes = new byte[1024];
+        this.used = 0;
+        this.offsets = new int[DEFAULT_CAPACITY];
+        this.lengths = new int[DEFAULT_CAPACITY];
+        this.hashes = new int[DEFAULT_CAPACITY];
+        this.count = 0;
+        this.table = new int[DEFAULT_CAPACITY * 2];
+    }
+
+    /**
+     * Returns the code for value, storing it if it has not been seen before.
+     */
+    public int intern(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded, 0, encoded.length);
+        int mask = table.length - 1;
+        int i = hash & mask;
+        while (table[i] != 0) {
+            int code = table[i] - 1;
+            if (hashes[code] == hash && sameBytes(code, encoded)) {
+                return code;
+            }
+            i = (i + 1) & mask;
+        }
+
+        int code = append(encoded, hash);
+        table[i] = code + 1;
+        if (count * 3 > table.length * 2) {
+            rehash(table.length * 2);
+        }
+        return code;
+    }
+
+    public String get(int code) {
+        checkCode(code);
+        return new String(bytes, offsets[code], lengths[code], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the stored string with value without decoding it.
+     */
+    public boolean matches(int code, String value) {
+        checkCode(code);
+        return sameBytes(code, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Case-insensitive substring test; ASCII-only strings are checked in place.
+     */
+    public boolean containsIgnoreCase(int code, String needle) {
+        checkCode(code);
+        int start = offsets[code];
+        int length = lengths[code];
+        int n = needle.length();
+        if (n == 0) {
+            return true;
+        }
+        for (int k = start; k < start + length; k++) {
+            if (bytes[k] < 0) {
+                return get(code).toLowerCase().contains(needle.toLowerCase());
+            }
+        }
+        for (int i = start; i + n <= start + length; i++) {
+            int j = 0;
+            while (j < n && asciiLower(bytes[i + j]) == Character.toLowerCase(needle.charAt(j))) {
+                j++;
+            }
+            if (j == n) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Approximate heap footprint of the arena.
+     */
+    public long estimatedBytes() {
+        return (long) bytes.length + 12L * offsets.length + 4L * table.length + 64;
+    }
+
+    private int append(byte[] encoded, int hash) {
+        if (used + encoded.length > bytes.length) {
+            int newLength = Math.max(bytes.length * 2, used + encoded.length);
+            byte[] grown = new byte[newLength];
+            System.arraycopy(bytes, 0, grown, 0, used);
+            bytes = grown;
+        }
+        if (count == offsets.length) {
+            offsets = grow(offsets);
+            lengths = grow(lengths);
+            hashes = grow(hashes);
+        }
+        System.arraycopy(encoded, 0, bytes, used, encoded.length);
+        offsets[count] = used;
+        lengths[count] = encoded.length;
+        hashes[count] = hash;
+        used += encoded.length;
+        return count++;
+    }
+
+    private void rehash(int newLength) {
+        int[] newTable = new int[newLength];
+        int mask = newLength - 1;
+        for (int code = 0; code < count; code++) {
+            int i = hashes[code] & mask;
+            while (newTable[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            newTable[i] = code + 1;
+        }
+        table = newTable;
+    }
+
+    private boolean sameBytes(int code, byte[] encoded) {
+        if (lengths[code] != encoded.length) {
+            return false;
+        }
+        int offset = offsets[code];
+        for (int i = 0; i < encoded.length; i++) {
+            if (bytes[offset + i] != encoded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkCode(int code) {
+        if (code < 0 || code >= count) {
+            throw new IndexOutOfBoundsException("Code: " + code + ", Size: " + count);
+        }
+    }
+
+    private static char asciiLower(byte b) {
+        char c = (char) b;
+        return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+    }
+
+    private static int[] grow(int[] array) {
+        int[] grown = new int[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    private static int hash(byte[] data, int from, int to) {
+        int h = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            h = (h ^ data[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
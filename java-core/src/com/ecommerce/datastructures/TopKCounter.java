@@ -0,0 +1,313 @@
+package com.ecommerce.datastructures;
+
+/**
+ * Per-key counters kept in descending count order
+ * Keys live in an array sorted by count, with a key -> position map, so the top n keys
+ * are simply the first n entries. A unit change moves a key by one swap with the edge of
+ * its block of equal counts, found by binary search.
+ * With a capacity, this is the Space-Saving algorithm: when full, a new key takes over
+ * the slot of the current minimum and inherits its count as error, so counts become upper
+ * bounds and every key whose true count exceeds total / capacity is guaranteed to be
+ * tracked. Without a capacity (unbounded()) counts are exact.
+ * Decrements apply to tracked keys only and leave the error unchanged. The largest count
+ * ever evicted is kept as a watermark: no untracked key can have a higher true count, so
+ * upperBound() returns it for them even after decrements have emptied slots.
+ * Time Complexity:
+ * - add()/subtract(): O(log n) search + O(1) swap for unit deltas, O(n) shift worst case
+ * - count()/error(): O(1) average
+ * - top(n): O(n)
+ * Space Complexity: O(min(keys, capacity))
+ */
+public class TopKCounter {
+    private final int capacity;
+    private int[] keys;
+    private long[] counts;
+    private long[] errors;
+    private int size;
+    private long evictedMax;
+    private final IntIntHashMap positions;
+
+    /**
+     * One ranked key; error is how much of count may belong to evicted keys (0 when exact).
+     */
+    public static class Entry {
+        private final int key;
+        private final long count;
+        private final long error;
+
+        public Entry(int key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public int getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + count + (error > 0 ? " (+-" + error + ")" : "");
+        }
+    }
+
+    /**
+     * Space-Saving counter tracking at most capacity keys.
+     */
+    public TopKCounter(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        int initial = Math.min(capacity, 16);
+        this.keys = new int[initial];
+        this.counts = new long[initial];
+        this.errors = new long[initial];
+        this.size = 0;
+        this.positions = new IntIntHashMap(initial);
+    }
+
+    /**
+     * Exact counter for any number of keys.
+     */
+    public static TopKCounter unbounded() {
+        return new TopKCounter(Integer.MAX_VALUE);
+    }
+
+    public void add(int key, long delta) {
+        if (delta < 0) {
+            subtract(key, -delta);
+            return;
+        }
+        if (delta == 0) {
+            return;
+        }
+        int pos = positions.get(key, -1);
+        if (pos < 0) {
+            if (size < capacity) {
+                ensureCapacity(size + 1);
+                pos = size++;
+                keys[pos] = key;
+                counts[pos] = 0;
+                errors[pos] = 0;
+            } else {
+                // Space-Saving: replace the minimum and inherit its count as error
+                pos = size - 1;
+                positions.remove(keys[pos]);
+                evictedMax = Math.max(evictedMax, counts[pos]);
+                keys[pos] = key;
+                errors[pos] = counts[pos];
+            }
+            positions.put(key, pos);
+        }
+        counts[pos] += delta;
+        moveUp(pos);
+    }
+
+    /**
+     * Lowers a tracked key's count; untracked keys are ignored. Keys reaching zero are dropped.
+     */
+    public void subtract(int key, long delta) {
+        int pos = positions.get(key, -1);
+        if (pos < 0 || delta <= 0) {
+            return;
+        }
+        counts[pos] = Math.max(0, counts[pos] - delta);
+        errors[pos] = Math.min(errors[pos], counts[pos]);
+        pos = moveDown(pos);
+        if (counts[pos] == 0) {
+            // Everything after pos is zero too, so the last slot can take its place
+            swap(pos, size - 1);
+            positions.remove(keys[size - 1]);
+            size--;
+        }
+    }
+
+    /**
+     * Tracked count, or 0 for an untracked key (see upperBound()).
+     */
+    public long count(int key) {
+        int pos = positions.get(key, -1);
+        return pos < 0 ? 0 : counts[pos];
+    }
+
+    public long error(int key) {
+        int pos = positions.get(key, -1);
+        return pos < 0 ? 0 : errors[pos];
+    }
+
+    /**
+     * Largest count the key can have: its tracked count, or for an untracked key the
+     * largest count evicted so far (0 if nothing was ever evicted).
+     */
+    public long upperBound(int key) {
+        int pos = positions.get(key, -1);
+        return pos < 0 ? evictedMax : counts[pos];
+    }
+
+    public boolean contains(int key) {
+        return positions.containsKey(key);
+    }
+
+    /**
+     * The n highest counts, highest first.
+     */
+    public ArrayList<Entry> top(int n) {
+        int limit = Math.max(0, Math.min(n, size));
+        ArrayList<Entry> result = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            result.add(new Entry(keys[i], counts[i], errors[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Key at rank i (0 = highest count).
+     */
+    public int keyAt(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        return keys[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+        evictedMax = 0;
+        positions.clear();
+    }
+
+    /**
+     * Restores descending order after counts[pos] grew.
+     */
+    private void moveUp(int pos) {
+        long count = counts[pos];
+        // First index in [0, pos) whose count is smaller than the new count
+        int low = 0;
+        int high = pos;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (counts[mid] >= count) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == pos) {
+            return;
+        }
+        if (counts[low] == counts[pos - 1]) {
+            // [low, pos) is one block of equal counts, so a swap keeps the order
+            swap(low, pos);
+        } else {
+            rotate(pos, low);
+        }
+    }
+
+    /**
+     * Restores descending order after counts[pos] shrank. Returns the new position.
+     */
+    private int moveDown(int pos) {
+        long count = counts[pos];
+        // First index in (pos, size) whose count is not larger than the new count
+        int low = pos + 1;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (counts[mid] > count) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int target = low - 1;
+        if (target == pos) {
+            return pos;
+        }
+        if (counts[pos + 1] == counts[target]) {
+            swap(pos, target);
+        } else {
+            rotate(pos, target);
+        }
+        return target;
+    }
+
+    private void swap(int i, int j) {
+        if (i == j) {
+            return;
+        }
+        int key = keys[i];
+        long count = counts[i];
+        long error = errors[i];
+        keys[i] = keys[j];
+        counts[i] = counts[j];
+        errors[i] = errors[j];
+        keys[j] = key;
+        counts[j] = count;
+        errors[j] = error;
+        positions.put(keys[i], i);
+        positions.put(keys[j], j);
+    }
+
+    /**
+     * Moves the entry at from to to, shifting the entries in between by one.
+     */
+    private void rotate(int from, int to) {
+        int key = keys[from];
+        long count = counts[from];
+        long error = errors[from];
+        if (from > to) {
+            System.arraycopy(keys, to, keys, to + 1, from - to);
+            System.arraycopy(counts, to, counts, to + 1, from - to);
+            System.arraycopy(errors, to, errors, to + 1, from - to);
+        } else {
+            System.arraycopy(keys, from + 1, keys, from, to - from);
+            System.arraycopy(counts, from + 1, counts, from, to - from);
+            System.arraycopy(errors, from + 1, errors, from, to - from);
+        }
+        keys[to] = key;
+        counts[to] = count;
+        errors[to] = error;
+        int low = Math.min(from, to);
+        int high = Math.max(from, to);
+        for (int i = low; i <= high; i++) {
+            positions.put(keys[i], i);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= keys.length) {
+            return;
+        }
+        int grown = (int) Math.min((long) keys.length * 2, capacity);
+        int[] newKeys = new int[grown];
+        long[] newCounts = new long[grown];
+        long[] newErrors = new long[grown];
+        System.arraycopy(keys, 0, newKeys, 0, size);
+        System.arraycopy(counts, 0, newCounts, 0, size);
+        System.arraycopy(errors, 0, newErrors, 0, size);
+        keys = newKeys;
+        counts = newCounts;
+        errors = newErrors;
+    }
+}
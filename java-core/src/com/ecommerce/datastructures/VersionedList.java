@@ -0,0 +1,191 @@
+package com.ecommerce.datastructures;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Multi-version list of rows keyed by int ID, for lock-free point-in-time reads
+ * Writers publish a new immutable row for an ID; every publish produces a new
+ * PersistentVector version that is swapped in through a volatile reference.
+ * Readers call snapshot() and iterate it without any lock while writers keep going.
+ * Writers only serialize with each other. Removed rows leave a null slot that
+ * snapshots skip.
+ * Time Complexity:
+ * - put()/remove(): O(1) average ID lookup + O(log32 n) path copy
+ * - putAll(): O(m log32 n) for m rows, published as one version
+ * - snapshot(): O(1)
+ * - rowVersion(): O(1) average
+ * - Snapshot iteration: O(n)
+ * Space Complexity: O(n) for the live version; old versions are kept only while referenced
+ */
+public class VersionedList<T> {
+    private final IntHashMap<Integer> slotsById;
+    // List version at which each slot was last written
+    private long[] rowVersions;
+    private final ReentrantLock writeLock;
+    private volatile Snapshot<T> current;
+
+    /**
+     * Immutable point-in-time view of the rows.
+     */
+    public static final class Snapshot<T> implements Iterable<T> {
+        private final long version;
+        private final PersistentVector<T> rows;
+        private final int liveCount;
+
+        private Snapshot(long version, PersistentVector<T> rows, int liveCount) {
+            this.version = version;
+            this.rows = rows;
+            this.liveCount = liveCount;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return liveCount;
+        }
+
+        public boolean isEmpty() {
+            return liveCount == 0;
+        }
+
+        public ArrayList<T> toArrayList() {
+            ArrayList<T> result = new ArrayList<>(liveCount);
+            for (T row : this) {
+                result.add(row);
+            }
+            return result;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            Iterator<T> slots = rows.iterator();
+            return new Iterator<T>() {
+                private T next = advance();
+
+                private T advance() {
+                    while (slots.hasNext()) {
+                        T row = slots.next();
+                        if (row != null) {
+                            return row;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public T next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    T row = next;
+                    next = advance();
+                    return row;
+                }
+            };
+        }
+    }
+
+    public VersionedList() {
+        this.slotsById = new IntHashMap<>();
+        this.rowVersions = new long[16];
+        this.writeLock = new ReentrantLock();
+        this.current = new Snapshot<>(0, PersistentVector.<T>empty(), 0);
+    }
+
+    /**
+     * Publishes row as the latest version for id. The row must not be mutated afterwards.
+     */
+    public void put(int id, T row) {
+        writeLock.lock();
+        try {
+            Snapshot<T> snapshot = current;
+            current = write(snapshot.version + 1, snapshot, id, row);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Publishes rows.get(i) for ids[i], all in one version, so no snapshot sees only
+     * some of them. The rows must not be mutated afterwards.
+     */
+    public void putAll(int[] ids, ArrayList<T> rows) {
+        writeLock.lock();
+        try {
+            Snapshot<T> snapshot = current;
+            long version = snapshot.version + 1;
+            for (int i = 0; i < rows.size(); i++) {
+                snapshot = write(version, snapshot, ids[i], rows.get(i));
+            }
+            current = snapshot;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(int id) {
+        writeLock.lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                Snapshot<T> snapshot = current;
+                current = new Snapshot<>(snapshot.version + 1, snapshot.rows.set(slot, null), snapshot.liveCount - 1);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * List version at which id was last published, or -1 if id is not present.
+     * Lets callers detect changes to one row without comparing whole versions.
+     */
+    public long rowVersion(int id) {
+        writeLock.lock();
+        try {
+            Integer slot = slotsById.get(id);
+            return slot == null ? -1 : rowVersions[slot];
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * The snapshot with row written at version; callers hold the write lock.
+     */
+    private Snapshot<T> write(long version, Snapshot<T> snapshot, int id, T row) {
+        Integer slot = slotsById.get(id);
+        Snapshot<T> next;
+        if (slot == null) {
+            slot = snapshot.rows.size();
+            slotsById.put(id, slot);
+            next = new Snapshot<>(version, snapshot.rows.append(row), snapshot.liveCount + 1);
+        } else {
+            next = new Snapshot<>(version, snapshot.rows.set(slot, row), snapshot.liveCount);
+        }
+        if (slot == rowVersions.length) {
+            long[] grown = new long[rowVersions.length * 2];
+            System.arraycopy(rowVersions, 0, grown, 0, rowVersions.length);
+            rowVersions = grown;
+        }
+        rowVersions[slot] = version;
+        return next;
+    }
+
+    public Snapshot<T> snapshot() {
+        return current;
+    }
+
+    public long getVersion() {
+        return current.version;
+    }
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.models;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.IntHashMap;
+import com.ecommerce.datastructures.IntIntHashMap;
+import com.ecommerce.datastructures.StringArena;
+
+/**
+ * Compact storage mode for very large customer bases
+ * Customers are kept as parallel int columns; names and emails are dictionary-encoded
+ * in a shared StringArena and order ID lists exist only for customers who ordered.
+ * A View is a flyweight over one slot. Use toCustomer() to get a regular entity.
+ * Time Complexity:
+ * - add(): O(1) amortized
+ * - findById(): O(1) average
+ * - view()/getters: O(1), getName()/getEmail() decode O(L)
+ * Space Complexity: O(n) int columns + O(distinct string bytes)
+ */
+public class CompactCustomerStore {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final StringArena strings;
+    private int[] customerIds;
+    private int[] nameCodes;
+    private int[] emailCodes;
+    private int size;
+    private final IntIntHashMap slotsById;
+    private final IntHashMap<ArrayList<Integer>> ordersBySlot;
+
+    /**
+     * Flyweight view of one customer slot.
+     */
+    public class View {
+        private int slot;
+
+        private View(int slot) {
+            this.slot = slot;
+        }
+
+        /**
+         * Repoints this view at another slot, so one view can walk the whole store.
+         */
+        public View moveTo(int slot) {
+            checkSlot(slot);
+            this.slot = slot;
+            return this;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public int getCustomerId() {
+            return customerIds[slot];
+        }
+
+        public String getName() {
+            return strings.get(nameCodes[slot]);
+        }
+
+        public String getEmail() {
+            return strings.get(emailCodes[slot]);
+        }
+
+        public int getOrderCount() {
+            ArrayList<Integer> orderIds = ordersBySlot.get(slot);
+            return orderIds == null ? 0 : orderIds.size();
+        }
+
+        public ArrayList<Integer> getOrderIds() {
+            ArrayList<Integer> orderIds = ordersBySlot.get(slot);
+            return orderIds == null ? new ArrayList<>(0) : orderIds;
+        }
+
+        public Customer toCustomer() {
+            return CompactCustomerStore.this.toCustomer(slot);
+        }
+
+        @Override
+        public String toString() {
+            return "Customer{" +
+                    "customerId=" + getCustomerId() +
+                    ", name='" + getName() + '\'' +
+                    ", email='" + getEmail() + '\'' +
+                    ", orderCount=" + getOrderCount() +
+                    '}';
+        }
+    }
+
+    public CompactCustomerStore(StringArena strings) {
+        this(strings, DEFAULT_CAPACITY);
+    }
+
+    public CompactCustomerStore(StringArena strings, int expectedCustomers) {
+        int capacity = Math.max(DEFAULT_CAPACITY, expectedCustomers);
+        this.strings = strings;
+        this.customerIds = new int[capacity];
+        this.nameCodes = new int[capacity];
+        this.emailCodes = new int[capacity];
+        this.size = 0;
+        this.slotsById = new IntIntHashMap(expectedCustomers);
+        this.ordersBySlot = new IntHashMap<>();
+    }
+
+    /**
+     * Adds a customer, or overwrites the existing row with the same ID. Returns its slot.
+     */
+    public int add(int customerId, String name, String email) {
+        int slot = slotsById.get(customerId, -1);
+        if (slot < 0) {
+            if (size == customerIds.length) {
+                grow();
+            }
+            slot = size++;
+            customerIds[slot] = customerId;
+            slotsById.put(customerId, slot);
+        }
+        nameCodes[slot] = strings.intern(name);
+        emailCodes[slot] = strings.intern(email);
+        return slot;
+    }
+
+    public int slotOf(int customerId) {
+        return slotsById.get(customerId, -1);
+    }
+
+    public View view(int slot) {
+        checkSlot(slot);
+        return new View(slot);
+    }
+
+    public View findById(int customerId) {
+        int slot = slotOf(customerId);
+        return slot < 0 ? null : new View(slot);
+    }
+
+    public boolean addOrder(int customerId, int orderId) {
+        int slot = slotOf(customerId);
+        if (slot < 0) {
+            return false;
+        }
+        ArrayList<Integer> orderIds = ordersBySlot.get(slot);
+        if (orderIds == null) {
+            orderIds = new ArrayList<>(2);
+            ordersBySlot.put(slot, orderIds);
+        }
+        orderIds.add(orderId);
+        return true;
+    }
+
+    /**
+     * Materializes a regular Customer entity from one slot.
+     */
+    public Customer toCustomer(int slot) {
+        checkSlot(slot);
+        Customer customer = new Customer(customerIds[slot], strings.get(nameCodes[slot]), strings.get(emailCodes[slot]));
+        ArrayList<Integer> orderIds = ordersBySlot.get(slot);
+        if (orderIds != null) {
+            for (int i = 0; i < orderIds.size(); i++) {
+                customer.addOrder(orderIds.get(i));
+            }
+        }
+        return customer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap footprint of the columns and ID index, excluding the shared
+     * string arena and order lists.
+     */
+    public long estimatedBytes() {
+        return (long) customerIds.length * (4 + 4 + 4) + slotsById.estimatedBytes();
+    }
+
+    private void grow() {
+        int newCapacity = customerIds.length * 2;
+        int[] newIds = new int[newCapacity];
+        int[] newNames = new int[newCapacity];
+        int[] newEmails = new int[newCapacity];
+        System.arraycopy(customerIds, 0, newIds, 0, size);
+        System.arraycopy(nameCodes, 0, newNames, 0, size);
+        System.arraycopy(emailCodes, 0, newEmails, 0, size);
+        customerIds = newIds;
+        nameCodes = newNames;
+        emailCodes = newEmails;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot: " + slot + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.ecommerce.models;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.IntIntHashMap;
+import java.time.LocalDate;
+
+/**
+ * Compact storage mode for large order histories
+ * Orders are kept as parallel primitive columns instead of one Order object each: order
+ * and customer IDs, the order date as an epoch-day int, the status as a byte and the total
+ * in whole cents. Product IDs of all orders share one flat int array, order i owning the
+ * range [productStarts[i], productStarts[i + 1]). A View is a flyweight over one slot, like
+ * CompactProductStore.View; toOrder() materializes a regular entity. This store is a
+ * demonstration of the full layout for bulk analytics loads (see CSVReader). OrderService
+ * keeps Order objects, which its snapshots, caches and replication hand out, but answers
+ * date ranges the same way: from a sorted primitive column of (epoch day, slot) keys, so
+ * only the matching orders are ever touched.
+ * Scans such as getOrdersBetweenDates() and getRevenueBetweenDates() compare ints in one
+ * array and touch no objects, instead of following Order -> LocalDate and Order -> enum
+ * pointers per row. Roughly 25 bytes per order plus 4 per product ID, versus ~150 bytes
+ * for Order + LocalDate + boxed ID list.
+ * Time Complexity:
+ * - add(): O(p) amortized for p product IDs
+ * - findById()/setStatus(): O(1) average
+ * - view()/getters: O(1), getOrderDate() builds a LocalDate
+ * - getOrdersBetweenDates()/getOrdersByStatus()/getOrdersByCustomer(): O(n) column scan,
+ *   returning matching slots as an int[] (no object per match)
+ * - getRevenueBetweenDates(): O(n), no allocation
+ * - countOrdersContaining(): O(n + total product IDs)
+ * Space Complexity: O(n) primitive columns + O(total product IDs)
+ */
+public class CompactOrderStore {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+
+    private int[] orderIds;
+    private int[] customerIds;
+    private int[] epochDays;
+    private byte[] statuses;
+    private long[] totalCents;
+    private int[] productStarts;
+    private int[] productIds;
+    private int productCount;
+    private int size;
+    private final IntIntHashMap slotsById;
+
+    /**
+     * Flyweight view of one order slot.
+     */
+    public class View {
+        private int slot;
+
+        private View(int slot) {
+            this.slot = slot;
+        }
+
+        /**
+         * Repoints this view at another slot, so one view can walk the whole store.
+         */
+        public View moveTo(int slot) {
+            checkSlot(slot);
+            this.slot = slot;
+            return this;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public int getOrderId() {
+            return orderIds[slot];
+        }
+
+        public int getCustomerId() {
+            return customerIds[slot];
+        }
+
+        public int getProductCount() {
+            return productStarts[slot + 1] - productStarts[slot];
+        }
+
+        public int getProductId(int index) {
+            if (index < 0 || index >= getProductCount()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getProductCount());
+            }
+            return productIds[productStarts[slot] + index];
+        }
+
+        public boolean containsProduct(int productId) {
+            for (int i = productStarts[slot]; i < productStarts[slot + 1]; i++) {
+                if (productIds[i] == productId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public double getTotalPrice() {
+            return totalCents[slot] / 100.0;
+        }
+
+        public long getTotalCents() {
+            return totalCents[slot];
+        }
+
+        public int getEpochDay() {
+            return epochDays[slot];
+        }
+
+        public LocalDate getOrderDate() {
+            return LocalDate.ofEpochDay(epochDays[slot]);
+        }
+
+        public Order.OrderStatus getStatus() {
+            return STATUSES[statuses[slot]];
+        }
+
+        public Order toOrder() {
+            return CompactOrderStore.this.toOrder(slot);
+        }
+
+        @Override
+        public String toString() {
+            return "Order{" +
+                    "orderId=" + getOrderId() +
+                    ", customerId=" + getCustomerId() +
+                    ", productCount=" + getProductCount() +
+                    ", totalPrice=" + getTotalPrice() +
+                    ", orderDate=" + getOrderDate() +
+                    ", status=" + getStatus().getDisplayName() +
+                    '}';
+        }
+    }
+
+    public CompactOrderStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CompactOrderStore(int expectedOrders) {
+        int capacity = Math.max(DEFAULT_CAPACITY, expectedOrders);
+        this.orderIds = new int[capacity];
+        this.customerIds = new int[capacity];
+        this.epochDays = new int[capacity];
+        this.statuses = new byte[capacity];
+        this.totalCents = new long[capacity];
+        this.productStarts = new int[capacity + 1];
+        this.productIds = new int[capacity * 2];
+        this.productCount = 0;
+        this.size = 0;
+        this.slotsById = new IntIntHashMap(expectedOrders);
+    }
+
+    /**
+     * Appends an order from the first count entries of products; returns its slot.
+     * A repeated order ID gets its own row, but lookups by ID keep finding the first one.
+     */
+    public int add(int orderId, int customerId, int[] products, int count, long cents,
+                   int epochDay, Order.OrderStatus status) {
+        if (size == orderIds.length) {
+            grow();
+        }
+        if (productCount + count > productIds.length) {
+            int[] grown = new int[Math.max(productCount + count, productIds.length * 2)];
+            System.arraycopy(productIds, 0, grown, 0, productCount);
+            productIds = grown;
+        }
+        int slot = size++;
+        orderIds[slot] = orderId;
+        customerIds[slot] = customerId;
+        epochDays[slot] = epochDay;
+        statuses[slot] = (byte) status.ordinal();
+        totalCents[slot] = cents;
+        System.arraycopy(products, 0, productIds, productCount, count);
+        productCount += count;
+        productStarts[slot + 1] = productCount;
+        if (!slotsById.containsKey(orderId)) {
+            slotsById.put(orderId, slot);
+        }
+        return slot;
+    }
+
+    public int add(Order order) {
+        ArrayList<Integer> ids = order.getProductIds();
+        int[] products = new int[ids.size()];
+        for (int i = 0; i < products.length; i++) {
+            products[i] = ids.get(i);
+        }
+        return add(order.getOrderId(), order.getCustomerId(), products, products.length,
+                   Math.round(order.getTotalPrice() * 100), (int) order.getOrderDate().toEpochDay(),
+                   order.getStatus());
+    }
+
+    public int slotOf(int orderId) {
+        return slotsById.get(orderId, -1);
+    }
+
+    public View view(int slot) {
+        checkSlot(slot);
+        return new View(slot);
+    }
+
+    public View findById(int orderId) {
+        int slot = slotOf(orderId);
+        return slot < 0 ? null : new View(slot);
+    }
+
+    public boolean setStatus(int orderId, Order.OrderStatus status) {
+        int slot = slotOf(orderId);
+        if (slot < 0) {
+            return false;
+        }
+        statuses[slot] = (byte) status.ordinal();
+        return true;
+    }
+
+    /**
+     * Slots of the orders dated within [startDate, endDate], in insertion order. Scans
+     * return slots rather than views, so a caller walks any number of matches with one
+     * view: view(slots[0]), then moveTo(slots[i]).
+     */
+    public int[] getOrdersBetweenDates(LocalDate startDate, LocalDate endDate) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        int[] result = new int[DEFAULT_CAPACITY];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            int day = epochDays[slot];
+            if (day >= from && day <= to) {
+                result = append(result, count++, slot);
+            }
+        }
+        return trim(result, count);
+    }
+
+    public int[] getOrdersByStatus(Order.OrderStatus status) {
+        byte code = (byte) status.ordinal();
+        int[] result = new int[DEFAULT_CAPACITY];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (statuses[slot] == code) {
+                result = append(result, count++, slot);
+            }
+        }
+        return trim(result, count);
+    }
+
+    public int[] getOrdersByCustomer(int customerId) {
+        int[] result = new int[DEFAULT_CAPACITY];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (customerIds[slot] == customerId) {
+                result = append(result, count++, slot);
+            }
+        }
+        return trim(result, count);
+    }
+
+    /**
+     * Total of the non-canceled orders dated within [startDate, endDate].
+     */
+    public double getRevenueBetweenDates(LocalDate startDate, LocalDate endDate) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        byte canceled = (byte) Order.OrderStatus.CANCELED.ordinal();
+        long cents = 0;
+        for (int slot = 0; slot < size; slot++) {
+            int day = epochDays[slot];
+            if (day >= from && day <= to && statuses[slot] != canceled) {
+                cents += totalCents[slot];
+            }
+        }
+        return cents / 100.0;
+    }
+
+    /**
+     * Number of orders listing the product at least once.
+     */
+    public int countOrdersContaining(int productId) {
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            for (int i = productStarts[slot]; i < productStarts[slot + 1]; i++) {
+                if (productIds[i] == productId) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Materializes a regular Order entity from one slot.
+     */
+    public Order toOrder(int slot) {
+        checkSlot(slot);
+        int start = productStarts[slot];
+        int end = productStarts[slot + 1];
+        ArrayList<Integer> products = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            products.add(productIds[i]);
+        }
+        return new Order(orderIds[slot], customerIds[slot], products, totalCents[slot] / 100.0,
+                         LocalDate.ofEpochDay(epochDays[slot]), STATUSES[statuses[slot]]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap footprint of the columns and ID index.
+     */
+    public long estimatedBytes() {
+        return (long) orderIds.length * (4 + 4 + 4 + 1 + 8 + 4) + (long) productIds.length * 4
+                + slotsById.estimatedBytes();
+    }
+
+    private void grow() {
+        int newCapacity = orderIds.length * 2;
+        int[] newOrderIds = new int[newCapacity];
+        int[] newCustomerIds = new int[newCapacity];
+        int[] newEpochDays = new int[newCapacity];
+        byte[] newStatuses = new byte[newCapacity];
+        long[] newTotals = new long[newCapacity];
+        int[] newStarts = new int[newCapacity + 1];
+        System.arraycopy(orderIds, 0, newOrderIds, 0, size);
+        System.arraycopy(customerIds, 0, newCustomerIds, 0, size);
+        System.arraycopy(epochDays, 0, newEpochDays, 0, size);
+        System.arraycopy(statuses, 0, newStatuses, 0, size);
+        System.arraycopy(totalCents, 0, newTotals, 0, size);
+        System.arraycopy(productStarts, 0, newStarts, 0, size + 1);
+        orderIds = newOrderIds;
+        customerIds = newCustomerIds;
+        epochDays = newEpochDays;
+        statuses = newStatuses;
+        totalCents = newTotals;
+        productStarts = newStarts;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            int[] grown = new int[array.length * 2];
+            System.arraycopy(array, 0, grown, 0, index);
+            array = grown;
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private static int[] trim(int[] array, int length) {
+        if (length == array.length) {
+            return array;
+        }
+        int[] trimmed = new int[length];
+        System.arraycopy(array, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot: " + slot + ", Size: " + size);
+        }
+    }
+}
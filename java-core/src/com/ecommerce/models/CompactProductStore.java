@@ -0,0 +1,417 @@
+package com.ecommerce.models;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.IntIntHashMap;
+import com.ecommerce.datastructures.OffHeapRecordList;
+import com.ecommerce.datastructures.OffHeapTextArena;
+import com.ecommerce.datastructures.StringArena;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact storage mode for very large product catalogs
+ * Products and reviews are fixed-width off-heap records (OffHeapRecordList) instead of
+ * Product and Review objects, so a very large catalog adds almost nothing for the GC to
+ * trace; names are dictionary-encoded in a shared StringArena and review comments go to
+ * the store's own off-heap comment arena, where each review record keeps its handle.
+ * Each product record carries its rating count and sum and the first and last of its
+ * reviews, which are chained through their records.
+ * A View is a flyweight over one slot: it holds just the slot number and reads the
+ * record on demand. Use toProduct() to get a regular entity.
+ * save() writes the whole store to one file: the product and review records as raw
+ * dumps, then each product's name and each review's comment as text. Name codes and
+ * comment handles only mean something inside one process, so load() interns the names
+ * and adds the comments again and rewrites the records to the new codes and handles.
+ * 40 off-heap bytes per product and 24 per review plus name bytes, versus ~200 bytes for
+ * Product + String + review ArrayList + index node, and ~40 per Review object.
+ * Time Complexity:
+ * - add()/addReview(): O(1) amortized
+ * - findById(): O(1) average
+ * - view()/getters: O(1), getName() decodes O(L), getReviews() O(r)
+ * - searchByName(): O(n * L) without decoding ASCII names
+ * - save()/load(): O(n + r + text bytes) sequential I/O
+ * Space Complexity: O(n + r) off-heap records + O(distinct name bytes)
+ */
+public class CompactProductStore {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int NO_REVIEW = -1;
+    private static final int FILE_MAGIC = 0x43505354;
+    private static final int FILE_FORMAT = 1;
+
+    public static final StructLayout PRODUCT_LAYOUT = MemoryLayout.structLayout(
+            ValueLayout.JAVA_DOUBLE.withName("price"),
+            ValueLayout.JAVA_INT.withName("productId"),
+            ValueLayout.JAVA_INT.withName("nameCode"),
+            ValueLayout.JAVA_INT.withName("stock"),
+            ValueLayout.JAVA_INT.withName("reviewCount"),
+            ValueLayout.JAVA_INT.withName("ratingSum"),
+            ValueLayout.JAVA_INT.withName("firstReview"),
+            ValueLayout.JAVA_INT.withName("lastReview"),
+            MemoryLayout.paddingLayout(4));
+
+    public static final StructLayout REVIEW_LAYOUT = MemoryLayout.structLayout(
+            ValueLayout.JAVA_INT.withName("reviewId"),
+            ValueLayout.JAVA_INT.withName("productId"),
+            ValueLayout.JAVA_INT.withName("customerId"),
+            ValueLayout.JAVA_INT.withName("rating"),
+            ValueLayout.JAVA_INT.withName("commentHandle"),
+            ValueLayout.JAVA_INT.withName("nextReview"));
+
+    private static final OffHeapRecordList.DoubleField PRICE = OffHeapRecordList.doubleField(PRODUCT_LAYOUT, "price");
+    private static final OffHeapRecordList.IntField PRODUCT_ID = OffHeapRecordList.intField(PRODUCT_LAYOUT, "productId");
+    private static final OffHeapRecordList.IntField NAME_CODE = OffHeapRecordList.intField(PRODUCT_LAYOUT, "nameCode");
+    private static final OffHeapRecordList.IntField STOCK = OffHeapRecordList.intField(PRODUCT_LAYOUT, "stock");
+    private static final OffHeapRecordList.IntField REVIEW_COUNT = OffHeapRecordList.intField(PRODUCT_LAYOUT, "reviewCount");
+    private static final OffHeapRecordList.IntField RATING_SUM = OffHeapRecordList.intField(PRODUCT_LAYOUT, "ratingSum");
+    private static final OffHeapRecordList.IntField FIRST_REVIEW = OffHeapRecordList.intField(PRODUCT_LAYOUT, "firstReview");
+    private static final OffHeapRecordList.IntField LAST_REVIEW = OffHeapRecordList.intField(PRODUCT_LAYOUT, "lastReview");
+
+    private static final OffHeapRecordList.IntField REVIEW_ID = OffHeapRecordList.intField(REVIEW_LAYOUT, "reviewId");
+    private static final OffHeapRecordList.IntField REVIEW_PRODUCT_ID = OffHeapRecordList.intField(REVIEW_LAYOUT, "productId");
+    private static final OffHeapRecordList.IntField CUSTOMER_ID = OffHeapRecordList.intField(REVIEW_LAYOUT, "customerId");
+    private static final OffHeapRecordList.IntField RATING = OffHeapRecordList.intField(REVIEW_LAYOUT, "rating");
+    private static final OffHeapRecordList.IntField COMMENT_HANDLE = OffHeapRecordList.intField(REVIEW_LAYOUT, "commentHandle");
+    private static final OffHeapRecordList.IntField NEXT_REVIEW = OffHeapRecordList.intField(REVIEW_LAYOUT, "nextReview");
+
+    private final StringArena strings;
+    private final OffHeapRecordList products;
+    private final OffHeapRecordList reviews;
+    private final OffHeapTextArena comments;
+    private final IntIntHashMap slotsById;
+
+    /**
+     * Flyweight view of one product slot.
+     */
+    public class View {
+        private int slot;
+
+        private View(int slot) {
+            this.slot = slot;
+        }
+
+        /**
+         * Repoints this view at another slot, so one view can walk the whole store.
+         */
+        public View moveTo(int slot) {
+            checkSlot(slot);
+            this.slot = slot;
+            return this;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public int getProductId() {
+            return products.getInt(slot, PRODUCT_ID);
+        }
+
+        public String getName() {
+            return strings.get(products.getInt(slot, NAME_CODE));
+        }
+
+        public double getPrice() {
+            return products.getDouble(slot, PRICE);
+        }
+
+        public int getStock() {
+            return products.getInt(slot, STOCK);
+        }
+
+        public boolean isOutOfStock() {
+            return getStock() == 0;
+        }
+
+        public int getReviewCount() {
+            return products.getInt(slot, REVIEW_COUNT);
+        }
+
+        /**
+         * The product's reviews, materialized from their records in insertion order.
+         */
+        public ArrayList<Review> getReviews() {
+            return reviewsOf(slot);
+        }
+
+        public double getAverageRating() {
+            int count = products.getInt(slot, REVIEW_COUNT);
+            return count == 0 ? 0.0 : (double) products.getInt(slot, RATING_SUM) / count;
+        }
+
+        public Product toProduct() {
+            return CompactProductStore.this.toProduct(slot);
+        }
+
+        @Override
+        public String toString() {
+            return "Product{" +
+                    "productId=" + getProductId() +
+                    ", name='" + getName() + '\'' +
+                    ", price=" + getPrice() +
+                    ", stock=" + getStock() +
+                    ", avgRating=" + String.format("%.2f", getAverageRating()) +
+                    ", reviewCount=" + getReviewCount() +
+                    '}';
+        }
+    }
+
+    public CompactProductStore(StringArena strings) {
+        this(strings, DEFAULT_CAPACITY);
+    }
+
+    public CompactProductStore(StringArena strings, int expectedProducts) {
+        this(strings, new OffHeapRecordList(PRODUCT_LAYOUT, Math.max(DEFAULT_CAPACITY, expectedProducts)),
+             new OffHeapRecordList(REVIEW_LAYOUT, Math.max(DEFAULT_CAPACITY, expectedProducts)));
+    }
+
+    private CompactProductStore(StringArena strings, OffHeapRecordList products, OffHeapRecordList reviews) {
+        this.strings = strings;
+        this.products = products;
+        this.reviews = reviews;
+        this.comments = new OffHeapTextArena();
+        this.slotsById = new IntIntHashMap(products.size());
+    }
+
+    /**
+     * Writes the store to file; see load().
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream header = new DataOutputStream(Channels.newOutputStream(channel));
+            header.writeInt(FILE_MAGIC);
+            header.writeInt(FILE_FORMAT);
+            header.flush();
+            products.writeTo(channel);
+            reviews.writeTo(channel);
+            // Not closed: closing the stream would close the channel before it is flushed
+            DataOutputStream text = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            for (int slot = 0; slot < products.size(); slot++) {
+                writeText(text, strings.get(products.getInt(slot, NAME_CODE)));
+            }
+            for (int record = 0; record < reviews.size(); record++) {
+                writeText(text, comments.get(reviews.getInt(record, COMMENT_HANDLE)));
+            }
+            text.flush();
+        }
+    }
+
+    /**
+     * Reads a store written by save(), interning the product names into strings.
+     */
+    public static CompactProductStore load(Path file, StringArena strings) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel));
+            if (header.readInt() != FILE_MAGIC || header.readInt() != FILE_FORMAT) {
+                throw new IOException("Not a compact product store: " + file);
+            }
+            CompactProductStore store = new CompactProductStore(strings,
+                    OffHeapRecordList.readFrom(channel, PRODUCT_LAYOUT),
+                    OffHeapRecordList.readFrom(channel, REVIEW_LAYOUT));
+            DataInputStream text = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            for (int slot = 0; slot < store.products.size(); slot++) {
+                store.products.setInt(slot, NAME_CODE, strings.intern(readText(text)));
+                store.slotsById.put(store.products.getInt(slot, PRODUCT_ID), slot);
+            }
+            for (int record = 0; record < store.reviews.size(); record++) {
+                store.reviews.setInt(record, COMMENT_HANDLE, store.comments.add(readText(text)));
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Adds a product, or overwrites the existing row with the same ID. Returns its slot.
+     */
+    public int add(int productId, String name, double price, int stock) {
+        int slot = slotsById.get(productId, -1);
+        if (slot < 0) {
+            slot = products.add();
+            products.setInt(slot, PRODUCT_ID, productId);
+            products.setInt(slot, FIRST_REVIEW, NO_REVIEW);
+            products.setInt(slot, LAST_REVIEW, NO_REVIEW);
+            slotsById.put(productId, slot);
+        }
+        products.setInt(slot, NAME_CODE, strings.intern(name));
+        products.setDouble(slot, PRICE, price);
+        products.setInt(slot, STOCK, stock);
+        return slot;
+    }
+
+    public int slotOf(int productId) {
+        return slotsById.get(productId, -1);
+    }
+
+    public View view(int slot) {
+        checkSlot(slot);
+        return new View(slot);
+    }
+
+    public View findById(int productId) {
+        int slot = slotOf(productId);
+        return slot < 0 ? null : new View(slot);
+    }
+
+    public boolean addReview(Review review) {
+        int slot = slotOf(review.getProductId());
+        if (slot < 0) {
+            return false;
+        }
+        int record = reviews.add();
+        reviews.setInt(record, REVIEW_ID, review.getReviewId());
+        reviews.setInt(record, REVIEW_PRODUCT_ID, review.getProductId());
+        reviews.setInt(record, CUSTOMER_ID, review.getCustomerId());
+        reviews.setInt(record, RATING, review.getRating());
+        reviews.setInt(record, COMMENT_HANDLE, storeComment(review));
+        reviews.setInt(record, NEXT_REVIEW, NO_REVIEW);
+
+        int last = products.getInt(slot, LAST_REVIEW);
+        if (last == NO_REVIEW) {
+            products.setInt(slot, FIRST_REVIEW, record);
+        } else {
+            reviews.setInt(last, NEXT_REVIEW, record);
+        }
+        products.setInt(slot, LAST_REVIEW, record);
+        products.setInt(slot, REVIEW_COUNT, products.getInt(slot, REVIEW_COUNT) + 1);
+        products.setInt(slot, RATING_SUM, products.getInt(slot, RATING_SUM) + review.getRating());
+        return true;
+    }
+
+    public boolean decreaseStock(int productId, int quantity) {
+        int slot = slotOf(productId);
+        if (slot >= 0 && products.getInt(slot, STOCK) >= quantity) {
+            products.setInt(slot, STOCK, products.getInt(slot, STOCK) - quantity);
+            return true;
+        }
+        return false;
+    }
+
+    public ArrayList<View> searchByName(String name) {
+        ArrayList<View> results = new ArrayList<>();
+        for (int slot = 0; slot < products.size(); slot++) {
+            if (strings.containsIgnoreCase(products.getInt(slot, NAME_CODE), name)) {
+                results.add(new View(slot));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Materializes a regular Product entity from one slot.
+     */
+    public Product toProduct(int slot) {
+        checkSlot(slot);
+        Product product = new Product(products.getInt(slot, PRODUCT_ID), strings.get(products.getInt(slot, NAME_CODE)),
+                                      products.getDouble(slot, PRICE), products.getInt(slot, STOCK));
+        ArrayList<Review> productReviews = reviewsOf(slot);
+        for (int i = 0; i < productReviews.size(); i++) {
+            product.addReview(productReviews.get(i));
+        }
+        return product;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    public int getReviewCount() {
+        return reviews.size();
+    }
+
+    /**
+     * Approximate heap footprint: only the ID index, as the records are off-heap.
+     * Excludes the shared string arena.
+     */
+    public long estimatedBytes() {
+        return slotsById.estimatedBytes();
+    }
+
+    /**
+     * Off-heap bytes reserved for product and review records.
+     */
+    public long offHeapBytes() {
+        return products.getReservedBytes() + reviews.getReservedBytes();
+    }
+
+    /**
+     * Arena holding the review comments, for memory statistics.
+     */
+    public OffHeapTextArena getCommentArena() {
+        return comments;
+    }
+
+    /**
+     * Raw product and review records. Their name codes and comment handles are only
+     * valid with this store's strings and comments; use save() to persist the store.
+     */
+    public OffHeapRecordList getProductRecords() {
+        return products;
+    }
+
+    public OffHeapRecordList getReviewRecords() {
+        return reviews;
+    }
+
+    private ArrayList<Review> reviewsOf(int slot) {
+        ArrayList<Review> result = new ArrayList<>(products.getInt(slot, REVIEW_COUNT));
+        for (int record = products.getInt(slot, FIRST_REVIEW); record != NO_REVIEW;
+             record = reviews.getInt(record, NEXT_REVIEW)) {
+            result.add(Review.withComment(reviews.getInt(record, REVIEW_ID), reviews.getInt(record, REVIEW_PRODUCT_ID),
+                                          reviews.getInt(record, CUSTOMER_ID), reviews.getInt(record, RATING),
+                                          comments, reviews.getInt(record, COMMENT_HANDLE)));
+        }
+        return result;
+    }
+
+    /**
+     * Shares the entry of a review rebuilt from this store, otherwise copies the text in.
+     * Records are never removed, so the store's entries are never retired.
+     */
+    private int storeComment(Review review) {
+        int handle = review.getCommentHandle(comments);
+        if (handle != -1) {
+            return handle;
+        }
+        return comments.add(review.getComment());
+    }
+
+    /**
+     * Length-prefixed UTF-8, with -1 for null.
+     */
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] encoded = new byte[length];
+        in.readFully(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= products.size()) {
+            throw new IndexOutOfBoundsException("Slot: " + slot + ", Size: " + products.size());
+        }
+    }
+}
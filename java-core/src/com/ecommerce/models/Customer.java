@@ -1,34 +1,47 @@
 package com.ecommerce.models;
 
 import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.PersistentVector;
 
 /**
  * Customer entity with order history
+ * Order IDs are kept in a PersistentVector, so copy() shares them in O(1) and an order
+ * appended afterwards never touches what a snapshot copy sees.
  */
 public class Customer implements Comparable<Customer> {
     private int customerId;
     private String name;
     private String email;
-    private ArrayList<Integer> orderIds;
+    private PersistentVector<Integer> orderIds;
 
     public Customer(int customerId, String name, String email) {
         this.customerId = customerId;
         this.name = name;
         this.email = email;
-        this.orderIds = new ArrayList<>();
+        this.orderIds = PersistentVector.empty();
     }
 
     public void addOrder(int orderId) {
-        orderIds.add(orderId);
+        orderIds = orderIds.append(orderId);
     }
 
+    /**
+     * Removes the first occurrence of orderId; O(m), as the vector is rebuilt.
+     */
     public void removeOrder(int orderId) {
+        PersistentVector<Integer> kept = PersistentVector.empty();
+        boolean removed = false;
         for (int i = 0; i < orderIds.size(); i++) {
-            if (orderIds.get(i) == orderId) {
-                orderIds.remove(i);
-                break;
+            int id = orderIds.get(i);
+            if (!removed && id == orderId) {
+                removed = true;
+            } else {
+                kept = kept.append(id);
             }
         }
+        if (removed) {
+            orderIds = kept;
+        }
     }
 
     public int getCustomerId() {
@@ -55,8 +68,38 @@ public class Customer implements Comparable<Customer> {
         this.email = email;
     }
 
+    public int getOrderCount() {
+        return orderIds.size();
+    }
+
+    public boolean hasOrder(int orderId) {
+        for (int i = 0; i < orderIds.size(); i++) {
+            if (orderIds.get(i) == orderId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the order IDs, oldest first, as a new list; change them through
+     * addOrder()/removeOrder().
+     */
     public ArrayList<Integer> getOrderIds() {
-        return orderIds;
+        ArrayList<Integer> ids = new ArrayList<>(orderIds.size());
+        for (int i = 0; i < orderIds.size(); i++) {
+            ids.add(orderIds.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Copy used for read snapshots in O(1); the immutable order ID vector is shared.
+     */
+    public Customer copy() {
+        Customer copy = new Customer(customerId, name, email);
+        copy.orderIds = orderIds;
+        return copy;
     }
 
     @Override
@@ -70,7 +113,7 @@ public class Customer implements Comparable<Customer> {
                 "customerId=" + customerId +
                 ", name='" + name + '\'' +
                 ", email='" + email + '\'' +
-                ", orderCount=" + orderIds.size() +
+                ", orderCount=" + getOrderCount() +
                 '}';
     }
 
@@ -131,6 +131,15 @@ public class Order implements Comparable<Order> {
         this.status = status;
     }
 
+    /**
+     * Copy used for read snapshots, with its own product ID list.
+     */
+    public Order copy() {
+        ArrayList<Integer> productIdsCopy = new ArrayList<>(productIds.size());
+        productIdsCopy.addAll(productIds);
+        return new Order(orderId, customerId, productIdsCopy, totalPrice, orderDate, status);
+    }
+
     @Override
     public int compareTo(Order other) {
         return this.orderDate.compareTo(other.orderDate);
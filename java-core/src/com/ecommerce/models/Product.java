@@ -4,6 +4,12 @@ import com.ecommerce.datastructures.ArrayList;
 
 /**
  * Product entity with inventory management
+ * The review list is created on the first review, so unreviewed products carry no list.
+ * The review count and rating sum are kept as a running summary, so the average rating
+ * never needs the list. In lazy mode the product is attached to a ReviewSource and the
+ * list is paged in on demand; the first change to the reviews copies it in for good.
+ * copy() shares the review list with the copy; the next review change on either side
+ * copies the list first, so stock and price changes never pay for the reviews.
  */
 public class Product implements Comparable<Product> {
     private int productId;
@@ -11,32 +17,82 @@ public class Product implements Comparable<Product> {
     private double price;
     private int stock;
     private ArrayList<Review> reviews;
+    // True while reviews is also referenced by a copy and must not be changed in place
+    private boolean reviewsShared;
+    private ReviewSource reviewSource;
+    private int reviewCount;
+    private long ratingSum;
 
     public Product(int productId, String name, double price, int stock) {
         this.productId = productId;
         this.name = name;
         this.price = price;
         this.stock = stock;
-        this.reviews = new ArrayList<>();
+        this.reviews = null;
     }
 
     public void addReview(Review review) {
+        ownReviews();
+        if (reviews == null) {
+            reviews = new ArrayList<>(2);
+        }
         reviews.add(review);
+        reviewCount++;
+        ratingSum += review.getRating();
     }
 
     public void removeReview(Review review) {
-        reviews.remove(review);
+        ownReviews();
+        if (reviews != null) {
+            int index = reviews.indexOf(review);
+            if (index >= 0) {
+                Review removed = reviews.remove(index);
+                reviewCount--;
+                ratingSum -= removed.getRating();
+            }
+        }
+    }
+
+    /**
+     * Replaces the review at index, keeping the rating summary in step.
+     * Reviews are replaced rather than mutated in place, since the summary and
+     * read snapshots rely on a review's rating not changing.
+     */
+    public void setReview(int index, Review review) {
+        ownReviews();
+        if (reviews == null) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+        }
+        Review previous = reviews.get(index);
+        reviews.set(index, review);
+        ratingSum += review.getRating() - previous.getRating();
+    }
+
+    /**
+     * Switches the product to lazy mode: its reviews now come from source and the
+     * summary is taken from the source's precomputed counts.
+     */
+    public void attachReviewSource(ReviewSource source) {
+        this.reviews = null;
+        this.reviewsShared = false;
+        this.reviewCount = source.getReviewCount(productId);
+        this.ratingSum = source.getRatingSum(productId);
+        this.reviewSource = reviewCount == 0 ? null : source;
+    }
+
+    public boolean isReviewsLoaded() {
+        return reviewSource == null;
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
     }
 
     public double getAverageRating() {
-        if (reviews.isEmpty()) {
+        if (reviewCount == 0) {
             return 0.0;
         }
-        double sum = 0.0;
-        for (int i = 0; i < reviews.size(); i++) {
-            sum += reviews.get(i).getRating();
-        }
-        return sum / reviews.size();
+        return (double) ratingSum / reviewCount;
     }
 
     public boolean isOutOfStock() {
@@ -87,8 +143,63 @@ public class Product implements Comparable<Product> {
         this.stock = stock;
     }
 
+    /**
+     * Returns the review list, or an empty list if the product has no reviews yet.
+     * In lazy mode the list is paged in from the review source and may be shared.
+     * Change reviews through addReview()/removeReview()/setReview(), not through the list.
+     */
     public ArrayList<Review> getReviews() {
-        return reviews;
+        if (reviewSource != null) {
+            return reviewSource.loadReviews(productId);
+        }
+        return reviews == null ? new ArrayList<>(0) : reviews;
+    }
+
+    /**
+     * Returns the review list for a one-off pass over many products, e.g. an export.
+     * A lazy product reads its reviews from the source without paging them in or
+     * disturbing the source's cache; the list may be shared and must not be modified.
+     */
+    public ArrayList<Review> readReviewsUncached() {
+        if (reviewSource != null) {
+            return reviewSource.readReviews(productId);
+        }
+        return getReviews();
+    }
+
+    /**
+     * Copy used for read snapshots in O(1): the review list is shared copy-on-write.
+     * A lazy product's copy stays attached to the same source.
+     */
+    public Product copy() {
+        Product copy = new Product(productId, name, price, stock);
+        if (reviews != null) {
+            copy.reviews = reviews;
+            copy.reviewsShared = true;
+            reviewsShared = true;
+        }
+        copy.reviewSource = reviewSource;
+        copy.reviewCount = reviewCount;
+        copy.ratingSum = ratingSum;
+        return copy;
+    }
+
+    /**
+     * Gives this product a review list it may change: pages a lazy list in, or copies
+     * a list still shared with a copy.
+     */
+    private void ownReviews() {
+        if (reviewSource != null) {
+            ArrayList<Review> loaded = reviewSource.loadReviews(productId);
+            reviews = new ArrayList<>(loaded.size() + 1);
+            reviews.addAll(loaded);
+            reviewSource = null;
+        } else if (reviewsShared) {
+            ArrayList<Review> owned = new ArrayList<>(reviews.size() + 1);
+            owned.addAll(reviews);
+            reviews = owned;
+        }
+        reviewsShared = false;
     }
 
     @Override
@@ -104,7 +215,7 @@ public class Product implements Comparable<Product> {
                 ", price=" + price +
                 ", stock=" + stock +
                 ", avgRating=" + String.format("%.2f", getAverageRating()) +
-                ", reviewCount=" + reviews.size() +
+                ", reviewCount=" + getReviewCount() +
                 '}';
     }
 
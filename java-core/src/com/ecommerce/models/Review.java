@@ -1,14 +1,26 @@
 package com.ecommerce.models;
 
+import com.ecommerce.datastructures.OffHeapTextArena;
+
 /**
  * Review entity representing customer feedback on products
+ * A new review keeps its comment as a plain String. Once it is added to a store that
+ * owns an off-heap comment arena (ProductService, CompactProductStore) the text moves
+ * into that arena and the review keeps only its handle, decoding the text when
+ * getComment() is called. Analytics reading ratings and customer IDs never touches it.
+ * The arena entry belongs to the store, not to the review: copies share it, and the
+ * store retires it when the review is replaced or removed. Retired text stays readable
+ * until the store drops the whole arena, so a snapshot still holding an old review
+ * keeps reading its comment.
  */
 public class Review {
     private int reviewId;
     private int productId;
     private int customerId;
     private int rating;
-    private String comment;
+    private String detachedComment;
+    private OffHeapTextArena commentArena;
+    private int commentHandle = -1;
 
     public Review(int reviewId, int productId, int customerId, int rating, String comment) {
         if (rating < 1 || rating > 5) {
@@ -18,7 +30,30 @@ public class Review {
         this.productId = productId;
         this.customerId = customerId;
         this.rating = rating;
-        this.comment = comment;
+        this.detachedComment = comment;
+    }
+
+    private Review(int reviewId, int productId, int customerId, int rating) {
+        this.reviewId = reviewId;
+        this.productId = productId;
+        this.customerId = customerId;
+        this.rating = rating;
+    }
+
+    /**
+     * Builds a review around a comment already stored in arena, so callers that rebuild
+     * the same review repeatedly do not write its text again. The entry must stay owned
+     * by arena's store for as long as the review is used.
+     */
+    public static Review withComment(int reviewId, int productId, int customerId, int rating,
+                                     OffHeapTextArena arena, int commentHandle) {
+        if (rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+        Review review = new Review(reviewId, productId, customerId, rating);
+        review.commentArena = arena;
+        review.commentHandle = commentHandle;
+        return review;
     }
 
     public int getReviewId() {
@@ -56,12 +91,50 @@ public class Review {
         this.rating = rating;
     }
 
+    /**
+     * Handle of the comment in arena, or -1 if it is held elsewhere or null.
+     * Stores use it to share or retire the entry.
+     */
+    public int getCommentHandle(OffHeapTextArena arena) {
+        return commentArena == arena ? commentHandle : -1;
+    }
+
     public String getComment() {
-        return comment;
+        return commentArena == null ? detachedComment : commentArena.get(commentHandle);
     }
 
+    /**
+     * Replaces the comment with plain text until the review is moved into an arena
+     * again. An arena entry held before is left to its store to retire.
+     */
     public void setComment(String comment) {
-        this.comment = comment;
+        this.detachedComment = comment;
+        this.commentArena = null;
+        this.commentHandle = -1;
+    }
+
+    /**
+     * Moves the comment into arena, the arena of the store this review is added to.
+     * Does nothing if it is already there.
+     */
+    public void moveCommentTo(OffHeapTextArena arena) {
+        if (commentArena == arena) {
+            return;
+        }
+        int handle = arena.add(getComment());
+        this.detachedComment = null;
+        this.commentArena = arena;
+        this.commentHandle = handle;
+    }
+
+    /**
+     * Copy sharing the same comment entry; the text is not duplicated.
+     */
+    public Review copy() {
+        if (commentArena == null) {
+            return new Review(reviewId, productId, customerId, rating, detachedComment);
+        }
+        return withComment(reviewId, productId, customerId, rating, commentArena, commentHandle);
     }
 
     @Override
@@ -71,7 +144,7 @@ public class Review {
                 ", productId=" + productId +
                 ", customerId=" + customerId +
                 ", rating=" + rating +
-                ", comment='" + comment + '\'' +
+                ", comment='" + getComment() + '\'' +
                 '}';
     }
 
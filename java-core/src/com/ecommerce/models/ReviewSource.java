@@ -0,0 +1,25 @@
+package com.ecommerce.models;
+
+import com.ecommerce.datastructures.ArrayList;
+
+/**
+ * Supplier of reviews kept outside the Product objects (e.g. paged in from disk)
+ * Products attached to a source hold only the rating summary and ask the source for
+ * the review list when it is first needed.
+ */
+public interface ReviewSource {
+    int getReviewCount(int productId);
+
+    long getRatingSum(int productId);
+
+    /**
+     * Returns the product's reviews; the list may be shared and must not be modified.
+     */
+    ArrayList<Review> loadReviews(int productId);
+
+    /**
+     * Reads the product's reviews into a new list without consulting or filling any
+     * cache, for one-off passes such as a full export.
+     */
+    ArrayList<Review> readReviews(int productId);
+}
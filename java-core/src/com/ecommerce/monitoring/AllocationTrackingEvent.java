@@ -0,0 +1,84 @@
+package com.ecommerce.monitoring;
+
+import java.lang.management.ManagementFactory;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the application's Flight Recorder events: a timed span that also records how
+ * many bytes its thread allocated while the span was open
+ * Subclasses add the business fields and a static start() that calls track(). Nothing is
+ * measured unless the event type is enabled in a running recording, so a span costs a
+ * few field writes when recording is off. Allocation is read from the JVM's per-thread
+ * counter, which is not kept for virtual threads; their spans report -1 and can be
+ * matched to jdk.ObjectAllocationSample events by thread and time instead. Spans that
+ * end on another thread than they began on are opened with trackTime() and report -1 too.
+ * Time Complexity: track()/trackTime()/complete(): O(1)
+ * Space Complexity: O(1)
+ */
+abstract class AllocationTrackingEvent extends Event {
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread during the span, -1 if not tracked")
+    @DataAmount
+    long allocatedBytes;
+
+    private transient long allocatedAtStart;
+
+    /**
+     * Opens the span if the event type is enabled.
+     */
+    final void track() {
+        if (isEnabled()) {
+            allocatedBytes = -1;
+            allocatedAtStart = currentThreadAllocatedBytes();
+            begin();
+        }
+    }
+
+    /**
+     * Opens the span without reading the allocation counter, for spans closed by a
+     * different thread.
+     */
+    final void trackTime() {
+        if (isEnabled()) {
+            allocatedBytes = -1;
+            allocatedAtStart = -1;
+            begin();
+        }
+    }
+
+    /**
+     * Closes the span; returns true if it passed the threshold, so the caller should set
+     * its fields and commit().
+     */
+    final boolean complete() {
+        if (!isEnabled()) {
+            return false;
+        }
+        end();
+        if (!shouldCommit()) {
+            return false;
+        }
+        long allocatedNow = currentThreadAllocatedBytes();
+        if (allocatedAtStart >= 0 && allocatedNow >= 0) {
+            allocatedBytes = allocatedNow - allocatedAtStart;
+        }
+        return true;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
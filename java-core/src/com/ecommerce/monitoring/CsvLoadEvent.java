@@ -0,0 +1,59 @@
+package com.ecommerce.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for loading one CSV file into a service or compact store
+ * Spans the whole load, parsing and indexing; index rebuilds done by the load appear
+ * as nested IndexRebuildEvents on the same thread. Always recorded when enabled.
+ * Time Complexity: start()/finish(): O(1)
+ * Space Complexity: O(1)
+ */
+@Name("com.ecommerce.CsvLoad")
+@Label("CSV Load")
+@Category({"E-Commerce", "Loading"})
+@Description("One CSV file parsed into a service or compact store")
+@Threshold("0 ms")
+@StackTrace(false)
+public final class CsvLoadEvent extends AllocationTrackingEvent {
+    @Label("File")
+    String file;
+
+    @Label("Entity")
+    @Description("What the rows are: products, customers, orders or reviews")
+    String entity;
+
+    @Label("Target")
+    @Description("service or compact")
+    String target;
+
+    @Label("Rows")
+    @Description("Rows parsed and added")
+    int rows;
+
+    @Label("Failed")
+    @Description("True if the load stopped early on an I/O or parse error")
+    boolean failed;
+
+    public static CsvLoadEvent start(String file, String entity, String target) {
+        CsvLoadEvent event = new CsvLoadEvent();
+        event.file = file;
+        event.entity = entity;
+        event.target = target;
+        event.track();
+        return event;
+    }
+
+    public void finish(int rows, boolean failed) {
+        if (complete()) {
+            this.rows = rows;
+            this.failed = failed;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a bulk index rebuild, such as merging a product batch into
+ * the balanced ID index or the attribute indexes
+ * Time Complexity: start()/finish(): O(1)
+ * Space Complexity: O(1)
+ */
+@Name("com.ecommerce.IndexRebuild")
+@Label("Index Rebuild")
+@Category({"E-Commerce", "Indexing"})
+@Description("A batch merged into an index by rebuilding it")
+@Threshold("0 ms")
+@StackTrace(false)
+public final class IndexRebuildEvent extends AllocationTrackingEvent {
+    @Label("Index")
+    String index;
+
+    @Label("Batch Size")
+    @Description("Entries merged in")
+    int batchSize;
+
+    @Label("Index Size")
+    @Description("Entries in the index after the rebuild")
+    int indexSize;
+
+    public static IndexRebuildEvent start(String index, int batchSize) {
+        IndexRebuildEvent event = new IndexRebuildEvent();
+        event.index = index;
+        event.batchSize = batchSize;
+        event.track();
+        return event;
+    }
+
+    public void finish(int indexSize) {
+        if (complete()) {
+            this.indexSize = indexSize;
+            commit();
+        }
+    }
+}
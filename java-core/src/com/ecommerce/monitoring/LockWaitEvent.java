@@ -0,0 +1,78 @@
+package com.ecommerce.monitoring;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for time spent waiting to acquire an application lock
+ * Callers start the event just before lock() and finish it once the lock is held; an
+ * uncontended acquisition falls below the threshold and is dropped. Used for the
+ * ApiServer engine lock and the ReplicationPrimary write lock; the services take no
+ * locks of their own, and waits on synchronized monitors such as DiskOrderStore's are
+ * already recorded by the JDK's jdk.JavaMonitorEnter event. Unlike the other
+ * events it carries no allocation figure, as a waiting thread does not allocate.
+ * Recorded for waits of 10 ms or more by default.
+ * Time Complexity: start()/finish(): O(1)
+ * Space Complexity: O(1)
+ */
+@Name("com.ecommerce.LockWait")
+@Label("Lock Wait")
+@Category({"E-Commerce", "Locking"})
+@Description("Wait for a contended application lock")
+@Threshold("10 ms")
+@StackTrace(false)
+public final class LockWaitEvent extends Event {
+    @Label("Lock")
+    String lock;
+
+    @Label("Mode")
+    @Description("read or write")
+    String mode;
+
+    @Label("Operation")
+    @Description("What the waiting thread was about to do")
+    String operation;
+
+    @Label("Queue Length")
+    @Description("Estimated threads still waiting when the lock was acquired")
+    int queueLength;
+
+    public static LockWaitEvent start(String lock, String mode, String operation) {
+        LockWaitEvent event = new LockWaitEvent();
+        event.lock = lock;
+        event.mode = mode;
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the wait once the lock is held; the queue length is only read if the wait
+     * is recorded.
+     */
+    public void finish(ReentrantReadWriteLock acquired) {
+        end();
+        if (shouldCommit()) {
+            this.queueLength = acquired.getQueueLength();
+            commit();
+        }
+    }
+
+    /**
+     * finish() for an exclusive lock.
+     */
+    public void finish(ReentrantLock acquired) {
+        end();
+        if (shouldCommit()) {
+            this.queueLength = acquired.getQueueLength();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one business operation, e.g. placing or canceling an order
+ * Usage:
+ *   ServiceOperationEvent event = ServiceOperationEvent.start("placeOrder", customerId);
+ *   Order order = null;
+ *   try {
+ *       ... do the work ...
+ *   } finally {
+ *       event.finish(orderId, productIds.size(), order != null);
+ *   }
+ * Finishing in a finally block records calls that throw as failed instead of dropping
+ * them. Searches without an entity pass their search text, filter or date range as the
+ * query; filters and ranges are kept as objects and only turned into text in finish()
+ * once the event is known to be recorded, so calls cost no string building while
+ * recording is off or the call is below the threshold.
+ * startAsync() is for operations completed by another thread, such as OrderPipeline
+ * orders; those spans do not track allocation.
+ * Recorded when the call takes at least 1 ms by default; lower the threshold in the
+ * recording settings to see every call.
+ * Time Complexity: start()/finish(): O(1)
+ * Space Complexity: O(1)
+ */
+@Name("com.ecommerce.ServiceOperation")
+@Label("Service Operation")
+@Category({"E-Commerce", "Services"})
+@Description("Order placement, order updates and catalog searches")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class ServiceOperationEvent extends AllocationTrackingEvent {
+    @Label("Operation")
+    String operation;
+
+    @Label("Entity ID")
+    @Description("Customer, order or product the call is about, -1 if none")
+    long entityId;
+
+    @Label("Query")
+    @Description("Search text, filter or date range the call was made with, null if none")
+    String query;
+
+    @Label("Result ID")
+    @Description("ID of the entity the call created, -1 if none")
+    long resultId;
+
+    @Label("Result Size")
+    @Description("Items returned or processed")
+    int resultSize;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    // Query parts formatted by finish() only if the event is committed
+    private transient Object queryFrom;
+    private transient Object queryTo;
+
+    public static ServiceOperationEvent start(String operation, long entityId) {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.operation = operation;
+        event.entityId = entityId;
+        event.track();
+        return event;
+    }
+
+    /**
+     * start() for searches and range queries that are not about one entity.
+     */
+    public static ServiceOperationEvent start(String operation, String query) {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.operation = operation;
+        event.entityId = -1;
+        event.query = query;
+        event.track();
+        return event;
+    }
+
+    /**
+     * start() for searches whose query is an object such as a filter; its toString() is
+     * only called if the event is recorded.
+     */
+    public static ServiceOperationEvent start(String operation, Object query) {
+        return startRange(operation, query, null);
+    }
+
+    /**
+     * start() for range queries, recorded as "from..to" if the event is recorded.
+     */
+    public static ServiceOperationEvent startRange(String operation, Object from, Object to) {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.operation = operation;
+        event.entityId = -1;
+        event.queryFrom = from;
+        event.queryTo = to;
+        event.track();
+        return event;
+    }
+
+    /**
+     * start() for an operation that finish() is called for on a different thread.
+     */
+    public static ServiceOperationEvent startAsync(String operation, long entityId) {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.operation = operation;
+        event.entityId = entityId;
+        event.trackTime();
+        return event;
+    }
+
+    public void finish(long resultId, int resultSize, boolean succeeded) {
+        if (complete()) {
+            this.resultId = resultId;
+            this.resultSize = resultSize;
+            this.succeeded = succeeded;
+            if (queryTo != null) {
+                this.query = queryFrom + ".." + queryTo;
+            } else if (queryFrom != null) {
+                this.query = queryFrom.toString();
+            }
+            commit();
+        }
+    }
+
+    /**
+     * finish() for calls that create nothing, such as searches.
+     */
+    public void finish(int resultSize, boolean succeeded) {
+        finish(-1, resultSize, succeeded);
+    }
+}
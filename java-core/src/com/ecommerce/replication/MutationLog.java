@@ -0,0 +1,134 @@
+package com.ecommerce.replication;
+
+import com.ecommerce.datastructures.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory log of encoded mutations, numbered from 1
+ * A ring buffer keeps the newest capacity entries. Readers ask for everything after the
+ * sequence number they have; a reader that has fallen behind the oldest retained entry
+ * must catch up from a snapshot instead.
+ * Time Complexity:
+ * - append(): O(1)
+ * - read(): O(k) for k entries returned, waits up to the timeout when there are none
+ * Space Complexity: O(capacity) entries
+ */
+public class MutationLog {
+    private final byte[][] payloads;
+    private final long[] timestamps;
+    private final ReentrantLock lock;
+    private final Condition appended;
+    private long headSeq;
+
+    /**
+     * One logged mutation: its sequence number, append time (epoch ms) and encoding.
+     */
+    public static class Entry {
+        private final long seq;
+        private final long timestamp;
+        private final byte[] payload;
+
+        Entry(long seq, long timestamp, byte[] payload) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.payload = payload;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    public MutationLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.payloads = new byte[capacity][];
+        this.timestamps = new long[capacity];
+        this.lock = new ReentrantLock();
+        this.appended = lock.newCondition();
+        this.headSeq = 0;
+    }
+
+    /**
+     * Appends a mutation and wakes waiting readers. Returns its sequence number.
+     */
+    public long append(byte[] payload) {
+        lock.lock();
+        try {
+            headSeq++;
+            int slot = (int) (headSeq % payloads.length);
+            payloads[slot] = payload;
+            timestamps[slot] = System.currentTimeMillis();
+            appended.signalAll();
+            return headSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHeadSeq() {
+        lock.lock();
+        try {
+            return headSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Oldest sequence number still retained (headSeq + 1 when the log is empty).
+     */
+    public long getOldestSeq() {
+        lock.lock();
+        try {
+            return oldestSeq();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds up to maxEntries entries with seq > afterSeq to out, waiting up to timeout
+     * for the first one. Returns the number added, or -1 if entries after afterSeq have
+     * already been overwritten and the reader needs a snapshot.
+     */
+    public int read(long afterSeq, ArrayList<Entry> out, int maxEntries, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (headSeq <= afterSeq) {
+                if (remaining <= 0) {
+                    return 0;
+                }
+                remaining = appended.awaitNanos(remaining);
+            }
+            if (afterSeq + 1 < oldestSeq()) {
+                return -1;
+            }
+            long last = Math.min(headSeq, afterSeq + maxEntries);
+            for (long seq = afterSeq + 1; seq <= last; seq++) {
+                int slot = (int) (seq % payloads.length);
+                out.add(new Entry(seq, timestamps[slot], payloads[slot]));
+            }
+            return (int) (last - afterSeq);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long oldestSeq() {
+        return Math.max(1, headSeq - payloads.length + 1);
+    }
+}
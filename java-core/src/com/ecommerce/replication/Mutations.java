@@ -0,0 +1,360 @@
+package com.ecommerce.replication;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.models.Customer;
+import com.ecommerce.models.Order;
+import com.ecommerce.models.Product;
+import com.ecommerce.models.Review;
+import com.ecommerce.services.CustomerService;
+import com.ecommerce.services.OrderService;
+import com.ecommerce.services.ProductService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Binary encoding of replicated mutations
+ * Each mutation is a byte[] starting with an op code. Mutations carry the resulting state
+ * (e.g. the new stock level, not the delta), so applying one twice is harmless and a
+ * snapshot is just a list of PUT mutations. Strings are written as an int byte length
+ * (-1 for null) followed by UTF-8, so they have no length limit and encoding cannot fail
+ * after the primary has applied the change.
+ * Time Complexity:
+ * - encode: O(size of the entity)
+ * - apply(): one lookup plus one update in the target service
+ * - SnapshotLoader: O(P + C + O + R) for a whole snapshot, see below
+ */
+public class Mutations {
+    static final byte PUT_PRODUCT = 1;
+    static final byte SET_STOCK = 2;
+    static final byte REMOVE_PRODUCT = 3;
+    static final byte PUT_CUSTOMER = 4;
+    static final byte PUT_ORDER = 5;
+    static final byte LINK_ORDER = 6;
+    static final byte SET_STATUS = 7;
+    static final byte PUT_REVIEW = 8;
+
+    private Mutations() {
+    }
+
+    public static byte[] putProduct(Product product) {
+        Encoder e = new Encoder(PUT_PRODUCT);
+        e.writeInt(product.getProductId());
+        e.writeString(product.getName());
+        e.writeDouble(product.getPrice());
+        e.writeInt(product.getStock());
+        return e.toBytes();
+    }
+
+    public static byte[] setStock(int productId, int stock) {
+        Encoder e = new Encoder(SET_STOCK);
+        e.writeInt(productId);
+        e.writeInt(stock);
+        return e.toBytes();
+    }
+
+    public static byte[] removeProduct(int productId) {
+        Encoder e = new Encoder(REMOVE_PRODUCT);
+        e.writeInt(productId);
+        return e.toBytes();
+    }
+
+    public static byte[] putCustomer(Customer customer) {
+        ArrayList<Integer> orderIds = customer.getOrderIds();
+        Encoder e = new Encoder(PUT_CUSTOMER);
+        e.writeInt(customer.getCustomerId());
+        e.writeString(customer.getName());
+        e.writeString(customer.getEmail());
+        e.writeInt(orderIds.size());
+        for (int i = 0; i < orderIds.size(); i++) {
+            e.writeInt(orderIds.get(i));
+        }
+        return e.toBytes();
+    }
+
+    public static byte[] putOrder(Order order) {
+        ArrayList<Integer> productIds = order.getProductIds();
+        Encoder e = new Encoder(PUT_ORDER);
+        e.writeInt(order.getOrderId());
+        e.writeInt(order.getCustomerId());
+        e.writeInt(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            e.writeInt(productIds.get(i));
+        }
+        e.writeDouble(order.getTotalPrice());
+        e.writeInt((int) order.getOrderDate().toEpochDay());
+        e.writeByte(order.getStatus().ordinal());
+        return e.toBytes();
+    }
+
+    public static byte[] linkOrder(int customerId, int orderId) {
+        Encoder e = new Encoder(LINK_ORDER);
+        e.writeInt(customerId);
+        e.writeInt(orderId);
+        return e.toBytes();
+    }
+
+    public static byte[] setStatus(int orderId, Order.OrderStatus status) {
+        Encoder e = new Encoder(SET_STATUS);
+        e.writeInt(orderId);
+        e.writeByte(status.ordinal());
+        return e.toBytes();
+    }
+
+    public static byte[] putReview(Review review) {
+        Encoder e = new Encoder(PUT_REVIEW);
+        e.writeInt(review.getReviewId());
+        e.writeInt(review.getProductId());
+        e.writeInt(review.getCustomerId());
+        e.writeByte(review.getRating());
+        e.writeString(review.getComment());
+        return e.toBytes();
+    }
+
+    /**
+     * Applies one mutation to the given services. Throws IOException on a malformed payload.
+     */
+    public static void apply(byte[] mutation, ProductService productService,
+                             CustomerService customerService, OrderService orderService) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(mutation));
+        byte op = in.readByte();
+        switch (op) {
+            case PUT_PRODUCT -> {
+                Product product = readProduct(in);
+                if (!productService.updateProduct(product.getProductId(), product.getName(), product.getPrice(),
+                                                  product.getStock())) {
+                    productService.addProduct(product);
+                }
+            }
+            case SET_STOCK -> {
+                int productId = in.readInt();
+                int stock = in.readInt();
+                Product product = productService.searchById(productId);
+                if (product != null) {
+                    productService.updateProduct(productId, product.getName(), product.getPrice(), stock);
+                }
+            }
+            case REMOVE_PRODUCT -> productService.removeProduct(in.readInt());
+            case PUT_CUSTOMER -> {
+                Customer decoded = readCustomer(in);
+                Customer customer = customerService.searchCustomerById(decoded.getCustomerId());
+                if (customer == null) {
+                    customerService.registerCustomer(decoded);
+                } else {
+                    customer.setName(decoded.getName());
+                    customer.setEmail(decoded.getEmail());
+                    ArrayList<Integer> orderIds = decoded.getOrderIds();
+                    for (int i = 0; i < orderIds.size(); i++) {
+                        if (!customer.hasOrder(orderIds.get(i))) {
+                            customerService.linkOrder(customer, orderIds.get(i));
+                        }
+                    }
+                }
+            }
+            case PUT_ORDER -> {
+                Order order = readOrder(in);
+                Order existing = orderService.searchOrderById(order.getOrderId());
+                if (existing == null) {
+                    orderService.createOrder(order);
+                } else if (existing.getStatus() != order.getStatus()) {
+                    orderService.updateOrderStatus(order.getOrderId(), order.getStatus());
+                }
+            }
+            case LINK_ORDER -> {
+                Customer customer = customerService.searchCustomerById(in.readInt());
+                int orderId = in.readInt();
+                if (customer != null && !customer.hasOrder(orderId)) {
+                    customerService.linkOrder(customer, orderId);
+                }
+            }
+            case SET_STATUS -> {
+                int orderId = in.readInt();
+                orderService.updateOrderStatus(orderId, Order.OrderStatus.values()[in.readByte()]);
+            }
+            case PUT_REVIEW -> {
+                Review review = readReview(in);
+                if (!productService.editReview(review.getProductId(), review.getReviewId(), review.getRating(),
+                                               review.getComment())) {
+                    productService.addReviewToProduct(review.getProductId(), review);
+                }
+            }
+            default -> throw new IOException("Unknown mutation op: " + op);
+        }
+    }
+
+    /**
+     * Loads a snapshot into empty services in bulk
+     * apply() pays a lookup and an index update per entry, which for a whole snapshot is
+     * O(P^2 + R * P). The loader instead collects the decoded entities and hands each
+     * service one batch: a single product index merge, customers registered with their
+     * order IDs already linked, orders appended in the date order the primary sends
+     * them in, and one re-index for all reviews.
+     * Time Complexity:
+     * - add(): O(size of the entity)
+     * - applyTo(): O(P + C + O + R), O(P log P) for the product index if products
+     *   arrive out of ID order
+     */
+    public static class SnapshotLoader {
+        private final ArrayList<Product> products;
+        private final ArrayList<Customer> customers;
+        private final ArrayList<Order> orders;
+        private final ArrayList<Review> reviews;
+
+        public SnapshotLoader() {
+            this.products = new ArrayList<>();
+            this.customers = new ArrayList<>();
+            this.orders = new ArrayList<>();
+            this.reviews = new ArrayList<>();
+        }
+
+        /**
+         * Decodes one snapshot entry. Throws IOException on a malformed payload or on an
+         * op that is not a PUT, since a snapshot only carries whole entities.
+         */
+        public void add(byte[] mutation) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(mutation));
+            byte op = in.readByte();
+            switch (op) {
+                case PUT_PRODUCT -> products.add(readProduct(in));
+                case PUT_CUSTOMER -> customers.add(readCustomer(in));
+                case PUT_ORDER -> orders.add(readOrder(in));
+                case PUT_REVIEW -> reviews.add(readReview(in));
+                default -> throw new IOException("Unexpected op in snapshot: " + op);
+            }
+        }
+
+        /**
+         * Loads everything added so far into services that are still empty.
+         */
+        public void applyTo(ProductService productService, CustomerService customerService,
+                            OrderService orderService) {
+            productService.addProducts(products);
+            customerService.ensureCapacity(customers.size());
+            for (int i = 0; i < customers.size(); i++) {
+                customerService.registerCustomer(customers.get(i));
+            }
+            orderService.ensureCapacity(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                orderService.createOrder(orders.get(i));
+            }
+            productService.addReviews(reviews);
+        }
+    }
+
+    private static Product readProduct(DataInputStream in) throws IOException {
+        int productId = in.readInt();
+        String name = readString(in);
+        double price = in.readDouble();
+        int stock = in.readInt();
+        return new Product(productId, name, price, stock);
+    }
+
+    private static Customer readCustomer(DataInputStream in) throws IOException {
+        int customerId = in.readInt();
+        String name = readString(in);
+        String email = readString(in);
+        Customer customer = new Customer(customerId, name, email);
+        int orderCount = in.readInt();
+        for (int i = 0; i < orderCount; i++) {
+            customer.addOrder(in.readInt());
+        }
+        return customer;
+    }
+
+    private static Order readOrder(DataInputStream in) throws IOException {
+        int orderId = in.readInt();
+        int customerId = in.readInt();
+        int productCount = in.readInt();
+        ArrayList<Integer> productIds = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            productIds.add(in.readInt());
+        }
+        double totalPrice = in.readDouble();
+        LocalDate orderDate = LocalDate.ofEpochDay(in.readInt());
+        Order.OrderStatus status = Order.OrderStatus.values()[in.readByte()];
+        return new Order(orderId, customerId, productIds, totalPrice, orderDate, status);
+    }
+
+    private static Review readReview(DataInputStream in) throws IOException {
+        int reviewId = in.readInt();
+        int productId = in.readInt();
+        int customerId = in.readInt();
+        int rating = in.readByte();
+        String comment = readString(in);
+        return new Review(reviewId, productId, customerId, rating, comment);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("String length " + length + " exceeds the mutation");
+        }
+        byte[] encoded = new byte[length];
+        in.readFully(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * DataOutputStream over a byte array; writes cannot fail, so IOExceptions are unchecked.
+     */
+    private static class Encoder {
+        private final ByteArrayOutputStream bytes;
+        private final DataOutputStream out;
+
+        Encoder(byte op) {
+            this.bytes = new ByteArrayOutputStream(32);
+            this.out = new DataOutputStream(bytes);
+            writeByte(op);
+        }
+
+        void writeByte(int value) {
+            try {
+                out.writeByte(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeDouble(double value) {
+            try {
+                out.writeDouble(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(encoded.length);
+            try {
+                out.write(encoded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        byte[] toBytes() {
+            return bytes.toByteArray();
+        }
+    }
+}
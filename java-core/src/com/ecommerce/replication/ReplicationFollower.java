@@ -0,0 +1,255 @@
+package com.ecommerce.replication;
+
+import com.ecommerce.services.CustomerService;
+import com.ecommerce.services.OrderService;
+import com.ecommerce.services.ProductService;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Read replica fed by a ReplicationPrimary
+ * One background thread connects, sends the last applied sequence number, and applies
+ * snapshots and mutations as they arrive; it reconnects and resumes after a disconnect.
+ * A snapshot is loaded into a fresh set of services that then replaces the current set,
+ * so readers see either the old or the new state, never a half-loaded one. Mutations are
+ * applied by the replication thread only; other threads should read through the
+ * services' getSnapshot() views.
+ * Lag is reported in records (primary head minus applied) and in milliseconds (age of the
+ * newest applied mutation while the follower is behind, 0 when caught up).
+ * Time Complexity:
+ * - per mutation: the cost of the matching service update
+ * - snapshot: O(P + C + O + R), bulk-loaded through Mutations.SnapshotLoader
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private static final long RECONNECT_MS = 500;
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+
+    private final String host;
+    private final int port;
+    private volatile Replica replica;
+    private volatile long runId;
+    private volatile long appliedSeq;
+    private volatile long primaryHeadSeq;
+    private volatile long lastAppliedTimestamp;
+    private volatile int snapshotCount;
+    private volatile boolean connected;
+    private volatile boolean running;
+    private volatile Socket socket;
+    private boolean failureReported;
+    private final Thread thread;
+
+    /**
+     * The services holding one consistent copy of the primary's state.
+     */
+    private static class Replica {
+        final ProductService productService;
+        final OrderService orderService;
+        final CustomerService customerService;
+
+        Replica() {
+            this.productService = new ProductService();
+            this.orderService = new OrderService();
+            this.customerService = new CustomerService(productService, orderService);
+        }
+    }
+
+    public ReplicationFollower(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.replica = new Replica();
+        this.running = true;
+        this.thread = Thread.ofPlatform().name("replication-follower").daemon().unstarted(this::run);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public ProductService getProductService() {
+        return replica.productService;
+    }
+
+    public OrderService getOrderService() {
+        return replica.orderService;
+    }
+
+    public CustomerService getCustomerService() {
+        return replica.customerService;
+    }
+
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    public long getPrimaryHeadSeq() {
+        return primaryHeadSeq;
+    }
+
+    public long getLagRecords() {
+        return Math.max(0, primaryHeadSeq - appliedSeq);
+    }
+
+    public long getLagMillis() {
+        if (appliedSeq >= primaryHeadSeq || lastAppliedTimestamp == 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - lastAppliedTimestamp);
+    }
+
+    public int getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Waits until at least seq has been applied. Returns false on timeout.
+     */
+    public boolean awaitSeq(long seq, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (appliedSeq < seq || snapshotCount == 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a replica process: java ... ReplicationFollower host port
+     * Prints applied sequence, lag and entity counts once a second.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length != 2) {
+            System.err.println("Usage: ReplicationFollower <host> <port>");
+            return;
+        }
+        ReplicationFollower follower = new ReplicationFollower(args[0], Integer.parseInt(args[1]));
+        Runtime.getRuntime().addShutdownHook(new Thread(follower::close));
+        follower.start();
+        while (true) {
+            Thread.sleep(1000);
+            System.out.println((follower.isConnected() ? "connected" : "disconnected")
+                               + " applied=" + follower.getAppliedSeq()
+                               + " primary=" + follower.getPrimaryHeadSeq()
+                               + " lag=" + follower.getLagRecords() + " records/" + follower.getLagMillis() + " ms"
+                               + " products=" + follower.getProductService().getProductCount()
+                               + " customers=" + follower.getCustomerService().getCustomerCount()
+                               + " orders=" + follower.getOrderService().getOrderCount());
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+                s.setTcpNoDelay(true);
+                connected = true;
+                failureReported = false;
+                replicate(s);
+            } catch (IOException e) {
+                // Report once per outage rather than on every reconnect attempt
+                if (running && !failureReported && !(e instanceof EOFException)) {
+                    failureReported = true;
+                    System.err.println("Replication connection to " + host + ":" + port + " lost: " + e.getMessage());
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void replicate(Socket s) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+        out.writeInt(ReplicationPrimary.MAGIC);
+        out.writeInt(ReplicationPrimary.VERSION);
+        out.writeLong(runId);
+        out.writeLong(appliedSeq);
+        out.flush();
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+        while (running) {
+            byte frame = in.readByte();
+            switch (frame) {
+                case ReplicationPrimary.FRAME_SNAPSHOT -> loadSnapshot(in);
+                case ReplicationPrimary.FRAME_MUTATION -> {
+                    long seq = in.readLong();
+                    long timestamp = in.readLong();
+                    long headSeq = in.readLong();
+                    byte[] mutation = new byte[in.readInt()];
+                    in.readFully(mutation);
+                    primaryHeadSeq = Math.max(primaryHeadSeq, headSeq);
+                    // Entries at or below appliedSeq were already applied before a reconnect
+                    if (seq > appliedSeq) {
+                        Replica current = replica;
+                        Mutations.apply(mutation, current.productService, current.customerService,
+                                        current.orderService);
+                        lastAppliedTimestamp = timestamp;
+                        appliedSeq = seq;
+                    }
+                }
+                case ReplicationPrimary.FRAME_HEARTBEAT -> {
+                    primaryHeadSeq = Math.max(primaryHeadSeq, in.readLong());
+                    in.readLong();
+                }
+                default -> throw new IOException("Unknown replication frame: " + frame);
+            }
+        }
+    }
+
+    private void loadSnapshot(DataInputStream in) throws IOException {
+        long snapshotRunId = in.readLong();
+        long seq = in.readLong();
+        int count = in.readInt();
+        Mutations.SnapshotLoader loader = new Mutations.SnapshotLoader();
+        for (int i = 0; i < count; i++) {
+            byte[] mutation = new byte[in.readInt()];
+            in.readFully(mutation);
+            loader.add(mutation);
+        }
+        Replica fresh = new Replica();
+        loader.applyTo(fresh.productService, fresh.customerService, fresh.orderService);
+        replica = fresh;
+        runId = snapshotRunId;
+        appliedSeq = seq;
+        primaryHeadSeq = seq;
+        lastAppliedTimestamp = System.currentTimeMillis();
+        snapshotCount++;
+    }
+}
@@ -0,0 +1,399 @@
+package com.ecommerce.replication;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.models.Customer;
+import com.ecommerce.models.Order;
+import com.ecommerce.models.Product;
+import com.ecommerce.models.Review;
+import com.ecommerce.monitoring.LockWaitEvent;
+import com.ecommerce.services.CustomerService;
+import com.ecommerce.services.OrderService;
+import com.ecommerce.services.ProductService;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Primary side of log-shipping replication
+ * All writes go through this class: each one updates the services and appends the
+ * resulting state to the mutation log under one lock, so log order is apply order.
+ * Followers connect over TCP and send the last sequence number they applied. A follower
+ * that is still within the retained log is streamed the missing entries; a new, restarted
+ * or too-far-behind follower first receives a snapshot of the whole data set.
+ * Idle connections get a heartbeat carrying the head sequence so followers can report lag.
+ * Wire format (big-endian, DataOutputStream):
+ * - follower hello: int MAGIC, int VERSION, long runId, long appliedSeq
+ * - SNAPSHOT: byte 1, long runId, long seq, int count, count x (int length, mutation)
+ * - MUTATION: byte 2, long seq, long timestamp, long headSeq, int length, mutation
+ * - HEARTBEAT: byte 3, long headSeq, long timestamp
+ * Time Complexity:
+ * - write methods: the service call + O(1) append
+ * - follower catch-up: O(k) for k missed entries, or O(P + C + O + R) for a snapshot;
+ *   the write lock is held for O(P + C + O), reviews are read after it is released
+ */
+public class ReplicationPrimary implements AutoCloseable {
+    static final int MAGIC = 0x52504C31;
+    static final int VERSION = 2;
+    static final byte FRAME_SNAPSHOT = 1;
+    static final byte FRAME_MUTATION = 2;
+    static final byte FRAME_HEARTBEAT = 3;
+    static final long HEARTBEAT_MS = 500;
+
+    private static final int DEFAULT_LOG_CAPACITY = 100_000;
+    private static final int SEND_BATCH = 256;
+
+    private final ProductService productService;
+    private final CustomerService customerService;
+    private final OrderService orderService;
+    private final MutationLog log;
+    private final ReentrantLock writeLock;
+    private final long runId;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final ArrayList<Socket> followers;
+    private volatile boolean running;
+
+    public ReplicationPrimary(ProductService productService, CustomerService customerService,
+                              OrderService orderService, int port) throws IOException {
+        this(productService, customerService, orderService, port, DEFAULT_LOG_CAPACITY);
+    }
+
+    public ReplicationPrimary(ProductService productService, CustomerService customerService,
+                              OrderService orderService, int port, int logCapacity) throws IOException {
+        this.productService = productService;
+        this.customerService = customerService;
+        this.orderService = orderService;
+        this.log = new MutationLog(logCapacity);
+        this.writeLock = new ReentrantLock();
+        this.runId = ThreadLocalRandom.current().nextLong();
+        this.serverSocket = new ServerSocket(port);
+        this.sessions = Executors.newVirtualThreadPerTaskExecutor();
+        this.followers = new ArrayList<>();
+        this.running = true;
+        Thread.ofVirtual().name("replication-accept").start(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getHeadSeq() {
+        return log.getHeadSeq();
+    }
+
+    public int getFollowerCount() {
+        synchronized (followers) {
+            return followers.size();
+        }
+    }
+
+    public Order placeOrder(int customerId, ArrayList<Integer> productIds) {
+        lockWrites("placeOrder");
+        try {
+            Order order = customerService.placeOrder(customerId, productIds);
+            if (order != null) {
+                log.append(Mutations.putOrder(order));
+                log.append(Mutations.linkOrder(customerId, order.getOrderId()));
+                for (int i = 0; i < productIds.size(); i++) {
+                    int productId = productIds.get(i);
+                    if (productIds.indexOf(productId) == i) {
+                        log.append(Mutations.setStock(productId, productService.searchById(productId).getStock()));
+                    }
+                }
+            }
+            return order;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean updateOrderStatus(int orderId, Order.OrderStatus newStatus) {
+        lockWrites("updateOrderStatus");
+        try {
+            boolean updated = orderService.updateOrderStatus(orderId, newStatus);
+            if (updated) {
+                log.append(Mutations.setStatus(orderId, newStatus));
+            }
+            return updated;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean cancelOrder(int orderId) {
+        lockWrites("cancelOrder");
+        try {
+            boolean canceled = orderService.cancelOrder(orderId);
+            if (canceled) {
+                log.append(Mutations.setStatus(orderId, Order.OrderStatus.CANCELED));
+            }
+            return canceled;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void addProduct(Product product) {
+        lockWrites("addProduct");
+        try {
+            productService.addProduct(product);
+            log.append(Mutations.putProduct(product));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean updateProduct(int productId, String name, double price, int stock) {
+        lockWrites("updateProduct");
+        try {
+            boolean updated = productService.updateProduct(productId, name, price, stock);
+            if (updated) {
+                log.append(Mutations.putProduct(productService.searchById(productId)));
+            }
+            return updated;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean removeProduct(int productId) {
+        lockWrites("removeProduct");
+        try {
+            boolean removed = productService.removeProduct(productId);
+            if (removed) {
+                log.append(Mutations.removeProduct(productId));
+            }
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void registerCustomer(Customer customer) {
+        lockWrites("registerCustomer");
+        try {
+            customerService.registerCustomer(customer);
+            log.append(Mutations.putCustomer(customer));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean addReview(int productId, Review review) {
+        lockWrites("addReview");
+        try {
+            boolean added = productService.addReviewToProduct(productId, review);
+            if (added) {
+                log.append(Mutations.putReview(review));
+            }
+            return added;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean editReview(int productId, int reviewId, int newRating, String newComment) {
+        lockWrites("editReview");
+        try {
+            boolean edited = productService.editReview(productId, reviewId, newRating, newComment);
+            if (edited) {
+                ArrayList<Review> reviews = productService.searchById(productId).getReviews();
+                for (int i = 0; i < reviews.size(); i++) {
+                    if (reviews.get(i).getReviewId() == reviewId) {
+                        log.append(Mutations.putReview(reviews.get(i)));
+                        break;
+                    }
+                }
+            }
+            return edited;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting followers and disconnects the current ones.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        synchronized (followers) {
+            for (int i = 0; i < followers.size(); i++) {
+                try {
+                    followers.get(i).close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+        }
+        sessions.close();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (followers) {
+                    followers.add(socket);
+                }
+                sessions.execute(() -> serveFollower(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Replication accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serveFollower(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            long followerRunId = in.readLong();
+            long cursor = in.readLong();
+            if (followerRunId != runId || cursor > log.getHeadSeq() || cursor + 1 < log.getOldestSeq()) {
+                cursor = sendSnapshot(out);
+            }
+
+            ArrayList<MutationLog.Entry> batch = new ArrayList<>(SEND_BATCH);
+            while (running) {
+                int count = log.read(cursor, batch, SEND_BATCH, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+                if (count < 0) {
+                    cursor = sendSnapshot(out);
+                    continue;
+                }
+                long headSeq = log.getHeadSeq();
+                if (count == 0) {
+                    out.writeByte(FRAME_HEARTBEAT);
+                    out.writeLong(headSeq);
+                    out.writeLong(System.currentTimeMillis());
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    MutationLog.Entry entry = batch.get(i);
+                    out.writeByte(FRAME_MUTATION);
+                    out.writeLong(entry.getSeq());
+                    out.writeLong(entry.getTimestamp());
+                    out.writeLong(headSeq);
+                    out.writeInt(entry.getPayload().length);
+                    out.write(entry.getPayload());
+                    cursor = entry.getSeq();
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (SocketException e) {
+            // Follower went away or the primary is closing
+        } catch (IOException e) {
+            System.err.println("Replication session failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (followers) {
+                followers.remove(socket);
+            }
+        }
+    }
+
+    /**
+     * Captures the products, customers and orders under the write lock, then sends them
+     * followed by the reviews. Returns the snapshot's sequence number.
+     * Only O(1) product copies are taken under the lock: the copies keep the review lists
+     * as of that moment, and the reviews are encoded after the lock is released. Lazy
+     * products read theirs straight from the review file, so a snapshot neither pages
+     * every review into the heap nor evicts the review cache.
+     */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        ArrayList<byte[]> entries = new ArrayList<>();
+        ArrayList<Product> products;
+        long seq;
+        long reviewCount = 0;
+        lockWrites("snapshot");
+        try {
+            seq = log.getHeadSeq();
+            ArrayList<Product> live = productService.getAllProducts();
+            products = new ArrayList<>(live.size());
+            for (int i = 0; i < live.size(); i++) {
+                Product copy = live.get(i).copy();
+                products.add(copy);
+                entries.add(Mutations.putProduct(copy));
+                reviewCount += copy.getReviewCount();
+            }
+            ArrayList<Customer> customers = customerService.getAllCustomers();
+            for (int i = 0; i < customers.size(); i++) {
+                entries.add(Mutations.putCustomer(customers.get(i)));
+            }
+            // Date order lets the follower append to its date indexes
+            ArrayList<Order> orders = orderService.getAllOrdersByDate();
+            for (int i = 0; i < orders.size(); i++) {
+                entries.add(Mutations.putOrder(orders.get(i)));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (entries.size() + reviewCount > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot has too many entries: " + (entries.size() + reviewCount));
+        }
+
+        out.writeByte(FRAME_SNAPSHOT);
+        out.writeLong(runId);
+        out.writeLong(seq);
+        out.writeInt((int) (entries.size() + reviewCount));
+        for (int i = 0; i < entries.size(); i++) {
+            writeEntry(out, entries.get(i));
+        }
+        try {
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                ArrayList<Review> reviews = product.readReviewsUncached();
+                if (reviews.size() != product.getReviewCount()) {
+                    throw new IOException("Product " + product.getProductId() + " has " + reviews.size()
+                                          + " reviews, expected " + product.getReviewCount());
+                }
+                for (int j = 0; j < reviews.size(); j++) {
+                    writeEntry(out, Mutations.putReview(reviews.get(j)));
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        out.flush();
+        return seq;
+    }
+
+    /**
+     * Takes the write lock; a wait long enough to pass the LockWaitEvent threshold is
+     * recorded with the operation that was waiting.
+     */
+    private void lockWrites(String operation) {
+        LockWaitEvent event = LockWaitEvent.start("replicationWriteLock", "write", operation);
+        writeLock.lock();
+        event.finish(writeLock);
+    }
+
+    private static void writeEntry(DataOutputStream out, byte[] mutation) throws IOException {
+        out.writeInt(mutation.length);
+        out.write(mutation);
+    }
+}
@@ -0,0 +1,986 @@
+package com.ecommerce.server;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.TopKCounter;
+import com.ecommerce.models.Customer;
+import com.ecommerce.models.Order;
+import com.ecommerce.models.Product;
+import com.ecommerce.models.Review;
+import com.ecommerce.monitoring.LockWaitEvent;
+import com.ecommerce.replication.ReplicationPrimary;
+import com.ecommerce.services.AnalyticsService;
+import com.ecommerce.services.CustomerService;
+import com.ecommerce.services.OrderService;
+import com.ecommerce.services.Page;
+import com.ecommerce.services.ProductFilter;
+import com.ecommerce.services.ProductService;
+import com.ecommerce.services.QueryCacheService;
+import com.ecommerce.services.RevenueRollup;
+import com.ecommerce.services.SalesMetrics;
+import com.ecommerce.utils.JsonReader;
+import com.ecommerce.utils.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serial;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Embedded JSON query server over the in-memory services
+ * Built on the JDK HttpServer (HTTP/1.1 keep-alive) with one virtual thread per request.
+ * Routes live under /api/v1 and mirror the python-api paths and field names. Queries run
+ * under a shared read lock and mutations under the write lock, so readers never see a
+ * half-applied order. A query copies what it returns under the lock and the response is
+ * streamed with JsonWriter after the lock is released, so slow clients never block
+ * writers. Request bodies are parsed in full before the write lock is taken.
+ * An admission limit caps requests in flight; excess requests get 503 with Retry-After
+ * instead of queueing without bound.
+ * Data can be loaded after start() with loadInBackground(): the loader holds the write
+ * lock, so the port accepts connections at once and data requests wait for the load,
+ * while /health answers 503 "starting" until it completes.
+ * With a ReplicationPrimary attached, order mutations go through it so that they are
+ * shipped to read replicas.
+ * Routes:
+ * - GET   /health
+ * - GET   /products?name=&limit=&pageToken=&order=     (cursor paging by product ID)
+ * - GET   /products/{id}
+ * - GET   /products/batch?ids=1,2,3                     (null for unknown IDs)
+ * - GET   /products/stock/out-of-stock?limit=&pageToken=&order=
+ * - GET   /products/filter?minPrice=&maxPrice=&stock=in|out|any&minRating=&limit=   (price order)
+ * - GET   /customers/{id}
+ * - GET   /customers/{id}/orders?limit=&pageToken=&order=
+ * - GET   /orders/{id}
+ * - POST  /orders                 {"customerId":..,"productIds":[..]}
+ * - POST  /orders/batch           {"orders":[{"customerId":..,"productIds":[..]}, ..]}
+ * - PATCH /orders/{id}/status?status=Shipped
+ * - POST  /orders/{id}/cancel
+ * - GET   /analytics/top-products
+ * - GET   /analytics/common-products?customer_id1=&customer_id2=
+ * - GET   /analytics/revenue?start=&end=&granularity=DAY|WEEK|MONTH
+ * - GET   /metrics/sales          (last minute/hour/day; lock-free, does not wait for writers)
+ * - GET   /analytics/best-sellers?limit=&start=&end=         (window estimates when dates given)
+ * - GET   /analytics/distinct-buyers?product_ids=1,2,3         (estimate, union of the products)
+ * - GET   /analytics/order-value?start=&end=                   (estimated p50/p95/p99 order total)
+ * Time Complexity: that of the underlying service call, plus O(size of response)
+ * Space Complexity: O(body) per request; responses are streamed
+ */
+public class ApiServer implements AutoCloseable {
+    private static final String PREFIX = "/api/v1";
+    private static final int DEFAULT_PAGE_LIMIT = 50;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int BACKLOG = 1024;
+
+    private final ProductService productService;
+    private final OrderService orderService;
+    private final CustomerService customerService;
+    private final AnalyticsService analyticsService;
+    private final QueryCacheService queryCache;
+    private final ReentrantReadWriteLock engineLock;
+    private final Semaphore admission;
+    private final int maxInFlight;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile boolean ready;
+    private volatile ReplicationPrimary replication;
+
+    /**
+     * Thrown by handlers to end a request with an error status; message becomes "detail".
+     */
+    private static class ApiException extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * One order of a request body, parsed before the write lock is taken.
+     */
+    private static final class OrderRequest {
+        final int customerId;
+        final ArrayList<Integer> productIds;
+
+        OrderRequest(int customerId, ArrayList<Integer> productIds) {
+            this.customerId = customerId;
+            this.productIds = productIds;
+        }
+    }
+
+    /**
+     * Filter matches up to the page limit, copied under the read lock.
+     */
+    private static final class FilterResult {
+        final ArrayList<Product> items;
+        final int total;
+        final String plan;
+
+        FilterResult(ArrayList<Product> items, int total, String plan) {
+            this.items = items;
+            this.total = total;
+            this.plan = plan;
+        }
+    }
+
+    private static final class OrderValueResult {
+        final long orderCount;
+        final double[] percentiles;
+
+        OrderValueResult(long orderCount, double[] percentiles) {
+            this.orderCount = orderCount;
+            this.percentiles = percentiles;
+        }
+    }
+
+    public ApiServer(ProductService productService, OrderService orderService,
+                     CustomerService customerService, AnalyticsService analyticsService,
+                     int port, int maxInFlight) throws IOException {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.productService = productService;
+        this.orderService = orderService;
+        this.customerService = customerService;
+        this.analyticsService = analyticsService;
+        this.queryCache = new QueryCacheService(productService, orderService, analyticsService);
+        this.engineLock = new ReentrantReadWriteLock();
+        this.admission = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        this.ready = true;
+    }
+
+    public void start() {
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getInFlight() {
+        return maxInFlight - admission.availablePermits();
+    }
+
+    /**
+     * Stops accepting connections, gives open exchanges up to a second, then waits
+     * for running handlers.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    /**
+     * Runs loader on a background thread that holds the write lock until it finishes.
+     * Returns once the lock is held, so a following start() cannot serve stale reads.
+     * The future completes when loading is done, or exceptionally if the loader threw.
+     */
+    public CompletableFuture<Void> loadInBackground(Runnable loader) {
+        CompletableFuture<Void> loaded = new CompletableFuture<>();
+        CountDownLatch locked = new CountDownLatch(1);
+        ready = false;
+        Thread.ofPlatform().name("data-loader").daemon().start(() -> {
+            lockWrite("load");
+            locked.countDown();
+            try {
+                loader.run();
+                ready = true;
+                loaded.complete(null);
+            } catch (RuntimeException e) {
+                loaded.completeExceptionally(e);
+            } finally {
+                engineLock.writeLock().unlock();
+            }
+        });
+        boolean interrupted = false;
+        while (locked.getCount() > 0) {
+            try {
+                locked.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return loaded;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Routes order mutations through primary (null to write the services directly).
+     * Attach it before serving writes, e.g. from the loadInBackground() loader.
+     */
+    public void setReplicationPrimary(ReplicationPrimary primary) {
+        this.replication = primary;
+    }
+
+    /**
+     * Takes the shared engine lock; a wait long enough to pass the LockWaitEvent threshold
+     * is recorded with the operation that was waiting.
+     */
+    private void lockRead(String operation) {
+        LockWaitEvent event = LockWaitEvent.start("engineLock", "read", operation);
+        engineLock.readLock().lock();
+        event.finish(engineLock);
+    }
+
+    private void lockWrite(String operation) {
+        LockWaitEvent event = LockWaitEvent.start("engineLock", "write", operation);
+        engineLock.writeLock().lock();
+        event.finish(engineLock);
+    }
+
+    /**
+     * Runs query under the read lock and returns its result, which the caller writes
+     * after the lock is released so a slow client never holds up writers. The query
+     * must return copies rather than entities a writer may change.
+     */
+    private <T> T read(String operation, Supplier<T> query) {
+        lockRead(operation);
+        try {
+            return query.get();
+        } finally {
+            engineLock.readLock().unlock();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!admission.tryAcquire()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 503, "Server busy");
+            return;
+        }
+        try {
+            route(exchange);
+        } catch (ApiException e) {
+            sendErrorIfPossible(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendErrorIfPossible(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Request " + exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                               + " failed: " + e);
+            sendErrorIfPossible(exchange, 500, "Internal Server Error");
+        } finally {
+            admission.release();
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends an error unless the response headers already went out, in which case the
+     * partial body is cut off by closing the exchange instead.
+     */
+    private static void sendErrorIfPossible(HttpExchange exchange, int status, String detail) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            sendError(exchange, status, detail);
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!path.startsWith(PREFIX + "/")) {
+            throw new ApiException(404, "Not Found");
+        }
+        String[] parts = path.substring(PREFIX.length() + 1).split("/");
+        String method = exchange.getRequestMethod();
+        String resource = parts[0];
+
+        if (resource.equals("health") && parts.length == 1) {
+            requireMethod(method, "GET");
+            respondHealth(exchange);
+        } else if (resource.equals("products")) {
+            requireMethod(method, "GET");
+            routeProducts(exchange, parts);
+        } else if (resource.equals("customers") && parts.length >= 2) {
+            requireMethod(method, "GET");
+            routeCustomers(exchange, parts);
+        } else if (resource.equals("orders")) {
+            routeOrders(exchange, method, parts);
+        } else if (resource.equals("metrics") && parts.length == 2 && parts[1].equals("sales")) {
+            requireMethod(method, "GET");
+            respondSalesMetrics(exchange);
+        } else if (resource.equals("analytics") && parts.length == 2) {
+            requireMethod(method, "GET");
+            routeAnalytics(exchange, parts[1]);
+        } else {
+            throw new ApiException(404, "Not Found");
+        }
+    }
+
+    private void routeProducts(HttpExchange exchange, String[] parts) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (parts.length == 1) {
+            String name = queryParam(query, "name");
+            int limit = pageLimit(query);
+            Page.SortOrder order = sortOrder(query);
+            Page<Product> page = read("products", () -> productService.searchByName(name == null ? "" : name,
+                    limit, queryParam(query, "pageToken"), order).map(Product::copy));
+            try (JsonWriter json = open(exchange, 200)) {
+                writeProductPage(json, page);
+            }
+        } else if (parts.length == 2 && parts[1].equals("batch")) {
+            int[] ids = parseIds(queryParam(query, "ids"));
+            ArrayList<Product> products = read("products", () -> {
+                ArrayList<Product> found = new ArrayList<>(ids.length);
+                for (int i = 0; i < ids.length; i++) {
+                    Product product = productService.searchById(ids[i]);
+                    found.add(product == null ? null : product.copy());
+                }
+                return found;
+            });
+            try (JsonWriter json = open(exchange, 200)) {
+                json.beginArray();
+                for (int i = 0; i < products.size(); i++) {
+                    Product product = products.get(i);
+                    if (product == null) {
+                        json.nullValue();
+                    } else {
+                        writeProduct(json, product, false);
+                    }
+                }
+                json.endArray();
+            }
+        } else if (parts.length == 2 && parts[1].equals("filter")) {
+            ProductFilter filter = parseFilter(query);
+            int limit = pageLimit(query);
+            FilterResult result = read("products", () -> {
+                ArrayList<Product> matches = productService.filterProducts(filter);
+                ArrayList<Product> items = new ArrayList<>(Math.min(matches.size(), limit));
+                for (int i = 0; i < matches.size() && i < limit; i++) {
+                    items.add(matches.get(i).copy());
+                }
+                return new FilterResult(items, matches.size(), productService.explainFilter(filter));
+            });
+            try (JsonWriter json = open(exchange, 200)) {
+                json.beginObject().name("total").value(result.total).name("items").beginArray();
+                for (int i = 0; i < result.items.size(); i++) {
+                    writeProduct(json, result.items.get(i), false);
+                }
+                json.endArray().name("plan").value(result.plan).endObject();
+            }
+        } else if (parts.length == 3 && parts[1].equals("stock") && parts[2].equals("out-of-stock")) {
+            int limit = pageLimit(query);
+            Page.SortOrder order = sortOrder(query);
+            Page<Product> page = read("products", () -> productService.getOutOfStockProducts(limit,
+                    queryParam(query, "pageToken"), order).map(Product::copy));
+            try (JsonWriter json = open(exchange, 200)) {
+                writeProductPage(json, page);
+            }
+        } else if (parts.length == 2) {
+            int productId = parseId(parts[1]);
+            Product product = read("products", () -> {
+                Product found = productService.searchById(productId);
+                return found == null ? null : found.copy();
+            });
+            if (product == null) {
+                throw new ApiException(404, "Product not found");
+            }
+            try (JsonWriter json = open(exchange, 200)) {
+                writeProduct(json, product, true);
+            }
+        } else {
+            throw new ApiException(404, "Not Found");
+        }
+    }
+
+    private void routeCustomers(HttpExchange exchange, String[] parts) throws IOException {
+        int customerId = parseId(parts[1]);
+        String query = exchange.getRequestURI().getRawQuery();
+        if (parts.length == 2) {
+            Customer customer = read("customers", () -> {
+                Customer found = customerService.searchCustomerById(customerId);
+                return found == null ? null : found.copy();
+            });
+            if (customer == null) {
+                throw new ApiException(404, "Customer not found");
+            }
+            try (JsonWriter json = open(exchange, 200)) {
+                writeCustomer(json, customer);
+            }
+        } else if (parts.length == 3 && parts[2].equals("orders")) {
+            int limit = pageLimit(query);
+            Page.SortOrder order = sortOrder(query);
+            Page<Order> page = read("customers", () -> {
+                if (customerService.searchCustomerById(customerId) == null) {
+                    return null;
+                }
+                return orderService.getOrdersByCustomer(customerId, limit, queryParam(query, "pageToken"), order)
+                        .map(Order::copy);
+            });
+            if (page == null) {
+                throw new ApiException(404, "Customer not found");
+            }
+            try (JsonWriter json = open(exchange, 200)) {
+                json.beginObject().name("items").beginArray();
+                for (int i = 0; i < page.size(); i++) {
+                    writeOrder(json, page.getItems().get(i));
+                }
+                json.endArray().name("nextPageToken").value(page.getNextPageToken()).endObject();
+            }
+        } else {
+            throw new ApiException(404, "Not Found");
+        }
+    }
+
+    private void routeOrders(HttpExchange exchange, String method, String[] parts) throws IOException {
+        if (parts.length == 1) {
+            requireMethod(method, "POST");
+            OrderRequest request = parseOrderRequest(new JsonReader(readBody(exchange)));
+            Order order;
+            lockWrite("placeOrder");
+            try {
+                order = placeOrder(request);
+            } finally {
+                engineLock.writeLock().unlock();
+            }
+            if (order == null) {
+                throw new ApiException(400, "Failed to create order");
+            }
+            try (JsonWriter json = open(exchange, 200)) {
+                writeOrder(json, order);
+            }
+        } else if (parts.length == 2 && parts[1].equals("batch")) {
+            requireMethod(method, "POST");
+            routeOrderBatch(exchange);
+        } else if (parts.length == 2) {
+            requireMethod(method, "GET");
+            int orderId = parseId(parts[1]);
+            Order order = read("getOrder", () -> {
+                Order found = orderService.searchOrderById(orderId);
+                return found == null ? null : found.copy();
+            });
+            if (order == null) {
+                throw new ApiException(404, "Order not found");
+            }
+            try (JsonWriter json = open(exchange, 200)) {
+                writeOrder(json, order);
+            }
+        } else if (parts.length == 3 && (parts[2].equals("status") || parts[2].equals("cancel"))) {
+            int orderId = parseId(parts[1]);
+            boolean updated;
+            if (parts[2].equals("status")) {
+                requireMethod(method, "PATCH");
+                Order.OrderStatus status = parseStatus(queryParam(exchange.getRequestURI().getRawQuery(), "status"));
+                lockWrite("updateOrderStatus");
+                try {
+                    updated = replication != null ? replication.updateOrderStatus(orderId, status)
+                                                  : orderService.updateOrderStatus(orderId, status);
+                } finally {
+                    engineLock.writeLock().unlock();
+                }
+            } else {
+                requireMethod(method, "POST");
+                lockWrite("cancelOrder");
+                try {
+                    updated = replication != null ? replication.cancelOrder(orderId)
+                                                  : orderService.cancelOrder(orderId);
+                } finally {
+                    engineLock.writeLock().unlock();
+                }
+            }
+            if (!updated) {
+                throw new ApiException(404, parts[2].equals("status")
+                        ? "Order not found" : "Order not found or cannot be canceled");
+            }
+            try (JsonWriter json = open(exchange, 200)) {
+                json.beginObject().name("message").value(parts[2].equals("status")
+                        ? "Order status updated successfully" : "Order canceled successfully").endObject();
+            }
+        } else {
+            throw new ApiException(404, "Not Found");
+        }
+    }
+
+    /**
+     * Parses the whole batch first, so a malformed body is rejected before any order is
+     * placed, then places every order under one write-lock acquisition. Each element of
+     * the result is the placed order, or null if that order was rejected.
+     */
+    private void routeOrderBatch(HttpExchange exchange) throws IOException {
+        JsonReader body = new JsonReader(readBody(exchange));
+        ArrayList<OrderRequest> requests = new ArrayList<>();
+        body.beginObject();
+        while (body.hasNext()) {
+            if (!body.nextName().equals("orders")) {
+                body.skipValue();
+                continue;
+            }
+            body.beginArray();
+            while (body.hasNext()) {
+                requests.add(parseOrderRequest(body));
+            }
+            body.endArray();
+        }
+        body.endObject();
+
+        ArrayList<Order> placed = new ArrayList<>(requests.size());
+        lockWrite("placeOrders");
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                placed.add(placeOrder(requests.get(i)));
+            }
+        } finally {
+            engineLock.writeLock().unlock();
+        }
+        try (JsonWriter json = open(exchange, 200)) {
+            json.beginArray();
+            for (int i = 0; i < placed.size(); i++) {
+                Order order = placed.get(i);
+                if (order == null) {
+                    json.nullValue();
+                } else {
+                    writeOrder(json, order);
+                }
+            }
+            json.endArray();
+        }
+    }
+
+    private void routeAnalytics(HttpExchange exchange, String report) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (report.equals("top-products")) {
+            ArrayList<Product> top = read("analytics", () -> copyProducts(queryCache.getTop3ProductsByRating()));
+            try (JsonWriter json = open(exchange, 200)) {
+                writeProducts(json, top);
+            }
+        } else if (report.equals("common-products")) {
+            int customerId1 = parseId(requireParam(query, "customer_id1"));
+            int customerId2 = parseId(requireParam(query, "customer_id2"));
+            ArrayList<Product> common = read("analytics", () -> copyProducts(
+                    analyticsService.getCommonHighRatedProducts(customerId1, customerId2)));
+            try (JsonWriter json = open(exchange, 200)) {
+                writeProducts(json, common);
+            }
+        } else if (report.equals("best-sellers")) {
+            int limit = pageLimit(query);
+            String start = queryParam(query, "start");
+            String end = queryParam(query, "end");
+            LocalDate from = start == null && end == null ? null : parseDate(requireParam(query, "start"));
+            LocalDate to = start == null && end == null ? null : parseDate(requireParam(query, "end"));
+            ArrayList<TopKCounter.Entry> sellers = read("analytics", () -> from == null
+                    ? orderService.getBestSellers().getTopSellers(limit)
+                    : orderService.getBestSellers().getTopSellers(limit, from, to));
+            try (JsonWriter json = open(exchange, 200)) {
+                json.beginArray();
+                for (int i = 0; i < sellers.size(); i++) {
+                    TopKCounter.Entry seller = sellers.get(i);
+                    json.beginObject()
+                        .name("productId").value(seller.getKey())
+                        .name("units").value(seller.getCount())
+                        .name("maxError").value(seller.getError())
+                        .endObject();
+                }
+                json.endArray();
+            }
+        } else if (report.equals("distinct-buyers")) {
+            int[] ids = parseIds(requireParam(query, "product_ids"));
+            ArrayList<Integer> productIds = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                productIds.add(ids[i]);
+            }
+            long buyers = read("analytics", () -> analyticsService.estimateDistinctBuyers(productIds));
+            try (JsonWriter json = open(exchange, 200)) {
+                json.beginObject()
+                    .name("distinctBuyers").value(buyers)
+                    .name("relativeError").value(orderService.getSketches().getDistinctRelativeError())
+                    .endObject();
+            }
+        } else if (report.equals("order-value")) {
+            LocalDate start = parseDate(requireParam(query, "start"));
+            LocalDate end = parseDate(requireParam(query, "end"));
+            OrderValueResult result = read("analytics", () -> new OrderValueResult(
+                    orderService.getSketches().getOrderCount(start, end),
+                    analyticsService.getOrderValuePercentiles(start, end)));
+            try (JsonWriter json = open(exchange, 200)) {
+                json.beginObject()
+                    .name("orderCount").value(result.orderCount)
+                    .name("p50").value(result.percentiles[0])
+                    .name("p95").value(result.percentiles[1])
+                    .name("p99").value(result.percentiles[2])
+                    .name("rankError").value(orderService.getSketches().getQuantileRankError())
+                    .endObject();
+            }
+        } else if (report.equals("revenue")) {
+            LocalDate start = parseDate(requireParam(query, "start"));
+            LocalDate end = parseDate(requireParam(query, "end"));
+            String granularity = queryParam(query, "granularity");
+            RevenueRollup.Granularity level = granularity == null
+                    ? RevenueRollup.Granularity.MONTH
+                    : RevenueRollup.Granularity.valueOf(granularity.toUpperCase());
+            ArrayList<RevenueRollup.Bucket> buckets = read("analytics",
+                    () -> orderService.getRevenueRollup().getBuckets(level, null, start, end));
+            try (JsonWriter json = open(exchange, 200)) {
+                json.beginArray();
+                for (int i = 0; i < buckets.size(); i++) {
+                    RevenueRollup.Bucket bucket = buckets.get(i);
+                    json.beginObject()
+                        .name("start").value(bucket.getStart().toString())
+                        .name("revenue").value(bucket.getRevenue())
+                        .name("orderCount").value(bucket.getOrderCount())
+                        .endObject();
+                }
+                json.endArray();
+            }
+        } else {
+            throw new ApiException(404, "Not Found");
+        }
+    }
+
+    private void respondHealth(HttpExchange exchange) throws IOException {
+        if (!ready) {
+            try (JsonWriter json = open(exchange, 503)) {
+                json.beginObject().name("status").value("starting").endObject();
+            }
+            return;
+        }
+        try (JsonWriter json = open(exchange, 200)) {
+            json.beginObject()
+                .name("status").value("healthy")
+                .name("products").value(productService.getProductCount())
+                .name("orders").value(orderService.getOrderCount())
+                .name("inFlight").value(getInFlight())
+                .endObject();
+        }
+    }
+
+    private void respondSalesMetrics(HttpExchange exchange) throws IOException {
+        SalesMetrics metrics = orderService.getSalesMetrics();
+        SalesMetrics.Window[] windows = SalesMetrics.Window.values();
+        try (JsonWriter json = open(exchange, 200)) {
+            json.beginObject();
+            for (int i = 0; i < windows.length; i++) {
+                SalesMetrics.Stats stats = metrics.getStats(windows[i]);
+                json.name(windows[i].name().toLowerCase()).beginObject()
+                    .name("orders").value(stats.getOrders())
+                    .name("revenue").value(stats.getRevenue())
+                    .name("netRevenue").value(stats.getNetRevenue())
+                    .name("cancels").value(stats.getCancels())
+                    .name("ordersPerMinute").value(stats.getOrdersPerMinute())
+                    .name("cancelRate").value(stats.getCancelRate())
+                    .endObject();
+            }
+            json.endObject();
+        }
+    }
+
+    /**
+     * Reads one {"customerId":..,"productIds":[..]} object.
+     */
+    private static OrderRequest parseOrderRequest(JsonReader body) {
+        int customerId = -1;
+        ArrayList<Integer> productIds = new ArrayList<>();
+        body.beginObject();
+        while (body.hasNext()) {
+            String name = body.nextName();
+            if (name.equals("customerId")) {
+                customerId = body.nextInt();
+            } else if (name.equals("productIds")) {
+                body.beginArray();
+                while (body.hasNext()) {
+                    productIds.add(body.nextInt());
+                }
+                body.endArray();
+            } else {
+                body.skipValue();
+            }
+        }
+        body.endObject();
+        return new OrderRequest(customerId, productIds);
+    }
+
+    /**
+     * Places one parsed order; the caller holds the write lock. Returns a copy of the
+     * placed order, or null if it was rejected.
+     */
+    private Order placeOrder(OrderRequest request) {
+        if (request.productIds.isEmpty()) {
+            return null;
+        }
+        Order order = replication != null ? replication.placeOrder(request.customerId, request.productIds)
+                                          : customerService.placeOrder(request.customerId, request.productIds);
+        return order == null ? null : order.copy();
+    }
+
+    private static ArrayList<Product> copyProducts(ArrayList<Product> products) {
+        ArrayList<Product> copies = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            copies.add(products.get(i).copy());
+        }
+        return copies;
+    }
+
+    private static void writeProductPage(JsonWriter json, Page<Product> page) throws IOException {
+        json.beginObject().name("items").beginArray();
+        for (int i = 0; i < page.size(); i++) {
+            writeProduct(json, page.getItems().get(i), false);
+        }
+        json.endArray().name("nextPageToken").value(page.getNextPageToken()).endObject();
+    }
+
+    private static void writeProducts(JsonWriter json, ArrayList<Product> products) throws IOException {
+        json.beginArray();
+        for (int i = 0; i < products.size(); i++) {
+            writeProduct(json, products.get(i), false);
+        }
+        json.endArray();
+    }
+
+    /**
+     * List results carry reviewCount only; single-product lookups include the reviews.
+     */
+    private static void writeProduct(JsonWriter json, Product product, boolean withReviews) throws IOException {
+        json.beginObject()
+            .name("productId").value(product.getProductId())
+            .name("name").value(product.getName())
+            .name("price").value(product.getPrice())
+            .name("stock").value(product.getStock())
+            .name("reviewCount").value(product.getReviewCount());
+        json.name("averageRating");
+        if (product.getReviewCount() == 0) {
+            json.nullValue();
+        } else {
+            json.value(product.getAverageRating());
+        }
+        if (withReviews) {
+            ArrayList<Review> reviews = product.getReviews();
+            json.name("reviews").beginArray();
+            for (int i = 0; i < reviews.size(); i++) {
+                Review review = reviews.get(i);
+                json.beginObject()
+                    .name("reviewId").value(review.getReviewId())
+                    .name("productId").value(review.getProductId())
+                    .name("customerId").value(review.getCustomerId())
+                    .name("rating").value(review.getRating())
+                    .name("comment").value(review.getComment())
+                    .endObject();
+            }
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    private static void writeCustomer(JsonWriter json, Customer customer) throws IOException {
+        ArrayList<Integer> orderIds = customer.getOrderIds();
+        json.beginObject()
+            .name("customerId").value(customer.getCustomerId())
+            .name("name").value(customer.getName())
+            .name("email").value(customer.getEmail())
+            .name("orderIds").beginArray();
+        for (int i = 0; i < orderIds.size(); i++) {
+            json.value(orderIds.get(i));
+        }
+        json.endArray().endObject();
+    }
+
+    private static void writeOrder(JsonWriter json, Order order) throws IOException {
+        ArrayList<Integer> productIds = order.getProductIds();
+        json.beginObject()
+            .name("orderId").value(order.getOrderId())
+            .name("customerId").value(order.getCustomerId())
+            .name("productIds").beginArray();
+        for (int i = 0; i < productIds.size(); i++) {
+            json.value(productIds.get(i));
+        }
+        json.endArray()
+            .name("totalPrice").value(order.getTotalPrice())
+            .name("orderDate").value(order.getOrderDate().toString())
+            .name("status").value(order.getStatus().getDisplayName())
+            .endObject();
+    }
+
+    /**
+     * Sends the headers with chunked encoding and returns a writer over the body.
+     */
+    private static JsonWriter open(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, 0);
+        return new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 8192));
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String detail) throws IOException {
+        try (JsonWriter json = open(exchange, status)) {
+            json.beginObject().name("detail").value(detail).endObject();
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (bytes.size() + read > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Request body too large");
+                }
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Method Not Allowed");
+        }
+    }
+
+    /**
+     * Value of a query parameter, URL-decoded, or null if absent.
+     */
+    private static String queryParam(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        int start = 0;
+        while (start <= rawQuery.length()) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = rawQuery.length();
+            }
+            int equals = rawQuery.indexOf('=', start);
+            if (equals > start && equals < end && rawQuery.regionMatches(start, name, 0, name.length())
+                    && equals - start == name.length()) {
+                return URLDecoder.decode(rawQuery.substring(equals + 1, end), StandardCharsets.UTF_8);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static String requireParam(String rawQuery, String name) {
+        String value = queryParam(rawQuery, name);
+        if (value == null) {
+            throw new ApiException(400, "Missing query parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int pageLimit(String rawQuery) {
+        String limit = queryParam(rawQuery, "limit");
+        return limit == null ? DEFAULT_PAGE_LIMIT : parseId(limit);
+    }
+
+    private static Page.SortOrder sortOrder(String rawQuery) {
+        String order = queryParam(rawQuery, "order");
+        if (order == null || order.equalsIgnoreCase("asc")) {
+            return Page.SortOrder.ASCENDING;
+        }
+        if (order.equalsIgnoreCase("desc")) {
+            return Page.SortOrder.DESCENDING;
+        }
+        throw new ApiException(400, "order must be asc or desc");
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Not an integer: " + value);
+        }
+    }
+
+    private static ProductFilter parseFilter(String rawQuery) {
+        ProductFilter filter = new ProductFilter();
+        try {
+            String minPrice = queryParam(rawQuery, "minPrice");
+            String maxPrice = queryParam(rawQuery, "maxPrice");
+            if (minPrice != null || maxPrice != null) {
+                filter.priceBetween(minPrice == null ? Double.NEGATIVE_INFINITY : parseNumber(minPrice),
+                                    maxPrice == null ? Double.POSITIVE_INFINITY : parseNumber(maxPrice));
+            }
+            String minRating = queryParam(rawQuery, "minRating");
+            if (minRating != null) {
+                filter.minRating(parseNumber(minRating));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+        String stock = queryParam(rawQuery, "stock");
+        if (stock == null || stock.equalsIgnoreCase("any")) {
+            return filter;
+        }
+        if (stock.equalsIgnoreCase("in")) {
+            return filter.stock(ProductFilter.StockState.IN_STOCK);
+        }
+        if (stock.equalsIgnoreCase("out")) {
+            return filter.stock(ProductFilter.StockState.OUT_OF_STOCK);
+        }
+        throw new ApiException(400, "stock must be in, out or any");
+    }
+
+    private static double parseNumber(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Not a number: " + value);
+        }
+    }
+
+    private static int[] parseIds(String value) {
+        if (value == null || value.isEmpty()) {
+            throw new ApiException(400, "Missing query parameter: ids");
+        }
+        String[] parts = value.split(",");
+        int[] ids = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ids[i] = parseId(parts[i]);
+        }
+        return ids;
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Not an ISO date: " + value);
+        }
+    }
+
+    /**
+     * Strict status parsing; also accepts the python-api spelling "Cancelled".
+     */
+    private static Order.OrderStatus parseStatus(String value) {
+        if (value == null) {
+            throw new ApiException(400, "Missing query parameter: status");
+        }
+        if (value.equalsIgnoreCase("Cancelled")) {
+            return Order.OrderStatus.CANCELED;
+        }
+        Order.OrderStatus[] statuses = Order.OrderStatus.values();
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i].getDisplayName().equalsIgnoreCase(value) || statuses[i].name().equalsIgnoreCase(value)) {
+                return statuses[i];
+            }
+        }
+        throw new ApiException(400, "Unknown status: " + value);
+    }
+}
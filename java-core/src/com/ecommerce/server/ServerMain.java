@@ -0,0 +1,206 @@
+package com.ecommerce.server;
+
+import com.ecommerce.replication.ReplicationPrimary;
+import com.ecommerce.services.AnalyticsService;
+import com.ecommerce.services.CustomerService;
+import com.ecommerce.services.OrderService;
+import com.ecommerce.services.OrderSketches;
+import com.ecommerce.services.ProductService;
+import com.ecommerce.storage.DiskOrderStore;
+import com.ecommerce.utils.CSVReader;
+import com.ecommerce.utils.ColumnarFile;
+import com.ecommerce.utils.LazyReviewLoader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Production entry point: serves the API without running the Main demos
+ * The port is bound first and the CSVs are loaded in the background, so the process
+ * accepts connections right away; data requests wait for the load and /health reports
+ * readiness. Reviews are paged in lazily through the saved offset index by default.
+ * A training run (-Decommerce.training=true) loads the data, calls every route once and
+ * exits, so that -XX:ArchiveClassesAtExit can record an AppCDS archive of the classes a
+ * real server uses (see Dockerfile.javacore).
+ * Settings (system properties):
+ * - ecommerce.port (8080), ecommerce.maxInFlight (4096), ecommerce.dataPath (./data/)
+ * - ecommerce.lazyReviews (true), ecommerce.training (false)
+ * - ecommerce.replicationPort (off): serve the mutation log to ReplicationFollower processes
+ * - ecommerce.sketch.bytesPerProduct (1024), ecommerce.sketch.bytesPerDay (4800): memory
+ *   budgets of the distinct-buyer and order-value sketches (see OrderSketches)
+ * - ecommerce.orderStore (off): page file for a DiskOrderStore, keeping orders out of the
+ *   heap; the file is recreated on each start
+ * - ecommerce.orderStore.cachePages (1024): resident 4 KB pages of the order store
+ * - ecommerce.exchangeFile (off): after the load, export the data as a columnar exchange
+ *   file for python-api (see ColumnarFile and docker-compose.yaml)
+ * Flight Recorder: with -XX:StartFlightRecording the recording also holds the
+ * com.ecommerce.* events (CSV loads, index rebuilds, slow service calls, engine lock
+ * waits; see com.ecommerce.monitoring) next to the JVM's GC and allocation events.
+ */
+public class ServerMain {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4096;
+    private static final int DEFAULT_SKETCH_BYTES_PER_PRODUCT = 1024;
+    private static final int DEFAULT_SKETCH_BYTES_PER_DAY = 4800;
+
+    // Requests issued by a training run, one per route family
+    private static final String[] TRAINING_GETS = {
+        "/health",
+        "/products/101",
+        "/products?name=a&limit=5",
+        "/products?name=a&limit=5&order=desc",
+        "/products/batch?ids=101,102,999999",
+        "/products/stock/out-of-stock",
+        "/customers/201",
+        "/customers/201/orders?limit=2",
+        "/orders/301",
+        "/orders/999999",
+        "/analytics/top-products",
+        "/analytics/common-products?customer_id1=201&customer_id2=202",
+        "/analytics/revenue?start=2000-01-01&end=2100-01-01&granularity=WEEK",
+        "/analytics/best-sellers?limit=5",
+        "/analytics/distinct-buyers?product_ids=101,102",
+        "/analytics/order-value?start=2000-01-01&end=2100-01-01",
+        "/products/filter?minPrice=20&maxPrice=100&stock=in&minRating=4",
+        "/metrics/sales",
+        "/products/not-a-number"
+    };
+
+    public static void main(String[] args) throws IOException {
+        long startNanos = System.nanoTime();
+        int port = Integer.getInteger("ecommerce.port", DEFAULT_PORT);
+        int maxInFlight = Integer.getInteger("ecommerce.maxInFlight", DEFAULT_MAX_IN_FLIGHT);
+        String dataPath = System.getProperty("ecommerce.dataPath", "./data/");
+        boolean lazyReviews = Boolean.parseBoolean(System.getProperty("ecommerce.lazyReviews", "true"));
+        boolean training = Boolean.getBoolean("ecommerce.training");
+        Integer replicationPort = Integer.getInteger("ecommerce.replicationPort");
+        String exchangePath = System.getProperty("ecommerce.exchangeFile");
+        if (exchangePath != null) {
+            // A file left by an earlier run must not pass for this run's export
+            Files.deleteIfExists(Path.of(exchangePath));
+        }
+        OrderSketches sketches = OrderSketches.withBudget(
+                Integer.getInteger("ecommerce.sketch.bytesPerProduct", DEFAULT_SKETCH_BYTES_PER_PRODUCT),
+                Integer.getInteger("ecommerce.sketch.bytesPerDay", DEFAULT_SKETCH_BYTES_PER_DAY));
+
+        String orderStorePath = System.getProperty("ecommerce.orderStore");
+        DiskOrderStore orderStore = orderStorePath == null ? null
+                : new DiskOrderStore(Path.of(orderStorePath),
+                                     Integer.getInteger("ecommerce.orderStore.cachePages",
+                                                        DiskOrderStore.DEFAULT_CACHE_PAGES));
+
+        ProductService productService = new ProductService();
+        OrderService orderService = new OrderService(sketches, orderStore);
+        CustomerService customerService = new CustomerService(productService, orderService);
+        AnalyticsService analyticsService = new AnalyticsService(productService, orderService);
+
+        // Set by the background load; the reviews file stays open until shutdown
+        AtomicReference<LazyReviewLoader> reviewLoader = new AtomicReference<>();
+        ApiServer apiServer = new ApiServer(productService, orderService, customerService,
+                                            analyticsService, port, maxInFlight);
+        apiServer.loadInBackground(() -> {
+            long loadStart = System.nanoTime();
+            CSVReader.loadProducts(dataPath + "products.csv", productService);
+            CSVReader.loadCustomers(dataPath + "customers.csv", customerService);
+            CSVReader.loadOrders(dataPath + "orders.csv", orderService);
+            if (lazyReviews) {
+                reviewLoader.set(CSVReader.loadReviewsLazily(dataPath + "reviews.csv", productService));
+            } else {
+                CSVReader.loadReviews(dataPath + "reviews.csv", productService);
+            }
+            System.out.println("Data ready in " + (System.nanoTime() - loadStart) / 1_000_000 + " ms");
+            if (exchangePath != null) {
+                boolean exported = ColumnarFile.export(exchangePath, productService, customerService, orderService);
+                System.out.println("Exchange file " + exchangePath + (exported ? " written" : " not written"));
+            }
+            if (replicationPort != null) {
+                // Attached while the loader still holds the write lock, so no write is missed
+                try {
+                    ReplicationPrimary primary = new ReplicationPrimary(productService, customerService,
+                                                                        orderService, replicationPort);
+                    apiServer.setReplicationPrimary(primary);
+                    System.out.println("Replication primary listening on port " + primary.getPort());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                System.err.println("Data load failed: " + error);
+            }
+        });
+        apiServer.start();
+        System.out.println("Accepting connections on port " + apiServer.getPort() + " after "
+                           + (System.nanoTime() - startNanos) / 1_000_000 + " ms (max in flight: "
+                           + maxInFlight + ")");
+
+        if (training) {
+            train(apiServer.getPort());
+            apiServer.close();
+            closeReviewLoader(reviewLoader.get());
+            if (orderStore != null) {
+                orderStore.close();
+            }
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            apiServer.close();
+            closeReviewLoader(reviewLoader.get());
+            if (orderStore != null) {
+                try {
+                    orderStore.close();
+                } catch (IOException e) {
+                    System.err.println("Closing order store failed: " + e);
+                }
+            }
+        }));
+    }
+
+    private static void closeReviewLoader(LazyReviewLoader loader) {
+        if (loader == null) {
+            return;
+        }
+        try {
+            loader.close();
+        } catch (IOException e) {
+            System.err.println("Closing reviews file failed: " + e);
+        }
+    }
+
+    /**
+     * Calls every route once; the first request waits for the background load.
+     */
+    private static void train(int port) throws IOException {
+        String base = "http://localhost:" + port + "/api/v1";
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (int i = 0; i < TRAINING_GETS.length; i++) {
+                send(client, "GET", base + TRAINING_GETS[i], null);
+            }
+            send(client, "POST", base + "/orders", "{\"customerId\":201,\"productIds\":[101]}");
+            send(client, "POST", base + "/orders/batch",
+                 "{\"orders\":[{\"customerId\":201,\"productIds\":[102]},{\"customerId\":-1,\"productIds\":[1]}]}");
+            send(client, "PATCH", base + "/orders/301/status?status=Delivered", null);
+            send(client, "POST", base + "/orders/302/cancel", null);
+        }
+        System.out.println("Training run finished: " + (TRAINING_GETS.length + 4) + " requests");
+    }
+
+    private static void send(HttpClient client, String method, String url, String body) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                                             : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Training request interrupted: " + url, e);
+        }
+    }
+}
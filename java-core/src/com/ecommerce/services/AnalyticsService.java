@@ -1,63 +1,80 @@
 package com.ecommerce.services;
 
 import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.VersionedList;
 import com.ecommerce.models.Product;
 import com.ecommerce.models.Review;
+import java.time.LocalDate;
 
 /**
  * Service for analytics and business intelligence queries
+ * Catalog-wide queries read ProductService.getSnapshot(), so each query sees one
+ * consistent version of the catalog without locking out concurrent checkouts. The
+ * guarantee is per service: product, order and customer snapshots are versioned
+ * separately, so a query combining them may see an order in one and not yet another.
  * Time Complexity Analysis:
- * - getTop3ProductsByRating(): O(n) iteration + O(n log n) sorting = O(n log n)
+ * - getTop3ProductsByRating(): O(n*r) averaging + O(n log n) stable merge sort
  * - getCommonHighRatedProducts(): O(n*r) where n is products, r is reviews
+ * - estimateDistinctBuyers(): O(2^precision) per product, HyperLogLog
+ * - getOrderValuePercentiles(): O(d * k log k) for d days, merged KLL sketches
+ * The approximate queries read OrderService.getSketches(); their accuracy and memory are
+ * chosen when the OrderService is built (see OrderSketches).
  */
 public class AnalyticsService {
     private ProductService productService;
+    private OrderService orderService;
+
+    private static class RatedProduct {
+        final Product product;
+        final double rating;
+
+        RatedProduct(Product product, double rating) {
+            this.product = product;
+            this.rating = rating;
+        }
+    }
 
     public AnalyticsService(ProductService productService) {
+        this(productService, null);
+    }
+
+    public AnalyticsService(ProductService productService, OrderService orderService) {
         this.productService = productService;
+        this.orderService = orderService;
     }
 
     public ArrayList<Product> getTop3ProductsByRating() {
-        ArrayList<Product> allProducts = productService.getAllProducts();
+        VersionedList.Snapshot<Product> allProducts = productService.getSnapshot();
         
-        if (allProducts.size() == 0) {
+        if (allProducts.isEmpty()) {
             return new ArrayList<>();
         }
 
-        ArrayList<Product> productsWithReviews = new ArrayList<>();
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
-            if (p.getReviews().size() > 0) {
-                productsWithReviews.add(p);
+        // Average each product once instead of on every comparison
+        ArrayList<RatedProduct> productsWithReviews = new ArrayList<>(allProducts.size());
+        for (Product p : allProducts) {
+            if (p.getReviewCount() > 0) {
+                productsWithReviews.add(new RatedProduct(p, p.getAverageRating()));
             }
         }
 
-        for (int i = 0; i < productsWithReviews.size() - 1; i++) {
-            for (int j = 0; j < productsWithReviews.size() - i - 1; j++) {
-                if (productsWithReviews.get(j).getAverageRating() < 
-                    productsWithReviews.get(j + 1).getAverageRating()) {
-                    Product temp = productsWithReviews.get(j);
-                    productsWithReviews.set(j, productsWithReviews.get(j + 1));
-                    productsWithReviews.set(j + 1, temp);
-                }
-            }
-        }
+        // Stable, so products with equal ratings keep their catalog order
+        productsWithReviews.sort((a, b) -> Double.compare(b.rating, a.rating));
 
-        ArrayList<Product> top3 = new ArrayList<>();
         int limit = Math.min(3, productsWithReviews.size());
+        ArrayList<Product> top3 = new ArrayList<>(limit);
         for (int i = 0; i < limit; i++) {
-            top3.add(productsWithReviews.get(i));
+            top3.add(productsWithReviews.get(i).product);
         }
 
         return top3;
     }
 
     public ArrayList<Product> getCommonHighRatedProducts(int customerId1, int customerId2) {
-        ArrayList<Product> allProducts = productService.getAllProducts();
+        VersionedList.Snapshot<Product> allProducts = productService.getSnapshot();
         ArrayList<Product> commonProducts = new ArrayList<>();
 
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product product = allProducts.get(i);
+        for (Product product : allProducts) {
             ArrayList<Review> reviews = product.getReviews();
 
             boolean customer1Reviewed = false;
@@ -98,14 +115,14 @@ public class AnalyticsService {
         report.append("Price: $").append(String.format("%.2f", product.getPrice())).append("\n");
         report.append("Stock: ").append(product.getStock()).append("\n");
         report.append("Average Rating: ").append(String.format("%.2f", product.getAverageRating())).append("\n");
-        report.append("Total Reviews: ").append(product.getReviews().size()).append("\n");
+        report.append("Total Reviews: ").append(product.getReviewCount()).append("\n");
         report.append("Status: ").append(product.isOutOfStock() ? "OUT OF STOCK" : "In Stock").append("\n");
         
         return report.toString();
     }
 
     public String generateInventoryReport() {
-        ArrayList<Product> allProducts = productService.getAllProducts();
+        VersionedList.Snapshot<Product> allProducts = productService.getSnapshot();
         StringBuilder report = new StringBuilder();
         
         report.append("Inventory Report\n");
@@ -116,8 +133,7 @@ public class AnalyticsService {
         int lowStock = 0;
         double totalValue = 0.0;
         
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
+        for (Product p : allProducts) {
             if (p.isOutOfStock()) {
                 outOfStock++;
             } else if (p.getStock() < 10) {
@@ -132,4 +148,33 @@ public class AnalyticsService {
         
         return report.toString();
     }
+
+    /**
+     * Estimated number of distinct customers who have ordered the product.
+     */
+    public long estimateDistinctBuyers(int productId) {
+        return sketches().estimateDistinctBuyers(productId);
+    }
+
+    /**
+     * Estimated number of distinct customers who have ordered any of the products.
+     */
+    public long estimateDistinctBuyers(ArrayList<Integer> productIds) {
+        return sketches().estimateDistinctBuyers(productIds);
+    }
+
+    /**
+     * Estimated p50, p95 and p99 order totals for orders dated within [startDate, endDate];
+     * NaN when there are none.
+     */
+    public double[] getOrderValuePercentiles(LocalDate startDate, LocalDate endDate) {
+        return sketches().getOrderValueQuantiles(startDate, endDate, 0.50, 0.95, 0.99);
+    }
+
+    private OrderSketches sketches() {
+        if (orderService == null) {
+            throw new IllegalStateException("Order analytics need an OrderService");
+        }
+        return orderService.getSketches();
+    }
 }
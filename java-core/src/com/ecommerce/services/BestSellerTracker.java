@@ -0,0 +1,225 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.CountMinSketch;
+import com.ecommerce.datastructures.IntHashMap;
+import com.ecommerce.datastructures.IntIntHashMap;
+import com.ecommerce.datastructures.SortedLongArray;
+import com.ecommerce.datastructures.TopKCounter;
+import com.ecommerce.models.Order;
+import java.time.LocalDate;
+
+/**
+ * Streaming units-sold counters for best-seller rankings
+ * Each product ID in a non-canceled order counts as one unit sold. All-time units are
+ * exact and kept in rank order, so the top N sellers are read off directly.
+ * For time windows, each order date within the retention period gets a fixed-size
+ * summary: a Count-Min sketch of every product plus a Space-Saving top-K of the heaviest.
+ * A window query takes the union of the top-K candidates of the days in range and scores
+ * each by summing, per day, the tighter of its two upper bounds. Results are estimates:
+ * counts never undercount, and getError() bounds the overcount. Memory stays bounded by
+ * the retention period rather than by order volume.
+ * Dates are order dates, not arrival times; orders older than the retention period
+ * relative to the newest order date count towards the all-time ranking only.
+ * Time Complexity:
+ * - recordOrder()/changeStatus(): O(p * (log P + depth)) for p products in the order
+ * - getTopSellers(n): O(n)
+ * - getUnitsSold(): O(1) average
+ * - getTopSellers(n, start, end): O(d * c * depth + c log c) for d days and c <= d * K candidates
+ * Space Complexity: O(P) exact + O(retentionDays * (width * depth + K)) windowed
+ */
+public class BestSellerTracker {
+    public static final int DEFAULT_RETENTION_DAYS = 90;
+    public static final int DEFAULT_TOP_K = 64;
+    private static final int SKETCH_WIDTH = 1024;
+    private static final int SKETCH_DEPTH = 4;
+
+    private final TopKCounter allTime;
+    private final int retentionDays;
+    private final int topK;
+    private final SortedLongArray days;
+    private final IntHashMap<DaySummary> summaries;
+    private int newestDay;
+
+    /**
+     * Fixed-size summary of one order date.
+     */
+    private static class DaySummary {
+        final CountMinSketch sketch;
+        final TopKCounter heavy;
+
+        DaySummary(int topK) {
+            this.sketch = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+            this.heavy = new TopKCounter(topK);
+        }
+
+        long upperBound(int productId) {
+            return Math.min(sketch.estimate(productId), heavy.upperBound(productId));
+        }
+
+        long lowerBound(int productId) {
+            return heavy.count(productId) - heavy.error(productId);
+        }
+    }
+
+    public BestSellerTracker() {
+        this(DEFAULT_RETENTION_DAYS, DEFAULT_TOP_K);
+    }
+
+    public BestSellerTracker(int retentionDays, int topK) {
+        if (retentionDays <= 0) {
+            throw new IllegalArgumentException("Illegal retention: " + retentionDays);
+        }
+        this.allTime = TopKCounter.unbounded();
+        this.retentionDays = retentionDays;
+        this.topK = topK;
+        this.days = new SortedLongArray();
+        this.summaries = new IntHashMap<>();
+        this.newestDay = Integer.MIN_VALUE;
+    }
+
+    public void recordOrder(Order order) {
+        if (order.getStatus() != Order.OrderStatus.CANCELED) {
+            addUnits(order, 1);
+        }
+    }
+
+    /**
+     * Leaving or entering CANCELED restores or removes the order's units.
+     */
+    public void changeStatus(Order order, Order.OrderStatus oldStatus, Order.OrderStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        if (newStatus == Order.OrderStatus.CANCELED) {
+            addUnits(order, -1);
+        } else if (oldStatus == Order.OrderStatus.CANCELED) {
+            addUnits(order, 1);
+        }
+    }
+
+    /**
+     * The n best-selling products of all time, most units first. Counts are exact.
+     */
+    public ArrayList<TopKCounter.Entry> getTopSellers(int n) {
+        return allTime.top(n);
+    }
+
+    public long getUnitsSold(int productId) {
+        return allTime.count(productId);
+    }
+
+    /**
+     * Estimated n best sellers among orders dated within [startDate, endDate], most
+     * units first. Only days inside the retention period contribute.
+     */
+    public ArrayList<TopKCounter.Entry> getTopSellers(int n, LocalDate startDate, LocalDate endDate) {
+        int from = days.lowerBound(startDate.toEpochDay());
+        int to = days.upperBound(endDate.toEpochDay());
+
+        IntIntHashMap seen = new IntIntHashMap();
+        ArrayList<Integer> candidates = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            TopKCounter heavy = summaries.get((int) days.get(i)).heavy;
+            for (int j = 0; j < heavy.size(); j++) {
+                int productId = heavy.keyAt(j);
+                if (!seen.containsKey(productId)) {
+                    seen.put(productId, 1);
+                    candidates.add(productId);
+                }
+            }
+        }
+
+        ArrayList<TopKCounter.Entry> ranked = new ArrayList<>(candidates.size());
+        for (int c = 0; c < candidates.size(); c++) {
+            int productId = candidates.get(c);
+            long upper = 0;
+            long lower = 0;
+            for (int i = from; i < to; i++) {
+                DaySummary summary = summaries.get((int) days.get(i));
+                upper += summary.upperBound(productId);
+                lower += summary.lowerBound(productId);
+            }
+            if (upper > 0) {
+                ranked.add(new TopKCounter.Entry(productId, upper, upper - lower));
+            }
+        }
+        ranked.sort((a, b) -> a.getCount() != b.getCount()
+                ? Long.compare(b.getCount(), a.getCount())
+                : Integer.compare(a.getKey(), b.getKey()));
+
+        int limit = Math.max(0, Math.min(n, ranked.size()));
+        ArrayList<TopKCounter.Entry> top = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            top.add(ranked.get(i));
+        }
+        return top;
+    }
+
+    /**
+     * Upper-bound estimate of units sold within [startDate, endDate].
+     */
+    public long estimateUnitsSold(int productId, LocalDate startDate, LocalDate endDate) {
+        int from = days.lowerBound(startDate.toEpochDay());
+        int to = days.upperBound(endDate.toEpochDay());
+        long units = 0;
+        for (int i = from; i < to; i++) {
+            units += summaries.get((int) days.get(i)).upperBound(productId);
+        }
+        return units;
+    }
+
+    /**
+     * Oldest order date with a windowed summary, or null before the first order.
+     */
+    public LocalDate getOldestRetainedDay() {
+        return days.isEmpty() ? null : LocalDate.ofEpochDay(days.get(0));
+    }
+
+    public int getRetainedDayCount() {
+        return days.size();
+    }
+
+    private void addUnits(Order order, int sign) {
+        ArrayList<Integer> productIds = order.getProductIds();
+        for (int i = 0; i < productIds.size(); i++) {
+            allTime.add(productIds.get(i), sign);
+        }
+
+        int day = (int) order.getOrderDate().toEpochDay();
+        DaySummary summary = summaryFor(day, sign > 0);
+        if (summary == null) {
+            return;
+        }
+        for (int i = 0; i < productIds.size(); i++) {
+            int productId = productIds.get(i);
+            summary.sketch.add(productId, sign);
+            summary.heavy.add(productId, sign);
+        }
+    }
+
+    /**
+     * Summary for the day, created when requested and still within retention.
+     * Advancing the newest day evicts summaries that fall out of retention.
+     */
+    private DaySummary summaryFor(int day, boolean create) {
+        DaySummary summary = summaries.get(day);
+        if (summary != null || !create) {
+            return summary;
+        }
+        if (day > newestDay) {
+            newestDay = day;
+            while (!days.isEmpty() && days.get(0) <= newestDay - retentionDays) {
+                summaries.remove((int) days.get(0));
+                days.remove(days.get(0));
+            }
+        }
+        if (day <= newestDay - retentionDays) {
+            return null;
+        }
+        summary = new DaySummary(topK);
+        summaries.put(day, summary);
+        days.insert(day);
+        return summary;
+    }
+}
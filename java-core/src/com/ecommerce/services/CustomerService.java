@@ -1,10 +1,13 @@
 package com.ecommerce.services;
 
 import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.VersionedList;
 import com.ecommerce.models.Customer;
 import com.ecommerce.models.Order;
 import com.ecommerce.models.Product;
 import com.ecommerce.models.Review;
+import com.ecommerce.monitoring.ServiceOperationEvent;
+import java.util.stream.Stream;
 
 /**
  * Service for managing customers and their interactions
@@ -12,22 +15,38 @@ import com.ecommerce.models.Review;
  * - registerCustomer(): O(1)
  * - searchCustomerById(): O(n) linear search
  * - placeOrder(): O(n) for product validation + O(1) order creation
- * - getCustomerOrderHistory(): O(m) where m is number of orders
- * - getCustomerReviews(): O(n*r) where n is products, r is reviews per product
+ * - getCustomerOrderHistory(): O(m) where m is number of orders, via O(1) order ID lookups
+ * - getCustomerReviews(): O(n*r) where n is products, r is reviews per product,
+ *   split across cores for large catalogs
+ * - getSnapshot(): O(1), lock-free point-in-time view of all customers
  */
 public class CustomerService {
+    // Below this many products the fork/join overhead outweighs the parallel scan
+    private static final int PARALLEL_SCAN_THRESHOLD = 10_000;
+
     private ArrayList<Customer> customers;
     private ProductService productService;
     private OrderService orderService;
+    private VersionedList<Customer> snapshots;
 
     public CustomerService(ProductService productService, OrderService orderService) {
         this.customers = new ArrayList<>();
         this.productService = productService;
         this.orderService = orderService;
+        this.snapshots = new VersionedList<>();
     }
 
     public void registerCustomer(Customer customer) {
         customers.add(customer);
+        snapshots.put(customer.getCustomerId(), customer.copy());
+    }
+
+    /**
+     * Records orderId in the customer's history and publishes the change.
+     */
+    public void linkOrder(Customer customer, int orderId) {
+        customer.addOrder(orderId);
+        snapshots.put(customer.getCustomerId(), customer.copy());
     }
 
     public Customer searchCustomerById(int customerId) {
@@ -41,6 +60,21 @@ public class CustomerService {
     }
 
     public Order placeOrder(int customerId, ArrayList<Integer> productIds) {
+        ServiceOperationEvent event = ServiceOperationEvent.start("placeOrder", customerId);
+        Order order = null;
+        try {
+            order = createValidatedOrder(customerId, productIds);
+            return order;
+        } finally {
+            event.finish(order != null ? order.getOrderId() : -1, productIds.size(), order != null);
+        }
+    }
+
+    /**
+     * placeOrder() without the flight recorder event: null if the customer or a product
+     * is missing or out of stock.
+     */
+    private Order createValidatedOrder(int customerId, ArrayList<Integer> productIds) {
         Customer customer = searchCustomerById(customerId);
         if (customer == null) {
             return null;
@@ -55,17 +89,17 @@ public class CustomerService {
             totalPrice += product.getPrice();
         }
 
-        int orderId = orderService.getOrderCount() + 1;
+        // All units or none, published as one catalog version
+        if (!productService.reserveStockAll(productIds)) {
+            return null;
+        }
+
+        int orderId = orderService.nextOrderId();
         Order order = new Order(orderId, customerId, productIds, totalPrice, 
                                java.time.LocalDate.now(), Order.OrderStatus.PENDING);
         
         orderService.createOrder(order);
-        customer.addOrder(orderId);
-
-        for (int i = 0; i < productIds.size(); i++) {
-            Product product = productService.searchById(productIds.get(i));
-            product.decreaseStock(1);
-        }
+        linkOrder(customer, orderId);
 
         return order;
     }
@@ -90,22 +124,35 @@ public class CustomerService {
     }
 
     public ArrayList<Review> getCustomerReviews(int customerId) {
-        ArrayList<Review> customerReviews = new ArrayList<>();
-        ArrayList<Product> allProducts = productService.getAllProducts();
-
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product product = allProducts.get(i);
-            ArrayList<Review> productReviews = product.getReviews();
-            
-            for (int j = 0; j < productReviews.size(); j++) {
-                Review review = productReviews.get(j);
-                if (review.getCustomerId() == customerId) {
-                    customerReviews.add(review);
-                }
-            }
+        ServiceOperationEvent event = ServiceOperationEvent.start("getCustomerReviews", customerId);
+        ArrayList<Review> reviews = null;
+        try {
+            ArrayList<Product> allProducts = productService.getAllProducts();
+            Stream<Product> products = allProducts.size() >= PARALLEL_SCAN_THRESHOLD
+                    ? allProducts.parallelStream()
+                    : allProducts.stream();
+
+            reviews = products.flatMap(product -> product.getReviews().stream())
+                    .filter(review -> review.getCustomerId() == customerId)
+                    .collect(ArrayList.collector());
+            return reviews;
+        } finally {
+            event.finish(reviews != null ? reviews.size() : 0, reviews != null);
         }
+    }
+
+    /**
+     * Pre-sizes the customer list before a bulk load.
+     */
+    public void ensureCapacity(int expectedCustomers) {
+        customers.ensureCapacity(expectedCustomers);
+    }
 
-        return customerReviews;
+    /**
+     * Consistent point-in-time view of the customers; lock-free, rows are read-only copies.
+     */
+    public VersionedList.Snapshot<Customer> getSnapshot() {
+        return snapshots.snapshot();
     }
 
     public ArrayList<Customer> getAllCustomers() {
@@ -0,0 +1,287 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.BoundedBlockingQueue;
+import com.ecommerce.models.Customer;
+import com.ecommerce.models.Order;
+import com.ecommerce.models.Product;
+import com.ecommerce.monitoring.ServiceOperationEvent;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staged order intake pipeline running on virtual threads
+ * validate -> reserve stock -> persist (assign ID) -> link to customer -> status
+ * Stages are connected by bounded queues, so a burst of checkouts blocks submitters
+ * instead of growing an unbounded backlog. Each stage is driven by one virtual thread,
+ * so stock, the order list and customer links are each mutated by a single thread.
+ * Order IDs come from OrderService.nextOrderId(), which is atomic, so orders placed
+ * through CustomerService.placeOrder() at the same time never get a duplicate ID.
+ * A request that fails validation or reservation completes with null, like placeOrder().
+ * A request whose stage throws, or that is still queued when a stage thread is
+ * interrupted, completes exceptionally; stock it had reserved is released unless its
+ * order was already persisted.
+ * Each order is recorded as a ServiceOperation event spanning submission to completion.
+ * Time Complexity Analysis:
+ * - submitOrder(): O(1) hand-off, blocks while the intake queue is full
+ * - validate stage: one customer lookup + p product lookups per order
+ * - reserve stage: p product lookups + O(p) stock updates per order
+ * - persist / link / status stages: O(1) per order
+ * where p is products per order
+ */
+public class OrderPipeline implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final long POLL_TIMEOUT_MS = 50;
+
+    private final CustomerService customerService;
+    private final ProductService productService;
+    private final OrderService orderService;
+    private final int batchSize;
+
+    private final BoundedBlockingQueue<OrderRequest> validateQueue;
+    private final BoundedBlockingQueue<OrderRequest> reserveQueue;
+    private final BoundedBlockingQueue<OrderRequest> persistQueue;
+    private final BoundedBlockingQueue<OrderRequest> linkQueue;
+    private final BoundedBlockingQueue<OrderRequest> statusQueue;
+    private final ArrayList<Thread> stageThreads;
+    private volatile boolean running;
+
+    private static class OrderRequest {
+        final int customerId;
+        final ArrayList<Integer> productIds;
+        final CompletableFuture<Order> future;
+        Customer customer;
+        double totalPrice;
+        boolean reserved;
+        Order order;
+
+        OrderRequest(int customerId, ArrayList<Integer> productIds) {
+            this.customerId = customerId;
+            this.productIds = productIds;
+            this.future = new CompletableFuture<>();
+        }
+    }
+
+    /**
+     * Handles a single request inside a stage.
+     * Returns true to forward the request to the next stage.
+     */
+    private interface StageHandler {
+        boolean handle(OrderRequest request);
+    }
+
+    public OrderPipeline(CustomerService customerService, ProductService productService,
+                         OrderService orderService) {
+        this(customerService, productService, orderService, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public OrderPipeline(CustomerService customerService, ProductService productService,
+                         OrderService orderService, int queueCapacity, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        }
+        this.customerService = customerService;
+        this.productService = productService;
+        this.orderService = orderService;
+        this.batchSize = batchSize;
+        this.validateQueue = new BoundedBlockingQueue<>(queueCapacity);
+        this.reserveQueue = new BoundedBlockingQueue<>(queueCapacity);
+        this.persistQueue = new BoundedBlockingQueue<>(queueCapacity);
+        this.linkQueue = new BoundedBlockingQueue<>(queueCapacity);
+        this.statusQueue = new BoundedBlockingQueue<>(queueCapacity);
+        this.stageThreads = new ArrayList<>(5);
+        this.running = true;
+
+        startStage("order-validate", validateQueue, reserveQueue, this::validate);
+        startStage("order-reserve", reserveQueue, persistQueue, this::reserve);
+        startStage("order-persist", persistQueue, linkQueue, this::persist);
+        startStage("order-link", linkQueue, statusQueue, this::link);
+        startStage("order-status", statusQueue, null, this::publishStatus);
+    }
+
+    public CompletableFuture<Order> submitOrder(int customerId, ArrayList<Integer> productIds) {
+        OrderRequest request = new OrderRequest(customerId, productIds);
+        // Finished by whichever stage completes the order, or right here if it is refused
+        ServiceOperationEvent event = ServiceOperationEvent.startAsync("pipelinePlaceOrder", customerId);
+        request.future.whenComplete((order, error) ->
+                event.finish(order != null ? order.getOrderId() : -1,
+                             productIds == null ? 0 : productIds.size(), order != null));
+        if (!running) {
+            request.future.completeExceptionally(new IllegalStateException("Pipeline is shut down"));
+            return request.future;
+        }
+        try {
+            validateQueue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.future.completeExceptionally(e);
+        }
+        return request.future;
+    }
+
+    public int getPendingCount() {
+        return validateQueue.size() + reserveQueue.size() + persistQueue.size()
+                + linkQueue.size() + statusQueue.size();
+    }
+
+    /**
+     * Stops accepting new orders, lets every stage drain its queue, then waits for the stage threads.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (int i = 0; i < stageThreads.size(); i++) {
+            try {
+                stageThreads.get(i).join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        // A submitter that raced with shutdown may have enqueued after the validate stage exited
+        try {
+            OrderRequest leftover;
+            while ((leftover = validateQueue.poll(0, TimeUnit.MILLISECONDS)) != null) {
+                leftover.future.completeExceptionally(new IllegalStateException("Pipeline is shut down"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startStage(String name, BoundedBlockingQueue<OrderRequest> input,
+                            BoundedBlockingQueue<OrderRequest> output, StageHandler handler) {
+        Thread upstream = stageThreads.isEmpty() ? null : stageThreads.get(stageThreads.size() - 1);
+        Thread thread = Thread.ofVirtual().name(name).unstarted(
+                () -> runStage(input, output, handler, upstream));
+        stageThreads.add(thread);
+        thread.start();
+    }
+
+    private void runStage(BoundedBlockingQueue<OrderRequest> input, BoundedBlockingQueue<OrderRequest> output,
+                          StageHandler handler, Thread upstream) {
+        ArrayList<OrderRequest> batch = new ArrayList<>(batchSize);
+        ArrayList<OrderRequest> forward = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                int count = input.drainTo(batch, batchSize, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (count == 0) {
+                    boolean upstreamDone = upstream == null ? !running : !upstream.isAlive();
+                    if (upstreamDone && input.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                for (int i = 0; i < batch.size(); i++) {
+                    OrderRequest request = batch.get(i);
+                    // Already failed, e.g. abandoned by a stage interrupted while forwarding it
+                    if (request.future.isDone()) {
+                        continue;
+                    }
+                    try {
+                        if (handler.handle(request) && output != null) {
+                            forward.add(request);
+                        }
+                    } catch (RuntimeException e) {
+                        abandon(request, e);
+                    }
+                }
+
+                if (output != null && !forward.isEmpty()) {
+                    output.putAll(forward);
+                }
+                batch.clear();
+                forward.clear();
+            }
+        } catch (InterruptedException e) {
+            // The interrupt status is clear again here, so the input can still be polled
+            IllegalStateException shutdown = new IllegalStateException("Pipeline stage interrupted");
+            abandonAll(batch, shutdown);
+            abandonAll(forward, shutdown);
+            try {
+                OrderRequest leftover;
+                while ((leftover = input.poll(0, TimeUnit.MILLISECONDS)) != null) {
+                    abandon(leftover, shutdown);
+                }
+            } catch (InterruptedException again) {
+                // Interrupted twice; whatever is still queued is left for close()
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fails the request unless it already completed, and gives back the stock it reserved
+     * if no order was persisted for it.
+     */
+    private void abandon(OrderRequest request, Throwable cause) {
+        if (request.future.completeExceptionally(cause) && request.reserved && request.order == null) {
+            request.reserved = false;
+            for (int i = 0; i < request.productIds.size(); i++) {
+                productService.releaseStock(request.productIds.get(i), 1);
+            }
+        }
+    }
+
+    private void abandonAll(ArrayList<OrderRequest> requests, Throwable cause) {
+        for (int i = 0; i < requests.size(); i++) {
+            abandon(requests.get(i), cause);
+        }
+        requests.clear();
+    }
+
+    private boolean validate(OrderRequest request) {
+        Customer customer = customerService.searchCustomerById(request.customerId);
+        if (customer == null || request.productIds == null || request.productIds.isEmpty()) {
+            request.future.complete(null);
+            return false;
+        }
+
+        double totalPrice = 0.0;
+        for (int i = 0; i < request.productIds.size(); i++) {
+            Product product = productService.searchById(request.productIds.get(i));
+            if (product == null) {
+                request.future.complete(null);
+                return false;
+            }
+            totalPrice += product.getPrice();
+        }
+
+        request.customer = customer;
+        request.totalPrice = totalPrice;
+        return true;
+    }
+
+    private boolean reserve(OrderRequest request) {
+        if (!productService.reserveStockAll(request.productIds)) {
+            request.future.complete(null);
+            return false;
+        }
+        request.reserved = true;
+        return true;
+    }
+
+    private boolean persist(OrderRequest request) {
+        int orderId = orderService.nextOrderId();
+        Order order = new Order(orderId, request.customerId, request.productIds, request.totalPrice,
+                                LocalDate.now(), Order.OrderStatus.PENDING);
+        orderService.createOrder(order);
+        // Set only once stored, so a failed createOrder() still releases the stock
+        request.order = order;
+        return true;
+    }
+
+    private boolean link(OrderRequest request) {
+        customerService.linkOrder(request.customer, request.order.getOrderId());
+        return true;
+    }
+
+    private boolean publishStatus(OrderRequest request) {
+        request.future.complete(request.order);
+        return true;
+    }
+}
@@ -1,87 +1,359 @@
 package com.ecommerce.services;
 
 import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.IntHashMap;
+import com.ecommerce.datastructures.IntIntHashMap;
+import com.ecommerce.datastructures.VersionedList;
 import com.ecommerce.models.Order;
+import com.ecommerce.monitoring.ServiceOperationEvent;
+import com.ecommerce.storage.DiskOrderStore;
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for managing orders
  * Time Complexity Analysis:
- * - createOrder(): O(1)
- * - cancelOrder(): O(n) linear search
- * - updateOrderStatus(): O(n) linear search + O(1) update
- * - searchOrderById(): O(n) linear search
- * - getOrdersBetweenDates(): O(n) iteration with date comparison
+ * - createOrder(): O(1) amortized for an order dated on or after the latest one;
+ *   O(n) worst case otherwise, shifting the date-sorted indexes (O(m) for the customer's)
+ * - nextOrderId(): O(1), lock-free
+ * - cancelOrder(): O(1) average ID lookup
+ * - updateOrderStatus(): O(1) average ID lookup + O(1) update
+ * - searchOrderById(): O(1) average using an orderId -> slot index
+ * - getOrdersBetweenDates(): O(log n + k) binary search in the date index
+ * - getAllOrdersByDate(): O(n)
+ * - getOrdersByCustomer(): O(m) where m is the customer's order count
+ * - getLatestOrdersByCustomer(): O(k)
+ * - getCustomerOrdersBetweenDates(): O(log m + k)
+ * - getCustomerOrderTotal(): O(m)
+ * - cursor variants of getOrdersBetweenDates()/getOrdersByStatus()/getOrdersByCustomer():
+ *   O(log n + page) per page, read from date-sorted slot indexes
+ * Orders are indexed as slots into the order list, sorted by date: all orders, per
+ * status (moved on status changes) and per customer.
+ * - getRevenueRollup() queries: O(log b) range sums, see RevenueRollup
+ * - getBestSellers() queries: O(N) for the all-time top N, see BestSellerTracker
+ * - getSketches(): distinct buyers and order-value quantiles, see OrderSketches
+ * - getSalesMetrics(): last minute/hour/day totals, O(1) lock-free updates, see SalesMetrics
+ * - getSnapshot(): O(1), lock-free point-in-time view of all orders
+ * With a DiskOrderStore the orders themselves live in a paged file instead of the order
+ * list: lookups by ID and by customer go through its B+trees, and only the date and
+ * status slot indexes (8 bytes per order each) and the analytics summaries stay in the
+ * heap. Returned orders are then decoded copies, and point-in-time snapshots are not kept.
  */
 public class OrderService {
     private ArrayList<Order> orders;
+    private RevenueRollup revenueRollup;
+    private BestSellerTracker bestSellers;
+    private OrderSketches sketches;
+    private SalesMetrics salesMetrics;
+    private VersionedList<Order> snapshots;
+    private AtomicLong orderSetVersion;
+    private final AtomicInteger lastOrderId;
+    private IntIntHashMap slotsById;
+    private IntHashMap<DateIndex> ordersByCustomer;
+    private DateIndex ordersByDate;
+    private DateIndex[] ordersByStatus;
+    private DiskOrderStore store;
+
+    /**
+     * Order slots sorted by (order date, slot), each packed into one long key so that
+     * date ranges and page cursors are single binary searches. Slots grow with
+     * insertion, so orders with equal dates keep insertion order.
+     */
+    private static class DateIndex {
+        long[] keys;
+        int size;
+
+        DateIndex() {
+            this.keys = new long[2];
+        }
+
+        DateIndex(long[] sortedKeys) {
+            this.keys = sortedKeys.length == 0 ? new long[2] : sortedKeys;
+            this.size = sortedKeys.length;
+        }
+
+        static long key(int epochDay, int slot) {
+            return ((long) epochDay << 32) | (slot & 0xFFFFFFFFL);
+        }
+
+        static long firstKeyOn(LocalDate date) {
+            return key((int) date.toEpochDay(), 0);
+        }
+
+        static long lastKeyOn(LocalDate date) {
+            return key((int) date.toEpochDay(), -1);
+        }
+
+        int slot(int index) {
+            return (int) keys[index];
+        }
+
+        void insert(long key) {
+            if (size == keys.length) {
+                long[] grown = new long[size * 2];
+                System.arraycopy(keys, 0, grown, 0, size);
+                keys = grown;
+            }
+            // New orders are usually the latest, so this is an append
+            int index = (size == 0 || keys[size - 1] < key) ? size : lowerBound(key);
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            keys[index] = key;
+            size++;
+        }
+
+        void remove(long key) {
+            int index = lowerBound(key);
+            if (index < size && keys[index] == key) {
+                System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+                size--;
+            }
+        }
+
+        /**
+         * First index whose key is >= key.
+         */
+        int lowerBound(long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * First index whose key is > key.
+         */
+        int upperBound(long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] <= key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
 
     public OrderService() {
+        this(new OrderSketches());
+    }
+
+    /**
+     * Uses the given sketches, e.g. OrderSketches.withBudget(...) to trade accuracy for memory.
+     */
+    public OrderService(OrderSketches sketches) {
+        this(sketches, null);
+    }
+
+    /**
+     * Keeps the orders in store rather than in memory when store is not null.
+     */
+    public OrderService(OrderSketches sketches, DiskOrderStore store) {
+        this.sketches = sketches;
+        this.store = store;
         this.orders = new ArrayList<>();
+        this.revenueRollup = new RevenueRollup();
+        this.bestSellers = new BestSellerTracker();
+        this.salesMetrics = new SalesMetrics();
+        this.snapshots = new VersionedList<>();
+        this.orderSetVersion = new AtomicLong();
+        this.lastOrderId = new AtomicInteger();
+        this.slotsById = new IntIntHashMap();
+        this.ordersByCustomer = new IntHashMap<>();
+        this.ordersByDate = new DateIndex();
+        this.ordersByStatus = new DateIndex[Order.OrderStatus.values().length];
+        for (int i = 0; i < ordersByStatus.length; i++) {
+            ordersByStatus[i] = new DateIndex();
+        }
     }
 
     public void createOrder(Order order) {
-        orders.add(order);
+        lastOrderId.accumulateAndGet(order.getOrderId(), Math::max);
+        int slot;
+        long key;
+        if (store != null) {
+            // The store keeps its own ID and customer indexes
+            slot = store.append(order);
+            key = DateIndex.key((int) order.getOrderDate().toEpochDay(), slot);
+        } else {
+            slot = orders.size();
+            orders.add(order);
+            // Keep the first order for a duplicate ID, as the linear search used to
+            if (!slotsById.containsKey(order.getOrderId())) {
+                slotsById.put(order.getOrderId(), slot);
+            }
+            DateIndex customerOrders = ordersByCustomer.get(order.getCustomerId());
+            if (customerOrders == null) {
+                customerOrders = new DateIndex();
+                ordersByCustomer.put(order.getCustomerId(), customerOrders);
+            }
+            key = DateIndex.key((int) order.getOrderDate().toEpochDay(), slot);
+            customerOrders.insert(key);
+        }
+        ordersByDate.insert(key);
+        ordersByStatus[order.getStatus().ordinal()].insert(key);
+        revenueRollup.recordOrder(order);
+        bestSellers.recordOrder(order);
+        sketches.recordOrder(order);
+        salesMetrics.recordOrder(order);
+        if (store == null) {
+            snapshots.put(order.getOrderId(), order.copy());
+        }
+        orderSetVersion.incrementAndGet();
     }
 
     public boolean cancelOrder(int orderId) {
-        Order order = searchOrderById(orderId);
-        if (order != null && order.getStatus() == Order.OrderStatus.PENDING) {
-            order.setStatus(Order.OrderStatus.CANCELED);
-            return true;
+        ServiceOperationEvent event = ServiceOperationEvent.start("cancelOrder", orderId);
+        boolean succeeded = false;
+        try {
+            Order order = searchOrderById(orderId);
+            boolean canceled = order != null && order.getStatus() == Order.OrderStatus.PENDING;
+            if (canceled) {
+                order.setStatus(Order.OrderStatus.CANCELED);
+                moveStatus(orderId, order, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELED);
+                revenueRollup.changeStatus(order, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELED);
+                bestSellers.changeStatus(order, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELED);
+                salesMetrics.recordCancel(order);
+                saveStatus(orderId, order);
+            }
+            succeeded = canceled;
+            return canceled;
+        } finally {
+            event.finish(-1, 0, succeeded);
         }
-        return false;
     }
 
     public boolean updateOrderStatus(int orderId, Order.OrderStatus newStatus) {
-        Order order = searchOrderById(orderId);
-        if (order != null) {
-            order.setStatus(newStatus);
-            return true;
+        ServiceOperationEvent event = ServiceOperationEvent.start("updateOrderStatus", orderId);
+        boolean succeeded = false;
+        try {
+            Order order = searchOrderById(orderId);
+            if (order != null) {
+                Order.OrderStatus oldStatus = order.getStatus();
+                order.setStatus(newStatus);
+                moveStatus(orderId, order, oldStatus, newStatus);
+                revenueRollup.changeStatus(order, oldStatus, newStatus);
+                bestSellers.changeStatus(order, oldStatus, newStatus);
+                if (newStatus == Order.OrderStatus.CANCELED && oldStatus != Order.OrderStatus.CANCELED) {
+                    salesMetrics.recordCancel(order);
+                }
+                saveStatus(orderId, order);
+            }
+            succeeded = order != null;
+            return succeeded;
+        } finally {
+            event.finish(-1, 0, succeeded);
         }
-        return false;
     }
 
     public Order searchOrderById(int orderId) {
-        for (int i = 0; i < orders.size(); i++) {
-            Order o = orders.get(i);
-            if (o.getOrderId() == orderId) {
-                return o;
-            }
+        if (store != null) {
+            return store.findById(orderId);
         }
-        return null;
+        int slot = slotsById.get(orderId, -1);
+        return slot < 0 ? null : orders.get(slot);
     }
 
+    /**
+     * Orders dated within [startDate, endDate], in date order, read from the date index.
+     */
     public ArrayList<Order> getOrdersBetweenDates(LocalDate startDate, LocalDate endDate) {
-        ArrayList<Order> result = new ArrayList<>();
-        
-        for (int i = 0; i < orders.size(); i++) {
-            Order order = orders.get(i);
-            LocalDate orderDate = order.getOrderDate();
-            
-            if ((orderDate.isEqual(startDate) || orderDate.isAfter(startDate)) &&
-                (orderDate.isEqual(endDate) || orderDate.isBefore(endDate))) {
-                result.add(order);
-            }
+        ServiceOperationEvent event = ServiceOperationEvent.startRange("getOrdersBetweenDates", startDate, endDate);
+        ArrayList<Order> result = null;
+        try {
+            result = slotRange(ordersByDate, DateIndex.firstKeyOn(startDate), DateIndex.lastKeyOn(endDate));
+            return result;
+        } finally {
+            event.finish(result != null ? result.size() : 0, result != null);
         }
-        
-        return result;
     }
 
+    /**
+     * All of the customer's orders, oldest first.
+     */
     public ArrayList<Order> getOrdersByCustomer(int customerId) {
-        ArrayList<Order> customerOrders = new ArrayList<>();
-        
-        for (int i = 0; i < orders.size(); i++) {
-            Order order = orders.get(i);
-            if (order.getCustomerId() == customerId) {
-                customerOrders.add(order);
-            }
+        DateIndex index = customerIndex(customerId);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        ArrayList<Order> customerOrders = new ArrayList<>(index.size);
+        for (int i = 0; i < index.size; i++) {
+            customerOrders.add(orderAt(index.slot(i)));
         }
-        
         return customerOrders;
     }
 
+    /**
+     * The customer's most recent orders, newest first, at most limit of them.
+     */
+    public ArrayList<Order> getLatestOrdersByCustomer(int customerId, int limit) {
+        DateIndex index = customerIndex(customerId);
+        if (index == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int count = Math.min(limit, index.size);
+        ArrayList<Order> latest = new ArrayList<>(count);
+        for (int i = index.size - 1; i >= index.size - count; i--) {
+            latest.add(orderAt(index.slot(i)));
+        }
+        return latest;
+    }
+
+    /**
+     * The customer's orders dated within [startDate, endDate], oldest first.
+     */
+    public ArrayList<Order> getCustomerOrdersBetweenDates(int customerId, LocalDate startDate, LocalDate endDate) {
+        DateIndex index = customerIndex(customerId);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        int from = index.lowerBound(DateIndex.firstKeyOn(startDate));
+        int to = index.upperBound(DateIndex.lastKeyOn(endDate));
+        ArrayList<Order> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            result.add(orderAt(index.slot(i)));
+        }
+        return result;
+    }
+
+    public int getCustomerOrderCount(int customerId) {
+        DateIndex index = customerIndex(customerId);
+        return index == null ? 0 : index.size;
+    }
+
+    /**
+     * Total price of the customer's orders, excluding canceled ones.
+     */
+    public double getCustomerOrderTotal(int customerId) {
+        DateIndex index = customerIndex(customerId);
+        if (index == null) {
+            return 0.0;
+        }
+        double total = 0.0;
+        for (int i = 0; i < index.size; i++) {
+            Order order = orderAt(index.slot(i));
+            if (order.getStatus() != Order.OrderStatus.CANCELED) {
+                total += order.getTotalPrice();
+            }
+        }
+        return total;
+    }
+
     public ArrayList<Order> getOrdersByStatus(Order.OrderStatus status) {
+        if (store != null) {
+            return slotRange(ordersByStatus[status.ordinal()], Long.MIN_VALUE, Long.MAX_VALUE);
+        }
         ArrayList<Order> statusOrders = new ArrayList<>();
         
         for (int i = 0; i < orders.size(); i++) {
@@ -94,11 +366,211 @@ public class OrderService {
         return statusOrders;
     }
 
+    /**
+     * Cursor variant of getOrdersBetweenDates(): one page of orders in date order.
+     * Pass null as pageToken for the first page, then the previous page's token.
+     */
+    public Page<Order> getOrdersBetweenDates(LocalDate startDate, LocalDate endDate, int limit,
+                                             String pageToken, Page.SortOrder sortOrder) {
+        return page(ordersByDate, DateIndex.firstKeyOn(startDate), DateIndex.lastKeyOn(endDate),
+                    limit, pageToken, sortOrder);
+    }
+
+    /**
+     * Cursor variant of getOrdersByStatus(): one page of orders in date order.
+     */
+    public Page<Order> getOrdersByStatus(Order.OrderStatus status, int limit,
+                                         String pageToken, Page.SortOrder sortOrder) {
+        return page(ordersByStatus[status.ordinal()], Long.MIN_VALUE, Long.MAX_VALUE,
+                    limit, pageToken, sortOrder);
+    }
+
+    /**
+     * Cursor variant of getOrdersByCustomer(): one page of the customer's orders in date order.
+     */
+    public Page<Order> getOrdersByCustomer(int customerId, int limit,
+                                           String pageToken, Page.SortOrder sortOrder) {
+        ServiceOperationEvent event = ServiceOperationEvent.start("getOrdersByCustomer", customerId);
+        Page<Order> page = null;
+        try {
+            DateIndex index = customerIndex(customerId);
+            page = page(index == null ? new DateIndex() : index, Long.MIN_VALUE, Long.MAX_VALUE,
+                        limit, pageToken, sortOrder);
+            return page;
+        } finally {
+            event.finish(page != null ? page.size() : 0, page != null);
+        }
+    }
+
+    /**
+     * Pre-sizes the order list before a bulk load.
+     */
+    public void ensureCapacity(int expectedOrders) {
+        if (store == null) {
+            orders.ensureCapacity(expectedOrders);
+        }
+    }
+
+    /**
+     * Revenue and order counts by day, week and month, kept current by
+     * createOrder(), cancelOrder() and updateOrderStatus().
+     */
+    public RevenueRollup getRevenueRollup() {
+        return revenueRollup;
+    }
+
+    /**
+     * Units sold per product, all-time and by order-date window, kept current by
+     * createOrder(), cancelOrder() and updateOrderStatus().
+     */
+    public BestSellerTracker getBestSellers() {
+        return bestSellers;
+    }
+
+    /**
+     * Approximate distinct-buyer and order-value summaries, updated by createOrder().
+     */
+    public OrderSketches getSketches() {
+        return sketches;
+    }
+
+    /**
+     * Live order, revenue and cancel totals over the last minute, hour and day.
+     * Safe to read from any thread without holding the lock that guards this service.
+     */
+    public SalesMetrics getSalesMetrics() {
+        return salesMetrics;
+    }
+
+    /**
+     * Consistent point-in-time view of the orders; lock-free, rows are read-only copies.
+     * Not available with a DiskOrderStore, whose orders would all have to be copied into the heap.
+     */
+    public VersionedList.Snapshot<Order> getSnapshot() {
+        if (store != null) {
+            throw new IllegalStateException("Snapshots are not kept for disk-backed orders");
+        }
+        return snapshots.snapshot();
+    }
+
+    /**
+     * The paged store holding the orders, or null when they are kept in memory.
+     */
+    public DiskOrderStore getOrderStore() {
+        return store;
+    }
+
+    /**
+     * Changes whenever an order is added or changes status. A DiskOrderStore hands out
+     * decoded copies, so cached results would otherwise keep showing the old status.
+     */
+    public long getOrderSetVersion() {
+        return orderSetVersion.get();
+    }
+
+    /**
+     * Reads up to limit orders with keys in [fromKey, toKey] from index, resuming
+     * strictly after (or before, when descending) the key in pageToken.
+     * Costs O(log n + limit) regardless of how many orders match.
+     */
+    private Page<Order> page(DateIndex index, long fromKey, long toKey, int limit,
+                             String pageToken, Page.SortOrder sortOrder) {
+        Page.checkLimit(limit);
+        ArrayList<Order> items = new ArrayList<>(Math.min(limit, index.size));
+        if (sortOrder == Page.SortOrder.DESCENDING) {
+            int i = index.upperBound(toKey) - 1;
+            if (pageToken != null) {
+                i = Math.min(i, index.lowerBound(Page.decodeToken(pageToken)) - 1);
+            }
+            while (i >= 0 && index.keys[i] >= fromKey && items.size() < limit) {
+                items.add(orderAt(index.slot(i)));
+                i--;
+            }
+            boolean more = i >= 0 && index.keys[i] >= fromKey;
+            return new Page<>(items, more ? Page.encodeToken(index.keys[i + 1]) : null);
+        }
+        int i = index.lowerBound(fromKey);
+        if (pageToken != null) {
+            i = Math.max(i, index.upperBound(Page.decodeToken(pageToken)));
+        }
+        while (i < index.size && index.keys[i] <= toKey && items.size() < limit) {
+            items.add(orderAt(index.slot(i)));
+            i++;
+        }
+        boolean more = i < index.size && index.keys[i] <= toKey;
+        return new Page<>(items, more ? Page.encodeToken(index.keys[i - 1]) : null);
+    }
+
+    private void moveStatus(int orderId, Order order, Order.OrderStatus oldStatus, Order.OrderStatus newStatus) {
+        int slot = store != null ? store.slotOf(orderId) : slotsById.get(orderId, -1);
+        long key = DateIndex.key((int) order.getOrderDate().toEpochDay(), slot);
+        ordersByStatus[oldStatus.ordinal()].remove(key);
+        ordersByStatus[newStatus.ordinal()].insert(key);
+        orderSetVersion.incrementAndGet();
+    }
+
+    private void saveStatus(int orderId, Order order) {
+        if (store != null) {
+            store.updateStatus(store.slotOf(orderId), order.getStatus());
+        } else {
+            snapshots.put(orderId, order.copy());
+        }
+    }
+
+    private Order orderAt(int slot) {
+        return store != null ? store.read(slot) : orders.get(slot);
+    }
+
+    private DateIndex customerIndex(int customerId) {
+        if (store != null) {
+            return new DateIndex(store.customerKeys(customerId));
+        }
+        return ordersByCustomer.get(customerId);
+    }
+
+    private ArrayList<Order> slotRange(DateIndex index, long fromKey, long toKey) {
+        int from = index.lowerBound(fromKey);
+        int to = index.upperBound(toKey);
+        ArrayList<Order> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            result.add(orderAt(index.slot(i)));
+        }
+        return result;
+    }
+
+    /**
+     * All orders in arrival order. With a DiskOrderStore this decodes every order into a
+     * new list, O(n) heap, so it is meant for exports rather than request paths.
+     */
     public ArrayList<Order> getAllOrders() {
+        if (store != null) {
+            ArrayList<Order> all = new ArrayList<>(store.size());
+            for (int slot = 0; slot < store.size(); slot++) {
+                all.add(orderAt(slot));
+            }
+            return all;
+        }
         return orders;
     }
 
+    /**
+     * All orders in date order, read from the date index. Creating them in this order in
+     * another OrderService appends to every date index instead of shifting it.
+     */
+    public ArrayList<Order> getAllOrdersByDate() {
+        return slotRange(ordersByDate, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reserves a new order ID, one above every ID created or reserved so far. Safe to
+     * call from several threads, so CustomerService.placeOrder() and OrderPipeline never
+     * hand out the same ID.
+     */
+    public int nextOrderId() {
+        return lastOrderId.incrementAndGet();
+    }
+
     public int getOrderCount() {
-        return orders.size();
+        return store != null ? store.size() : orders.size();
     }
 }
@@ -0,0 +1,163 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.HyperLogLog;
+import com.ecommerce.datastructures.IntHashMap;
+import com.ecommerce.datastructures.KllSketch;
+import com.ecommerce.datastructures.SortedLongArray;
+import com.ecommerce.models.Order;
+import java.time.LocalDate;
+
+/**
+ * Mergeable approximate summaries of the order stream, updated on order creation
+ * - a HyperLogLog of customer IDs per product: distinct buyers, and distinct buyers of
+ *   any set of products by merging their sketches
+ * - a KLL sketch of order totals per order date: value quantiles for a day, or for a
+ *   date range by merging the days
+ * Accuracy and memory are fixed at construction, either directly (HLL precision, KLL k)
+ * or from per-sketch byte budgets. Sketches only grow: canceled orders still count, as
+ * the sketches describe orders placed.
+ * Time Complexity:
+ * - recordOrder(): O(p) for p products + O(1) amortized quantile update, O(log d) for a new day
+ * - estimateDistinctBuyers(): O(2^precision) per product
+ * - getOrderValueQuantiles(): O(d * k log k) for d days in range
+ * Space Complexity: O(P * 2^precision) bytes + O(D * k) doubles for P products and D order dates
+ */
+public class OrderSketches {
+    public static final int DEFAULT_PRECISION = 10;
+
+    private final int precision;
+    private final int quantileK;
+    private final IntHashMap<HyperLogLog> buyersByProduct;
+    private final IntHashMap<KllSketch> valuesByDay;
+    private final SortedLongArray days;
+
+    public OrderSketches() {
+        this(DEFAULT_PRECISION, KllSketch.DEFAULT_K);
+    }
+
+    /**
+     * precision: HyperLogLog precision, 4 to 16 (error about 1.04 / sqrt(2^precision)).
+     * quantileK: KLL k, at least 8 (rank error about 1.7 / k).
+     */
+    public OrderSketches(int precision, int quantileK) {
+        if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION) {
+            throw new IllegalArgumentException("Illegal precision: " + precision);
+        }
+        if (quantileK < KllSketch.MIN_K || quantileK > KllSketch.MAX_K) {
+            throw new IllegalArgumentException("Illegal k: " + quantileK);
+        }
+        this.precision = precision;
+        this.quantileK = quantileK;
+        this.buyersByProduct = new IntHashMap<>();
+        this.valuesByDay = new IntHashMap<>();
+        this.days = new SortedLongArray();
+    }
+
+    /**
+     * Sizes the sketches to fit the given bytes per product and bytes per order date.
+     */
+    public static OrderSketches withBudget(int bytesPerProduct, int bytesPerDay) {
+        return new OrderSketches(HyperLogLog.precisionForBudget(bytesPerProduct),
+                                 KllSketch.kForBudget(bytesPerDay));
+    }
+
+    public void recordOrder(Order order) {
+        ArrayList<Integer> productIds = order.getProductIds();
+        for (int i = 0; i < productIds.size(); i++) {
+            int productId = productIds.get(i);
+            HyperLogLog buyers = buyersByProduct.get(productId);
+            if (buyers == null) {
+                buyers = new HyperLogLog(precision);
+                buyersByProduct.put(productId, buyers);
+            }
+            buyers.add(order.getCustomerId());
+        }
+
+        int day = (int) order.getOrderDate().toEpochDay();
+        KllSketch values = valuesByDay.get(day);
+        if (values == null) {
+            values = new KllSketch(quantileK);
+            valuesByDay.put(day, values);
+            days.insert(day);
+        }
+        values.update(order.getTotalPrice());
+    }
+
+    /**
+     * Estimated number of distinct customers who ordered the product.
+     */
+    public long estimateDistinctBuyers(int productId) {
+        HyperLogLog buyers = buyersByProduct.get(productId);
+        return buyers == null ? 0 : buyers.estimate();
+    }
+
+    /**
+     * Estimated number of distinct customers who ordered any of the products.
+     */
+    public long estimateDistinctBuyers(ArrayList<Integer> productIds) {
+        HyperLogLog union = new HyperLogLog(precision);
+        for (int i = 0; i < productIds.size(); i++) {
+            HyperLogLog buyers = buyersByProduct.get(productIds.get(i));
+            if (buyers != null) {
+                union.merge(buyers);
+            }
+        }
+        return union.estimate();
+    }
+
+    /**
+     * Order-total quantiles over orders dated within [startDate, endDate], one per
+     * entry of quantiles (each 0 to 1). NaN when there are no such orders.
+     */
+    public double[] getOrderValueQuantiles(LocalDate startDate, LocalDate endDate, double... quantiles) {
+        KllSketch merged = mergeDays(startDate, endDate);
+        double[] result = new double[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            result[i] = merged.quantile(quantiles[i]);
+        }
+        return result;
+    }
+
+    public long getOrderCount(LocalDate startDate, LocalDate endDate) {
+        return mergeDays(startDate, endDate).getCount();
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public int getQuantileK() {
+        return quantileK;
+    }
+
+    public double getDistinctRelativeError() {
+        return HyperLogLog.relativeError(precision);
+    }
+
+    public double getQuantileRankError() {
+        return KllSketch.rankError(quantileK);
+    }
+
+    /**
+     * Approximate heap held by the sketches' data arrays.
+     */
+    public long getMemoryBytes() {
+        long bytes = (long) buyersByProduct.size() * (1 << precision);
+        ArrayList<KllSketch> sketches = valuesByDay.values();
+        for (int i = 0; i < sketches.size(); i++) {
+            bytes += (long) sketches.get(i).retained() * 8;
+        }
+        return bytes;
+    }
+
+    private KllSketch mergeDays(LocalDate startDate, LocalDate endDate) {
+        KllSketch merged = new KllSketch(quantileK);
+        int from = days.lowerBound(startDate.toEpochDay());
+        int to = days.upperBound(endDate.toEpochDay());
+        for (int i = from; i < to; i++) {
+            merged.merge(valuesByDay.get((int) days.get(i)));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.ArrayList;
+import java.util.function.Function;
+
+/**
+ * One page of a cursor-based query
+ * Holds at most limit items and an opaque token for the next page. The token records
+ * the sort key of the last item returned, so a resumed query continues strictly after
+ * it even if other rows were added or removed in between.
+ */
+public class Page<T> {
+    public enum SortOrder {
+        ASCENDING,
+        DESCENDING
+    }
+
+    private final ArrayList<T> items;
+    private final String nextPageToken;
+
+    Page(ArrayList<T> items, String nextPageToken) {
+        this.items = items;
+        this.nextPageToken = nextPageToken;
+    }
+
+    public ArrayList<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Token to pass back for the next page, or null if this is the last page.
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean hasMore() {
+        return nextPageToken != null;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Same page with every item passed through mapper, e.g. to copy entities. O(size).
+     */
+    public <R> Page<R> map(Function<? super T, ? extends R> mapper) {
+        ArrayList<R> mapped = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            mapped.add(mapper.apply(items.get(i)));
+        }
+        return new Page<>(mapped, nextPageToken);
+    }
+
+    static String encodeToken(long key) {
+        return Long.toString(key, 36);
+    }
+
+    static long decodeToken(String token) {
+        try {
+            return Long.parseLong(token, 36);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token);
+        }
+    }
+
+    static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Illegal page limit: " + limit);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.IntHashMap;
+import com.ecommerce.datastructures.IntIntHashMap;
+import com.ecommerce.datastructures.SortedLongArray;
+import com.ecommerce.models.Product;
+
+/**
+ * Secondary indexes on product price, average rating and stock state
+ * Price and rating are kept as sorted (attribute, productId) keys, so a range is two binary
+ * searches; out-of-stock products are kept as a sorted ID set. Prices are indexed in whole
+ * cents and ratings in thousandths so that keys are exact integers.
+ * A filter query estimates how many candidates each applicable index would yield, drives
+ * the scan from the smallest one and checks the other conditions against the indexed
+ * attributes of each candidate, so a narrow condition stays cheap even when the others
+ * match most of the catalog.
+ * Time Complexity:
+ * - update()/remove(): O(log n) search + O(n) array shift per changed attribute
+ * - updateAll(): O(m log m + n) for m new products, one merge per index; when many
+ *   indexed products changed at once (e.g. ratings after a bulk review load) every index
+ *   is rebuilt from the attribute maps in O(n log n) instead of m shifts of O(n)
+ * - filter(): O(log n) planning + O(k) for k candidates of the chosen index + O(m log m) to sort m matches
+ * Space Complexity: O(n)
+ */
+class ProductAttributeIndex {
+    private static final int MISSING = Integer.MIN_VALUE;
+    // Below this many changed products, shifting each key into place beats a rebuild
+    private static final int REBUILD_THRESHOLD = 32;
+
+    private final SortedLongArray byPrice;
+    private final SortedLongArray byRating;
+    private final SortedLongArray outOfStock;
+    private final IntHashMap<Product> productsById;
+    private final IntIntHashMap priceCentsById;
+    private final IntIntHashMap ratingKeyById;
+
+    ProductAttributeIndex() {
+        this.byPrice = new SortedLongArray();
+        this.byRating = new SortedLongArray();
+        this.outOfStock = new SortedLongArray();
+        this.productsById = new IntHashMap<>();
+        this.priceCentsById = new IntIntHashMap();
+        this.ratingKeyById = new IntIntHashMap();
+    }
+
+    static long priceCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    static int ratingKey(double averageRating) {
+        return (int) Math.round(averageRating * 1000);
+    }
+
+    /**
+     * Smallest whole-cent price that satisfies price >= minPrice.
+     */
+    static long minCents(double minPrice) {
+        if (minPrice == Double.NEGATIVE_INFINITY) {
+            return Long.MIN_VALUE;
+        }
+        return (long) Math.ceil(minPrice * 100 - 1e-6);
+    }
+
+    /**
+     * Largest whole-cent price that satisfies price <= maxPrice.
+     */
+    static long maxCents(double maxPrice) {
+        if (maxPrice == Double.POSITIVE_INFINITY) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.floor(maxPrice * 100 + 1e-6);
+    }
+
+    static int minRatingKey(double minRating) {
+        return (int) Math.ceil(minRating * 1000 - 1e-6);
+    }
+
+    /**
+     * Re-indexes a product after it was added or changed; attributes that did not change cost nothing.
+     */
+    void update(Product product) {
+        int id = product.getProductId();
+        productsById.put(id, product);
+
+        int cents = clamp(priceCents(product.getPrice()));
+        int oldCents = priceCentsById.get(id, MISSING);
+        if (oldCents != cents) {
+            if (oldCents != MISSING) {
+                byPrice.remove(SortedLongArray.pack(oldCents, id));
+            }
+            byPrice.insert(SortedLongArray.pack(cents, id));
+            priceCentsById.put(id, cents);
+        }
+
+        int rating = ratingKey(product.getAverageRating());
+        int oldRating = ratingKeyById.get(id, MISSING);
+        if (oldRating != rating) {
+            if (oldRating != MISSING) {
+                byRating.remove(SortedLongArray.pack(oldRating, id));
+            }
+            byRating.insert(SortedLongArray.pack(rating, id));
+            ratingKeyById.put(id, rating);
+        }
+
+        if (product.isOutOfStock()) {
+            if (!outOfStock.contains(id)) {
+                outOfStock.insert(id);
+            }
+        } else {
+            outOfStock.remove(id);
+        }
+    }
+
+    /**
+     * Indexes a batch of new or changed products at once. New products are merged into
+     * each index in a single pass; products already indexed (or repeated in the batch) go
+     * through update(), or trigger one rebuild of every index if there are many.
+     */
+    void updateAll(ArrayList<Product> batch) {
+        long[] priceKeys = new long[batch.size()];
+        long[] ratingKeys = new long[batch.size()];
+        long[] stockKeys = new long[batch.size()];
+        int added = 0;
+        int outOfStockAdded = 0;
+        ArrayList<Product> changed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Product product = batch.get(i);
+            int id = product.getProductId();
+            if (productsById.get(id) != null) {
+                changed.add(product);
+                continue;
+            }
+            productsById.put(id, product);
+            int cents = clamp(priceCents(product.getPrice()));
+            int rating = ratingKey(product.getAverageRating());
+            priceCentsById.put(id, cents);
+            ratingKeyById.put(id, rating);
+            priceKeys[added] = SortedLongArray.pack(cents, id);
+            ratingKeys[added] = SortedLongArray.pack(rating, id);
+            added++;
+            if (product.isOutOfStock()) {
+                stockKeys[outOfStockAdded++] = id;
+            }
+        }
+        if (changed.size() >= REBUILD_THRESHOLD) {
+            for (int i = 0; i < changed.size(); i++) {
+                Product product = changed.get(i);
+                int id = product.getProductId();
+                productsById.put(id, product);
+                priceCentsById.put(id, clamp(priceCents(product.getPrice())));
+                ratingKeyById.put(id, ratingKey(product.getAverageRating()));
+            }
+            // The maps now hold the new products too
+            rebuild();
+            return;
+        }
+        byPrice.insertAll(priceKeys, added);
+        byRating.insertAll(ratingKeys, added);
+        outOfStock.insertAll(stockKeys, outOfStockAdded);
+        for (int i = 0; i < changed.size(); i++) {
+            update(changed.get(i));
+        }
+    }
+
+    /**
+     * Rebuilds every index from the attribute maps: one sort per index.
+     */
+    private void rebuild() {
+        int[] ids = productsById.keys();
+        long[] priceKeys = new long[ids.length];
+        long[] ratingKeys = new long[ids.length];
+        long[] stockKeys = new long[ids.length];
+        int outOfStockCount = 0;
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            priceKeys[i] = SortedLongArray.pack(priceCentsById.get(id, MISSING), id);
+            ratingKeys[i] = SortedLongArray.pack(ratingKeyById.get(id, MISSING), id);
+            if (productsById.get(id).isOutOfStock()) {
+                stockKeys[outOfStockCount++] = id;
+            }
+        }
+        byPrice.clear();
+        byPrice.insertAll(priceKeys, ids.length);
+        byRating.clear();
+        byRating.insertAll(ratingKeys, ids.length);
+        outOfStock.clear();
+        outOfStock.insertAll(stockKeys, outOfStockCount);
+    }
+
+    void remove(int productId) {
+        if (productsById.remove(productId) == null) {
+            return;
+        }
+        byPrice.remove(SortedLongArray.pack(priceCentsById.get(productId, MISSING), productId));
+        byRating.remove(SortedLongArray.pack(ratingKeyById.get(productId, MISSING), productId));
+        priceCentsById.remove(productId);
+        ratingKeyById.remove(productId);
+        outOfStock.remove(productId);
+    }
+
+    /**
+     * Products matching every condition of the filter, ordered by price, then by ID.
+     */
+    ArrayList<Product> filter(ProductFilter filter) {
+        Plan plan = plan(filter);
+        ArrayList<Product> result = new ArrayList<>();
+        for (int i = plan.from; i < plan.to; i++) {
+            long key = plan.source.get(i);
+            int id = plan.source == outOfStock ? (int) key : SortedLongArray.low(key);
+            if (matches(id, plan, filter)) {
+                result.add(productsById.get(id));
+            }
+        }
+        if (plan.source != byPrice) {
+            result.sort((a, b) -> {
+                int byCents = Long.compare(priceCents(a.getPrice()), priceCents(b.getPrice()));
+                return byCents != 0 ? byCents : Integer.compare(a.getProductId(), b.getProductId());
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Describes the index the planner would drive the filter from and its candidate estimates.
+     */
+    String explain(ProductFilter filter) {
+        Plan plan = plan(filter);
+        String driver;
+        if (plan.source == byPrice) {
+            driver = "price index";
+        } else if (plan.source == byRating) {
+            driver = "rating index";
+        } else {
+            driver = "out-of-stock set";
+        }
+        return driver + ", " + (plan.to - plan.from) + " candidates"
+               + " (price=" + plan.priceCandidates
+               + ", rating=" + plan.ratingCandidates
+               + ", stock=" + plan.stockCandidates
+               + ", total=" + productsById.size() + ")";
+    }
+
+    int size() {
+        return productsById.size();
+    }
+
+    /**
+     * Chosen index and its [from, to) range, plus the estimate for every index.
+     * An estimate of -1 means the filter places no condition on that attribute.
+     */
+    private static class Plan {
+        SortedLongArray source;
+        int from;
+        int to;
+        int priceCandidates;
+        int ratingCandidates;
+        int stockCandidates;
+    }
+
+    private Plan plan(ProductFilter filter) {
+        Plan plan = new Plan();
+        int total = productsById.size();
+        int priceFrom = 0;
+        int priceTo = byPrice.size();
+        plan.priceCandidates = -1;
+        if (filter.hasPriceRange()) {
+            long low = minCents(filter.getMinPrice());
+            long high = maxCents(filter.getMaxPrice());
+            if (low > high) {
+                priceTo = 0;
+            } else {
+                priceFrom = byPrice.lowerBound(SortedLongArray.pack(clamp(low), 0));
+                priceTo = byPrice.upperBound(SortedLongArray.pack(clamp(high), -1));
+            }
+            plan.priceCandidates = priceTo - priceFrom;
+        }
+
+        int ratingFrom = 0;
+        int ratingTo = byRating.size();
+        plan.ratingCandidates = -1;
+        if (filter.hasMinRating()) {
+            ratingFrom = byRating.lowerBound(SortedLongArray.pack(minRatingKey(filter.getMinRating()), 0));
+            plan.ratingCandidates = ratingTo - ratingFrom;
+        }
+
+        plan.stockCandidates = -1;
+        if (filter.getStockState() == ProductFilter.StockState.OUT_OF_STOCK) {
+            plan.stockCandidates = outOfStock.size();
+        } else if (filter.getStockState() == ProductFilter.StockState.IN_STOCK) {
+            plan.stockCandidates = total - outOfStock.size();
+        }
+
+        // Default to a price-ordered walk of everything; it needs no sort afterwards
+        plan.source = byPrice;
+        plan.from = priceFrom;
+        plan.to = priceTo;
+        int best = priceTo - priceFrom;
+        if (plan.ratingCandidates >= 0 && plan.ratingCandidates < best) {
+            plan.source = byRating;
+            plan.from = ratingFrom;
+            plan.to = ratingTo;
+            best = plan.ratingCandidates;
+        }
+        // Only the out-of-stock set can be enumerated; in-stock is checked per candidate
+        if (filter.getStockState() == ProductFilter.StockState.OUT_OF_STOCK && plan.stockCandidates < best) {
+            plan.source = outOfStock;
+            plan.from = 0;
+            plan.to = outOfStock.size();
+        }
+        return plan;
+    }
+
+    private boolean matches(int id, Plan plan, ProductFilter filter) {
+        if (plan.source != byPrice && filter.hasPriceRange()) {
+            long cents = priceCentsById.get(id, MISSING);
+            if (cents < minCents(filter.getMinPrice()) || cents > maxCents(filter.getMaxPrice())) {
+                return false;
+            }
+        }
+        if (plan.source != byRating && filter.hasMinRating()) {
+            if (ratingKeyById.get(id, MISSING) < minRatingKey(filter.getMinRating())) {
+                return false;
+            }
+        }
+        if (filter.getStockState() == ProductFilter.StockState.IN_STOCK) {
+            return !outOfStock.contains(id);
+        }
+        if (plan.source != outOfStock && filter.getStockState() == ProductFilter.StockState.OUT_OF_STOCK) {
+            return outOfStock.contains(id);
+        }
+        return true;
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE, value));
+    }
+}
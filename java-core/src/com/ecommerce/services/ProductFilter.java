@@ -0,0 +1,113 @@
+package com.ecommerce.services;
+
+import com.ecommerce.models.Product;
+
+/**
+ * Multi-attribute product query: price range, stock state and minimum average rating
+ * Unset bounds match everything. Products without reviews have an average rating of 0,
+ * so any minimum rating excludes them. Run it with ProductService.filterProducts().
+ */
+public class ProductFilter {
+    public enum StockState {
+        ANY,
+        IN_STOCK,
+        OUT_OF_STOCK
+    }
+
+    private double minPrice;
+    private double maxPrice;
+    private StockState stockState;
+    private double minRating;
+
+    public ProductFilter() {
+        this.minPrice = Double.NEGATIVE_INFINITY;
+        this.maxPrice = Double.POSITIVE_INFINITY;
+        this.stockState = StockState.ANY;
+        this.minRating = 0.0;
+    }
+
+    /**
+     * Inclusive price range.
+     */
+    public ProductFilter priceBetween(double minPrice, double maxPrice) {
+        if (Double.isNaN(minPrice) || Double.isNaN(maxPrice) || minPrice > maxPrice) {
+            throw new IllegalArgumentException("Illegal price range: " + minPrice + " - " + maxPrice);
+        }
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public ProductFilter stock(StockState stockState) {
+        if (stockState == null) {
+            throw new IllegalArgumentException("Stock state must not be null");
+        }
+        this.stockState = stockState;
+        return this;
+    }
+
+    public ProductFilter inStock() {
+        return stock(StockState.IN_STOCK);
+    }
+
+    /**
+     * Inclusive minimum average rating, 0 to 5; 0 means no rating condition.
+     */
+    public ProductFilter minRating(double minRating) {
+        if (!(minRating >= 0.0 && minRating <= 5.0)) {
+            throw new IllegalArgumentException("Rating must be between 0 and 5: " + minRating);
+        }
+        this.minRating = minRating;
+        return this;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public StockState getStockState() {
+        return stockState;
+    }
+
+    public double getMinRating() {
+        return minRating;
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != Double.NEGATIVE_INFINITY || maxPrice != Double.POSITIVE_INFINITY;
+    }
+
+    public boolean hasMinRating() {
+        return minRating > 0.0;
+    }
+
+    /**
+     * Direct check against one product, equivalent to what the indexed query returns.
+     */
+    public boolean matches(Product product) {
+        long cents = ProductAttributeIndex.priceCents(product.getPrice());
+        if (cents < ProductAttributeIndex.minCents(minPrice) || cents > ProductAttributeIndex.maxCents(maxPrice)) {
+            return false;
+        }
+        if (stockState == StockState.IN_STOCK && product.isOutOfStock()) {
+            return false;
+        }
+        if (stockState == StockState.OUT_OF_STOCK && !product.isOutOfStock()) {
+            return false;
+        }
+        return ProductAttributeIndex.ratingKey(product.getAverageRating()) >= ProductAttributeIndex.minRatingKey(minRating);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ProductFilter{");
+        sb.append("price=").append(minPrice).append("..").append(maxPrice);
+        sb.append(", stock=").append(stockState);
+        sb.append(", minRating=").append(minRating);
+        return sb.append('}').toString();
+    }
+}
@@ -2,23 +2,57 @@ package com.ecommerce.services;
 
 import com.ecommerce.datastructures.ArrayList;
 import com.ecommerce.datastructures.BinarySearchTree;
+import com.ecommerce.datastructures.IntHashMap;
+import com.ecommerce.datastructures.OffHeapTextArena;
+import com.ecommerce.datastructures.VersionedList;
 import com.ecommerce.models.Product;
 import com.ecommerce.models.Review;
+import com.ecommerce.models.ReviewSource;
+import com.ecommerce.monitoring.IndexRebuildEvent;
+import com.ecommerce.monitoring.ServiceOperationEvent;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 /**
  * Service for managing products and inventory
  * Time Complexity Analysis:
  * - addProduct(): O(log n) using BST
+ * - addProducts(): O(n + m log m) for a batch of m, rebuilding a balanced BST (no
+ *   degenerate chain when a CSV arrives sorted by ID)
  * - removeProduct(): O(log n) using BST
  * - updateProduct(): O(log n) search + O(1) update
  * - searchById(): O(log n) using BST
  * - searchByName(): O(n) linear search
  * - getOutOfStockProducts(): O(n) iteration
  * - addReviewToProduct(): O(log n) search + O(1) add
+ * - addReviews(): O(n + m) for a batch of m, plus one index update for the touched
+ *   products (a single O(n log n) rebuild when many ratings change)
+ * - attachReviewSource(): O(n log n), one snapshot version and one index rebuild
+ * - cursor variants of searchByName()/getOutOfStockProducts(): walk the ID-ordered BST
+ *   from the page token, O(h + s) where s is the number of products scanned for the page
+ * - getSnapshot(): O(1), lock-free point-in-time view for analytics
+ * - filterProducts(): price/rating/stock indexes, O(log n + k) for k candidates of the
+ *   most selective condition (see ProductAttributeIndex)
+ * Every mutation also publishes a copy of the product to the snapshot list in
+ * O(log32 n); the copy shares the review list until reviews change (see Product.copy()).
+ * An order's stock reservation is published as one version (reserveStockAll()). Each
+ * service has its own snapshot list, so a report reading products, orders and customers
+ * together may see an order in one service before the others.
+ * Version counters (name, rating, per product) let query caches invalidate precisely.
+ * Review comments live in the service's own off-heap comment arena. Comments of edited
+ * reviews and removed products are retired but stay readable for snapshots; once retired
+ * text outweighs live text, the live comments are copied into a fresh arena in
+ * O(live bytes + R) and the old arena is freed as a whole when no snapshot reads it.
  */
 public class ProductService {
     private ArrayList<Product> products;
     private BinarySearchTree<ProductWrapper> productIndex;
+    private VersionedList<Product> snapshots;
+    private AtomicLong nameVersion;
+    private AtomicLong ratingVersion;
+    private ProductAttributeIndex attributeIndex;
+    private OffHeapTextArena comments;
 
     private static class ProductWrapper implements Comparable<ProductWrapper> {
         Product product;
@@ -44,11 +78,45 @@ public class ProductService {
     public ProductService() {
         this.products = new ArrayList<>();
         this.productIndex = new BinarySearchTree<>();
+        this.snapshots = new VersionedList<>();
+        this.nameVersion = new AtomicLong();
+        this.ratingVersion = new AtomicLong();
+        this.attributeIndex = new ProductAttributeIndex();
+        this.comments = new OffHeapTextArena();
     }
 
     public void addProduct(Product product) {
         products.add(product);
         productIndex.insert(new ProductWrapper(product));
+        publish(product);
+        nameVersion.incrementAndGet();
+        ratingVersion.incrementAndGet();
+    }
+
+    /**
+     * Adds a batch of products, e.g. a CSV load. Equivalent to calling addProduct() for
+     * each, but the ID index and attribute indexes are merged once for the whole batch.
+     */
+    public void addProducts(ArrayList<Product> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ArrayList<ProductWrapper> wrappers = new ArrayList<>(batch.size());
+        products.ensureCapacity(products.size() + batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Product product = batch.get(i);
+            products.add(product);
+            wrappers.add(new ProductWrapper(product));
+            snapshots.put(product.getProductId(), product.copy());
+        }
+        IndexRebuildEvent rebuild = IndexRebuildEvent.start("productIdIndex", batch.size());
+        productIndex.mergeSorted(wrappers);
+        rebuild.finish(productIndex.size());
+        rebuild = IndexRebuildEvent.start("productAttributeIndex", batch.size());
+        attributeIndex.updateAll(batch);
+        rebuild.finish(attributeIndex.size());
+        nameVersion.incrementAndGet();
+        ratingVersion.incrementAndGet();
     }
 
     public boolean removeProduct(int productId) {
@@ -56,6 +124,17 @@ public class ProductService {
         if (product != null) {
             products.remove(product);
             productIndex.delete(new ProductWrapper(product));
+            snapshots.remove(productId);
+            attributeIndex.remove(productId);
+            if (product.isReviewsLoaded()) {
+                ArrayList<Review> reviews = product.getReviews();
+                for (int i = 0; i < reviews.size(); i++) {
+                    comments.retire(reviews.get(i).getCommentHandle(comments));
+                }
+            }
+            compactCommentsIfNeeded();
+            nameVersion.incrementAndGet();
+            ratingVersion.incrementAndGet();
             return true;
         }
         return false;
@@ -67,6 +146,8 @@ public class ProductService {
             product.setName(name);
             product.setPrice(price);
             product.setStock(stock);
+            publish(product);
+            nameVersion.incrementAndGet();
             return true;
         }
         return false;
@@ -83,14 +164,42 @@ public class ProductService {
     }
 
     public ArrayList<Product> searchByName(String name) {
+        ServiceOperationEvent event = ServiceOperationEvent.start("searchByName", name);
         ArrayList<Product> results = new ArrayList<>();
-        for (int i = 0; i < products.size(); i++) {
-            Product p = products.get(i);
-            if (p.getName().toLowerCase().contains(name.toLowerCase())) {
-                results.add(p);
+        boolean succeeded = false;
+        try {
+            for (int i = 0; i < products.size(); i++) {
+                Product p = products.get(i);
+                if (p.getName().toLowerCase().contains(name.toLowerCase())) {
+                    results.add(p);
+                }
             }
+            succeeded = true;
+            return results;
+        } finally {
+            event.finish(results.size(), succeeded);
         }
-        return results;
+    }
+
+    /**
+     * Products matching every condition of the filter, ordered by price, then by ID.
+     */
+    public ArrayList<Product> filterProducts(ProductFilter filter) {
+        ServiceOperationEvent event = ServiceOperationEvent.start("filterProducts", filter);
+        ArrayList<Product> matches = null;
+        try {
+            matches = attributeIndex.filter(filter);
+            return matches;
+        } finally {
+            event.finish(matches != null ? matches.size() : 0, matches != null);
+        }
+    }
+
+    /**
+     * Describes which index filterProducts() would use for the filter and why.
+     */
+    public String explainFilter(ProductFilter filter) {
+        return attributeIndex.explain(filter);
     }
 
     public ArrayList<Product> getOutOfStockProducts() {
@@ -104,15 +213,71 @@ public class ProductService {
         return outOfStock;
     }
 
+    /**
+     * Cursor variant of searchByName(): one page of matches in product ID order.
+     * Pass null as pageToken for the first page, then the previous page's token.
+     */
+    public Page<Product> searchByName(String name, int limit, String pageToken, Page.SortOrder sortOrder) {
+        ServiceOperationEvent event = ServiceOperationEvent.start("searchByName", name);
+        Page<Product> page = null;
+        try {
+            String needle = name.toLowerCase();
+            page = pageById(p -> p.getName().toLowerCase().contains(needle), limit, pageToken, sortOrder);
+            return page;
+        } finally {
+            event.finish(page != null ? page.size() : 0, page != null);
+        }
+    }
+
+    /**
+     * Cursor variant of getOutOfStockProducts(): one page in product ID order.
+     */
+    public Page<Product> getOutOfStockProducts(int limit, String pageToken, Page.SortOrder sortOrder) {
+        return pageById(Product::isOutOfStock, limit, pageToken, sortOrder);
+    }
+
     public boolean addReviewToProduct(int productId, Review review) {
         Product product = searchById(productId);
         if (product != null) {
+            review.moveCommentTo(comments);
             product.addReview(review);
+            publish(product);
+            ratingVersion.incrementAndGet();
             return true;
         }
         return false;
     }
 
+    /**
+     * Adds a batch of reviews, e.g. a CSV load. Equivalent to calling addReviewToProduct()
+     * for each, but every touched product is published and re-indexed once for the whole
+     * batch. Reviews of unknown products are skipped; returns the number added.
+     */
+    public int addReviews(ArrayList<Review> batch) {
+        IntHashMap<Product> byId = new IntHashMap<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            byId.put(products.get(i).getProductId(), products.get(i));
+        }
+        IntHashMap<Product> touched = new IntHashMap<>();
+        int added = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Review review = batch.get(i);
+            Product product = byId.get(review.getProductId());
+            if (product == null) {
+                continue;
+            }
+            review.moveCommentTo(comments);
+            product.addReview(review);
+            touched.put(product.getProductId(), product);
+            added++;
+        }
+        if (added > 0) {
+            publishAll(touched.values());
+            ratingVersion.incrementAndGet();
+        }
+        return added;
+    }
+
     public boolean editReview(int productId, int reviewId, int newRating, String newComment) {
         Product product = searchById(productId);
         if (product != null) {
@@ -120,8 +285,16 @@ public class ProductService {
             for (int i = 0; i < reviews.size(); i++) {
                 Review review = reviews.get(i);
                 if (review.getReviewId() == reviewId) {
-                    review.setRating(newRating);
-                    review.setComment(newComment);
+                    // Replace rather than mutate, so snapshots sharing the old Review keep it intact
+                    Review edited = review.copy();
+                    edited.setRating(newRating);
+                    edited.setComment(newComment);
+                    edited.moveCommentTo(comments);
+                    product.setReview(i, edited);
+                    comments.retire(review.getCommentHandle(comments));
+                    publish(product);
+                    compactCommentsIfNeeded();
+                    ratingVersion.incrementAndGet();
                     return true;
                 }
             }
@@ -129,6 +302,191 @@ public class ProductService {
         return false;
     }
 
+    /**
+     * Takes quantity units of stock if available and publishes the new level.
+     */
+    public boolean reserveStock(int productId, int quantity) {
+        Product product = searchById(productId);
+        if (product != null && product.decreaseStock(quantity)) {
+            publish(product);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes one unit of every listed product (a product listed twice gives two), or none
+     * if any is missing or short. The new levels are published as one snapshot version,
+     * so a catalog snapshot never shows only part of an order's reservation.
+     */
+    public boolean reserveStockAll(ArrayList<Integer> productIds) {
+        ArrayList<Product> taken = new ArrayList<>(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            Product product = searchById(productIds.get(i));
+            if (product == null || !product.decreaseStock(1)) {
+                for (int j = 0; j < taken.size(); j++) {
+                    taken.get(j).increaseStock(1);
+                }
+                return false;
+            }
+            taken.add(product);
+        }
+        publishAll(taken);
+        return true;
+    }
+
+    public boolean releaseStock(int productId, int quantity) {
+        Product product = searchById(productId);
+        if (product != null) {
+            product.increaseStock(quantity);
+            publish(product);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consistent point-in-time view of the catalog. Reading it takes no lock and
+     * never blocks writers; rows are read-only copies.
+     */
+    public VersionedList.Snapshot<Product> getSnapshot() {
+        return snapshots.snapshot();
+    }
+
+    /**
+     * Changes whenever a product is added, removed or renamed.
+     */
+    public long getNameVersion() {
+        return nameVersion.get();
+    }
+
+    /**
+     * Changes whenever the set of products or any review changes.
+     */
+    public long getRatingVersion() {
+        return ratingVersion.get();
+    }
+
+    /**
+     * Changes whenever anything about the given product changes, including stock.
+     */
+    public long getProductVersion(int productId) {
+        return snapshots.rowVersion(productId);
+    }
+
+    /**
+     * Arena holding the comments of this service's reviews, for memory statistics.
+     */
+    public OffHeapTextArena getCommentArena() {
+        return comments;
+    }
+
+    /**
+     * Once retired text dominates the comment arena, replaces every review still held
+     * there by a copy whose comment lives in a fresh arena. Snapshots keep the old
+     * reviews, and with them the old arena, until they are dropped.
+     */
+    private void compactCommentsIfNeeded() {
+        if (!comments.needsCompaction()) {
+            return;
+        }
+        OffHeapTextArena fresh = new OffHeapTextArena();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (!product.isReviewsLoaded()) {
+                continue;
+            }
+            ArrayList<Review> reviews = product.getReviews();
+            boolean moved = false;
+            for (int j = 0; j < reviews.size(); j++) {
+                Review review = reviews.get(j);
+                if (review.getCommentHandle(comments) != -1) {
+                    Review copy = review.copy();
+                    copy.moveCommentTo(fresh);
+                    product.setReview(j, copy);
+                    moved = true;
+                }
+            }
+            if (moved) {
+                publish(product);
+            }
+        }
+        comments = fresh;
+    }
+
+    /**
+     * Switches every product to lazy review loading from source. Products keep only
+     * their rating summary until their reviews are first read.
+     */
+    public void attachReviewSource(ReviewSource source) {
+        for (int i = 0; i < products.size(); i++) {
+            products.get(i).attachReviewSource(source);
+        }
+        // Every rating may have changed: one snapshot version and one index rebuild
+        publishAll(products);
+        ratingVersion.incrementAndGet();
+    }
+
+    /**
+     * Walks the ID index from just past the token's product ID and stops as soon as
+     * one match beyond the page is seen, so only the scanned prefix is touched.
+     */
+    private Page<Product> pageById(Predicate<Product> filter, int limit, String pageToken, Page.SortOrder sortOrder) {
+        Page.checkLimit(limit);
+        boolean descending = sortOrder == Page.SortOrder.DESCENDING;
+        Iterator<ProductWrapper> it;
+        if (pageToken == null) {
+            it = descending ? productIndex.descendingIterator() : productIndex.iterator();
+        } else {
+            long lastId = Page.decodeToken(pageToken);
+            if (lastId < Integer.MIN_VALUE || lastId > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid page token: " + pageToken);
+            }
+            ProductWrapper from = new ProductWrapper(new Product((int) lastId, "", 0.0, 0));
+            it = descending ? productIndex.descendingIteratorFrom(from, false) : productIndex.iteratorFrom(from, false);
+        }
+
+        ArrayList<Product> items = new ArrayList<>(Math.min(limit, 16));
+        while (it.hasNext()) {
+            Product product = it.next().product;
+            if (!filter.test(product)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new Page<>(items, Page.encodeToken(items.get(limit - 1).getProductId()));
+            }
+            items.add(product);
+        }
+        return new Page<>(items, null);
+    }
+
+    private void publish(Product product) {
+        snapshots.put(product.getProductId(), product.copy());
+        attributeIndex.update(product);
+    }
+
+    /**
+     * publish() for several products at once, as one snapshot version.
+     */
+    private void publishAll(ArrayList<Product> changed) {
+        int[] ids = new int[changed.size()];
+        ArrayList<Product> copies = new ArrayList<>(changed.size());
+        for (int i = 0; i < changed.size(); i++) {
+            Product product = changed.get(i);
+            ids[i] = product.getProductId();
+            copies.add(product.copy());
+        }
+        snapshots.putAll(ids, copies);
+        attributeIndex.updateAll(changed);
+    }
+
+    /**
+     * Pre-sizes the product list before a bulk load.
+     */
+    public void ensureCapacity(int expectedProducts) {
+        products.ensureCapacity(expectedProducts);
+    }
+
     public ArrayList<Product> getAllProducts() {
         return products;
     }
@@ -0,0 +1,164 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.LRUCache;
+import com.ecommerce.models.Order;
+import com.ecommerce.models.Product;
+import java.time.LocalDate;
+
+/**
+ * Caching layer in front of the hot read queries
+ * Results live in one weight-bounded LRU cache sized in estimated bytes. Each entry
+ * records the version it was computed from, and a lookup compares it with the version
+ * that query depends on:
+ * - searchByName(): ProductService name version (add/remove/update of products)
+ * - getOrdersBetweenDates(): OrderService order-set version (new orders and status changes)
+ * - getTop3ProductsByRating(): ProductService rating version (products and reviews)
+ * - generateProductReport(): that product's own version (any change to it, including stock)
+ * so unrelated writes, such as stock changes for name searches, keep entries valid.
+ * Returned lists are shared with the cache and must not be modified.
+ * Time Complexity Analysis:
+ * - cache hit: O(1) average
+ * - cache miss: cost of the underlying query + O(1) insert
+ */
+public class QueryCacheService {
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    // Rough JVM sizes used to weigh entries
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+    private static final long REFERENCE_BYTES = 8;
+    private static final long CHAR_BYTES = 2;
+
+    private final ProductService productService;
+    private final OrderService orderService;
+    private final AnalyticsService analyticsService;
+    private final LRUCache<QueryKey, Object> cache;
+
+    private enum QueryType {
+        SEARCH_BY_NAME,
+        ORDERS_BETWEEN_DATES,
+        TOP3_BY_RATING,
+        PRODUCT_REPORT
+    }
+
+    private static final class QueryKey {
+        private final QueryType type;
+        private final Object first;
+        private final Object second;
+
+        QueryKey(QueryType type, Object first, Object second) {
+            this.type = type;
+            this.first = first;
+            this.second = second;
+        }
+
+        long estimateBytes() {
+            long bytes = 32;
+            if (first instanceof String) {
+                bytes += 40 + ((String) first).length() * CHAR_BYTES;
+            } else if (first != null) {
+                bytes += 24;
+            }
+            if (second != null) {
+                bytes += 24;
+            }
+            return bytes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            QueryKey that = (QueryKey) o;
+            return type == that.type && equalOrBothNull(first, that.first) && equalOrBothNull(second, that.second);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type.hashCode();
+            result = 31 * result + (first == null ? 0 : first.hashCode());
+            result = 31 * result + (second == null ? 0 : second.hashCode());
+            return result;
+        }
+
+        private static boolean equalOrBothNull(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    public QueryCacheService(ProductService productService, OrderService orderService,
+                             AnalyticsService analyticsService) {
+        this(productService, orderService, analyticsService, DEFAULT_MAX_BYTES);
+    }
+
+    public QueryCacheService(ProductService productService, OrderService orderService,
+                             AnalyticsService analyticsService, long maxBytes) {
+        this.productService = productService;
+        this.orderService = orderService;
+        this.analyticsService = analyticsService;
+        this.cache = new LRUCache<>(maxBytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayList<Product> searchByName(String name) {
+        QueryKey key = new QueryKey(QueryType.SEARCH_BY_NAME, name.toLowerCase(), null);
+        long version = productService.getNameVersion();
+        ArrayList<Product> cached = (ArrayList<Product>) cache.get(key, version);
+        if (cached != null) {
+            return cached;
+        }
+        ArrayList<Product> result = productService.searchByName(name);
+        cache.put(key, result, version, key.estimateBytes() + listBytes(result));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayList<Order> getOrdersBetweenDates(LocalDate startDate, LocalDate endDate) {
+        QueryKey key = new QueryKey(QueryType.ORDERS_BETWEEN_DATES, startDate, endDate);
+        long version = orderService.getOrderSetVersion();
+        ArrayList<Order> cached = (ArrayList<Order>) cache.get(key, version);
+        if (cached != null) {
+            return cached;
+        }
+        ArrayList<Order> result = orderService.getOrdersBetweenDates(startDate, endDate);
+        cache.put(key, result, version, key.estimateBytes() + listBytes(result));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayList<Product> getTop3ProductsByRating() {
+        QueryKey key = new QueryKey(QueryType.TOP3_BY_RATING, null, null);
+        long version = productService.getRatingVersion();
+        ArrayList<Product> cached = (ArrayList<Product>) cache.get(key, version);
+        if (cached != null) {
+            return cached;
+        }
+        ArrayList<Product> result = analyticsService.getTop3ProductsByRating();
+        cache.put(key, result, version, key.estimateBytes() + listBytes(result));
+        return result;
+    }
+
+    public String generateProductReport(Product product) {
+        QueryKey key = new QueryKey(QueryType.PRODUCT_REPORT, product.getProductId(), null);
+        long version = productService.getProductVersion(product.getProductId());
+        String cached = (String) cache.get(key, version);
+        if (cached != null) {
+            return cached;
+        }
+        String report = analyticsService.generateProductReport(product);
+        cache.put(key, report, version, key.estimateBytes() + 40 + report.length() * CHAR_BYTES);
+        return report;
+    }
+
+    public LRUCache.Stats getStats() {
+        return cache.getStats();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static long listBytes(ArrayList<?> list) {
+        return ENTRY_OVERHEAD_BYTES + list.size() * REFERENCE_BYTES;
+    }
+}
@@ -0,0 +1,285 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.FenwickTree;
+import com.ecommerce.datastructures.IntHashMap;
+import com.ecommerce.models.Order;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated revenue and order-count rollup over order dates
+ * Every slice (all orders, each status, each customer) keeps day, week and month series.
+ * A series stores its occupied bucket keys in sorted order next to Fenwick trees of
+ * revenue (in cents) and order counts, so any date range is two binary searches plus
+ * two prefix sums. Revenue for "all orders" and per customer excludes canceled orders;
+ * the per-status slices account every order under its current status.
+ * Time Complexity Analysis:
+ * - recordOrder()/changeStatus(): O(log b) per series when the bucket exists or is the newest,
+ *   O(b) when a bucket is inserted in the middle (b = occupied buckets in that series)
+ * - getRevenue()/getOrderCount() and slice variants: O(log b)
+ * - getBuckets(): O(log b + k) where k is number of buckets returned
+ * Space Complexity: O(b) per series
+ */
+public class RevenueRollup {
+    public enum Granularity {
+        DAY,
+        WEEK,
+        MONTH
+    }
+
+    /**
+     * One aggregated bucket returned by getBuckets().
+     */
+    public static class Bucket {
+        private final LocalDate start;
+        private final long revenueCents;
+        private final long orderCount;
+
+        Bucket(LocalDate start, long revenueCents, long orderCount) {
+            this.start = start;
+            this.revenueCents = revenueCents;
+            this.orderCount = orderCount;
+        }
+
+        public LocalDate getStart() {
+            return start;
+        }
+
+        public double getRevenue() {
+            return revenueCents / 100.0;
+        }
+
+        public long getRevenueCents() {
+            return revenueCents;
+        }
+
+        public long getOrderCount() {
+            return orderCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Bucket{" +
+                    "start=" + start +
+                    ", revenue=" + String.format("%.2f", getRevenue()) +
+                    ", orderCount=" + orderCount +
+                    '}';
+        }
+    }
+
+    /**
+     * Sparse series: sorted bucket keys with parallel Fenwick trees.
+     */
+    private static class Series {
+        private int[] keys = new int[8];
+        private final FenwickTree revenue = new FenwickTree();
+        private final FenwickTree counts = new FenwickTree();
+
+        void add(int key, long revenueCents, long count) {
+            int n = revenue.size();
+            int pos = lowerBound(key);
+            if (pos < n && keys[pos] == key) {
+                revenue.add(pos, revenueCents);
+                counts.add(pos, count);
+                return;
+            }
+            if (n == keys.length) {
+                int[] grown = new int[keys.length * 2];
+                System.arraycopy(keys, 0, grown, 0, n);
+                keys = grown;
+            }
+            System.arraycopy(keys, pos, keys, pos + 1, n - pos);
+            keys[pos] = key;
+            revenue.insert(pos, revenueCents);
+            counts.insert(pos, count);
+        }
+
+        /**
+         * First position whose key is >= key.
+         */
+        int lowerBound(int key) {
+            int lo = 0;
+            int hi = revenue.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        long revenueBetween(int fromKey, int toKey) {
+            return revenue.rangeSum(lowerBound(fromKey), lowerBound(toKey + 1));
+        }
+
+        long countBetween(int fromKey, int toKey) {
+            return counts.rangeSum(lowerBound(fromKey), lowerBound(toKey + 1));
+        }
+    }
+
+    /**
+     * The day, week and month series for one slice of the cube.
+     */
+    private static class Slice {
+        private final Series[] levels = new Series[Granularity.values().length];
+
+        Slice() {
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new Series();
+            }
+        }
+
+        void add(LocalDate date, long revenueCents, long count) {
+            for (Granularity granularity : Granularity.values()) {
+                levels[granularity.ordinal()].add(bucketKey(granularity, date), revenueCents, count);
+            }
+        }
+
+        Series level(Granularity granularity) {
+            return levels[granularity.ordinal()];
+        }
+    }
+
+    private final Slice all;
+    private final Slice[] byStatus;
+    private final IntHashMap<Slice> byCustomer;
+
+    public RevenueRollup() {
+        this.all = new Slice();
+        this.byStatus = new Slice[Order.OrderStatus.values().length];
+        for (int i = 0; i < byStatus.length; i++) {
+            byStatus[i] = new Slice();
+        }
+        this.byCustomer = new IntHashMap<>();
+    }
+
+    public void recordOrder(Order order) {
+        long cents = toCents(order.getTotalPrice());
+        LocalDate date = order.getOrderDate();
+        byStatus[order.getStatus().ordinal()].add(date, cents, 1);
+        if (order.getStatus() != Order.OrderStatus.CANCELED) {
+            all.add(date, cents, 1);
+            customerSlice(order.getCustomerId()).add(date, cents, 1);
+        }
+    }
+
+    /**
+     * Moves an order between status slices; leaving or entering CANCELED also
+     * removes it from or restores it to the revenue totals.
+     */
+    public void changeStatus(Order order, Order.OrderStatus oldStatus, Order.OrderStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        long cents = toCents(order.getTotalPrice());
+        LocalDate date = order.getOrderDate();
+        byStatus[oldStatus.ordinal()].add(date, -cents, -1);
+        byStatus[newStatus.ordinal()].add(date, cents, 1);
+
+        if (newStatus == Order.OrderStatus.CANCELED) {
+            all.add(date, -cents, -1);
+            customerSlice(order.getCustomerId()).add(date, -cents, -1);
+        } else if (oldStatus == Order.OrderStatus.CANCELED) {
+            all.add(date, cents, 1);
+            customerSlice(order.getCustomerId()).add(date, cents, 1);
+        }
+    }
+
+    public double getRevenue(LocalDate startDate, LocalDate endDate) {
+        return revenueBetween(all, startDate, endDate) / 100.0;
+    }
+
+    public long getOrderCount(LocalDate startDate, LocalDate endDate) {
+        return countBetween(all, startDate, endDate);
+    }
+
+    public double getRevenueByStatus(Order.OrderStatus status, LocalDate startDate, LocalDate endDate) {
+        return revenueBetween(byStatus[status.ordinal()], startDate, endDate) / 100.0;
+    }
+
+    public long getOrderCountByStatus(Order.OrderStatus status, LocalDate startDate, LocalDate endDate) {
+        return countBetween(byStatus[status.ordinal()], startDate, endDate);
+    }
+
+    public double getCustomerRevenue(int customerId, LocalDate startDate, LocalDate endDate) {
+        Slice slice = byCustomer.get(customerId);
+        return slice == null ? 0.0 : revenueBetween(slice, startDate, endDate) / 100.0;
+    }
+
+    public long getCustomerOrderCount(int customerId, LocalDate startDate, LocalDate endDate) {
+        Slice slice = byCustomer.get(customerId);
+        return slice == null ? 0 : countBetween(slice, startDate, endDate);
+    }
+
+    /**
+     * Non-empty buckets of the given granularity overlapping [startDate, endDate], oldest first.
+     * Pass a status to slice by status, or null for all non-canceled orders.
+     */
+    public ArrayList<Bucket> getBuckets(Granularity granularity, Order.OrderStatus status,
+                                        LocalDate startDate, LocalDate endDate) {
+        Slice slice = status == null ? all : byStatus[status.ordinal()];
+        Series series = slice.level(granularity);
+        int from = series.lowerBound(bucketKey(granularity, startDate));
+        int to = series.lowerBound(bucketKey(granularity, endDate) + 1);
+
+        ArrayList<Bucket> buckets = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            long count = series.counts.get(i);
+            if (count != 0) {
+                buckets.add(new Bucket(bucketStart(granularity, series.keys[i]),
+                                       series.revenue.get(i), count));
+            }
+        }
+        return buckets;
+    }
+
+    private Slice customerSlice(int customerId) {
+        Slice slice = byCustomer.get(customerId);
+        if (slice == null) {
+            slice = new Slice();
+            byCustomer.put(customerId, slice);
+        }
+        return slice;
+    }
+
+    private static long revenueBetween(Slice slice, LocalDate startDate, LocalDate endDate) {
+        return slice.level(Granularity.DAY).revenueBetween((int) startDate.toEpochDay(), (int) endDate.toEpochDay());
+    }
+
+    private static long countBetween(Slice slice, LocalDate startDate, LocalDate endDate) {
+        return slice.level(Granularity.DAY).countBetween((int) startDate.toEpochDay(), (int) endDate.toEpochDay());
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100.0);
+    }
+
+    /**
+     * Day: epoch day. Week: Monday-based weeks since the epoch. Month: year * 12 + month index.
+     */
+    private static int bucketKey(Granularity granularity, LocalDate date) {
+        switch (granularity) {
+            case WEEK:
+                // 1970-01-01 was a Thursday, so shift by 3 days to start weeks on Monday
+                return (int) Math.floorDiv(date.toEpochDay() + 3, 7);
+            case MONTH:
+                return date.getYear() * 12 + date.getMonthValue() - 1;
+            default:
+                return (int) date.toEpochDay();
+        }
+    }
+
+    private static LocalDate bucketStart(Granularity granularity, int key) {
+        switch (granularity) {
+            case WEEK:
+                return LocalDate.ofEpochDay((long) key * 7 - 3);
+            case MONTH:
+                return LocalDate.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1, 1);
+            default:
+                return LocalDate.ofEpochDay(key);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.SlidingWindowCounter;
+import com.ecommerce.models.Order;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.function.LongSupplier;
+
+/**
+ * Real-time sales metrics over the last minute, hour and day
+ * Order writes are counted at the wall-clock time they happen into three lock-free
+ * ring buffers (60 x 1 s, 60 x 1 min, 96 x 15 min), each slot holding order count,
+ * revenue, cancel count and canceled revenue. Any thread may record or read at any
+ * time without locking the order service.
+ * Orders dated before today are treated as backfill (e.g. a CSV load) and not counted,
+ * since they did not happen in the window. Cancels are counted when an order enters
+ * CANCELED, whatever its date; moving an order back out of CANCELED is not subtracted.
+ * Windows have slot granularity: a reading covers between (slots - 1) and slots slot
+ * widths of history.
+ * Time Complexity:
+ * - recordOrder()/recordCancel(): O(1) per window, lock-free
+ * - getStats(): O(slots), independent of the number of orders
+ * Space Complexity: O(1), 216 slots in total
+ */
+public class SalesMetrics {
+    public enum Window {
+        MINUTE(60, 1_000L),
+        HOUR(60, 60_000L),
+        DAY(96, 15 * 60_000L);
+
+        private final int slots;
+        private final long slotMillis;
+
+        Window(int slots, long slotMillis) {
+            this.slots = slots;
+            this.slotMillis = slotMillis;
+        }
+
+        public long getMillis() {
+            return slots * slotMillis;
+        }
+    }
+
+    private static final int ORDERS = 0;
+    private static final int REVENUE_CENTS = 1;
+    private static final int CANCELS = 2;
+    private static final int CANCELED_CENTS = 3;
+    private static final int FIELDS = 4;
+
+    /**
+     * Totals for one window at the time of the query.
+     */
+    public static class Stats {
+        private final Window window;
+        private final long orders;
+        private final long revenueCents;
+        private final long cancels;
+        private final long canceledCents;
+
+        Stats(Window window, long[] sums) {
+            this.window = window;
+            this.orders = sums[ORDERS];
+            this.revenueCents = sums[REVENUE_CENTS];
+            this.cancels = sums[CANCELS];
+            this.canceledCents = sums[CANCELED_CENTS];
+        }
+
+        public Window getWindow() {
+            return window;
+        }
+
+        public long getOrders() {
+            return orders;
+        }
+
+        /**
+         * Value of orders placed in the window.
+         */
+        public double getRevenue() {
+            return revenueCents / 100.0;
+        }
+
+        /**
+         * Placed minus canceled order value in the window.
+         */
+        public double getNetRevenue() {
+            return (revenueCents - canceledCents) / 100.0;
+        }
+
+        public long getCancels() {
+            return cancels;
+        }
+
+        public double getOrdersPerMinute() {
+            return orders * 60_000.0 / window.getMillis();
+        }
+
+        /**
+         * Cancels per order placed in the window, 0 when no orders were placed.
+         */
+        public double getCancelRate() {
+            return orders == 0 ? 0.0 : (double) cancels / orders;
+        }
+
+        @Override
+        public String toString() {
+            return window + "{orders=" + orders +
+                    ", revenue=" + String.format("%.2f", getRevenue()) +
+                    ", cancels=" + cancels +
+                    ", ordersPerMinute=" + String.format("%.2f", getOrdersPerMinute()) +
+                    ", cancelRate=" + String.format("%.3f", getCancelRate()) +
+                    '}';
+        }
+    }
+
+    private final SlidingWindowCounter[] windows;
+    private final LongSupplier clock;
+    private final ZoneId zone;
+
+    public SalesMetrics() {
+        this(System::currentTimeMillis, ZoneId.systemDefault());
+    }
+
+    /**
+     * clock supplies epoch milliseconds; zone decides which order dates count as today.
+     */
+    public SalesMetrics(LongSupplier clock, ZoneId zone) {
+        Window[] values = Window.values();
+        this.windows = new SlidingWindowCounter[values.length];
+        for (int i = 0; i < values.length; i++) {
+            windows[i] = new SlidingWindowCounter(values[i].slots, values[i].slotMillis, FIELDS);
+        }
+        this.clock = clock;
+        this.zone = zone;
+    }
+
+    public void recordOrder(Order order) {
+        long now = clock.getAsLong();
+        if (isBackfill(order, now) || order.getStatus() == Order.OrderStatus.CANCELED) {
+            return;
+        }
+        long[] deltas = new long[FIELDS];
+        deltas[ORDERS] = 1;
+        deltas[REVENUE_CENTS] = Math.round(order.getTotalPrice() * 100.0);
+        for (int i = 0; i < windows.length; i++) {
+            windows[i].add(now, deltas);
+        }
+    }
+
+    public void recordCancel(Order order) {
+        long now = clock.getAsLong();
+        long[] deltas = new long[FIELDS];
+        deltas[CANCELS] = 1;
+        deltas[CANCELED_CENTS] = Math.round(order.getTotalPrice() * 100.0);
+        for (int i = 0; i < windows.length; i++) {
+            windows[i].add(now, deltas);
+        }
+    }
+
+    public Stats getStats(Window window) {
+        long[] sums = new long[FIELDS];
+        windows[window.ordinal()].sum(clock.getAsLong(), sums);
+        return new Stats(window, sums);
+    }
+
+    private boolean isBackfill(Order order, long now) {
+        LocalDate today = LocalDate.ofInstant(Instant.ofEpochMilli(now), zone);
+        return order.getOrderDate().isBefore(today);
+    }
+}
@@ -0,0 +1,507 @@
+package com.ecommerce.services;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.BoundedBlockingQueue;
+import com.ecommerce.models.Customer;
+import com.ecommerce.models.Order;
+import com.ecommerce.models.Product;
+import com.ecommerce.monitoring.ServiceOperationEvent;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shard-per-core partitioned engine
+ * Products, customers and orders are hash-partitioned by ID across N shards. Each shard
+ * owns its own services and is driven by one platform thread that executes commands from
+ * its bounded inbox, so shard state is never shared and needs no locks. Single-entity
+ * operations are one command on the owning shard.
+ * placeOrder() spans shards and is run by a coordinator on a virtual thread:
+ * 1. check the customer on its shard
+ * 2. reserve: each product shard atomically reserves its share of the products (all or
+ *    nothing within the shard) and returns their prices; shards run this in parallel
+ * 3. if any shard refused, release the reservations that succeeded (compensation) and
+ *    complete with null, like placeOrder(); otherwise assign the order ID
+ * 4. commit: create the order on its shard and link it on the customer shard, in parallel
+ * Coordinators only wait on shard futures and never run on shard threads, so a full inbox
+ * cannot deadlock two shards. Stock can never go negative; an order that loses a race
+ * for the last unit is rejected, exactly as the single-instance service would reject it.
+ * Time Complexity Analysis:
+ * - shardOf(): O(1)
+ * - single-entity commands: O(1) hand-off + the shard service's cost on 1/N of the data
+ * - placeOrder(): O(p) messages to at most min(p, N) + 2 shards, where p = products in order
+ * - scatter-gather queries: N commands run in parallel, then an O(k) merge
+ */
+public class ShardedEngine implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final long POLL_TIMEOUT_MS = 50;
+
+    private final Shard[] shards;
+    private final int batchSize;
+    private final AtomicInteger nextOrderId;
+    private final ExecutorService coordinators;
+    private volatile boolean running;
+
+    /**
+     * Work executed on a shard's own thread against that shard's services.
+     */
+    public interface ShardTask<T> {
+        T run(Shard shard);
+    }
+
+    /**
+     * One partition: its services are touched only by its own thread.
+     */
+    public static class Shard {
+        private final int index;
+        private final ProductService productService;
+        private final OrderService orderService;
+        private final CustomerService customerService;
+        private final BoundedBlockingQueue<Command<?>> inbox;
+        private Thread thread;
+
+        Shard(int index, int queueCapacity) {
+            this.index = index;
+            this.productService = new ProductService();
+            this.orderService = new OrderService();
+            this.customerService = new CustomerService(productService, orderService);
+            this.inbox = new BoundedBlockingQueue<>(queueCapacity);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public ProductService getProductService() {
+            return productService;
+        }
+
+        public OrderService getOrderService() {
+            return orderService;
+        }
+
+        public CustomerService getCustomerService() {
+            return customerService;
+        }
+    }
+
+    private static class Command<T> {
+        final ShardTask<T> task;
+        final CompletableFuture<T> future;
+
+        Command(ShardTask<T> task) {
+            this.task = task;
+            this.future = new CompletableFuture<>();
+        }
+
+        void execute(Shard shard) {
+            try {
+                future.complete(task.run(shard));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    public ShardedEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public ShardedEngine(int shardCount) {
+        this(shardCount, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public ShardedEngine(int shardCount, int queueCapacity, int batchSize) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Illegal shard count: " + shardCount);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        }
+        this.shards = new Shard[shardCount];
+        this.batchSize = batchSize;
+        this.nextOrderId = new AtomicInteger(1);
+        this.coordinators = Executors.newVirtualThreadPerTaskExecutor();
+        this.running = true;
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = new Shard(i, queueCapacity);
+            shard.thread = Thread.ofPlatform().name("shard-" + i).unstarted(() -> runShard(shard));
+            shards[i] = shard;
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Copies the contents of single-instance services into the shards, and sets the
+     * next order ID after the highest one seen. Call before serving traffic.
+     */
+    public void partition(ProductService productService, CustomerService customerService,
+                          OrderService orderService) {
+        ArrayList<CompletableFuture<Void>> pending = new ArrayList<>();
+        ArrayList<Product> products = productService.getAllProducts();
+        for (int i = 0; i < products.size(); i++) {
+            pending.add(addProduct(products.get(i).copy()));
+        }
+        ArrayList<Customer> customers = customerService.getAllCustomers();
+        for (int i = 0; i < customers.size(); i++) {
+            pending.add(registerCustomer(customers.get(i).copy()));
+        }
+        ArrayList<Order> orders = orderService.getAllOrders();
+        int maxOrderId = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i).copy();
+            maxOrderId = Math.max(maxOrderId, order.getOrderId());
+            pending.add(createOrder(order));
+        }
+        nextOrderId.accumulateAndGet(maxOrderId + 1, Math::max);
+        for (int i = 0; i < pending.size(); i++) {
+            pending.get(i).join();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Owning shard of an ID; the hash is mixed so sequential IDs spread evenly.
+     */
+    public int shardOf(int id) {
+        int h = id * 0x9E3779B9;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shards.length);
+    }
+
+    /**
+     * Runs task on the given shard's thread. Completes exceptionally if the engine is closed.
+     */
+    public <T> CompletableFuture<T> submit(int shardIndex, ShardTask<T> task) {
+        Command<T> command = new Command<>(task);
+        if (!running) {
+            command.future.completeExceptionally(new IllegalStateException("Engine is shut down"));
+            return command.future;
+        }
+        try {
+            shards[shardIndex].inbox.put(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            command.future.completeExceptionally(e);
+        }
+        return command.future;
+    }
+
+    public CompletableFuture<Void> addProduct(Product product) {
+        return submit(shardOf(product.getProductId()), shard -> {
+            shard.productService.addProduct(product);
+            return null;
+        });
+    }
+
+    /**
+     * Returns a copy of the product, or null if it does not exist.
+     */
+    public CompletableFuture<Product> searchProductById(int productId) {
+        return submit(shardOf(productId), shard -> {
+            Product product = shard.productService.searchById(productId);
+            return product == null ? null : product.copy();
+        });
+    }
+
+    public CompletableFuture<Void> registerCustomer(Customer customer) {
+        return submit(shardOf(customer.getCustomerId()), shard -> {
+            shard.customerService.registerCustomer(customer);
+            return null;
+        });
+    }
+
+    /**
+     * Returns a copy of the customer, or null if it does not exist.
+     */
+    public CompletableFuture<Customer> searchCustomerById(int customerId) {
+        return submit(shardOf(customerId), shard -> {
+            Customer customer = shard.customerService.searchCustomerById(customerId);
+            return customer == null ? null : customer.copy();
+        });
+    }
+
+    public CompletableFuture<Void> createOrder(Order order) {
+        return submit(shardOf(order.getOrderId()), shard -> {
+            shard.orderService.createOrder(order);
+            return null;
+        });
+    }
+
+    /**
+     * Returns a copy of the order, or null if it does not exist.
+     */
+    public CompletableFuture<Order> searchOrderById(int orderId) {
+        return submit(shardOf(orderId), shard -> {
+            Order order = shard.orderService.searchOrderById(orderId);
+            return order == null ? null : order.copy();
+        });
+    }
+
+    public CompletableFuture<Boolean> updateOrderStatus(int orderId, Order.OrderStatus newStatus) {
+        return submit(shardOf(orderId), shard -> shard.orderService.updateOrderStatus(orderId, newStatus));
+    }
+
+    public CompletableFuture<Boolean> cancelOrder(int orderId) {
+        return submit(shardOf(orderId), shard -> shard.orderService.cancelOrder(orderId));
+    }
+
+    /**
+     * Scatter-gather name search; results are copies ordered by shard, then by product ID.
+     */
+    public CompletableFuture<ArrayList<Product>> searchProductsByName(String name) {
+        return gather(shard -> {
+            ArrayList<Product> matches = shard.productService.searchByName(name);
+            ArrayList<Product> copies = new ArrayList<>(matches.size());
+            for (int i = 0; i < matches.size(); i++) {
+                copies.add(matches.get(i).copy());
+            }
+            return copies;
+        });
+    }
+
+    public CompletableFuture<ArrayList<Product>> getOutOfStockProducts() {
+        return gather(shard -> {
+            ArrayList<Product> matches = shard.productService.getOutOfStockProducts();
+            ArrayList<Product> copies = new ArrayList<>(matches.size());
+            for (int i = 0; i < matches.size(); i++) {
+                copies.add(matches.get(i).copy());
+            }
+            return copies;
+        });
+    }
+
+    /**
+     * Counts read from each shard thread in turn; not a global snapshot under concurrent writes.
+     */
+    public int getProductCount() {
+        return sum(shard -> shard.productService.getProductCount());
+    }
+
+    public int getCustomerCount() {
+        return sum(shard -> shard.customerService.getCustomerCount());
+    }
+
+    public int getOrderCount() {
+        return sum(shard -> shard.orderService.getOrderCount());
+    }
+
+    /**
+     * Places an order across shards with reserve / compensate / commit (see class comment).
+     * Completes with the order, or with null if the customer or a product is missing or a
+     * product is out of stock.
+     */
+    public CompletableFuture<Order> placeOrder(int customerId, ArrayList<Integer> productIds) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Engine is shut down"));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            ServiceOperationEvent event = ServiceOperationEvent.start("shardedPlaceOrder", customerId);
+            Order order = null;
+            try {
+                order = coordinateOrder(customerId, productIds);
+                return order;
+            } finally {
+                event.finish(order != null ? order.getOrderId() : -1,
+                             productIds == null ? 0 : productIds.size(), order != null);
+            }
+        }, coordinators);
+    }
+
+    /**
+     * Lets in-flight orders finish, stops accepting commands, lets every shard drain its
+     * inbox, then waits for the shard threads.
+     */
+    @Override
+    public void close() {
+        coordinators.close();
+        running = false;
+        for (int i = 0; i < shards.length; i++) {
+            try {
+                shards[i].thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        // A submitter that raced with shutdown may have enqueued after its shard exited
+        for (int i = 0; i < shards.length; i++) {
+            try {
+                Command<?> leftover;
+                while ((leftover = shards[i].inbox.poll(0, TimeUnit.MILLISECONDS)) != null) {
+                    leftover.future.completeExceptionally(new IllegalStateException("Engine is shut down"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Order coordinateOrder(int customerId, ArrayList<Integer> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return null;
+        }
+        Customer customer = searchCustomerById(customerId).join();
+        if (customer == null) {
+            return null;
+        }
+
+        // Group the product IDs by owning shard
+        ArrayList<Integer>[] byShard = groupByShard(productIds);
+
+        // Phase 1: reserve on every involved shard in parallel; each returns the price total or null
+        CompletableFuture<Double>[] reservations = newFutures(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            ArrayList<Integer> ids = byShard[s];
+            if (ids != null) {
+                reservations[s] = submit(s, shard -> reserveAll(shard.productService, ids));
+            }
+        }
+
+        // Wait for every shard before deciding, so one failure cannot skip the compensation;
+        // a shard that failed (e.g. is shutting down) reserved nothing and counts as a refusal
+        Double[] prices = new Double[shards.length];
+        double totalPrice = 0.0;
+        boolean reserved = true;
+        for (int s = 0; s < shards.length; s++) {
+            if (reservations[s] != null) {
+                prices[s] = reservations[s].handle((price, error) -> error == null ? price : null).join();
+                if (prices[s] == null) {
+                    reserved = false;
+                } else {
+                    totalPrice += prices[s];
+                }
+            }
+        }
+
+        // Compensation: undo the shards that did reserve
+        if (!reserved) {
+            ArrayList<CompletableFuture<Void>> releases = new ArrayList<>();
+            for (int s = 0; s < shards.length; s++) {
+                if (prices[s] != null) {
+                    ArrayList<Integer> ids = byShard[s];
+                    releases.add(submit(s, shard -> {
+                        for (int i = 0; i < ids.size(); i++) {
+                            shard.productService.releaseStock(ids.get(i), 1);
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (int i = 0; i < releases.size(); i++) {
+                releases.get(i).join();
+            }
+            return null;
+        }
+
+        // Phase 2: commit the order and the customer link in parallel
+        int orderId = nextOrderId.getAndIncrement();
+        Order order = new Order(orderId, customerId, productIds, totalPrice,
+                                LocalDate.now(), Order.OrderStatus.PENDING);
+        CompletableFuture<Void> created = createOrder(order);
+        CompletableFuture<Void> linked = submit(shardOf(customerId), shard -> {
+            Customer owner = shard.customerService.searchCustomerById(customerId);
+            if (owner != null) {
+                shard.customerService.linkOrder(owner, orderId);
+            }
+            return null;
+        });
+        created.join();
+        linked.join();
+        return order.copy();
+    }
+
+    /**
+     * Reserves one unit of each product, all or nothing. Returns the summed price, or null.
+     * Prices are read first, so nothing can throw once stock has been taken.
+     */
+    private static Double reserveAll(ProductService productService, ArrayList<Integer> productIds) {
+        double total = 0.0;
+        for (int i = 0; i < productIds.size(); i++) {
+            Product product = productService.searchById(productIds.get(i));
+            if (product == null) {
+                return null;
+            }
+            total += product.getPrice();
+        }
+        return productService.reserveStockAll(productIds) ? total : null;
+    }
+
+    private ArrayList<Integer>[] groupByShard(ArrayList<Integer> productIds) {
+        ArrayList<Integer>[] byShard = newLists(shards.length);
+        for (int i = 0; i < productIds.size(); i++) {
+            int productId = productIds.get(i);
+            int s = shardOf(productId);
+            if (byShard[s] == null) {
+                byShard[s] = new ArrayList<>();
+            }
+            byShard[s].add(productId);
+        }
+        return byShard;
+    }
+
+    private <T> CompletableFuture<ArrayList<T>> gather(ShardTask<ArrayList<T>> task) {
+        CompletableFuture<ArrayList<T>>[] parts = newFutures(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            parts[s] = submit(s, task);
+        }
+        return CompletableFuture.allOf(parts).thenApply(ignored -> {
+            ArrayList<T> merged = new ArrayList<>();
+            for (int s = 0; s < parts.length; s++) {
+                ArrayList<T> part = parts[s].join();
+                for (int i = 0; i < part.size(); i++) {
+                    merged.add(part.get(i));
+                }
+            }
+            return merged;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T>[] newFutures(int length) {
+        return (CompletableFuture<T>[]) new CompletableFuture<?>[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArrayList<T>[] newLists(int length) {
+        return (ArrayList<T>[]) new ArrayList<?>[length];
+    }
+
+    private int sum(ShardTask<Integer> task) {
+        int total = 0;
+        for (int s = 0; s < shards.length; s++) {
+            total += submit(s, task).join();
+        }
+        return total;
+    }
+
+    private void runShard(Shard shard) {
+        ArrayList<Command<?>> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                int count = shard.inbox.drainTo(batch, batchSize, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (count == 0) {
+                    if (!running && shard.inbox.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).execute(shard);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
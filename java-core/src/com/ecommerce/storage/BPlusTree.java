@@ -0,0 +1,361 @@
+package com.ecommerce.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Disk-resident B+tree of (long key, long value) entries, one node per buffer pool page
+ * Entries are ordered by key, then value, and each pair is stored once, so the same key
+ * can carry several values (a secondary index) or, with insertIfAbsent(), exactly one (a
+ * primary index). Leaves hold up to 255 entries and are chained left to right for range
+ * scans; inner nodes hold up to 204 separators, so four levels cover over a billion
+ * entries. Only the pages on the current root-to-leaf path need to be resident.
+ * Node layout: type byte, unused byte, entry count (short), then the next leaf (leaves) or
+ * the leftmost child (inner nodes) as an int, then the entries: key and value for leaves,
+ * key, value and right child page for inner nodes.
+ * Entries are never deleted. Not thread-safe: callers serialize access.
+ * Time Complexity:
+ * - insert()/insertIfAbsent(): O(log n) page visits, a split copies one page
+ * - get()/contains(): O(log n) page visits
+ * - scan(): O(log n + k) for k visited entries
+ * Space Complexity: O(n / 255) pages on disk, O(1) pinned pages at a time
+ */
+public class BPlusTree {
+    private static final byte LEAF = 1;
+    private static final byte INNER = 2;
+    private static final int COUNT_OFFSET = 2;
+    private static final int LINK_OFFSET = 4;
+    private static final int HEADER = 8;
+    private static final int LEAF_ENTRY = 16;
+    private static final int INNER_ENTRY = 20;
+    static final int LEAF_CAPACITY = (BufferPool.PAGE_SIZE - HEADER) / LEAF_ENTRY;
+    static final int INNER_CAPACITY = (BufferPool.PAGE_SIZE - HEADER) / INNER_ENTRY;
+
+    private final BufferPool pool;
+    private int rootPage;
+    private int height;
+    private long size;
+
+    /**
+     * Called back by scan() for each entry in order; return false to stop.
+     */
+    public interface EntryVisitor {
+        boolean visit(long key, long value);
+    }
+
+    private static class Split {
+        final long key;
+        final long value;
+        final int rightPage;
+
+        Split(long key, long value, int rightPage) {
+            this.key = key;
+            this.value = value;
+            this.rightPage = rightPage;
+        }
+    }
+
+    /**
+     * Creates an empty tree whose pages are allocated from pool.
+     */
+    public BPlusTree(BufferPool pool) {
+        this.pool = pool;
+        this.rootPage = pool.allocate();
+        int frame = pool.frameOf(rootPage);
+        initNode(pool.buffer(frame), LEAF, -1);
+        pool.unpin(frame, true);
+        this.height = 1;
+        this.size = 0;
+    }
+
+    /**
+     * Adds the entry; returns false if the same (key, value) pair is already present.
+     */
+    public boolean insert(long key, long value) {
+        if (contains(key, value)) {
+            return false;
+        }
+        Split split = insert(rootPage, key, value);
+        if (split != null) {
+            int newRoot = pool.allocate();
+            int frame = pool.frameOf(newRoot);
+            ByteBuffer node = pool.buffer(frame);
+            initNode(node, INNER, rootPage);
+            writeInner(node, 0, split.key, split.value, split.rightPage);
+            setCount(node, 1);
+            pool.unpin(frame, true);
+            rootPage = newRoot;
+            height++;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Adds the entry unless the key is already present with any value.
+     */
+    public boolean insertIfAbsent(long key, long value) {
+        if (containsKey(key)) {
+            return false;
+        }
+        return insert(key, value);
+    }
+
+    public boolean containsKey(long key) {
+        boolean[] found = {false};
+        scan(key, Long.MIN_VALUE, (k, v) -> {
+            found[0] = k == key;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Smallest value stored under key, or missingValue.
+     */
+    public long get(long key, long missingValue) {
+        long[] found = {missingValue};
+        scan(key, Long.MIN_VALUE, (k, v) -> {
+            if (k == key) {
+                found[0] = v;
+            }
+            return false;
+        });
+        return found[0];
+    }
+
+    public boolean contains(long key, long value) {
+        boolean[] found = {false};
+        scan(key, value, (k, v) -> {
+            found[0] = k == key && v == value;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Visits entries from the first one >= (fromKey, fromValue) in ascending order until
+     * the visitor returns false or the entries run out.
+     */
+    public void scan(long fromKey, long fromValue, EntryVisitor visitor) {
+        int page = rootPage;
+        for (int level = 1; level < height; level++) {
+            int frame = pool.pin(page);
+            ByteBuffer node = pool.buffer(frame);
+            int index = upperBound(node, INNER_ENTRY, fromKey, fromValue) - 1;
+            int child = index < 0 ? node.getInt(LINK_OFFSET) : node.getInt(innerOffset(index) + 16);
+            pool.unpin(frame, false);
+            page = child;
+        }
+        boolean first = true;
+        while (page >= 0) {
+            int frame = pool.pin(page);
+            ByteBuffer node = pool.buffer(frame);
+            int count = count(node);
+            int index = first ? lowerBound(node, LEAF_ENTRY, fromKey, fromValue) : 0;
+            int next = node.getInt(LINK_OFFSET);
+            for (int i = index; i < count; i++) {
+                int offset = HEADER + i * LEAF_ENTRY;
+                if (!visitor.visit(node.getLong(offset), node.getLong(offset + 8))) {
+                    pool.unpin(frame, false);
+                    return;
+                }
+            }
+            pool.unpin(frame, false);
+            page = next;
+            first = false;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Levels from root to leaves, 1 for a single leaf.
+     */
+    public int height() {
+        return height;
+    }
+
+    private Split insert(int page, long key, long value) {
+        int frame = pool.pin(page);
+        ByteBuffer node = pool.buffer(frame);
+        if (node.get(0) == LEAF) {
+            Split split = insertIntoLeaf(frame, key, value);
+            pool.unpin(frame, true);
+            return split;
+        }
+        int index = upperBound(node, INNER_ENTRY, key, value) - 1;
+        int child = index < 0 ? node.getInt(LINK_OFFSET) : node.getInt(innerOffset(index) + 16);
+        // Unpinned while descending, so only the current path segment holds frames
+        pool.unpin(frame, false);
+        Split childSplit = insert(child, key, value);
+        if (childSplit == null) {
+            return null;
+        }
+        frame = pool.pin(page);
+        Split split = insertIntoInner(frame, index + 1, childSplit);
+        pool.unpin(frame, true);
+        return split;
+    }
+
+    private Split insertIntoLeaf(int frame, long key, long value) {
+        ByteBuffer node = pool.buffer(frame);
+        int count = count(node);
+        int position = lowerBound(node, LEAF_ENTRY, key, value);
+        if (count < LEAF_CAPACITY) {
+            byte[] bytes = pool.bytes(frame);
+            int offset = HEADER + position * LEAF_ENTRY;
+            System.arraycopy(bytes, offset, bytes, offset + LEAF_ENTRY, (count - position) * LEAF_ENTRY);
+            node.putLong(offset, key);
+            node.putLong(offset + 8, value);
+            setCount(node, count + 1);
+            return null;
+        }
+
+        long[] keys = new long[count + 1];
+        long[] values = new long[count + 1];
+        for (int i = 0, j = 0; i <= count; i++) {
+            if (i == position) {
+                keys[i] = key;
+                values[i] = value;
+            } else {
+                keys[i] = node.getLong(HEADER + j * LEAF_ENTRY);
+                values[i] = node.getLong(HEADER + j * LEAF_ENTRY + 8);
+                j++;
+            }
+        }
+        int leftCount = (count + 1) / 2;
+        int rightPage = pool.allocate();
+        int rightFrame = pool.frameOf(rightPage);
+        ByteBuffer right = pool.buffer(rightFrame);
+        initNode(right, LEAF, node.getInt(LINK_OFFSET));
+        for (int i = leftCount; i <= count; i++) {
+            right.putLong(HEADER + (i - leftCount) * LEAF_ENTRY, keys[i]);
+            right.putLong(HEADER + (i - leftCount) * LEAF_ENTRY + 8, values[i]);
+        }
+        setCount(right, count + 1 - leftCount);
+        pool.unpin(rightFrame, true);
+
+        for (int i = position; i < leftCount; i++) {
+            node.putLong(HEADER + i * LEAF_ENTRY, keys[i]);
+            node.putLong(HEADER + i * LEAF_ENTRY + 8, values[i]);
+        }
+        setCount(node, leftCount);
+        node.putInt(LINK_OFFSET, rightPage);
+        return new Split(keys[leftCount], values[leftCount], rightPage);
+    }
+
+    private Split insertIntoInner(int frame, int position, Split childSplit) {
+        ByteBuffer node = pool.buffer(frame);
+        int count = count(node);
+        if (count < INNER_CAPACITY) {
+            byte[] bytes = pool.bytes(frame);
+            int offset = innerOffset(position);
+            System.arraycopy(bytes, offset, bytes, offset + INNER_ENTRY, (count - position) * INNER_ENTRY);
+            writeInner(node, position, childSplit.key, childSplit.value, childSplit.rightPage);
+            setCount(node, count + 1);
+            return null;
+        }
+
+        long[] keys = new long[count + 1];
+        long[] values = new long[count + 1];
+        int[] children = new int[count + 1];
+        for (int i = 0, j = 0; i <= count; i++) {
+            if (i == position) {
+                keys[i] = childSplit.key;
+                values[i] = childSplit.value;
+                children[i] = childSplit.rightPage;
+            } else {
+                int offset = innerOffset(j);
+                keys[i] = node.getLong(offset);
+                values[i] = node.getLong(offset + 8);
+                children[i] = node.getInt(offset + 16);
+                j++;
+            }
+        }
+        // The middle separator moves up; its child becomes the new node's leftmost child
+        int middle = (count + 1) / 2;
+        int rightPage = pool.allocate();
+        int rightFrame = pool.frameOf(rightPage);
+        ByteBuffer right = pool.buffer(rightFrame);
+        initNode(right, INNER, children[middle]);
+        for (int i = middle + 1; i <= count; i++) {
+            writeInner(right, i - middle - 1, keys[i], values[i], children[i]);
+        }
+        setCount(right, count - middle);
+        pool.unpin(rightFrame, true);
+
+        for (int i = position; i < middle; i++) {
+            writeInner(node, i, keys[i], values[i], children[i]);
+        }
+        setCount(node, middle);
+        return new Split(keys[middle], values[middle], rightPage);
+    }
+
+    /**
+     * First entry index whose pair is >= (key, value).
+     */
+    private static int lowerBound(ByteBuffer node, int entrySize, long key, long value) {
+        int low = 0;
+        int high = count(node);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int offset = HEADER + mid * entrySize;
+            if (compare(node.getLong(offset), node.getLong(offset + 8), key, value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First entry index whose pair is > (key, value).
+     */
+    private static int upperBound(ByteBuffer node, int entrySize, long key, long value) {
+        int low = 0;
+        int high = count(node);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int offset = HEADER + mid * entrySize;
+            if (compare(node.getLong(offset), node.getLong(offset + 8), key, value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(long key1, long value1, long key2, long value2) {
+        int cmp = Long.compare(key1, key2);
+        return cmp != 0 ? cmp : Long.compare(value1, value2);
+    }
+
+    private static void initNode(ByteBuffer node, byte type, int link) {
+        node.put(0, type);
+        node.putShort(COUNT_OFFSET, (short) 0);
+        node.putInt(LINK_OFFSET, link);
+    }
+
+    private static int count(ByteBuffer node) {
+        return node.getShort(COUNT_OFFSET);
+    }
+
+    private static void setCount(ByteBuffer node, int count) {
+        node.putShort(COUNT_OFFSET, (short) count);
+    }
+
+    private static int innerOffset(int index) {
+        return HEADER + index * INNER_ENTRY;
+    }
+
+    private static void writeInner(ByteBuffer node, int index, long key, long value, int child) {
+        int offset = innerOffset(index);
+        node.putLong(offset, key);
+        node.putLong(offset + 8, value);
+        node.putInt(offset + 16, child);
+    }
+}
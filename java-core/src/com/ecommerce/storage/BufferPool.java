@@ -0,0 +1,256 @@
+package com.ecommerce.storage;
+
+import com.ecommerce.datastructures.IntIntHashMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size page cache over a file of PAGE_SIZE-byte pages
+ * A page is read into one of a fixed number of in-heap frames when it is pinned and
+ * stays there until the clock hand evicts it: the hand sweeps the frames, clearing the
+ * reference bit of recently used ones and taking the first unpinned frame whose bit is
+ * already clear. Dirty frames are written back on eviction and on flush(), so memory use
+ * is capacity * PAGE_SIZE however large the file grows.
+ * Callers pin() a page, read or write its bytes, then unpin() it, marking it dirty if it
+ * changed; a pinned frame is never evicted. Not thread-safe: callers serialize access.
+ * Time Complexity:
+ * - pin(): O(1) average on a hit, O(capacity) worst case clock sweep + one page read on a miss
+ * - unpin(): O(1)
+ * - allocate(): O(1) + a possible eviction
+ * - flush(): O(capacity) + one write per dirty page
+ * Space Complexity: O(capacity * PAGE_SIZE)
+ */
+public class BufferPool implements Closeable {
+    public static final int PAGE_SIZE = 4096;
+    public static final int MIN_CAPACITY = 8;
+
+    private final FileChannel channel;
+    private final byte[][] frames;
+    private final ByteBuffer[] views;
+    private final int[] pageIds;
+    private final int[] pinCounts;
+    private final boolean[] dirty;
+    private final boolean[] referenced;
+    private final IntIntHashMap framesByPage;
+    private int clockHand;
+    private int pageCount;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writes;
+
+    /**
+     * Opens the page file, truncating it, with room for capacity resident pages.
+     */
+    public BufferPool(Path file, int capacity) throws IOException {
+        if (capacity < MIN_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be at least " + MIN_CAPACITY + ": " + capacity);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.frames = new byte[capacity][];
+        this.views = new ByteBuffer[capacity];
+        this.pageIds = new int[capacity];
+        this.pinCounts = new int[capacity];
+        this.dirty = new boolean[capacity];
+        this.referenced = new boolean[capacity];
+        for (int i = 0; i < capacity; i++) {
+            frames[i] = new byte[PAGE_SIZE];
+            views[i] = ByteBuffer.wrap(frames[i]);
+            pageIds[i] = -1;
+        }
+        this.framesByPage = new IntIntHashMap();
+        this.clockHand = 0;
+        this.pageCount = 0;
+    }
+
+    /**
+     * Makes the page resident and pins it; returns its frame number.
+     */
+    public int pin(int pageId) {
+        if (pageId < 0 || pageId >= pageCount) {
+            throw new IllegalArgumentException("No such page: " + pageId);
+        }
+        int frame = framesByPage.get(pageId, -1);
+        if (frame >= 0) {
+            hits++;
+        } else {
+            misses++;
+            frame = victim();
+            read(pageId, frame);
+            pageIds[frame] = pageId;
+            framesByPage.put(pageId, frame);
+        }
+        pinCounts[frame]++;
+        referenced[frame] = true;
+        return frame;
+    }
+
+    /**
+     * Appends a zeroed page to the file and pins it; returns its page ID. The frame
+     * number is then frameOf(pageId).
+     */
+    public int allocate() {
+        int pageId = pageCount++;
+        int frame = victim();
+        zero(frames[frame], 0);
+        pageIds[frame] = pageId;
+        framesByPage.put(pageId, frame);
+        pinCounts[frame] = 1;
+        referenced[frame] = true;
+        // Written on eviction or flush; until then the file is simply shorter
+        dirty[frame] = true;
+        return pageId;
+    }
+
+    /**
+     * Frame holding a page that the caller has pinned.
+     */
+    public int frameOf(int pageId) {
+        return framesByPage.get(pageId, -1);
+    }
+
+    public void unpin(int frame, boolean modified) {
+        if (pinCounts[frame] == 0) {
+            throw new IllegalStateException("Frame is not pinned: " + frame);
+        }
+        pinCounts[frame]--;
+        if (modified) {
+            dirty[frame] = true;
+        }
+    }
+
+    /**
+     * Byte view of a pinned frame; position and limit are not used, only absolute access.
+     */
+    public ByteBuffer buffer(int frame) {
+        return views[frame];
+    }
+
+    /**
+     * Raw bytes of a pinned frame, for bulk shifts with System.arraycopy.
+     */
+    public byte[] bytes(int frame) {
+        return frames[frame];
+    }
+
+    /**
+     * Writes every dirty frame back to the file.
+     */
+    public void flush() {
+        for (int frame = 0; frame < frames.length; frame++) {
+            if (pageIds[frame] >= 0 && dirty[frame]) {
+                write(frame);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    /**
+     * Frames currently holding a page; at most getCapacity().
+     */
+    public int getResidentCount() {
+        return framesByPage.size();
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Free frame, or the one the clock hand evicts; the frame is unmapped and clean.
+     */
+    private int victim() {
+        // Two full sweeps clear every reference bit, so a third finding nothing means all are pinned
+        for (int step = 0; step < frames.length * 3; step++) {
+            int frame = clockHand;
+            clockHand = (clockHand + 1) % frames.length;
+            if (pageIds[frame] < 0) {
+                return frame;
+            }
+            if (pinCounts[frame] > 0) {
+                continue;
+            }
+            if (referenced[frame]) {
+                referenced[frame] = false;
+                continue;
+            }
+            if (dirty[frame]) {
+                write(frame);
+            }
+            framesByPage.remove(pageIds[frame]);
+            pageIds[frame] = -1;
+            evictions++;
+            return frame;
+        }
+        throw new IllegalStateException("All " + frames.length + " frames are pinned");
+    }
+
+    private void read(int pageId, int frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frames[frame]);
+        long position = (long) pageId * PAGE_SIZE;
+        try {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    // Allocated but never written back: the rest of the page is zeroes
+                    zero(frames[frame], buffer.position());
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dirty[frame] = false;
+    }
+
+    private void write(int frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frames[frame]);
+        long position = (long) pageIds[frame] * PAGE_SIZE;
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dirty[frame] = false;
+        writes++;
+    }
+
+    private static void zero(byte[] page, int from) {
+        for (int i = from; i < page.length; i++) {
+            page[i] = 0;
+        }
+    }
+}
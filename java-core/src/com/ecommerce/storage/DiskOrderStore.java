@@ -0,0 +1,283 @@
+package com.ecommerce.storage;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.models.Order;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Order records kept in a paged file, with only recently used pages in memory
+ * Orders are serialized into a chain of data pages in arrival order and addressed by
+ * slot, their arrival number. Three B+trees in the same file index them:
+ * - slot -> record location (page and offset)
+ * - orderId -> slot, keeping the first order for a duplicate ID
+ * - (customerId, order date) -> slot, for a customer's orders in date order
+ * All pages go through one BufferPool, so heap use is cachePages * 4 KB plus the
+ * decoded orders a caller holds on to. Orders are read back as fresh objects; changing
+ * one does not change the store, only updateStatus() does (customer, date, products and
+ * total are fixed once written).
+ * The file is scratch space for this process: it is truncated on open and not reopened.
+ * All methods are synchronized, so the store can be read under a shared lock.
+ * Time Complexity:
+ * - append(): O(log n) per index + O(p) for p product IDs
+ * - read()/findById()/slotOf(): O(log n) page visits + O(p)
+ * - updateStatus(): O(log n)
+ * - customerKeys(): O(log n + m) for m orders of the customer
+ * Space Complexity: O(n) on disk, O(cachePages) in memory
+ */
+public class DiskOrderStore implements Closeable {
+    public static final int DEFAULT_CACHE_PAGES = 1024;
+
+    // Record layout: orderId, customerId, epochDay, status, totalPrice, productCount, productIds
+    private static final int STATUS_OFFSET = 12;
+    private static final int HEADER_BYTES = 25;
+    private static final int NEXT_PAGE_OFFSET = 0;
+    private static final int DATA_START = 4;
+
+    private final BufferPool pool;
+    private final BPlusTree locationsBySlot;
+    private final BPlusTree slotsById;
+    private final BPlusTree slotsByCustomer;
+    private int size;
+    private int tailPage;
+    private int tailOffset;
+
+    public DiskOrderStore(Path file) throws IOException {
+        this(file, DEFAULT_CACHE_PAGES);
+    }
+
+    public DiskOrderStore(Path file, int cachePages) throws IOException {
+        this.pool = new BufferPool(file, cachePages);
+        this.locationsBySlot = new BPlusTree(pool);
+        this.slotsById = new BPlusTree(pool);
+        this.slotsByCustomer = new BPlusTree(pool);
+        this.tailPage = newDataPage();
+        this.tailOffset = DATA_START;
+        this.size = 0;
+    }
+
+    /**
+     * Writes the order and indexes it; returns its slot.
+     */
+    public synchronized int append(Order order) {
+        ArrayList<Integer> productIds = order.getProductIds();
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + productIds.size() * 4);
+        int epochDay = (int) order.getOrderDate().toEpochDay();
+        record.putInt(order.getOrderId());
+        record.putInt(order.getCustomerId());
+        record.putInt(epochDay);
+        record.put((byte) order.getStatus().ordinal());
+        record.putDouble(order.getTotalPrice());
+        record.putInt(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            record.putInt(productIds.get(i));
+        }
+
+        int slot = size;
+        long location = location(tailPage, tailOffset);
+        appendBytes(record.array());
+        locationsBySlot.insert(slot, location);
+        slotsById.insertIfAbsent(order.getOrderId(), slot);
+        slotsByCustomer.insert(customerKey(order.getCustomerId(), epochDay), slot);
+        size++;
+        return slot;
+    }
+
+    /**
+     * Decodes the order in slot, or null if there is no such slot.
+     */
+    public synchronized Order read(int slot) {
+        long location = locationsBySlot.get(slot, -1);
+        if (location < 0) {
+            return null;
+        }
+        byte[] header = new byte[HEADER_BYTES];
+        long productsAt = readBytes(location, header, HEADER_BYTES);
+        ByteBuffer fields = ByteBuffer.wrap(header);
+        int orderId = fields.getInt();
+        int customerId = fields.getInt();
+        int epochDay = fields.getInt();
+        Order.OrderStatus status = Order.OrderStatus.values()[fields.get()];
+        double totalPrice = fields.getDouble();
+        int productCount = fields.getInt();
+
+        byte[] products = new byte[productCount * 4];
+        readBytes(productsAt, products, products.length);
+        ByteBuffer ids = ByteBuffer.wrap(products);
+        ArrayList<Integer> productIds = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            productIds.add(ids.getInt());
+        }
+        return new Order(orderId, customerId, productIds, totalPrice, LocalDate.ofEpochDay(epochDay), status);
+    }
+
+    /**
+     * Slot of the first order stored with this ID, or -1.
+     */
+    public synchronized int slotOf(int orderId) {
+        return (int) slotsById.get(orderId, -1);
+    }
+
+    public synchronized Order findById(int orderId) {
+        int slot = slotOf(orderId);
+        return slot < 0 ? null : read(slot);
+    }
+
+    public synchronized void updateStatus(int slot, Order.OrderStatus status) {
+        long location = locationsBySlot.get(slot, -1);
+        if (location < 0) {
+            throw new IllegalArgumentException("No such slot: " + slot);
+        }
+        byte[] value = {(byte) status.ordinal()};
+        writeBytes(skip(location, STATUS_OFFSET), value);
+    }
+
+    /**
+     * The customer's orders as (epoch day << 32 | slot) keys in ascending order, the
+     * same form OrderService uses for its in-memory date indexes.
+     */
+    public synchronized long[] customerKeys(int customerId) {
+        long[][] holder = {new long[8]};
+        int[] count = {0};
+        slotsByCustomer.scan(customerKey(customerId, Integer.MIN_VALUE), Long.MIN_VALUE, (key, slot) -> {
+            if ((int) (key >> 32) != customerId) {
+                return false;
+            }
+            if (count[0] == holder[0].length) {
+                long[] grown = new long[count[0] * 2];
+                System.arraycopy(holder[0], 0, grown, 0, count[0]);
+                holder[0] = grown;
+            }
+            int epochDay = (int) key ^ Integer.MIN_VALUE;
+            holder[0][count[0]++] = ((long) epochDay << 32) | (slot & 0xFFFFFFFFL);
+            return true;
+        });
+        long[] result = new long[count[0]];
+        System.arraycopy(holder[0], 0, result, 0, count[0]);
+        return result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public BufferPool getBufferPool() {
+        return pool;
+    }
+
+    public synchronized void flush() {
+        pool.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        pool.close();
+    }
+
+    /**
+     * Orders (customerId, epochDay) keys; the day's sign bit is flipped so negative days sort first.
+     */
+    private static long customerKey(int customerId, int epochDay) {
+        return ((long) customerId << 32) | ((epochDay ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    private static long location(int page, int offset) {
+        return ((long) page << 32) | offset;
+    }
+
+    private int newDataPage() {
+        int page = pool.allocate();
+        int frame = pool.frameOf(page);
+        pool.buffer(frame).putInt(NEXT_PAGE_OFFSET, -1);
+        pool.unpin(frame, true);
+        return page;
+    }
+
+    /**
+     * Appends bytes at the tail, chaining a new data page whenever the current one fills up.
+     */
+    private void appendBytes(byte[] bytes) {
+        int written = 0;
+        while (written < bytes.length) {
+            if (tailOffset == BufferPool.PAGE_SIZE) {
+                int next = newDataPage();
+                int frame = pool.pin(tailPage);
+                pool.buffer(frame).putInt(NEXT_PAGE_OFFSET, next);
+                pool.unpin(frame, true);
+                tailPage = next;
+                tailOffset = DATA_START;
+            }
+            int chunk = Math.min(bytes.length - written, BufferPool.PAGE_SIZE - tailOffset);
+            int frame = pool.pin(tailPage);
+            System.arraycopy(bytes, written, pool.bytes(frame), tailOffset, chunk);
+            pool.unpin(frame, true);
+            written += chunk;
+            tailOffset += chunk;
+        }
+    }
+
+    /**
+     * Reads length bytes starting at location into target; returns the location after them.
+     */
+    private long readBytes(long location, byte[] target, int length) {
+        int page = (int) (location >>> 32);
+        int offset = (int) location;
+        int read = 0;
+        while (read < length) {
+            int frame = pool.pin(page);
+            if (offset == BufferPool.PAGE_SIZE) {
+                int next = pool.buffer(frame).getInt(NEXT_PAGE_OFFSET);
+                pool.unpin(frame, false);
+                page = next;
+                offset = DATA_START;
+                continue;
+            }
+            int chunk = Math.min(length - read, BufferPool.PAGE_SIZE - offset);
+            System.arraycopy(pool.bytes(frame), offset, target, read, chunk);
+            pool.unpin(frame, false);
+            read += chunk;
+            offset += chunk;
+        }
+        return location(page, offset);
+    }
+
+    private void writeBytes(long location, byte[] source) {
+        int page = (int) (location >>> 32);
+        int offset = (int) location;
+        int written = 0;
+        while (written < source.length) {
+            int frame = pool.pin(page);
+            if (offset == BufferPool.PAGE_SIZE) {
+                int next = pool.buffer(frame).getInt(NEXT_PAGE_OFFSET);
+                pool.unpin(frame, false);
+                page = next;
+                offset = DATA_START;
+                continue;
+            }
+            int chunk = Math.min(source.length - written, BufferPool.PAGE_SIZE - offset);
+            System.arraycopy(source, written, pool.bytes(frame), offset, chunk);
+            pool.unpin(frame, true);
+            written += chunk;
+            offset += chunk;
+        }
+    }
+
+    /**
+     * Location count bytes after location, following the data page chain.
+     */
+    private long skip(long location, int count) {
+        int page = (int) (location >>> 32);
+        int offset = (int) location;
+        while (offset + count > BufferPool.PAGE_SIZE) {
+            count -= BufferPool.PAGE_SIZE - offset;
+            int frame = pool.pin(page);
+            page = pool.buffer(frame).getInt(NEXT_PAGE_OFFSET);
+            pool.unpin(frame, false);
+            offset = DATA_START;
+        }
+        return location(page, offset + count);
+    }
+}
@@ -2,18 +2,33 @@ package com.ecommerce.utils;
 
 import com.ecommerce.datastructures.ArrayList;
 import com.ecommerce.models.*;
+import com.ecommerce.monitoring.CsvLoadEvent;
 import com.ecommerce.services.*;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 /**
  * Utility class for reading CSV files and populating the system
  * Uses BufferedReader for CSV parsing
+ * Service lists are pre-sized from the file length so large loads do not repeatedly resize.
  */
 public class CSVReader {
-    
+    // Typical row widths in bytes, used to estimate row counts from file size
+    private static final int PRODUCT_ROW_BYTES = 32;
+    private static final int CUSTOMER_ROW_BYTES = 48;
+    private static final int ORDER_ROW_BYTES = 48;
+
     public static void loadProducts(String filePath, ProductService productService) {
+        CsvLoadEvent event = CsvLoadEvent.start(filePath, "products", "service");
+        int rows = 0;
+        boolean failed = false;
+        productService.ensureCapacity(productService.getProductCount() + estimateRows(filePath, PRODUCT_ROW_BYTES));
+        // Rows are added as one batch so the ID index is built balanced in a single pass
+        ArrayList<Product> batch = new ArrayList<>();
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String line;
             boolean isFirstLine = true;
@@ -32,20 +47,32 @@ public class CSVReader {
                     int stock = Integer.parseInt(values[3].trim());
                     
                     Product product = new Product(productId, name, price, stock);
-                    productService.addProduct(product);
+                    batch.add(product);
+                    rows++;
                 }
             }
             
+            productService.addProducts(batch);
+            batch.clear();
             System.out.println("Loaded " + productService.getProductCount() + " products from " + filePath);
             
         } catch (IOException e) {
             System.err.println("Error reading products file: " + e.getMessage());
+            failed = true;
         } catch (NumberFormatException e) {
             System.err.println("Error parsing product data: " + e.getMessage());
+            failed = true;
         }
+        // Rows read before an error are kept, as with a row-by-row load
+        productService.addProducts(batch);
+        event.finish(rows, failed);
     }
     
     public static void loadCustomers(String filePath, CustomerService customerService) {
+        CsvLoadEvent event = CsvLoadEvent.start(filePath, "customers", "service");
+        int rows = 0;
+        boolean failed = false;
+        customerService.ensureCapacity(customerService.getCustomerCount() + estimateRows(filePath, CUSTOMER_ROW_BYTES));
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String line;
             boolean isFirstLine = true;
@@ -64,6 +91,7 @@ public class CSVReader {
                     
                     Customer customer = new Customer(customerId, name, email);
                     customerService.registerCustomer(customer);
+                    rows++;
                 }
             }
             
@@ -71,12 +99,19 @@ public class CSVReader {
             
         } catch (IOException e) {
             System.err.println("Error reading customers file: " + e.getMessage());
+            failed = true;
         } catch (NumberFormatException e) {
             System.err.println("Error parsing customer data: " + e.getMessage());
+            failed = true;
         }
+        event.finish(rows, failed);
     }
     
     public static void loadOrders(String filePath, OrderService orderService) {
+        CsvLoadEvent event = CsvLoadEvent.start(filePath, "orders", "service");
+        int rows = 0;
+        boolean failed = false;
+        orderService.ensureCapacity(orderService.getOrderCount() + estimateRows(filePath, ORDER_ROW_BYTES));
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String line;
             boolean isFirstLine = true;
@@ -94,7 +129,7 @@ public class CSVReader {
                     
                     String productIdsStr = values[2].trim().replace("\"", "");
                     String[] productIdArray = productIdsStr.split(";");
-                    ArrayList<Integer> productIds = new ArrayList<>();
+                    ArrayList<Integer> productIds = new ArrayList<>(productIdArray.length);
                     for (String pidStr : productIdArray) {
                         productIds.add(Integer.parseInt(pidStr.trim()));
                     }
@@ -105,6 +140,7 @@ public class CSVReader {
                     
                     Order order = new Order(orderId, customerId, productIds, totalPrice, orderDate, status);
                     orderService.createOrder(order);
+                    rows++;
                 }
             }
             
@@ -112,12 +148,20 @@ public class CSVReader {
             
         } catch (IOException e) {
             System.err.println("Error reading orders file: " + e.getMessage());
+            failed = true;
         } catch (NumberFormatException e) {
             System.err.println("Error parsing order data: " + e.getMessage());
+            failed = true;
         }
+        event.finish(rows, failed);
     }
     
     public static void loadReviews(String filePath, ProductService productService) {
+        CsvLoadEvent event = CsvLoadEvent.start(filePath, "reviews", "service");
+        int rows = 0;
+        boolean failed = false;
+        // Rows are added as one batch so each product is published and re-indexed once
+        ArrayList<Review> batch = new ArrayList<>();
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String line;
             boolean isFirstLine = true;
@@ -136,21 +180,225 @@ public class CSVReader {
                     int rating = Integer.parseInt(values[3].trim());
                     String comment = values[4].trim().replace("\"", "");
                     
-                    Review review = new Review(reviewId, productId, customerId, rating, comment);
-                    productService.addReviewToProduct(productId, review);
+                    batch.add(new Review(reviewId, productId, customerId, rating, comment));
+                    rows++;
                 }
             }
             
+            productService.addReviews(batch);
+            batch.clear();
             System.out.println("Loaded reviews from " + filePath);
             
         } catch (IOException e) {
             System.err.println("Error reading reviews file: " + e.getMessage());
+            failed = true;
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing review data: " + e.getMessage());
+            failed = true;
+        }
+        // Rows read before an error are kept, as with a row-by-row load
+        productService.addReviews(batch);
+        event.finish(rows, failed);
+    }
+    
+    /**
+     * Lazy alternative to loadReviews(): indexes the file by productId instead of
+     * materializing every review, and attaches the products to the index so each
+     * product pages its reviews in on first access. Returns null if the file cannot be read.
+     */
+    public static LazyReviewLoader loadReviewsLazily(String filePath, ProductService productService) {
+        LazyReviewLoader loader = LazyReviewLoader.open(filePath);
+        if (loader != null) {
+            productService.attachReviewSource(loader);
+            System.out.println("Indexed reviews for " + loader.getIndexedProductCount() + " products from " + filePath
+                    + (loader.isIndexReused() ? " (saved index)" : ""));
+        }
+        return loader;
+    }
+    
+    /**
+     * Loads products into a compact dictionary-encoded store instead of Product objects.
+     */
+    public static void loadProducts(String filePath, CompactProductStore store) {
+        CsvLoadEvent event = CsvLoadEvent.start(filePath, "products", "compact");
+        int rows = 0;
+        boolean failed = false;
+        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            boolean isFirstLine = true;
+            
+            while ((line = br.readLine()) != null) {
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
+                
+                String[] values = line.split(",");
+                if (values.length >= 4) {
+                    int productId = Integer.parseInt(values[0].trim());
+                    String name = values[1].trim();
+                    double price = Double.parseDouble(values[2].trim());
+                    int stock = Integer.parseInt(values[3].trim());
+                    
+                    store.add(productId, name, price, stock);
+                    
+                    rows++;
+                }
+            }
+            
+            System.out.println("Loaded " + store.size() + " compact products from " + filePath);
+            
+        } catch (IOException e) {
+            System.err.println("Error reading products file: " + e.getMessage());
+            failed = true;
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing product data: " + e.getMessage());
+            failed = true;
+        }
+        event.finish(rows, failed);
+    }
+    
+    /**
+     * Loads customers into a compact dictionary-encoded store instead of Customer objects.
+     */
+    public static void loadCustomers(String filePath, CompactCustomerStore store) {
+        CsvLoadEvent event = CsvLoadEvent.start(filePath, "customers", "compact");
+        int rows = 0;
+        boolean failed = false;
+        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            boolean isFirstLine = true;
+            
+            while ((line = br.readLine()) != null) {
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
+                
+                String[] values = line.split(",");
+                if (values.length >= 3) {
+                    int customerId = Integer.parseInt(values[0].trim());
+                    String name = values[1].trim();
+                    String email = values[2].trim();
+                    
+                    store.add(customerId, name, email);
+                    
+                    rows++;
+                }
+            }
+            
+            System.out.println("Loaded " + store.size() + " compact customers from " + filePath);
+            
+        } catch (IOException e) {
+            System.err.println("Error reading customers file: " + e.getMessage());
+            failed = true;
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing customer data: " + e.getMessage());
+            failed = true;
+        }
+        event.finish(rows, failed);
+    }
+    
+    /**
+     * Loads orders into compact primitive columns instead of Order objects; product IDs
+     * and dates are parsed straight into ints, with no boxing.
+     */
+    public static void loadOrders(String filePath, CompactOrderStore store) {
+        CsvLoadEvent event = CsvLoadEvent.start(filePath, "orders", "compact");
+        int rows = 0;
+        boolean failed = false;
+        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            boolean isFirstLine = true;
+            int[] productIds = new int[8];
+            
+            while ((line = br.readLine()) != null) {
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
+                
+                String[] values = parseCSVLine(line);
+                if (values.length >= 6) {
+                    int orderId = Integer.parseInt(values[0].trim());
+                    int customerId = Integer.parseInt(values[1].trim());
+                    
+                    String[] productIdArray = values[2].trim().replace("\"", "").split(";");
+                    if (productIdArray.length > productIds.length) {
+                        productIds = new int[productIdArray.length];
+                    }
+                    for (int i = 0; i < productIdArray.length; i++) {
+                        productIds[i] = Integer.parseInt(productIdArray[i].trim());
+                    }
+                    
+                    long cents = Math.round(Double.parseDouble(values[3].trim()) * 100);
+                    int epochDay = (int) LocalDate.parse(values[4].trim()).toEpochDay();
+                    Order.OrderStatus status = Order.OrderStatus.fromString(values[5].trim());
+                    
+                    store.add(orderId, customerId, productIds, productIdArray.length, cents, epochDay, status);
+                    
+                    rows++;
+                }
+            }
+            
+            System.out.println("Loaded " + store.size() + " compact orders from " + filePath);
+            
+        } catch (IOException e) {
+            System.err.println("Error reading orders file: " + e.getMessage());
+            failed = true;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            System.err.println("Error parsing order data: " + e.getMessage());
+            failed = true;
+        }
+        event.finish(rows, failed);
+    }
+    
+    public static void loadReviews(String filePath, CompactProductStore store) {
+        CsvLoadEvent event = CsvLoadEvent.start(filePath, "reviews", "compact");
+        int rows = 0;
+        boolean failed = false;
+        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            boolean isFirstLine = true;
+            
+            while ((line = br.readLine()) != null) {
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
+                
+                String[] values = parseCSVLine(line);
+                if (values.length >= 5) {
+                    int reviewId = Integer.parseInt(values[0].trim());
+                    int productId = Integer.parseInt(values[1].trim());
+                    int customerId = Integer.parseInt(values[2].trim());
+                    int rating = Integer.parseInt(values[3].trim());
+                    String comment = values[4].trim().replace("\"", "");
+                    
+                    store.addReview(new Review(reviewId, productId, customerId, rating, comment));
+                    
+                    rows++;
+                }
+            }
+            
+            System.out.println("Loaded compact reviews from " + filePath);
+            
+        } catch (IOException e) {
+            System.err.println("Error reading reviews file: " + e.getMessage());
+            failed = true;
         } catch (NumberFormatException e) {
             System.err.println("Error parsing review data: " + e.getMessage());
+            failed = true;
         }
+        event.finish(rows, failed);
+    }
+    
+    private static int estimateRows(String filePath, int bytesPerRow) {
+        long estimate = new File(filePath).length() / bytesPerRow;
+        return (int) Math.min(estimate, Integer.MAX_VALUE - 8);
     }
     
-    private static String[] parseCSVLine(String line) {
+    static String[] parseCSVLine(String line) {
         ArrayList<String> values = new ArrayList<>();
         StringBuilder current = new StringBuilder();
         boolean inQuotes = false;
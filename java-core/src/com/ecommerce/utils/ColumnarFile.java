@@ -0,0 +1,494 @@
+package com.ecommerce.utils;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.models.Customer;
+import com.ecommerce.models.Order;
+import com.ecommerce.models.Product;
+import com.ecommerce.models.Review;
+import com.ecommerce.services.CustomerService;
+import com.ecommerce.services.OrderService;
+import com.ecommerce.services.ProductService;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Columnar binary exchange file shared with python-api
+ * Holds the products, customers, orders and reviews tables as little-endian column
+ * buffers using Arrow's physical layouts, so readers can map the file and use the
+ * buffers directly instead of parsing text:
+ * - INT32 / FLOAT64 / DATE32 (days since 1970-01-01): fixed-width values
+ * - UTF8: int32 offsets (rows + 1) plus a UTF-8 byte heap
+ * - LIST_INT32: int32 offsets (rows + 1) plus an int32 value buffer
+ * Columns have no nulls, so no validity bitmaps are written. Every buffer starts on a
+ * 64-byte boundary. The file starts with a small fixed-size directory:
+ * - header: "ECOLUMN1", int32 version, int32 table count
+ * - per table: char[16] name, int32 rows, int32 columns, then per column:
+ *   char[16] name, int32 type, int32 reserved, int64 data offset, int64 data length,
+ *   int64 aux offset, int64 aux length (aux = string heap or list values)
+ * open() maps the file read-only; column getters read straight from the mapping.
+ * Time Complexity:
+ * - export(): O(P + C + O + R + total string bytes)
+ * - open(): O(tables + columns), no row data is touched
+ * - Column getters: O(1), getString()/getIntList() O(L) to materialize
+ * Space Complexity: O(1) on the heap after open(); rows stay in the mapped file
+ */
+public class ColumnarFile {
+    public static final int TYPE_INT32 = 1;
+    public static final int TYPE_FLOAT64 = 2;
+    public static final int TYPE_UTF8 = 3;
+    public static final int TYPE_LIST_INT32 = 4;
+    public static final int TYPE_DATE32 = 5;
+
+    private static final byte[] MAGIC = "ECOLUMN1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int NAME_BYTES = 16;
+    private static final int TABLE_ENTRY_BYTES = NAME_BYTES + 8;
+    private static final int COLUMN_ENTRY_BYTES = NAME_BYTES + 8 + 32;
+    private static final int ALIGNMENT = 64;
+
+    private final ArrayList<Table> tables;
+
+    /**
+     * One table of the file; columns are looked up by name.
+     */
+    public static class Table {
+        private final String name;
+        private final int rowCount;
+        private final ArrayList<Column> columns;
+
+        private Table(String name, int rowCount, int columnCount) {
+            this.name = name;
+            this.rowCount = rowCount;
+            this.columns = new ArrayList<>(columnCount);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public Column getColumn(String columnName) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).name.equals(columnName)) {
+                    return columns.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Column view over the mapped buffers.
+     */
+    public static class Column {
+        private final String name;
+        private final int type;
+        private final ByteBuffer data;
+        private final ByteBuffer aux;
+
+        private Column(String name, int type, ByteBuffer data, ByteBuffer aux) {
+            this.name = name;
+            this.type = type;
+            this.data = data;
+            this.aux = aux;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public int getInt(int row) {
+            return data.getInt(row * 4);
+        }
+
+        public double getDouble(int row) {
+            return data.getDouble(row * 8);
+        }
+
+        public LocalDate getDate(int row) {
+            return LocalDate.ofEpochDay(data.getInt(row * 4));
+        }
+
+        public String getString(int row) {
+            int start = data.getInt(row * 4);
+            int end = data.getInt(row * 4 + 4);
+            byte[] bytes = new byte[end - start];
+            aux.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public ArrayList<Integer> getIntList(int row) {
+            int start = data.getInt(row * 4);
+            int end = data.getInt(row * 4 + 4);
+            ArrayList<Integer> values = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                values.add(aux.getInt(i * 4));
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Growable little-endian byte buffer used while exporting one column buffer.
+     */
+    private static class Sink {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void putInt(int value) {
+            ensure(4);
+            for (int i = 0; i < 4; i++) {
+                bytes[size++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void putDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                bytes[size++] = (byte) (bits >>> (8 * i));
+            }
+        }
+
+        void putBytes(byte[] values) {
+            ensure(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, size + extra)];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+    }
+
+    private static class ColumnSpec {
+        final String name;
+        final int type;
+        final Sink data = new Sink();
+        final Sink aux = new Sink();
+
+        ColumnSpec(String name, int type) {
+            this.name = name;
+            this.type = type;
+            if (type == TYPE_UTF8 || type == TYPE_LIST_INT32) {
+                data.putInt(0);
+            }
+        }
+
+        void addString(String value) {
+            aux.putBytes(value.getBytes(StandardCharsets.UTF_8));
+            data.putInt(aux.size);
+        }
+
+        void addIntList(ArrayList<Integer> values) {
+            for (int i = 0; i < values.size(); i++) {
+                aux.putInt(values.get(i));
+            }
+            data.putInt(aux.size / 4);
+        }
+    }
+
+    private static class TableSpec {
+        final String name;
+        final int rowCount;
+        final ColumnSpec[] columns;
+
+        TableSpec(String name, int rowCount, ColumnSpec... columns) {
+            this.name = name;
+            this.rowCount = rowCount;
+            this.columns = columns;
+        }
+    }
+
+    private ColumnarFile(ArrayList<Table> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Writes all four tables to filePath. Returns false if the file cannot be written.
+     */
+    public static boolean export(String filePath, ProductService productService,
+                                 CustomerService customerService, OrderService orderService) {
+        ArrayList<Product> products = productService.getAllProducts();
+        ColumnSpec productIds = new ColumnSpec("productId", TYPE_INT32);
+        ColumnSpec productNames = new ColumnSpec("name", TYPE_UTF8);
+        ColumnSpec prices = new ColumnSpec("price", TYPE_FLOAT64);
+        ColumnSpec stocks = new ColumnSpec("stock", TYPE_INT32);
+        ColumnSpec reviewIds = new ColumnSpec("reviewId", TYPE_INT32);
+        ColumnSpec reviewProductIds = new ColumnSpec("productId", TYPE_INT32);
+        ColumnSpec reviewCustomerIds = new ColumnSpec("customerId", TYPE_INT32);
+        ColumnSpec ratings = new ColumnSpec("rating", TYPE_INT32);
+        ColumnSpec comments = new ColumnSpec("comment", TYPE_UTF8);
+        int reviewCount = 0;
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            productIds.data.putInt(product.getProductId());
+            productNames.addString(product.getName());
+            prices.data.putDouble(product.getPrice());
+            stocks.data.putInt(product.getStock());
+            ArrayList<Review> reviews = product.getReviews();
+            for (int j = 0; j < reviews.size(); j++) {
+                Review review = reviews.get(j);
+                reviewIds.data.putInt(review.getReviewId());
+                reviewProductIds.data.putInt(review.getProductId());
+                reviewCustomerIds.data.putInt(review.getCustomerId());
+                ratings.data.putInt(review.getRating());
+                String comment = review.getComment();
+                comments.addString(comment == null ? "" : comment);
+                reviewCount++;
+            }
+        }
+
+        ArrayList<Customer> customers = customerService.getAllCustomers();
+        ColumnSpec customerIds = new ColumnSpec("customerId", TYPE_INT32);
+        ColumnSpec customerNames = new ColumnSpec("name", TYPE_UTF8);
+        ColumnSpec emails = new ColumnSpec("email", TYPE_UTF8);
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            customerIds.data.putInt(customer.getCustomerId());
+            customerNames.addString(customer.getName());
+            emails.addString(customer.getEmail());
+        }
+
+        ArrayList<Order> orders = orderService.getAllOrders();
+        ColumnSpec orderIds = new ColumnSpec("orderId", TYPE_INT32);
+        ColumnSpec orderCustomerIds = new ColumnSpec("customerId", TYPE_INT32);
+        ColumnSpec orderProductIds = new ColumnSpec("productIds", TYPE_LIST_INT32);
+        ColumnSpec totals = new ColumnSpec("totalPrice", TYPE_FLOAT64);
+        ColumnSpec dates = new ColumnSpec("orderDate", TYPE_DATE32);
+        ColumnSpec statuses = new ColumnSpec("status", TYPE_UTF8);
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            orderIds.data.putInt(order.getOrderId());
+            orderCustomerIds.data.putInt(order.getCustomerId());
+            orderProductIds.addIntList(order.getProductIds());
+            totals.data.putDouble(order.getTotalPrice());
+            dates.data.putInt((int) order.getOrderDate().toEpochDay());
+            statuses.addString(order.getStatus().getDisplayName());
+        }
+
+        TableSpec[] specs = {
+            new TableSpec("products", products.size(), productIds, productNames, prices, stocks),
+            new TableSpec("customers", customers.size(), customerIds, customerNames, emails),
+            new TableSpec("orders", orders.size(), orderIds, orderCustomerIds, orderProductIds, totals, dates, statuses),
+            new TableSpec("reviews", reviewCount, reviewIds, reviewProductIds, reviewCustomerIds, ratings, comments)
+        };
+
+        try {
+            write(Path.of(filePath), specs);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing columnar file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Maps filePath read-only and reads its directory. Returns null if the file is
+     * missing or not a columnar file of this version.
+     */
+    public static ColumnarFile open(String filePath) {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer file = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (file.get(i) != MAGIC[i]) {
+                    System.err.println("Not a columnar file: " + filePath);
+                    return null;
+                }
+            }
+            if (file.getInt(8) != FORMAT_VERSION) {
+                System.err.println("Unsupported columnar file version: " + file.getInt(8));
+                return null;
+            }
+            int tableCount = file.getInt(12);
+            ArrayList<Table> tables = new ArrayList<>(tableCount);
+            int position = 16;
+            for (int t = 0; t < tableCount; t++) {
+                Table table = new Table(readName(file, position), file.getInt(position + NAME_BYTES),
+                                        file.getInt(position + NAME_BYTES + 4));
+                int columnCount = file.getInt(position + NAME_BYTES + 4);
+                position += TABLE_ENTRY_BYTES;
+                for (int c = 0; c < columnCount; c++) {
+                    int base = position + NAME_BYTES;
+                    table.columns.add(new Column(readName(file, position), file.getInt(base),
+                                                 slice(file, file.getLong(base + 8), file.getLong(base + 16)),
+                                                 slice(file, file.getLong(base + 24), file.getLong(base + 32))));
+                    position += COLUMN_ENTRY_BYTES;
+                }
+                tables.add(table);
+            }
+            return new ColumnarFile(tables);
+        } catch (IOException e) {
+            System.err.println("Error reading columnar file: " + e.getMessage());
+        }
+        return null;
+    }
+
+    public Table getTable(String name) {
+        for (int i = 0; i < tables.size(); i++) {
+            if (tables.get(i).name.equals(name)) {
+                return tables.get(i);
+            }
+        }
+        return null;
+    }
+
+    public void loadProducts(ProductService productService) {
+        Table table = getTable("products");
+        Column ids = table.getColumn("productId");
+        Column names = table.getColumn("name");
+        Column prices = table.getColumn("price");
+        Column stocks = table.getColumn("stock");
+        ArrayList<Product> batch = new ArrayList<>(table.rowCount);
+        for (int row = 0; row < table.rowCount; row++) {
+            batch.add(new Product(ids.getInt(row), names.getString(row),
+                                  prices.getDouble(row), stocks.getInt(row)));
+        }
+        productService.addProducts(batch);
+    }
+
+    public void loadCustomers(CustomerService customerService) {
+        Table table = getTable("customers");
+        Column ids = table.getColumn("customerId");
+        Column names = table.getColumn("name");
+        Column emails = table.getColumn("email");
+        customerService.ensureCapacity(customerService.getCustomerCount() + table.rowCount);
+        for (int row = 0; row < table.rowCount; row++) {
+            customerService.registerCustomer(new Customer(ids.getInt(row), names.getString(row), emails.getString(row)));
+        }
+    }
+
+    public void loadOrders(OrderService orderService) {
+        Table table = getTable("orders");
+        Column ids = table.getColumn("orderId");
+        Column customerIds = table.getColumn("customerId");
+        Column productIds = table.getColumn("productIds");
+        Column totals = table.getColumn("totalPrice");
+        Column dates = table.getColumn("orderDate");
+        Column statuses = table.getColumn("status");
+        orderService.ensureCapacity(orderService.getOrderCount() + table.rowCount);
+        for (int row = 0; row < table.rowCount; row++) {
+            orderService.createOrder(new Order(ids.getInt(row), customerIds.getInt(row), productIds.getIntList(row),
+                                               totals.getDouble(row), dates.getDate(row),
+                                               Order.OrderStatus.fromString(statuses.getString(row))));
+        }
+    }
+
+    public void loadReviews(ProductService productService) {
+        Table table = getTable("reviews");
+        Column ids = table.getColumn("reviewId");
+        Column productIds = table.getColumn("productId");
+        Column customerIds = table.getColumn("customerId");
+        Column ratings = table.getColumn("rating");
+        Column comments = table.getColumn("comment");
+        ArrayList<Review> batch = new ArrayList<>(table.rowCount);
+        for (int row = 0; row < table.rowCount; row++) {
+            batch.add(new Review(ids.getInt(row), productIds.getInt(row), customerIds.getInt(row),
+                                 ratings.getInt(row), comments.getString(row)));
+        }
+        productService.addReviews(batch);
+    }
+
+    private static void write(Path path, TableSpec[] specs) throws IOException {
+        int directoryBytes = 16;
+        for (int t = 0; t < specs.length; t++) {
+            directoryBytes += TABLE_ENTRY_BYTES + specs[t].columns.length * COLUMN_ENTRY_BYTES;
+        }
+        ByteBuffer directory = ByteBuffer.allocate(directoryBytes).order(ByteOrder.LITTLE_ENDIAN);
+        directory.put(MAGIC).putInt(FORMAT_VERSION).putInt(specs.length);
+
+        long offset = align(directoryBytes);
+        for (int t = 0; t < specs.length; t++) {
+            TableSpec spec = specs[t];
+            putName(directory, spec.name);
+            directory.putInt(spec.rowCount).putInt(spec.columns.length);
+            for (int c = 0; c < spec.columns.length; c++) {
+                ColumnSpec column = spec.columns[c];
+                putName(directory, column.name);
+                directory.putInt(column.type).putInt(0);
+                directory.putLong(offset).putLong(column.data.size);
+                offset = align(offset + column.data.size);
+                directory.putLong(offset).putLong(column.aux.size);
+                offset = align(offset + column.aux.size);
+            }
+        }
+        directory.flip();
+
+        // Written beside the target and renamed over it, so a reader never maps half a file
+        Path partial = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, directory);
+            long position = directoryBytes;
+            for (int t = 0; t < specs.length; t++) {
+                for (int c = 0; c < specs[t].columns.length; c++) {
+                    ColumnSpec column = specs[t].columns[c];
+                    position = writeAligned(channel, position, column.data);
+                    position = writeAligned(channel, position, column.aux);
+                }
+            }
+        }
+        Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long writeAligned(FileChannel channel, long position, Sink sink) throws IOException {
+        long start = align(position);
+        if (start > position) {
+            writeFully(channel, ByteBuffer.allocate((int) (start - position)));
+        }
+        writeFully(channel, ByteBuffer.wrap(sink.bytes, 0, sink.size));
+        return start + sink.size;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static void putName(ByteBuffer directory, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < NAME_BYTES; i++) {
+            directory.put(i < bytes.length ? bytes[i] : 0);
+        }
+    }
+
+    private static String readName(ByteBuffer file, int position) {
+        int length = 0;
+        while (length < NAME_BYTES && file.get(position + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        file.get(position, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static ByteBuffer slice(ByteBuffer file, long offset, long length) {
+        return file.slice((int) offset, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
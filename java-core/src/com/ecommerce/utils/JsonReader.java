@@ -0,0 +1,193 @@
+package com.ecommerce.utils;
+
+/**
+ * Minimal pull parser for small JSON request bodies
+ * The caller walks the document with begin/end, hasNext() and next*() calls in the
+ * order it expects, and skips unknown members with skipValue(). Commas and colons
+ * are consumed implicitly. Malformed input raises IllegalArgumentException.
+ * Time Complexity: O(n) over the input
+ * Space Complexity: O(L) per string value
+ */
+public class JsonReader {
+    private final String json;
+    private int position;
+
+    public JsonReader(String json) {
+        this.json = json;
+        this.position = 0;
+    }
+
+    public void beginObject() {
+        expect('{');
+    }
+
+    public void endObject() {
+        expect('}');
+    }
+
+    public void beginArray() {
+        expect('[');
+    }
+
+    public void endArray() {
+        expect(']');
+    }
+
+    /**
+     * True if the current object or array has another element.
+     */
+    public boolean hasNext() {
+        skipSeparators();
+        if (position >= json.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = json.charAt(position);
+        return c != '}' && c != ']';
+    }
+
+    public String nextName() {
+        String name = nextString();
+        skipWhitespace();
+        expect(':');
+        return name;
+    }
+
+    public String nextString() {
+        skipSeparators();
+        if (position >= json.length() || json.charAt(position) != '"') {
+            throw error("Expected a string");
+        }
+        position++;
+        StringBuilder value = new StringBuilder();
+        while (position < json.length()) {
+            char c = json.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= json.length()) {
+                break;
+            }
+            char escaped = json.charAt(position++);
+            switch (escaped) {
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' -> {
+                    if (position + 4 > json.length()) {
+                        throw error("Bad unicode escape");
+                    }
+                    value.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                    position += 4;
+                }
+                default -> value.append(escaped);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    public int nextInt() {
+        try {
+            return Integer.parseInt(nextNumberText());
+        } catch (NumberFormatException e) {
+            throw error("Expected an integer");
+        }
+    }
+
+    public double nextDouble() {
+        try {
+            return Double.parseDouble(nextNumberText());
+        } catch (NumberFormatException e) {
+            throw error("Expected a number");
+        }
+    }
+
+    public boolean nextBoolean() {
+        skipSeparators();
+        if (json.startsWith("true", position)) {
+            position += 4;
+            return true;
+        }
+        if (json.startsWith("false", position)) {
+            position += 5;
+            return false;
+        }
+        throw error("Expected a boolean");
+    }
+
+    /**
+     * Skips the next value, including nested objects and arrays.
+     */
+    public void skipValue() {
+        skipSeparators();
+        if (position >= json.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = json.charAt(position);
+        if (c == '"') {
+            nextString();
+        } else if (c == '{' || c == '[') {
+            int nesting = 0;
+            do {
+                char current = json.charAt(position);
+                if (current == '"') {
+                    nextString();
+                    continue;
+                }
+                if (current == '{' || current == '[') {
+                    nesting++;
+                } else if (current == '}' || current == ']') {
+                    nesting--;
+                }
+                position++;
+            } while (nesting > 0 && position < json.length());
+        } else {
+            while (position < json.length() && ",}] \t\r\n".indexOf(json.charAt(position)) < 0) {
+                position++;
+            }
+        }
+    }
+
+    private String nextNumberText() {
+        skipSeparators();
+        int start = position;
+        while (position < json.length() && "+-0123456789.eE".indexOf(json.charAt(position)) >= 0) {
+            position++;
+        }
+        return json.substring(start, position);
+    }
+
+    private void expect(char c) {
+        skipSeparators();
+        if (position >= json.length() || json.charAt(position) != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private void skipSeparators() {
+        while (position < json.length()) {
+            char c = json.charAt(position);
+            if (c == ',' || Character.isWhitespace(c)) {
+                position++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
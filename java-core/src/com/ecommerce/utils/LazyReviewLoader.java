@@ -0,0 +1,335 @@
+package com.ecommerce.utils;
+
+import com.ecommerce.datastructures.ArrayList;
+import com.ecommerce.datastructures.IntHashMap;
+import com.ecommerce.datastructures.LRUCache;
+import com.ecommerce.datastructures.OffHeapTextArena;
+import com.ecommerce.models.Review;
+import com.ecommerce.models.ReviewSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lazy, on-demand review loading from the reviews CSV file
+ * An offset index maps each productId to the byte offsets of its review lines plus a
+ * rating summary (count and sum). The index is built in one pass and saved next to the
+ * CSV as "<file>.idx"; later runs reuse it while the CSV's size and modification time
+ * match. Reviews are read from disk only when a product's list is first requested, and
+ * a bounded LRU cache keeps the lists of recently read products. The file stays open as
+ * one read-only channel for the loader's lifetime and lines are read at their offsets,
+ * so a miss costs no open or seek; close() releases it.
+ * A miss that cannot be read or parsed throws and caches nothing, so a later call tries
+ * again instead of seeing a partial list.
+ * Each list read from disk gets its own off-heap comment arena, sized for the list's
+ * lines. The list's reviews are the only holders of that arena, so once the list is
+ * evicted and no caller still holds its reviews, the whole arena is freed at once.
+ * Time Complexity:
+ * - open(): O(F) to build the index from a file of F bytes, O(R) to load a saved one
+ * - getReviewCount()/getRatingSum(): O(1) average
+ * - loadReviews(): O(1) average on a cache hit, O(r * L) disk read on a miss
+ * - readReviews(): O(r * L) disk read, never cached
+ * Space Complexity: O(P + R) for the index (12 bytes per review) + cached lists
+ */
+public class LazyReviewLoader implements ReviewSource, Closeable {
+    private static final int INDEX_MAGIC = 0x52494458;
+    private static final int INDEX_FORMAT = 1;
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final long DEFAULT_MAX_CACHED_REVIEWS = 10_000;
+
+    private final File file;
+    private final FileChannel channel;
+    private final IntHashMap<ProductEntry> entries;
+    private final LRUCache<Integer, ArrayList<Review>> cache;
+    private final boolean indexReused;
+
+    private static class ProductEntry {
+        int count;
+        long ratingSum;
+        long[] offsets;
+        int[] lengths;
+
+        ProductEntry(int capacity) {
+            this.offsets = new long[capacity];
+            this.lengths = new int[capacity];
+        }
+
+        void add(long offset, int length, int rating) {
+            if (count == offsets.length) {
+                long[] newOffsets = new long[count * 2];
+                int[] newLengths = new int[count * 2];
+                System.arraycopy(offsets, 0, newOffsets, 0, count);
+                System.arraycopy(lengths, 0, newLengths, 0, count);
+                offsets = newOffsets;
+                lengths = newLengths;
+            }
+            offsets[count] = offset;
+            lengths[count] = length;
+            ratingSum += rating;
+            count++;
+        }
+    }
+
+    private LazyReviewLoader(File file, IntHashMap<ProductEntry> entries, long maxCachedReviews,
+                             boolean indexReused) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.entries = entries;
+        this.cache = new LRUCache<>(maxCachedReviews);
+        this.indexReused = indexReused;
+    }
+
+    public static LazyReviewLoader open(String filePath) {
+        return open(filePath, DEFAULT_MAX_CACHED_REVIEWS);
+    }
+
+    /**
+     * Loads the saved index for filePath, or builds and saves it if it is missing or
+     * stale, and opens the file for reading. Returns null if the reviews file cannot be
+     * read. The caller closes the loader once no product reads through it any more.
+     */
+    public static LazyReviewLoader open(String filePath, long maxCachedReviews) {
+        File file = new File(filePath);
+        File indexFile = new File(filePath + INDEX_SUFFIX);
+        try {
+            IntHashMap<ProductEntry> entries = readIndex(file, indexFile);
+            if (entries != null) {
+                return new LazyReviewLoader(file, entries, maxCachedReviews, true);
+            }
+            entries = buildIndex(file);
+            try {
+                writeIndex(file, indexFile, entries);
+            } catch (IOException e) {
+                System.err.println("Could not save review index: " + e.getMessage());
+            }
+            return new LazyReviewLoader(file, entries, maxCachedReviews, false);
+        } catch (IOException e) {
+            System.err.println("Error reading reviews file: " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing review data: " + e.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public int getReviewCount(int productId) {
+        ProductEntry entry = entries.get(productId);
+        return entry == null ? 0 : entry.count;
+    }
+
+    @Override
+    public long getRatingSum(int productId) {
+        ProductEntry entry = entries.get(productId);
+        return entry == null ? 0 : entry.ratingSum;
+    }
+
+    /**
+     * Returns the product's reviews, reading them on a cache miss.
+     * Throws UncheckedIOException if the file cannot be read and IllegalStateException
+     * if a line no longer parses, e.g. because the file changed since it was indexed.
+     */
+    @Override
+    public ArrayList<Review> loadReviews(int productId) {
+        ProductEntry entry = entries.get(productId);
+        if (entry == null) {
+            return new ArrayList<>(0);
+        }
+        ArrayList<Review> cached = cache.get(productId, 0);
+        if (cached != null) {
+            return cached;
+        }
+        ArrayList<Review> reviews = readReviews(entry);
+        cache.put(productId, reviews, 0, reviews.size() + 1);
+        return reviews;
+    }
+
+    /**
+     * Reads the product's reviews from disk, bypassing the cache so a full pass over the
+     * file does not evict the lists that requests are using. Throws like loadReviews().
+     */
+    @Override
+    public ArrayList<Review> readReviews(int productId) {
+        ProductEntry entry = entries.get(productId);
+        if (entry == null) {
+            return new ArrayList<>(0);
+        }
+        return readReviews(entry);
+    }
+
+    public int getIndexedProductCount() {
+        return entries.size();
+    }
+
+    /**
+     * True if the index was loaded from the saved file rather than rebuilt.
+     */
+    public boolean isIndexReused() {
+        return indexReused;
+    }
+
+    public LRUCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ArrayList<Review> readReviews(ProductEntry entry) {
+        ArrayList<Review> reviews = new ArrayList<>(entry.count);
+        // A comment is never longer than its line
+        int arenaBytes = 0;
+        for (int i = 0; i < entry.count; i++) {
+            arenaBytes += OffHeapTextArena.entryBytes(entry.lengths[i]);
+        }
+        OffHeapTextArena comments = new OffHeapTextArena(Math.max(arenaBytes, 1));
+        for (int i = 0; i < entry.count; i++) {
+            String line = readLine(entry.offsets[i], entry.lengths[i]);
+            try {
+                String[] values = CSVReader.parseCSVLine(line);
+                int reviewId = Integer.parseInt(values[0].trim());
+                int productId = Integer.parseInt(values[1].trim());
+                int customerId = Integer.parseInt(values[2].trim());
+                int rating = Integer.parseInt(values[3].trim());
+                String comment = values[4].trim().replace("\"", "");
+                reviews.add(Review.withComment(reviewId, productId, customerId, rating, comments, comments.add(comment)));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IllegalStateException("Malformed review at offset " + entry.offsets[i] + " of " + file
+                                                + "; was it changed since it was indexed?", e);
+            }
+        }
+        return reviews;
+    }
+
+    private String readLine(long offset, int length) {
+        ByteBuffer line = ByteBuffer.allocate(length);
+        try {
+            while (line.hasRemaining()) {
+                if (channel.read(line, offset + line.position()) < 0) {
+                    throw new IOException("Reviews file " + file + " changed since it was indexed");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(line.array(), StandardCharsets.UTF_8);
+    }
+
+    private static IntHashMap<ProductEntry> buildIndex(File file) throws IOException {
+        IntHashMap<ProductEntry> entries = new IntHashMap<>();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            byte[] line = new byte[256];
+            int length = 0;
+            long lineStart = 0;
+            long position = 0;
+            boolean isFirstLine = true;
+            int b;
+            while (true) {
+                b = in.read();
+                if (b == '\n' || b == -1) {
+                    int contentLength = length;
+                    if (contentLength > 0 && line[contentLength - 1] == '\r') {
+                        contentLength--;
+                    }
+                    if (isFirstLine) {
+                        isFirstLine = false;
+                    } else if (contentLength > 0) {
+                        indexLine(entries, new String(line, 0, contentLength, StandardCharsets.UTF_8), lineStart, contentLength);
+                    }
+                    if (b == -1) {
+                        break;
+                    }
+                    length = 0;
+                    lineStart = position + 1;
+                } else {
+                    if (length == line.length) {
+                        byte[] grown = new byte[line.length * 2];
+                        System.arraycopy(line, 0, grown, 0, length);
+                        line = grown;
+                    }
+                    line[length++] = (byte) b;
+                }
+                position++;
+            }
+        }
+        return entries;
+    }
+
+    private static void indexLine(IntHashMap<ProductEntry> entries, String line, long offset, int length) {
+        String[] values = CSVReader.parseCSVLine(line);
+        if (values.length >= 5) {
+            int productId = Integer.parseInt(values[1].trim());
+            int rating = Integer.parseInt(values[3].trim());
+            ProductEntry entry = entries.get(productId);
+            if (entry == null) {
+                entry = new ProductEntry(2);
+                entries.put(productId, entry);
+            }
+            entry.add(offset, length, rating);
+        }
+    }
+
+    private static IntHashMap<ProductEntry> readIndex(File file, File indexFile) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_FORMAT
+                    || in.readLong() != file.length() || in.readLong() != file.lastModified()) {
+                return null;
+            }
+            int productCount = in.readInt();
+            IntHashMap<ProductEntry> entries = new IntHashMap<>(productCount);
+            for (int i = 0; i < productCount; i++) {
+                int productId = in.readInt();
+                int count = in.readInt();
+                ProductEntry entry = new ProductEntry(Math.max(count, 1));
+                entry.count = count;
+                entry.ratingSum = in.readLong();
+                for (int j = 0; j < count; j++) {
+                    entry.offsets[j] = in.readLong();
+                    entry.lengths[j] = in.readInt();
+                }
+                entries.put(productId, entry);
+            }
+            return entries;
+        } catch (IOException e) {
+            // Unreadable or truncated index: rebuild it from the CSV
+            return null;
+        }
+    }
+
+    private static void writeIndex(File file, File indexFile, IntHashMap<ProductEntry> entries) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_FORMAT);
+            out.writeLong(file.length());
+            out.writeLong(file.lastModified());
+            int[] productIds = entries.keys();
+            out.writeInt(productIds.length);
+            for (int i = 0; i < productIds.length; i++) {
+                ProductEntry entry = entries.get(productIds[i]);
+                out.writeInt(productIds[i]);
+                out.writeInt(entry.count);
+                out.writeLong(entry.ratingSum);
+                for (int j = 0; j < entry.count; j++) {
+                    out.writeLong(entry.offsets[j]);
+                    out.writeInt(entry.lengths[j]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+import mmap
+import struct
+import sys
+from array import array
+from datetime import date, timedelta
+from pathlib import Path
+from typing import Any, Dict, List, Optional, Set
+
+from app.repositories.csv_repository import CSVRepository
+
+# Column types of the exchange file written by java-core (utils/ColumnarFile.java)
+TYPE_INT32 = 1
+TYPE_FLOAT64 = 2
+TYPE_UTF8 = 3
+TYPE_LIST_INT32 = 4
+TYPE_DATE32 = 5
+
+MAGIC = b"ECOLUMN1"
+FORMAT_VERSION = 1
+NAME_BYTES = 16
+EPOCH = date(1970, 1, 1)
+
+# java-core spells the canceled status differently from the API enum
+STATUS_NAMES = {"Canceled": "Cancelled"}
+
+
+class _Column:
+    def __init__(self, name: str, col_type: int, data: memoryview, aux: memoryview):
+        self.name = name
+        self.type = col_type
+        self.data = data
+        self.aux = aux
+
+    def values(self) -> List[Any]:
+        if self.type == TYPE_INT32:
+            return _cast(self.data, 'i').tolist()
+        if self.type == TYPE_FLOAT64:
+            return _cast(self.data, 'd').tolist()
+        if self.type == TYPE_DATE32:
+            return [(EPOCH + timedelta(days=d)).isoformat() for d in _cast(self.data, 'i')]
+        offsets = _cast(self.data, 'i')
+        if self.type == TYPE_UTF8:
+            heap = self.aux
+            return [str(heap[offsets[i]:offsets[i + 1]], 'utf-8') for i in range(len(offsets) - 1)]
+        if self.type == TYPE_LIST_INT32:
+            items = _cast(self.aux, 'i')
+            return [list(items[offsets[i]:offsets[i + 1]]) for i in range(len(offsets) - 1)]
+        raise ValueError(f"Unknown column type {self.type} for {self.name}")
+
+    def release(self):
+        self.data.release()
+        self.aux.release()
+
+
+def _cast(buffer: memoryview, code: str):
+    """Reinterprets a little-endian buffer in place; copies only on big-endian hosts."""
+    if sys.byteorder == 'little':
+        return buffer.cast(code)
+    values = array(code, bytes(buffer))
+    values.byteswap()
+    return values
+
+
+class ColumnarRepository(CSVRepository):
+    """Reads the columnar exchange file exported by java-core instead of parsing CSVs.
+
+    The file is memory-mapped once per export and every table is decoded straight from
+    the mapped columns; the mapping is then closed and the decoded rows are kept until
+    they are read. Callers edit the rows they read, so each decoded table is handed over
+    as is, without a copy, and dropped from the cache; reading the same table again
+    decodes the export again. A file that cannot be decoded is remembered by its
+    modification time, so it is reported once and not retried until java-core writes a
+    new export. The file is only used while it is newer than every CSV; otherwise, and
+    for all writes, the CSV repository is used.
+    """
+
+    def __init__(self, data_dir: str = "data", exchange_file: str = "dataset.ecol"):
+        super().__init__(data_dir)
+        self.exchange_file = self.data_dir / exchange_file
+        self._tables: Dict[str, List[Dict[str, Any]]] = {}
+        self._handed_out: Set[str] = set()
+        self._loaded_mtime: Optional[float] = None
+        self._failed_mtime: Optional[float] = None
+
+    def read_products(self) -> List[Dict[str, Any]]:
+        rows = self._rows('products')
+        return rows if rows is not None else super().read_products()
+
+    def read_customers(self) -> List[Dict[str, Any]]:
+        rows = self._rows('customers')
+        return rows if rows is not None else super().read_customers()
+
+    def read_orders(self) -> List[Dict[str, Any]]:
+        rows = self._rows('orders')
+        return rows if rows is not None else super().read_orders()
+
+    def read_reviews(self) -> List[Dict[str, Any]]:
+        rows = self._rows('reviews')
+        return rows if rows is not None else super().read_reviews()
+
+    def _rows(self, table_name: str) -> Optional[List[Dict[str, Any]]]:
+        if not self._is_current():
+            self._tables = {}
+            return None
+        exported = self.exchange_file.stat().st_mtime
+        if exported == self._failed_mtime:
+            return None
+        if exported != self._loaded_mtime or table_name in self._handed_out:
+            tables = self._decode_once(exported)
+            if tables is None:
+                return None
+            self._tables = tables
+            self._handed_out = set()
+            self._loaded_mtime = exported
+        rows = self._tables.pop(table_name, None)
+        if rows is not None:
+            self._handed_out.add(table_name)
+        return rows
+
+    def _decode_once(self, exported: float) -> Optional[Dict[str, List[Dict[str, Any]]]]:
+        try:
+            tables = self._decode()
+        except (OSError, ValueError, IndexError, struct.error) as error:
+            print(f"Unreadable exchange file {self.exchange_file}: {error}")
+            tables = None
+        if tables is None:
+            self._tables = {}
+            self._failed_mtime = exported
+        return tables
+
+    def _decode(self) -> Optional[Dict[str, List[Dict[str, Any]]]]:
+        with open(self.exchange_file, 'rb') as f:
+            mapped = mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_READ)
+        view = memoryview(mapped)
+        columns: List[_Column] = []
+        try:
+            if bytes(view[0:8]) != MAGIC or struct.unpack_from('<i', view, 8)[0] != FORMAT_VERSION:
+                print(f"Unsupported exchange file: {self.exchange_file}")
+                return None
+            table_count = struct.unpack_from('<i', view, 12)[0]
+            tables: Dict[str, List[Dict[str, Any]]] = {}
+            position = 16
+            for _ in range(table_count):
+                table_name = _read_name(view, position)
+                _, column_count = struct.unpack_from('<ii', view, position + NAME_BYTES)
+                position += NAME_BYTES + 8
+                decoded: List[Any] = []
+                for _ in range(column_count):
+                    column_name = _read_name(view, position)
+                    col_type, _, data_off, data_len, aux_off, aux_len = struct.unpack_from(
+                        '<iiqqqq', view, position + NAME_BYTES)
+                    column = _Column(column_name, col_type,
+                                     view[data_off:data_off + data_len],
+                                     view[aux_off:aux_off + aux_len])
+                    columns.append(column)
+                    decoded.append((column_name, column.values()))
+                    position += NAME_BYTES + 40
+                row_count = len(decoded[0][1]) if decoded else 0
+                tables[table_name] = [{name: values[i] for name, values in decoded} for i in range(row_count)]
+            for row in tables.get('orders', []):
+                row['status'] = STATUS_NAMES.get(row['status'], row['status'])
+            return tables
+        finally:
+            # Every view into the mapping must be released before it can be closed
+            for column in columns:
+                column.release()
+            view.release()
+            mapped.close()
+
+    def _is_current(self) -> bool:
+        if not self.exchange_file.exists():
+            return False
+        exported = self.exchange_file.stat().st_mtime
+        for csv_file in (self.products_file, self.customers_file, self.orders_file, self.reviews_file):
+            if Path(csv_file).exists() and Path(csv_file).stat().st_mtime > exported:
+                return False
+        return True
+
+
+def _read_name(view: memoryview, position: int) -> str:
+    raw = bytes(view[position:position + NAME_BYTES])
+    return raw.split(b'\0', 1)[0].decode('ascii')
@@ -7,11 +7,12 @@ from app.models.entities import (
     OrderStatus
 )
 from app.services.ecommerce_service import ECommerceService
-from app.repositories.csv_repository import CSVRepository
+from app.repositories.columnar_repository import ColumnarRepository
 
 router = APIRouter()
 
-repository = CSVRepository()
+# Uses the columnar file exported by java-core when it is newer than the CSVs
+repository = ColumnarRepository()
 service = ECommerceService(repository)
 
 